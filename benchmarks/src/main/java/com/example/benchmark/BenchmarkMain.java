@@ -0,0 +1,38 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the selected benchmarks once per thread count and writes one JSON result file
+ * per run, so results can be diffed across builds.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar com.example.benchmark.BenchmarkMain [regex] [threads] [outDir]}
+ * e.g. {@code OrderService 1,4,8 target/jmh-results}
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com.example.benchmark.*";
+        String threads = args.length > 1 ? args[1] : "1,4";
+        File outDir = new File(args.length > 2 ? args[2] : "target/jmh-results");
+        outDir.mkdirs();
+
+        for (String t : threads.split(",")) {
+            int threadCount = Integer.parseInt(t.trim());
+            Options options = new OptionsBuilder()
+                .include(include)
+                .threads(threadCount)
+                .jvmArgsAppend("-Dlogback.configurationFile=logback-bench.xml")
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(outDir, "jmh-t" + threadCount + ".json").getPath())
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.service.BulkRefundReport;
+import com.example.service.OrderService;
+import com.example.service.PaymentService;
+import com.example.service.ProductService;
+import com.example.service.StubPaymentGateway;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link OrderService#cancelAndRefund} against a stub gateway that takes
+ * {@code refundMicros} per refund and rejects a few percent of them, so retries and
+ * backoff are part of the measurement. One operation cancels and refunds {@code orders}
+ * confirmed orders; divide to get orders per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class BulkRefundBenchmark {
+
+    @Param({"1000"})
+    private int orders;
+
+    @Param({"1", "8", "32", "128"})
+    private int parallelism;
+
+    @Param({"2000"})
+    private long refundMicros;
+
+    private OrderService service;
+    private LocalDateTime from;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        OrderRepository repository = new OrderRepository(0);
+        ProductRepository products = new ProductRepository(0, false);
+        service = new OrderService(repository, products, new ProductService(products),
+            new PaymentService(new StubPaymentGateway(3, refundMicros)));
+        from = LocalDateTime.now().minusMinutes(1);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order(null, (long) i);
+            order.addItem(new OrderItem(1L, "Widget", 1, new BigDecimal("5.00")));
+            order.setStatus(OrderStatus.CONFIRMED);
+            order.setPaymentTransactionId("txn-" + i);
+            repository.save(order);
+        }
+    }
+
+    @Benchmark
+    public BulkRefundReport cancelAndRefund() {
+        return service.cancelAndRefund(EnumSet.of(OrderStatus.CONFIRMED), from, LocalDateTime.now().plusMinutes(1),
+            parallelism, 5, Duration.ofMillis(1));
+    }
+}
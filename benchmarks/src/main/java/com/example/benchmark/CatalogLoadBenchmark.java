@@ -0,0 +1,98 @@
+package com.example.benchmark;
+
+import com.example.catalog.CatalogLoader;
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.util.MoneyUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold bulk load of a generated catalog through {@link CatalogLoader}, from CSV and from
+ * the binary format, against reading the same CSV line by line with {@code String.split}
+ * and saving products one at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "-Dlogback.configurationFile=logback-bench.xml"})
+public class CatalogLoadBenchmark {
+
+    @Param({"5000000"})
+    public int products;
+
+    private Path csv;
+    private Path binary;
+    private ProductRepository repository;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        List<Product> catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product((long) i + 1, "Product " + i, MoneyUtils.fromCents(99 + i % 100_000), i % 1000);
+            product.setCategory("Category " + i % 40);
+            product.setActive(i % 10 != 0);
+            product.setDescription("Description of product " + i);
+            catalog.add(product);
+        }
+        csv = Files.createTempFile("catalog-bench", ".csv");
+        binary = Files.createTempFile("catalog-bench", ".bin");
+        try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+            out.write("id,name,category,price,stock,active,description\n");
+            for (Product p : catalog) {
+                out.write(p.getId() + "," + p.getName() + "," + p.getCategory() + "," + p.getPrice() + ","
+                    + p.getStockQuantity() + "," + p.isActive() + "," + p.getDescription() + "\n");
+            }
+        }
+        CatalogLoader.writeBinary(binary, catalog);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshRepository() {
+        repository = new ProductRepository(0, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(binary);
+    }
+
+    @Benchmark
+    public int loadCsv() throws IOException {
+        return new CatalogLoader(repository).loadCsv(csv);
+    }
+
+    @Benchmark
+    public int loadBinary() throws IOException {
+        return new CatalogLoader(repository).loadBinary(binary);
+    }
+
+    @Benchmark
+    public int splitAndSaveBaseline() throws IOException {
+        int count = 0;
+        try (var lines = Files.lines(csv)) {
+            for (String line : (Iterable<String>) lines.skip(1)::iterator) {
+                String[] fields = line.split(",", -1);
+                Product product = new Product(Long.parseLong(fields[0]), fields[1],
+                    new BigDecimal(fields[3]), Integer.parseInt(fields[4]));
+                product.setCategory(fields[2]);
+                product.setActive(Boolean.parseBoolean(fields[5]));
+                product.setDescription(fields[6]);
+                repository.save(product);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.benchmark;
+
+import com.example.cdc.ChangeEvent;
+import com.example.cdc.ChangePublisher;
+import com.example.exception.SubscriberOverflowException;
+import com.example.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-path cost of the change streams: repository writes with no subscriber (the
+ * {@code hasSubscribers} guard only), with draining subscribers, and with one subscriber
+ * that never requests anything, which must not slow writers down once it overflows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class ChangeStreamBenchmark {
+
+    @Param({"0", "1", "4"})
+    public int subscribers;
+
+    @Param({"false", "true"})
+    public boolean withStalledSubscriber;
+
+    private Fixture fixture;
+    private Order order;
+    private final LongAdder consumed = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new Fixture();
+        order = fixture.orderRepository.save(new Order(null, 1L));
+        for (int i = 0; i < subscribers; i++) {
+            new Draining<>(fixture.orderRepository.getChangePublisher(), consumed).start();
+            new Draining<>(fixture.productRepository.getChangePublisher(), consumed).start();
+        }
+        if (withStalledSubscriber) {
+            fixture.orderRepository.getChangePublisher().subscribe(new Stalled<>());
+            fixture.productRepository.getChangePublisher().subscribe(new Stalled<>());
+        }
+    }
+
+    @Benchmark
+    public Order orderSave() {
+        return fixture.orderRepository.save(order);
+    }
+
+    @Benchmark
+    public boolean productDecreaseStock() {
+        return fixture.productRepository.decreaseStock(Fixture.HOT_PRODUCT_ID, 1);
+    }
+
+    /**
+     * Consumes everything; if the writers outrun it (likely with few cores) it overflows
+     * and subscribes again, as a real consumer would after resynchronizing.
+     */
+    private static final class Draining<T> implements Flow.Subscriber<ChangeEvent<T>> {
+        private final ChangePublisher<T> publisher;
+        private final LongAdder consumed;
+
+        Draining(ChangePublisher<T> publisher, LongAdder consumed) {
+            this.publisher = publisher;
+            this.consumed = consumed;
+        }
+
+        void start() {
+            publisher.subscribe(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ChangeEvent<T> event) {
+            consumed.increment();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (throwable instanceof SubscriberOverflowException) {
+                start();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static final class Stalled<T> implements Flow.Subscriber<ChangeEvent<T>> {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+        }
+
+        @Override
+        public void onNext(ChangeEvent<T> event) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.benchmark;
+
+import com.example.codec.OrderCodec;
+import com.example.codec.OrderView;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order encode/decode with {@link OrderCodec} against JDK serialization of an equivalent
+ * plain object graph, plus a zero-allocation scan through {@link OrderView} that sums the
+ * item subtotals of a buffer of encoded orders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class CodecBenchmark {
+    private static final int SCAN_ORDERS = 10_000;
+
+    @Param({"heap", "direct"})
+    public String bufferKind;
+
+    private Order order;
+    private PlainOrder plainOrder;
+    private ByteBuffer single;
+    private ByteBuffer scanBuffer;
+    private byte[] serialized;
+    private final OrderView view = new OrderView();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        order = sampleOrder(1L);
+        plainOrder = new PlainOrder(order);
+        single = allocate(OrderCodec.encodedSize(order));
+        OrderCodec.encode(order, single);
+        serialized = serialize(plainOrder);
+
+        List<Order> orders = new ArrayList<>(SCAN_ORDERS);
+        int bytes = 0;
+        for (long id = 1; id <= SCAN_ORDERS; id++) {
+            Order o = sampleOrder(id);
+            orders.add(o);
+            bytes += OrderCodec.encodedSize(o);
+        }
+        scanBuffer = allocate(bytes);
+        orders.forEach(o -> OrderCodec.encode(o, scanBuffer));
+        scanBuffer.flip();
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        return "direct".equals(bufferKind) ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+
+    @Benchmark
+    public ByteBuffer codecEncode() {
+        single.clear();
+        OrderCodec.encode(order, single);
+        return single;
+    }
+
+    @Benchmark
+    public Order codecDecode() {
+        single.position(0);
+        return OrderCodec.decode(single);
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException {
+        return serialize(plainOrder);
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Sums subtotals across every encoded order; reported per order scanned.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SCAN_ORDERS)
+    public long viewScan() {
+        long total = 0;
+        int offset = 0;
+        int limit = scanBuffer.limit();
+        while (offset < limit) {
+            OrderView.ItemCursor items = view.wrap(scanBuffer, offset).items();
+            while (items.next()) {
+                total += items.subtotalCents();
+            }
+            offset += view.length();
+        }
+        return total;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Order sampleOrder(long id) {
+        Order order = new Order(id, 1 + id % 1000);
+        order.setShippingAddress("221B Baker Street, London NW1 6XE");
+        for (int i = 0; i < 3; i++) {
+            order.addItem(new OrderItem(1000L + i, "Benchmark Widget " + i, 1 + i, new BigDecimal("19.99")));
+        }
+        return order;
+    }
+
+    /**
+     * Serializable mirror of an order, since the models themselves are not serializable.
+     */
+    static final class PlainOrder implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final Long id;
+        final Long userId;
+        final String status;
+        final BigDecimal totalAmount;
+        final long createdAtMillis;
+        final long updatedAtMillis;
+        final String shippingAddress;
+        final List<PlainItem> items = new ArrayList<>();
+
+        PlainOrder(Order order) {
+            id = order.getId();
+            userId = order.getUserId();
+            status = order.getStatus().name();
+            totalAmount = order.getTotalAmount();
+            createdAtMillis = order.getCreatedAtMillis();
+            updatedAtMillis = order.getLastModifiedMillis();
+            shippingAddress = order.getShippingAddress();
+            for (OrderItem item : order.getItems()) {
+                items.add(new PlainItem(item));
+            }
+        }
+    }
+
+    static final class PlainItem implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final Long productId;
+        final String productName;
+        final int quantity;
+        final BigDecimal price;
+
+        PlainItem(OrderItem item) {
+            productId = item.getProductId();
+            productName = item.getProductName();
+            quantity = item.getQuantity();
+            price = item.getPrice();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import com.example.service.OrderService;
+import com.example.service.PaymentService;
+import com.example.service.ProductService;
+import com.example.service.StubPaymentGateway;
+import com.example.service.UserService;
+
+import java.math.BigDecimal;
+
+/**
+ * Application wired for benchmarking: no simulated DB latency and an in-process
+ * payment gateway that approves every charge immediately.
+ */
+class Fixture {
+    static final String CARD = "4111111111111111";
+    static final long HOT_PRODUCT_ID = 1000L;
+
+    final UserRepository userRepository = new UserRepository(0);
+    final OrderRepository orderRepository = new OrderRepository(0);
+    final ProductRepository productRepository = new ProductRepository(0);
+
+    final ProductService productService = new ProductService(productRepository);
+    final PaymentService paymentService = new PaymentService(new StubPaymentGateway());
+    final UserService userService = new UserService(userRepository);
+    final OrderService orderService =
+        new OrderService(orderRepository, productRepository, productService, paymentService);
+
+    Fixture() {
+        // Effectively unlimited stock so processOrder never runs dry mid-iteration
+        productRepository.save(new Product(HOT_PRODUCT_ID, "Benchmark Widget", new BigDecimal("19.99"), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Pre-populates {@code count} orders spread over {@code users} users and all statuses.
+     */
+    void populateOrders(int count, int users) {
+        OrderStatus[] statuses = OrderStatus.values();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order(null, (long) (i % users) + 1);
+            order.setStatus(statuses[i % statuses.length]);
+            orderRepository.save(order);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap footprint of orders and items in the previous (boxed, {@code BigDecimal},
+ * {@code LocalDateTime}) layout versus the current compact one, measured with JOL.
+ *
+ * Items are built the way storage decoding builds them: each with its own copy of the
+ * product name and price. Usage: {@code java -Xmx16g -cp benchmarks.jar
+ * com.example.benchmark.HeapFootprint [items]} (default 10,000,000 items, 4 per order).
+ */
+public class HeapFootprint {
+    private static final int ITEMS_PER_ORDER = 4;
+    private static final int PRODUCTS = 1000;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int orders = items / ITEMS_PER_ORDER;
+
+        long legacy = measure("legacy layout", buildLegacy(orders), items);
+        long compact = measure("compact layout", buildCompact(orders), items);
+        System.out.printf("%nSaved %,d bytes (%.1f%%)%n", legacy - compact, 100.0 * (legacy - compact) / legacy);
+    }
+
+    private static long measure(String label, List<?> orders, int items) {
+        GraphLayout layout = GraphLayout.parseInstance(orders);
+        long total = layout.totalSize();
+        System.out.printf("%n== %s: %,d objects, %,d bytes, %.1f bytes/item ==%n",
+            label, layout.totalCount(), total, (double) total / items);
+        System.out.println(layout.toFootprint());
+        return total;
+    }
+
+    private static List<LegacyOrder> buildLegacy(int orders) {
+        List<LegacyOrder> result = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            LegacyOrder order = new LegacyOrder();
+            order.id = (long) i + 1;
+            order.userId = (long) (i % 100_000) + 1;
+            order.status = OrderStatus.DELIVERED;
+            order.createdAt = LocalDateTime.now();
+            order.updatedAt = LocalDateTime.now();
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                LegacyOrderItem item = new LegacyOrderItem();
+                item.productId = (long) ((i * ITEMS_PER_ORDER + j) % PRODUCTS) + 1;
+                item.productName = new String("Product " + item.productId);
+                item.quantity = 1 + j;
+                item.price = new BigDecimal("19.99");
+                total = total.add(item.price.multiply(BigDecimal.valueOf(item.quantity)));
+                order.items.add(item);
+            }
+            order.totalAmount = total;
+            result.add(order);
+        }
+        return result;
+    }
+
+    private static List<Order> buildCompact(int orders) {
+        List<Order> result = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order((long) i + 1, (long) (i % 100_000) + 1);
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                long productId = (long) ((i * ITEMS_PER_ORDER + j) % PRODUCTS) + 1;
+                order.addItem(new OrderItem(productId, new String("Product " + productId), 1 + j, new BigDecimal("19.99")));
+            }
+            order.setStatus(OrderStatus.DELIVERED);
+            result.add(order);
+        }
+        return result;
+    }
+
+    /** Field layout of {@link Order} before it was compacted. */
+    static final class LegacyOrder {
+        Long id;
+        Long userId;
+        List<LegacyOrderItem> items = new ArrayList<>();
+        BigDecimal totalAmount;
+        volatile OrderStatus status;
+        volatile int processingClaim;
+        String shippingAddress;
+        LocalDateTime createdAt;
+        volatile LocalDateTime updatedAt;
+    }
+
+    /** Field layout of {@link OrderItem} before it was compacted. */
+    static final class LegacyOrderItem {
+        Long id;
+        Long productId;
+        String productName;
+        int quantity;
+        BigDecimal price;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flash-sale lookups: many threads calling {@link ProductRepository#findById} with a 1 ms
+ * simulated round trip, either all for one hot product or spread over the catalog.
+ *
+ * The {@code backendCalls} counter is the number of simulated round trips; divided by
+ * the operation count it falls from 1 towards {@code 1/threads} when lookups share a
+ * key. Run with more threads than cores, e.g. {@code -t 64}, as the callers mostly sleep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class HotKeyLookupBenchmark {
+
+    private ProductRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new ProductRepository(1);
+    }
+
+    @Benchmark
+    public Optional<Product> hotProduct(BackendCalls calls) {
+        return calls.track(repository, 1L);
+    }
+
+    @Benchmark
+    public Optional<Product> spreadProducts(BackendCalls calls) {
+        return calls.track(repository, ThreadLocalRandom.current().nextLong(1, 11));
+    }
+
+    /**
+     * Per-thread share of the simulated round trips, reported by JMH as a secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BackendCalls {
+        public double backendCalls;
+        public long lookups;
+
+        Optional<Product> track(ProductRepository repository, long id) {
+            long before = repository.getFindByIdLoads().getLoadCount();
+            long sharedBefore = repository.getFindByIdLoads().getSharedCount();
+            Optional<Product> product = repository.findById(id);
+            long loads = repository.getFindByIdLoads().getLoadCount() - before;
+            long shared = repository.getFindByIdLoads().getSharedCount() - sharedBefore;
+            // Counters are global: attribute each round trip evenly to the lookups that used it
+            backendCalls += loads + shared == 0 ? 0 : (double) loads / (loads + shared);
+            lookups++;
+            return product;
+        }
+    }
+}
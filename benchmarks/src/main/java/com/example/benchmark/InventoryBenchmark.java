@@ -0,0 +1,64 @@
+package com.example.benchmark;
+
+import com.example.inventory.InventoryEngine;
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock reservation throughput: single-writer shards vs. per-product locking in the
+ * repository. Run with several thread counts (see {@link BenchmarkMain}) to see how
+ * throughput scales with {@code shards}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class InventoryBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    /** Number of distinct SKUs reserved against; 1 models a single flash-sale item. */
+    @Param({"1", "1024"})
+    public int hotProducts;
+
+    private static final long FIRST_ID = 10_000L;
+
+    private ProductRepository repository;
+    private InventoryEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new ProductRepository(0);
+        for (int i = 0; i < hotProducts; i++) {
+            repository.save(new Product(FIRST_ID + i, "SKU " + i, new BigDecimal("1.00"), Integer.MAX_VALUE));
+        }
+        engine = new InventoryEngine(repository, shards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    private long nextProduct() {
+        return FIRST_ID + ThreadLocalRandom.current().nextInt(hotProducts);
+    }
+
+    @Benchmark
+    public InventoryEngine.Reservation shardedReserve() {
+        return engine.reserve(nextProduct(), 1).join();
+    }
+
+    @Benchmark
+    public boolean lockedReserve() {
+        return repository.decreaseStock(nextProduct(), 1);
+    }
+}
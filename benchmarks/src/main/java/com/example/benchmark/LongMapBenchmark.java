@@ -0,0 +1,95 @@
+package com.example.benchmark;
+
+import com.example.util.ConcurrentLongHashMap;
+import com.example.util.LongHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random hits against {@code long}-keyed maps of repository size: the boxed JDK maps the
+ * repositories used before versus {@link LongHashMap} and {@link ConcurrentLongHashMap}.
+ * Memory per entry is measured separately by {@link MapFootprint}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dlogback.configurationFile=logback-bench.xml", "-Xmx6g"})
+public class LongMapBenchmark {
+    private static final int LOOKUPS = 1 << 20;
+
+    @Param({"10000000"})
+    public int entries;
+
+    private final Object value = new Object();
+    private long[] lookupKeys;
+    private HashMap<Long, Object> hashMap;
+    private ConcurrentHashMap<Long, Object> concurrentHashMap;
+    private LongHashMap<Object> longHashMap;
+    private ConcurrentLongHashMap<Object> concurrentLongHashMap;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hashMap = new HashMap<>();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        longHashMap = new LongHashMap<>();
+        concurrentLongHashMap = new ConcurrentLongHashMap<>();
+        for (long id = 1; id <= entries; id++) {
+            hashMap.put(id, value);
+            concurrentHashMap.put(id, value);
+            longHashMap.put(id, value);
+            concurrentLongHashMap.put(id, value);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        lookupKeys = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupKeys[i] = random.nextLong(1, entries + 1L);
+        }
+    }
+
+    private long nextKey(Cursor cursor) {
+        return lookupKeys[cursor.next++ & (LOOKUPS - 1)];
+    }
+
+    @Benchmark
+    public Object hashMapGet(Cursor cursor) {
+        return hashMap.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    public Object concurrentHashMapGet(Cursor cursor) {
+        return concurrentHashMap.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    public Object longHashMapGet(Cursor cursor) {
+        return longHashMap.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    public Object concurrentLongHashMapGet(Cursor cursor) {
+        return concurrentLongHashMap.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object concurrentHashMapGetContended(Cursor cursor) {
+        return concurrentHashMap.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object concurrentLongHashMapGetContended(Cursor cursor) {
+        return concurrentLongHashMap.get(nextKey(cursor));
+    }
+}
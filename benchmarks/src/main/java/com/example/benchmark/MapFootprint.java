@@ -0,0 +1,55 @@
+package com.example.benchmark;
+
+import com.example.util.ConcurrentLongHashMap;
+import com.example.util.LongHashMap;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bytes per entry of the repository backing maps, measured with JOL. All entries share
+ * one value object, so only keys and map structure are counted.
+ *
+ * Usage: {@code java -Xmx8g -cp benchmarks.jar com.example.benchmark.MapFootprint [entries]}
+ * (default 10,000,000).
+ */
+public class MapFootprint {
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Object value = new Object();
+
+        HashMap<Long, Object> hashMap = new HashMap<>();
+        for (long id = 1; id <= entries; id++) {
+            hashMap.put(id, value);
+        }
+        report("HashMap<Long, V>", hashMap, value, entries);
+        hashMap = null;
+
+        ConcurrentHashMap<Long, Object> concurrentHashMap = new ConcurrentHashMap<>();
+        for (long id = 1; id <= entries; id++) {
+            concurrentHashMap.put(id, value);
+        }
+        report("ConcurrentHashMap<Long, V>", concurrentHashMap, value, entries);
+        concurrentHashMap = null;
+
+        LongHashMap<Object> longHashMap = new LongHashMap<>();
+        for (long id = 1; id <= entries; id++) {
+            longHashMap.put(id, value);
+        }
+        report("LongHashMap<V>", longHashMap, value, entries);
+        longHashMap = null;
+
+        ConcurrentLongHashMap<Object> concurrentLongHashMap = new ConcurrentLongHashMap<>();
+        for (long id = 1; id <= entries; id++) {
+            concurrentLongHashMap.put(id, value);
+        }
+        report("ConcurrentLongHashMap<V>", concurrentLongHashMap, value, entries);
+    }
+
+    private static void report(String label, Object map, Object sharedValue, int entries) {
+        long bytes = GraphLayout.parseInstance(map).totalSize() - GraphLayout.parseInstance(sharedValue).totalSize();
+        System.out.printf("%-28s %,15d bytes  %6.1f bytes/entry%n", label, bytes, (double) bytes / entries);
+    }
+}
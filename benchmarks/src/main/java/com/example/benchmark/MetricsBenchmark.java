@@ -0,0 +1,55 @@
+package com.example.benchmark;
+
+import com.example.exception.PaymentFailedException;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of operation metrics recording (target: well under 100ns).
+ *
+ * The {@code baseline} benchmark measures the bare {@link System#nanoTime()} pair so the
+ * recording cost can be read off as the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class MetricsBenchmark {
+
+    private OperationMetrics metrics;
+    private RuntimeException declined;
+
+    @Setup
+    public void setUp() {
+        metrics = new MetricsRegistry(false).operation("Benchmark.op");
+        declined = new PaymentFailedException("txn", BigDecimal.ONE, "CARD_DECLINED");
+    }
+
+    @Benchmark
+    public long baseline() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void recordSuccess() {
+        metrics.record(System.nanoTime(), null);
+    }
+
+    @Benchmark
+    public void recordFailure() {
+        metrics.record(System.nanoTime(), declined);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordSuccessContended() {
+        metrics.record(System.nanoTime(), null);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.benchmark;
+
+import com.example.analytics.OrderAnalytics;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-range scans over a large order table: the copying repository query, and the
+ * parallel aggregations in {@link OrderAnalytics} over a quarter of the data.
+ *
+ * The 50M-order table needs a heap of roughly 24 GB, e.g.
+ * {@code -jvmArgsAppend -Xmx24g}; use {@code -p orderCount=1000000} on smaller machines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class OrderAnalyticsBenchmark {
+
+    @Param({"50000000"})
+    public int orderCount;
+
+    private static final int USERS = 100_000;
+    private static final int PRODUCTS = 1000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final BigDecimal PRICE = new BigDecimal("19.99");
+
+    private OrderRepository orderRepository;
+    private OrderAnalytics analytics;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderRepository = new OrderRepository(0);
+        analytics = new OrderAnalytics(orderRepository);
+        OrderStatus[] statuses = OrderStatus.values();
+        // One year of history, evenly spaced
+        long stepNanos = 365L * 24 * 3600 * 1_000_000_000L / orderCount;
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order(null, (long) (i % USERS) + 1);
+            order.addItem(new OrderItem((long) (i % PRODUCTS) + 1, "Product", 1 + i % 3, PRICE));
+            order.setCreatedAt(EPOCH.plusNanos(i * stepNanos));
+            order.setStatus(statuses[i % statuses.length]);
+            orderRepository.save(order);
+        }
+        from = EPOCH.plusDays(120);
+        to = from.plusDays(91);
+    }
+
+    @Benchmark
+    public List<Order> findByCreatedAtBetween() {
+        return orderRepository.findByCreatedAtBetween(from, to);
+    }
+
+    @Benchmark
+    public OrderAnalytics.RangeTotals summarize() {
+        return analytics.summarize(from, to);
+    }
+
+    @Benchmark
+    public Map<OrderStatus, OrderAnalytics.RangeTotals> groupByStatus() {
+        return analytics.groupByStatus(from, to);
+    }
+
+    @Benchmark
+    public Map<Long, OrderAnalytics.RangeTotals> groupByProduct() {
+        return analytics.groupByProduct(from, to);
+    }
+
+    @Benchmark
+    public long sequentialCount() {
+        long count = 0;
+        for (Order ignored : orderRepository.createdBetween(from, to)) {
+            count++;
+        }
+        return count;
+    }
+}
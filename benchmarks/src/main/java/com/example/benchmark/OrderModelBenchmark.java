@@ -0,0 +1,49 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Order#addItem} and {@link Order#recalculateTotal} as the order grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class OrderModelBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int itemCount;
+
+    private Order order;
+    private OrderItem item;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        order = new Order(1L, 1L);
+        for (int i = 0; i < itemCount; i++) {
+            order.addItem(new OrderItem((long) i, "Item " + i, 1 + i % 3, new BigDecimal("9.99")));
+        }
+        item = new OrderItem(999L, "Extra", 2, new BigDecimal("4.50"));
+    }
+
+    @Benchmark
+    public BigDecimal recalculateTotal() {
+        order.recalculateTotal();
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public BigDecimal addItem() {
+        // Add and remove so the order keeps its parameterized size
+        order.addItem(item);
+        order.getItems().remove(order.getItems().size() - 1);
+        return order.getTotalAmount();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order service hot paths with a stub payment gateway and no DB latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class OrderServiceBenchmark {
+
+    private Fixture fixture;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new Fixture();
+    }
+
+    @State(Scope.Thread)
+    public static class PendingOrder {
+        Order order;
+
+        @Setup(Level.Invocation)
+        public void create(OrderServiceBenchmark benchmark) {
+            order = benchmark.fixture.orderService.createOrder(1L, "1 Benchmark Way");
+            benchmark.fixture.orderService.addItemToOrder(order.getId(), Fixture.HOT_PRODUCT_ID, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OpenOrder {
+        Order order;
+
+        @Setup(Level.Iteration)
+        public void create(OrderServiceBenchmark benchmark) {
+            order = benchmark.fixture.orderService.createOrder(1L, "1 Benchmark Way");
+        }
+    }
+
+    @Benchmark
+    public Order addItemToOrder(OpenOrder open) {
+        Order order = fixture.orderService.addItemToOrder(open.order.getId(), Fixture.HOT_PRODUCT_ID, 1);
+        // Keep the order small so later invocations measure the same work
+        order.getItems().clear();
+        return order;
+    }
+
+    @Benchmark
+    public Order processOrder(PendingOrder pending) {
+        return fixture.orderService.processOrder(pending.order.getId(), Fixture.CARD);
+    }
+
+    @Benchmark
+    public Order checkout() {
+        Order order = fixture.orderService.createOrder(1L, "1 Benchmark Way");
+        fixture.orderService.addItemToOrder(order.getId(), Fixture.HOT_PRODUCT_ID, 1);
+        return fixture.orderService.processOrder(order.getId(), Fixture.CARD);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import com.example.repository.OrderRepository;
+import com.example.service.PartitionedOrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout throughput of the shared-map {@link com.example.service.OrderService} against
+ * {@link PartitionedOrderService}, for random users. {@code partitions = 0} runs the
+ * shared-map service. Run with several thread counts (see {@link BenchmarkMain}) to see how
+ * each mode scales; partitions pay a thread handoff per call, so they only win once the
+ * shared maps are contended on enough cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class PartitionedOrderBenchmark {
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int partitions;
+
+    private static final int USERS = 10_000;
+
+    private Fixture fixture;
+    private PartitionedOrderService partitioned;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new Fixture();
+        if (partitions > 0) {
+            partitioned = new PartitionedOrderService(new OrderRepository(0), fixture.productRepository,
+                fixture.productService, fixture.paymentService, partitions);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (partitioned != null) {
+            partitioned.close();
+            partitioned = null;
+        }
+    }
+
+    private static long nextUser() {
+        return ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return partitions > 0
+            ? partitioned.createOrder(nextUser(), "1 Benchmark Way")
+            : fixture.orderService.createOrder(nextUser(), "1 Benchmark Way");
+    }
+
+    @Benchmark
+    public Order checkout() {
+        if (partitions > 0) {
+            Order order = partitioned.createOrder(nextUser(), "1 Benchmark Way");
+            partitioned.addItemToOrder(order.getId(), Fixture.HOT_PRODUCT_ID, 1);
+            return partitioned.processOrder(order.getId(), Fixture.CARD);
+        }
+        Order order = fixture.orderService.createOrder(nextUser(), "1 Benchmark Way");
+        fixture.orderService.addItemToOrder(order.getId(), Fixture.HOT_PRODUCT_ID, 1);
+        return fixture.orderService.processOrder(order.getId(), Fixture.CARD);
+    }
+}
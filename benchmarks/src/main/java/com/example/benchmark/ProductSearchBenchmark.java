@@ -0,0 +1,80 @@
+package com.example.benchmark;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.util.MoneyUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword and type-ahead queries against {@link ProductRepository#search} and
+ * {@link ProductRepository#complete}, against filtering every product's text for the
+ * same words, over a generated catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "-Dlogback.configurationFile=logback-bench.xml"})
+public class ProductSearchBenchmark {
+    private static final String[] ADJECTIVES = {"wireless", "portable", "compact", "premium", "classic", "smart", "rugged", "vintage"};
+    private static final String[] NOUNS = {"laptop", "lamp", "ladder", "mouse", "keyboard", "camera", "kettle", "bicycle", "printer", "tent"};
+    private static final String[] CATEGORIES = {"Electronics", "Home", "Outdoor", "Office", "Kitchen", "Sports"};
+
+    @Param({"1000000", "5000000"})
+    public int products;
+
+    @Param({"wireless camera", "outdoor tent", "bicycle c", "lap"})
+    public String query;
+
+    private ProductRepository repository;
+    private List<Product> catalog;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            String noun = NOUNS[i % NOUNS.length];
+            Product product = new Product((long) i + 1, ADJECTIVES[i / 7 % ADJECTIVES.length] + " " + noun + " " + i,
+                MoneyUtils.fromCents(99 + i % 100_000), i % 13 == 0 ? 0 : i % 500);
+            product.setCategory(CATEGORIES[i / 11 % CATEGORIES.length]);
+            product.setDescription("A " + noun + " with " + NOUNS[i / 3 % NOUNS.length] + " support");
+            catalog.add(product);
+        }
+        repository = new ProductRepository(0, false);
+        repository.saveAll(catalog);
+    }
+
+    @Benchmark
+    public List<Product> search() {
+        return repository.search(query, 20);
+    }
+
+    @Benchmark
+    public List<Product> complete() {
+        return repository.complete(query, 20);
+    }
+
+    @Benchmark
+    public List<Product> linearScan() {
+        String[] words = query.toLowerCase(Locale.ROOT).split(" ");
+        List<Product> hits = new ArrayList<>();
+        for (Product product : catalog) {
+            String text = (product.getName() + " " + product.getCategory() + " " + product.getDescription())
+                .toLowerCase(Locale.ROOT);
+            boolean all = product.isActive() && product.isInStock();
+            for (int w = 0; all && w < words.length; w++) {
+                all = text.contains(words[w]);
+            }
+            if (all && hits.size() < 20) {
+                hits.add(product);
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.benchmark;
+
+import com.example.model.Order;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository lookups over a pre-populated order table of varying size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class RepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int orderCount;
+
+    private static final int USERS = 1000;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new Fixture();
+        fixture.populateOrders(orderCount, USERS);
+    }
+
+    @Benchmark
+    public Optional<Order> orderFindById() {
+        return fixture.orderRepository.findById(ThreadLocalRandom.current().nextLong(1, orderCount + 1));
+    }
+
+    @Benchmark
+    public Optional<Product> productFindById() {
+        return fixture.productRepository.findById(ThreadLocalRandom.current().nextLong(1, 7));
+    }
+
+    @Benchmark
+    public List<Order> findByUserId() {
+        return fixture.orderRepository.findByUserId(ThreadLocalRandom.current().nextLong(1, USERS + 1));
+    }
+
+    @Benchmark
+    public List<Order> findByStatus() {
+        return fixture.orderRepository.findByStatus(OrderStatus.PENDING);
+    }
+}
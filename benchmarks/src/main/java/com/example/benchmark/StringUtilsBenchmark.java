@@ -0,0 +1,38 @@
+package com.example.benchmark;
+
+import com.example.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StringUtils} formatting helpers used on logging and display paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class StringUtilsBenchmark {
+
+    private final BigDecimal amount = new BigDecimal("1299.99");
+    private final String card = "4111-1111 1111-1111";
+    private final String text = "Shipping address line that is long enough to be truncated";
+
+    @Benchmark
+    public String formatCurrency() {
+        return StringUtils.formatCurrency(amount);
+    }
+
+    @Benchmark
+    public String maskCardNumber() {
+        return StringUtils.maskCardNumber(card);
+    }
+
+    @Benchmark
+    public String truncate() {
+        return StringUtils.truncate(text, 20);
+    }
+}
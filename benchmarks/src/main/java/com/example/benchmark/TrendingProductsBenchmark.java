@@ -0,0 +1,86 @@
+package com.example.benchmark;
+
+import com.example.analytics.HeavyHitters;
+import com.example.analytics.OrderAnalytics;
+import com.example.analytics.TrendingProducts;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best-sellers of the last hour from the {@link TrendingProducts} sketches, against
+ * grouping the hour's orders by product with {@link OrderAnalytics} and sorting, plus the
+ * cost of feeding one confirmed order into the sketches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class TrendingProductsBenchmark {
+    private static final BigDecimal PRICE = new BigDecimal("19.99");
+
+    @Param({"1000000"})
+    public int ordersPerHour;
+
+    @Param({"100000"})
+    public int products;
+
+    private TrendingProducts trending;
+    private OrderAnalytics analytics;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long nowMillis;
+    private Order sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OrderRepository orderRepository = new OrderRepository(0);
+        analytics = new OrderAnalytics(orderRepository);
+        trending = new TrendingProducts();
+        to = LocalDateTime.now();
+        from = to.minusHours(1);
+        nowMillis = System.currentTimeMillis();
+        long stepNanos = 3_600_000_000_000L / ordersPerHour;
+        for (int i = 0; i < ordersPerHour; i++) {
+            Order order = new Order(null, (long) i % 10_000 + 1);
+            // Skewed so the top of the ranking is stable: product p is picked with weight ~1/p
+            long productId = (long) Math.floor(Math.pow(products, (i * 0.6180339887) % 1.0));
+            order.addItem(new OrderItem(productId, "Product", 1 + i % 3, PRICE));
+            order.setCreatedAt(from.plusNanos(i * stepNanos));
+            order.setStatus(OrderStatus.CONFIRMED);
+            orderRepository.save(order);
+            trending.onOrderConfirmed(order, nowMillis - 3_600_000L + i * stepNanos / 1_000_000);
+        }
+        sample = new Order(null, 1L);
+        sample.addItem(new OrderItem(7L, "Product", 2, PRICE));
+    }
+
+    @Benchmark
+    public List<HeavyHitters.Entry> sketchTop10() {
+        return trending.topN(TrendingProducts.Window.LAST_HOUR, 10, nowMillis);
+    }
+
+    @Benchmark
+    public List<Map.Entry<Long, OrderAnalytics.RangeTotals>> scanTop10() {
+        List<Map.Entry<Long, OrderAnalytics.RangeTotals>> groups =
+            new ArrayList<>(analytics.groupByProduct(from, to).entrySet());
+        groups.sort((a, b) -> Long.compare(b.getValue().getUnits(), a.getValue().getUnits()));
+        return groups.subList(0, Math.min(10, groups.size()));
+    }
+
+    @Benchmark
+    public void recordConfirmedOrder() {
+        trending.onOrderConfirmed(sample, nowMillis);
+    }
+}
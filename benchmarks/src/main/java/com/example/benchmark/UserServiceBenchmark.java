@@ -0,0 +1,53 @@
+package com.example.benchmark;
+
+import com.example.exception.ValidationException;
+import com.example.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code UserService.createUser} validation, for accepted and rejected input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class UserServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private Fixture fixture;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new Fixture();
+    }
+
+    @Benchmark
+    public User createUser() {
+        return fixture.userService.createUser("user" + sequence.incrementAndGet() + "@example.com",
+            "Bench User", "SecurePass123");
+    }
+
+    @Benchmark
+    public Object createUserInvalidEmail() {
+        try {
+            return fixture.userService.createUser("not-an-email", "Bench User", "SecurePass123");
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object createUserWeakPassword() {
+        try {
+            return fixture.userService.createUser("weak" + sequence.incrementAndGet() + "@example.com",
+                "Bench User", "abc");
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+}
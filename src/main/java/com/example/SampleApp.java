@@ -4,12 +4,17 @@ import com.example.model.*;
 import com.example.repository.*;
 import com.example.service.*;
 import com.example.exception.*;
+import com.example.loadgen.LoadGenerator;
+import com.example.logging.LogShutdown;
+import com.example.metrics.MetricsRegistry;
 import com.example.util.StringUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * Sample E-Commerce Application for testing LogAI
@@ -19,6 +24,7 @@ import java.math.BigDecimal;
  */
 public class SampleApp {
     private static final Logger logger = LoggerFactory.getLogger(SampleApp.class);
+    private static final Duration LOG_FLUSH_TIMEOUT = Duration.ofSeconds(5);
 
     // Repositories
     private final UserRepository userRepository;
@@ -39,12 +45,19 @@ public class SampleApp {
 
         // Initialize services
         this.productService = new ProductService(productRepository);
+        productService.start();
         this.paymentService = new PaymentService();
         this.userService = new UserService(userRepository);
         this.orderService = new OrderService(orderRepository, productRepository, productService, paymentService);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        // "load [--key=value ...]" runs the multi-threaded workload driver instead of the scenarios
+        if (args.length > 0 && "load".equals(args[0])) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         logger.info("=".repeat(60));
         logger.info("Starting Sample E-Commerce Application");
         logger.info("=".repeat(60));
@@ -56,18 +69,20 @@ public class SampleApp {
             app.runAllScenarios();
         } catch (Exception e) {
             logger.error("Application failed with unexpected error", e);
+        } finally {
+            app.productService.close();
         }
 
+        logger.info("Operation metrics:\n{}", MetricsRegistry.getDefault().dump());
+
         logger.info("=".repeat(60));
         logger.info("Application finished - check LogAI dashboard for analysis");
         logger.info("=".repeat(60));
 
-        // Wait for logs to flush
-        try {
-            logger.info("Waiting for logs to flush to cloud...");
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        // Returns as soon as the remote appender has sent everything; logging is off afterwards
+        logger.info("Flushing logs to cloud...");
+        if (!LogShutdown.flushAndStop(LOG_FLUSH_TIMEOUT)) {
+            System.err.println("Log flush did not finish within " + LOG_FLUSH_TIMEOUT.toMillis() + " ms; some events may be lost");
         }
     }
 
@@ -0,0 +1,70 @@
+package com.example.admission;
+
+import com.example.exception.RateLimitExceededException;
+
+/**
+ * Admission check run first at service entry points: a per-key token bucket, then a
+ * concurrency cap that may be shared between services.
+ *
+ * A refused request throws {@link RateLimitExceededException} before any logging,
+ * metrics or repository access, so a flood of rejected calls costs nanoseconds each.
+ * A request refused by the concurrency cap has still spent its token.
+ */
+public class AdmissionControl {
+    private static final Permit NO_PERMIT = () -> { };
+    private static final AdmissionControl UNLIMITED = new AdmissionControl(null, null);
+
+    private final TokenBucketLimiter rateLimiter;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final Permit release;
+
+    /**
+     * @param rateLimiter      per-key limiter, or {@code null} for no rate limit
+     * @param concurrencyLimit shared cap, or {@code null} for no cap
+     */
+    public AdmissionControl(TokenBucketLimiter rateLimiter, ConcurrencyLimit concurrencyLimit) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimit = concurrencyLimit;
+        this.release = concurrencyLimit != null ? concurrencyLimit::release : NO_PERMIT;
+    }
+
+    /**
+     * Admits everything; what services use when none is configured.
+     */
+    public static AdmissionControl unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Admits one request for {@code key} or throws. The returned permit must be closed
+     * when the request finishes; permits are shared, so admitting allocates nothing.
+     *
+     * @throws RateLimitExceededException if the key is over its rate or the cap is reached
+     */
+    public Permit admit(long key) {
+        if (rateLimiter != null && !rateLimiter.tryAcquire(key)) {
+            throw new RateLimitExceededException(key, false);
+        }
+        if (concurrencyLimit != null && !concurrencyLimit.tryAcquire()) {
+            throw new RateLimitExceededException(key, true);
+        }
+        return release;
+    }
+
+    public TokenBucketLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * Releases an admitted request's concurrency slot.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
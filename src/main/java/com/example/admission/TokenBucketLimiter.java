@@ -0,0 +1,172 @@
+package com.example.admission;
+
+import com.example.util.ConcurrentLongHashMap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key token buckets, e.g. one per user, without locks on the acquire path.
+ *
+ * Each bucket is a single {@code long}, its theoretical arrival time (GCRA): the instant
+ * at which the bucket would be full again. Taking a token pushes it forward by one
+ * interval; a request is refused when that would put it more than {@code burst}
+ * intervals ahead of now. Refusals only read the bucket, so they cost a hash lookup and
+ * a comparison.
+ *
+ * Buckets live in stripes, each a small map with its own sweep schedule. A bucket that
+ * has been full for {@code idleTimeout} is indistinguishable from a new one and is
+ * evicted by the next sweep of its stripe; eviction marks the bucket dead first, so a
+ * thread still holding it retries with a fresh bucket instead of losing its update.
+ * Times are {@link System#nanoTime()} values.
+ */
+public class TokenBucketLimiter {
+    private static final int DEFAULT_STRIPES = 64;
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final long idleNanos;
+    private final Stripe[] stripes;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param permitsPerSecond sustained rate per key
+     * @param burst            tokens a key may spend at once after being idle
+     * @param idleTimeout      how long a full bucket is kept before it is evicted
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, Duration idleTimeout) {
+        this(permitsPerSecond, burst, idleTimeout, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes rounded up to a power of two
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, Duration idleTimeout, int stripes) {
+        if (!(permitsPerSecond > 0) || burst < 1 || idleTimeout.isNegative() || stripes < 1) {
+            throw new IllegalArgumentException("Rate, burst and stripes must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.idleNanos = idleTimeout.toNanos();
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[count];
+        long now = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(now + idleNanos);
+        }
+    }
+
+    public boolean tryAcquire(long key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    /**
+     * Takes one token from {@code key}'s bucket if it has one.
+     */
+    public boolean tryAcquire(long key, long nowNanos) {
+        Stripe stripe = stripes[spread(key) & (stripes.length - 1)];
+        if (nowNanos - stripe.nextSweep.get() >= 0) {
+            sweep(stripe, nowNanos);
+        }
+        while (true) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                // A new bucket starts full, so this first token is always granted
+                Bucket created = new Bucket(key, nowNanos + intervalNanos);
+                bucket = stripe.buckets.putIfAbsent(key, created);
+                if (bucket == null) {
+                    return true;
+                }
+            }
+            long tat = bucket.get();
+            if (tat == EVICTED) {
+                stripe.buckets.remove(key, bucket);
+                continue;
+            }
+            long next = Math.max(tat - nowNanos, 0) + nowNanos + intervalNanos;
+            if (next - nowNanos > capacityNanos) {
+                rejected.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Evicts every idle bucket now instead of waiting for traffic to trigger the sweeps.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            sweep(stripe, now);
+        }
+    }
+
+    /**
+     * Number of keys with a live bucket.
+     */
+    public int trackedKeys() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.buckets.size();
+        }
+        return count;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void sweep(Stripe stripe, long nowNanos) {
+        long due = stripe.nextSweep.get();
+        // One thread sweeps a stripe per period; the others carry on
+        if (!stripe.nextSweep.compareAndSet(due, nowNanos + Math.max(idleNanos / 2, intervalNanos))) {
+            return;
+        }
+        List<Bucket> idle = new ArrayList<>();
+        stripe.buckets.forEachValue(bucket -> {
+            long tat = bucket.get();
+            if (tat != EVICTED && nowNanos - tat >= idleNanos) {
+                idle.add(bucket);
+            }
+        });
+        for (Bucket bucket : idle) {
+            long tat = bucket.get();
+            if (tat != EVICTED && nowNanos - tat >= idleNanos && bucket.compareAndSet(tat, EVICTED)) {
+                stripe.buckets.remove(bucket.key, bucket);
+            }
+        }
+    }
+
+    private static int spread(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Stripe {
+        final ConcurrentLongHashMap<Bucket> buckets = new ConcurrentLongHashMap<>(16, 1);
+        final AtomicLong nextSweep;
+
+        Stripe(long firstSweep) {
+            this.nextSweep = new AtomicLong(firstSweep);
+        }
+    }
+
+    /**
+     * The bucket's theoretical arrival time, or {@link #EVICTED}.
+     */
+    private static final class Bucket extends AtomicLong {
+        final long key;
+
+        Bucket(long key, long tat) {
+            super(tat);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.analytics;
+
+import com.example.util.LongHashMap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Approximate top-K counts of {@code long} keys over a sliding time window, in fixed memory.
+ *
+ * The window is cut into equal buckets, each holding a count-min sketch of the counts
+ * added while it was current. A running sum of the live buckets' sketches answers point
+ * estimates in {@code depth} lookups; when a bucket slot is reused its old sketch is
+ * subtracted from the sum first, so the window slides one bucket at a time. Estimates
+ * never undercount and overcount by at most {@code e / width} of the window total with
+ * probability {@code 1 - e^-depth}.
+ *
+ * The heaviest keys are tracked as candidates in a min-heap ordered by their current
+ * estimate: a key not yet tracked replaces the smallest candidate once its estimate is
+ * larger.
+ *
+ * {@link #add} does not take the sketch's lock: it appends to a small buffer picked by the
+ * calling thread, so threads adding concurrently rarely meet. A full buffer is applied to
+ * the sketch in one go under the lock, and every query applies all buffers before it
+ * answers, so queries see every add that returned before them. Memory depends only on the
+ * constructor arguments and the number of processors, never on the number of distinct
+ * keys. Times are epoch millis; methods without a time use the system clock.
+ */
+public class HeavyHitters {
+    private static final int BUFFERED_ADDS = 32;
+    private static final int STRIPES =
+        Math.min(64, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1);
+
+    private final long bucketMillis;
+    private final int depth;
+    private final int mask;
+    private final long[] rowSeeds;
+    private final long[][] buckets;
+    private final long[] bucketTotals;
+    private final long[] window;
+    private long windowTotal;
+    private long currentEpoch = Long.MIN_VALUE;
+
+    private final Candidate[] heap;
+    private final LongHashMap<Candidate> candidates;
+    private int size;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param window     length of the sliding window
+     * @param buckets    number of buckets the window slides by; more buckets expire counts
+     *                   more smoothly at the cost of one sketch each
+     * @param width      counters per sketch row, rounded up to a power of two
+     * @param depth      sketch rows
+     * @param candidates keys tracked for {@link #topN}; bounds the largest useful {@code k}
+     */
+    public HeavyHitters(Duration window, int buckets, int width, int depth, int candidates) {
+        if (buckets < 1 || width < 1 || depth < 1 || candidates < 1) {
+            throw new IllegalArgumentException("Buckets, width, depth and candidates must be positive");
+        }
+        if (window.toMillis() < buckets) {
+            throw new IllegalArgumentException("Window " + window + " is shorter than one millisecond per bucket");
+        }
+        int rowWidth = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.bucketMillis = window.toMillis() / buckets;
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.rowSeeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            rowSeeds[row] = mix(0x5DEECE66DL + row);
+        }
+        this.buckets = new long[buckets][rowWidth * depth];
+        this.bucketTotals = new long[buckets];
+        this.window = new long[rowWidth * depth];
+        this.heap = new Candidate[candidates];
+        this.candidates = new LongHashMap<>(candidates);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(long key, long count) {
+        add(key, count, System.currentTimeMillis());
+    }
+
+    /**
+     * Counts {@code count} occurrences of {@code key} at {@code nowMillis}. Times older than
+     * the newest seen so far are counted in the current bucket.
+     */
+    public void add(long key, long count, long nowMillis) {
+        if (count <= 0) {
+            return;
+        }
+        Stripe stripe = stripes[(int) mix(Thread.currentThread().hashCode()) & (STRIPES - 1)];
+        while (true) {
+            synchronized (stripe) {
+                if (stripe.offer(key, count, nowMillis)) {
+                    return;
+                }
+            }
+            synchronized (this) {
+                apply(stripe);
+            }
+        }
+    }
+
+    /**
+     * Counts one buffered add; caller holds the lock.
+     */
+    private void apply(long key, long count, long nowMillis) {
+        advance(nowMillis);
+        int slot = (int) Math.floorMod(currentEpoch, (long) buckets.length);
+        long[] bucket = buckets[slot];
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(key, row);
+            bucket[index] += count;
+            estimate = Math.min(estimate, window[index] += count);
+        }
+        bucketTotals[slot] += count;
+        windowTotal += count;
+        offer(key, estimate);
+    }
+
+    public long estimate(long key) {
+        return estimate(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Estimated count of {@code key} within the window ending at {@code nowMillis}.
+     */
+    public synchronized long estimate(long key, long nowMillis) {
+        applyAll();
+        advance(nowMillis);
+        return windowEstimate(key);
+    }
+
+    public long total() {
+        return total(System.currentTimeMillis());
+    }
+
+    /**
+     * Exact sum of all counts within the window ending at {@code nowMillis}.
+     */
+    public synchronized long total(long nowMillis) {
+        applyAll();
+        advance(nowMillis);
+        return windowTotal;
+    }
+
+    public List<Entry> topN(int k) {
+        return topN(k, System.currentTimeMillis());
+    }
+
+    /**
+     * The {@code k} keys with the highest estimated counts in the window ending at
+     * {@code nowMillis}, highest first. Returns fewer than {@code k} entries when fewer keys
+     * were counted or {@code k} exceeds the number of candidates.
+     */
+    public synchronized List<Entry> topN(int k, long nowMillis) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        applyAll();
+        advance(nowMillis);
+        // Partial selection sort: k is small next to the candidate count
+        Candidate[] ranked = Arrays.copyOf(heap, size);
+        int n = Math.min(k, size);
+        List<Entry> top = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int best = i;
+            for (int j = i + 1; j < ranked.length; j++) {
+                if (ranksBefore(ranked[j], ranked[best])) {
+                    best = j;
+                }
+            }
+            Candidate chosen = ranked[best];
+            ranked[best] = ranked[i];
+            ranked[i] = chosen;
+            top.add(new Entry(chosen.key, chosen.count));
+        }
+        return top;
+    }
+
+    private void applyAll() {
+        for (Stripe stripe : stripes) {
+            apply(stripe);
+        }
+    }
+
+    /**
+     * Counts and empties the adds buffered in {@code stripe}, in the order they were made.
+     */
+    private void apply(Stripe stripe) {
+        synchronized (stripe) {
+            for (int i = 0; i < stripe.size; i++) {
+                apply(stripe.keys[i], stripe.counts[i], stripe.times[i]);
+            }
+            stripe.size = 0;
+        }
+    }
+
+    /**
+     * Moves the window to the bucket containing {@code nowMillis}, expiring every bucket
+     * slot that is reused on the way, and re-estimates the candidates if anything expired.
+     */
+    private void advance(long nowMillis) {
+        long epoch = Math.floorDiv(nowMillis, bucketMillis);
+        if (epoch <= currentEpoch) {
+            return;
+        }
+        if (currentEpoch == Long.MIN_VALUE || epoch - currentEpoch >= buckets.length) {
+            for (long[] bucket : buckets) {
+                Arrays.fill(bucket, 0);
+            }
+            Arrays.fill(bucketTotals, 0);
+            Arrays.fill(window, 0);
+            windowTotal = 0;
+        } else {
+            for (long e = currentEpoch + 1; e <= epoch; e++) {
+                int slot = (int) Math.floorMod(e, (long) buckets.length);
+                long[] bucket = buckets[slot];
+                for (int i = 0; i < bucket.length; i++) {
+                    window[i] -= bucket[i];
+                }
+                Arrays.fill(bucket, 0);
+                windowTotal -= bucketTotals[slot];
+                bucketTotals[slot] = 0;
+            }
+        }
+        currentEpoch = epoch;
+        reestimateCandidates();
+    }
+
+    private void reestimateCandidates() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Candidate candidate = heap[i];
+            candidate.count = windowEstimate(candidate.key);
+            if (candidate.count > 0) {
+                heap[kept] = candidate;
+                candidate.index = kept++;
+            } else {
+                candidates.remove(candidate.key);
+            }
+        }
+        Arrays.fill(heap, kept, size, null);
+        size = kept;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void offer(long key, long estimate) {
+        Candidate candidate = candidates.get(key);
+        if (candidate != null) {
+            candidate.count = estimate;
+            siftDown(candidate.index);
+        } else if (size < heap.length) {
+            candidate = new Candidate(key, estimate);
+            candidates.put(key, candidate);
+            heap[size] = candidate;
+            candidate.index = size++;
+            siftUp(candidate.index);
+        } else if (estimate > heap[0].count) {
+            candidate = heap[0];
+            candidates.remove(candidate.key);
+            candidate.key = key;
+            candidate.count = estimate;
+            candidates.put(key, candidate);
+            siftDown(0);
+        }
+    }
+
+    private static boolean ranksBefore(Candidate a, Candidate b) {
+        return a.count > b.count || (a.count == b.count && a.key < b.key);
+    }
+
+    private long windowEstimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, window[index(key, row)]);
+        }
+        return estimate;
+    }
+
+    private int index(long key, int row) {
+        return row * (mask + 1) + ((int) mix(key ^ rowSeeds[row]) & mask);
+    }
+
+    private void siftUp(int i) {
+        Candidate moving = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= moving.count) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(moving, i);
+    }
+
+    private void siftDown(int i) {
+        Candidate moving = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (moving.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(moving, i);
+    }
+
+    private void place(Candidate candidate, int i) {
+        heap[i] = candidate;
+        candidate.index = i;
+    }
+
+    /**
+     * SplitMix64 finalizer; spreads sequential IDs across the row.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Adds buffered by the threads that hash to one stripe; guarded by its own monitor,
+     * which is taken after the sketch's when both are held.
+     */
+    private static final class Stripe {
+        final long[] keys = new long[BUFFERED_ADDS];
+        final long[] counts = new long[BUFFERED_ADDS];
+        final long[] times = new long[BUFFERED_ADDS];
+        int size;
+
+        boolean offer(long key, long count, long nowMillis) {
+            if (size == BUFFERED_ADDS) {
+                return false;
+            }
+            keys[size] = key;
+            counts[size] = count;
+            times[size++] = nowMillis;
+            return true;
+        }
+    }
+
+    private static final class Candidate {
+        long key;
+        long count;
+        int index;
+
+        Candidate(long key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    /**
+     * A key and its estimated count at the time of the query.
+     */
+    public static final class Entry {
+        private final long key;
+        private final long count;
+
+        Entry(long key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public long getKey() { return key; }
+        public long getCount() { return count; }
+
+        @Override
+        public String toString() {
+            return key + "=" + count;
+        }
+    }
+}
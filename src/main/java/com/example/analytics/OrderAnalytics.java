@@ -0,0 +1,184 @@
+package com.example.analytics;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.repository.OrderRepository;
+import com.example.util.MoneyUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Parallel aggregations over the orders created in a time range.
+ *
+ * The range is bisected by time into more slices than there are cores and each slice is
+ * scanned from {@link OrderRepository#createdBetween} on a fork-join pool; work stealing
+ * evens out slices that hold more orders than others.
+ */
+public class OrderAnalytics {
+    private static final int SLICES_PER_THREAD = 8;
+    private static final Duration MIN_SLICE = Duration.ofMillis(1);
+
+    private final OrderRepository orderRepository;
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+
+    public OrderAnalytics(OrderRepository orderRepository) {
+        this(orderRepository, ForkJoinPool.commonPool());
+    }
+
+    public OrderAnalytics(OrderRepository orderRepository, ForkJoinPool pool) {
+        this.orderRepository = orderRepository;
+        this.pool = pool;
+        int slices = Math.max(1, pool.getParallelism() * SLICES_PER_THREAD);
+        this.maxDepth = 32 - Integer.numberOfLeadingZeros(slices - 1);
+    }
+
+    /**
+     * Order count, item units and total amount of every order created in {@code [from, to)}.
+     */
+    public RangeTotals summarize(LocalDateTime from, LocalDateTime to) {
+        return aggregate(from, to, RangeTotals::new, RangeTotals::addOrder, RangeTotals::merge);
+    }
+
+    public long count(LocalDateTime from, LocalDateTime to) {
+        return summarize(from, to).getOrderCount();
+    }
+
+    public BigDecimal sumTotalAmount(LocalDateTime from, LocalDateTime to) {
+        return summarize(from, to).getAmount();
+    }
+
+    public Map<OrderStatus, RangeTotals> groupByStatus(LocalDateTime from, LocalDateTime to) {
+        return this.<Map<OrderStatus, RangeTotals>>aggregate(from, to,
+            () -> new EnumMap<>(OrderStatus.class),
+            (groups, order) -> groups.computeIfAbsent(order.getStatus(), s -> new RangeTotals()).addOrder(order),
+            OrderAnalytics::mergeGroups);
+    }
+
+    /**
+     * Units and revenue per product, counting only revenue-bearing orders
+     * (see {@link SalesAggregates#isRevenueBearing}). The order count of each group is
+     * the number of order lines for that product.
+     */
+    public Map<Long, RangeTotals> groupByProduct(LocalDateTime from, LocalDateTime to) {
+        return this.<Map<Long, RangeTotals>>aggregate(from, to,
+            HashMap::new,
+            (groups, order) -> {
+                if (!SalesAggregates.isRevenueBearing(order.getStatus())) {
+                    return;
+                }
+                List<OrderItem> items = order.getItems();
+                for (int i = 0; i < items.size(); i++) {
+                    OrderItem item = items.get(i);
+                    groups.computeIfAbsent(item.getProductId(), id -> new RangeTotals()).addItem(item);
+                }
+            },
+            OrderAnalytics::mergeGroups);
+    }
+
+    /**
+     * Generic parallel reduction over the orders created in {@code [from, to)}. Each slice
+     * gets its own container from {@code supplier}; containers are merged pairwise.
+     */
+    public <A> A aggregate(LocalDateTime from, LocalDateTime to, Supplier<A> supplier,
+                           BiConsumer<A, Order> accumulator, BinaryOperator<A> combiner) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Range start " + from + " is after end " + to);
+        }
+        return pool.invoke(new RangeTask<>(from, to, 0, supplier, accumulator, combiner));
+    }
+
+    private static <K> Map<K, RangeTotals> mergeGroups(Map<K, RangeTotals> left, Map<K, RangeTotals> right) {
+        right.forEach((key, totals) -> left.merge(key, totals, RangeTotals::merge));
+        return left;
+    }
+
+    private final class RangeTask<A> extends RecursiveTask<A> {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final int depth;
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, Order> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        RangeTask(LocalDateTime from, LocalDateTime to, int depth, Supplier<A> supplier,
+                  BiConsumer<A, Order> accumulator, BinaryOperator<A> combiner) {
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            Duration span = Duration.between(from, to);
+            if (depth < maxDepth && span.compareTo(MIN_SLICE) > 0) {
+                LocalDateTime mid = from.plus(span.dividedBy(2));
+                RangeTask<A> left = new RangeTask<>(from, mid, depth + 1, supplier, accumulator, combiner);
+                RangeTask<A> right = new RangeTask<>(mid, to, depth + 1, supplier, accumulator, combiner);
+                left.fork();
+                A rightResult = right.compute();
+                return combiner.apply(left.join(), rightResult);
+            }
+            A result = supplier.get();
+            for (Order order : orderRepository.createdBetween(from, to)) {
+                accumulator.accept(result, order);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Mutable per-slice totals; amounts are kept in cents while accumulating.
+     */
+    public static final class RangeTotals {
+        private long orderCount;
+        private long units;
+        private long amountCents;
+
+        void addOrder(Order order) {
+            orderCount++;
+            amountCents += order.getTotalCents();
+            List<OrderItem> items = order.getItems();
+            for (int i = 0; i < items.size(); i++) {
+                units += items.get(i).getQuantity();
+            }
+        }
+
+        void addItem(OrderItem item) {
+            orderCount++;
+            units += item.getQuantity();
+            amountCents += item.getSubtotalCents();
+        }
+
+        RangeTotals merge(RangeTotals other) {
+            orderCount += other.orderCount;
+            units += other.units;
+            amountCents += other.amountCents;
+            return this;
+        }
+
+        public long getOrderCount() { return orderCount; }
+        public long getUnits() { return units; }
+        public BigDecimal getAmount() { return MoneyUtils.fromCents(amountCents); }
+
+        @Override
+        public String toString() {
+            return "RangeTotals{orders=" + orderCount + ", units=" + units + ", amount=" + getAmount() + "}";
+        }
+    }
+}
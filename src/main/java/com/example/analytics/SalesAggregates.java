@@ -0,0 +1,183 @@
+package com.example.analytics;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.util.MoneyUtils;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sales aggregates maintained incrementally as orders are saved.
+ *
+ * For every order the last applied contribution is remembered; a save applies only the
+ * difference, so counts per status stay exact and revenue/units are withdrawn again when
+ * a confirmed order is cancelled or refunded. Reads are O(1). Money is kept in cents.
+ *
+ * Revenue and units count orders in CONFIRMED, PROCESSING, SHIPPED or DELIVERED.
+ */
+public class SalesAggregates {
+
+    private final LongAdder[] ordersByStatus = new LongAdder[OrderStatus.values().length];
+    private final Map<Long, LongAdder> unitsByProduct = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> revenueCentsByProduct = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> revenueCentsByUser = new ConcurrentHashMap<>();
+    private final LongAdder totalRevenueCents = new LongAdder();
+
+    private final Map<Long, Contribution> contributions = new ConcurrentHashMap<>();
+
+    public SalesAggregates() {
+        for (int i = 0; i < ordersByStatus.length; i++) {
+            ordersByStatus[i] = new LongAdder();
+        }
+    }
+
+    public static boolean isRevenueBearing(OrderStatus status) {
+        return status == OrderStatus.CONFIRMED || status == OrderStatus.PROCESSING
+            || status == OrderStatus.SHIPPED || status == OrderStatus.DELIVERED;
+    }
+
+    /**
+     * Applies the order's current state. Safe to call repeatedly and concurrently.
+     */
+    public void onOrderSaved(Order order) {
+        contributions.compute(order.getId(), (id, previous) -> {
+            OrderStatus status = order.getStatus();
+            if (previous != null && previous.status == status) {
+                return previous;
+            }
+            Contribution next = Contribution.of(order, status);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(next, 1);
+            return next;
+        });
+    }
+
+    public void onOrderRemoved(Long orderId) {
+        contributions.computeIfPresent(orderId, (id, previous) -> {
+            apply(previous, -1);
+            return null;
+        });
+    }
+
+    /**
+     * Forgets the per-order bookkeeping of an order moved to cold storage; its
+     * contribution stays in the totals.
+     */
+    public void onOrderArchived(Long orderId) {
+        contributions.remove(orderId);
+    }
+
+    /**
+     * Re-establishes the bookkeeping of an archived order that is being brought back,
+     * given the copy that was archived, so the next save applies a correct delta.
+     */
+    public void onOrderRestored(Order archived) {
+        contributions.putIfAbsent(archived.getId(), Contribution.of(archived, archived.getStatus()));
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        ordersByStatus[contribution.status.ordinal()].add(sign);
+        if (contribution.productIds.length == 0) {
+            return;
+        }
+        for (int i = 0; i < contribution.productIds.length; i++) {
+            adder(unitsByProduct, contribution.productIds[i]).add(sign * contribution.units[i]);
+            adder(revenueCentsByProduct, contribution.productIds[i]).add(sign * contribution.revenueCents[i]);
+        }
+        if (contribution.userId != null) {
+            adder(revenueCentsByUser, contribution.userId).add(sign * contribution.totalCents);
+        }
+        totalRevenueCents.add(sign * contribution.totalCents);
+    }
+
+    private static LongAdder adder(Map<Long, LongAdder> map, Long key) {
+        LongAdder adder = map.get(key);
+        return adder != null ? adder : map.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    // Reads
+
+    public long countByStatus(OrderStatus status) {
+        return ordersByStatus[status.ordinal()].sum();
+    }
+
+    public Map<OrderStatus, Long> getStatusCounts() {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, countByStatus(status));
+        }
+        return counts;
+    }
+
+    public long unitsSold(Long productId) {
+        LongAdder adder = unitsByProduct.get(productId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    public BigDecimal revenueForProduct(Long productId) {
+        return toMoney(revenueCentsByProduct.get(productId));
+    }
+
+    public BigDecimal revenueForUser(Long userId) {
+        return toMoney(revenueCentsByUser.get(userId));
+    }
+
+    public BigDecimal totalRevenue() {
+        return MoneyUtils.fromCents(totalRevenueCents.sum());
+    }
+
+    private static BigDecimal toMoney(LongAdder cents) {
+        return MoneyUtils.fromCents(cents != null ? cents.sum() : 0);
+    }
+
+    /**
+     * What one order currently adds to the aggregates.
+     */
+    private static final class Contribution {
+        private static final long[] NONE = new long[0];
+
+        final OrderStatus status;
+        final Long userId;
+        final long[] productIds;
+        final long[] units;
+        final long[] revenueCents;
+        final long totalCents;
+
+        private Contribution(OrderStatus status, Long userId, long[] productIds, long[] units,
+                             long[] revenueCents, long totalCents) {
+            this.status = status;
+            this.userId = userId;
+            this.productIds = productIds;
+            this.units = units;
+            this.revenueCents = revenueCents;
+            this.totalCents = totalCents;
+        }
+
+        static Contribution of(Order order, OrderStatus status) {
+            if (!isRevenueBearing(status)) {
+                return new Contribution(status, null, NONE, NONE, NONE, 0);
+            }
+            List<OrderItem> items = order.getItems();
+            long[] productIds = new long[items.size()];
+            long[] units = new long[items.size()];
+            long[] revenueCents = new long[items.size()];
+            long total = 0;
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                productIds[i] = item.getProductId();
+                units[i] = item.getQuantity();
+                revenueCents[i] = item.getSubtotalCents();
+                total += revenueCents[i];
+            }
+            return new Contribution(status, order.getUserId(), productIds, units, revenueCents, total);
+        }
+    }
+}
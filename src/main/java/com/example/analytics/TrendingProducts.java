@@ -0,0 +1,101 @@
+package com.example.analytics;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Live "trending products" rankings: units added to carts and units sold, over the last
+ * five minutes and the last hour.
+ *
+ * Each ranking is a {@link HeavyHitters} sketch, so memory is fixed (about 1.5 MB in total)
+ * however large the catalog is, and a ranking is read without touching any order. Counts
+ * are estimates that may overcount slightly; see {@link HeavyHitters} for the bound.
+ * Orders confirmed and then cancelled stay counted as sold for the rest of the window.
+ */
+public class TrendingProducts {
+    private static final int BUCKETS = 12;
+    private static final int WIDTH = 1024;
+    private static final int DEPTH = 4;
+    private static final int CANDIDATES = 128;
+
+    public enum Window {
+        LAST_5_MINUTES(Duration.ofMinutes(5)),
+        LAST_HOUR(Duration.ofHours(1));
+
+        private final Duration length;
+
+        Window(Duration length) {
+            this.length = length;
+        }
+
+        public Duration getLength() {
+            return length;
+        }
+    }
+
+    private final HeavyHitters[] added = sketches();
+    private final HeavyHitters[] sold = sketches();
+
+    public void onItemAdded(OrderItem item) {
+        onItemAdded(item, System.currentTimeMillis());
+    }
+
+    public void onItemAdded(OrderItem item, long nowMillis) {
+        record(added, item, nowMillis);
+    }
+
+    public void onOrderConfirmed(Order order) {
+        onOrderConfirmed(order, System.currentTimeMillis());
+    }
+
+    public void onOrderConfirmed(Order order, long nowMillis) {
+        List<OrderItem> items = order.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            record(sold, items.get(i), nowMillis);
+        }
+    }
+
+    /**
+     * Best-sellers: the {@code k} products with the most units in orders confirmed within
+     * the window, most first. At most {@value #CANDIDATES} entries are returned.
+     */
+    public List<HeavyHitters.Entry> topN(Window window, int k) {
+        return sold[window.ordinal()].topN(k);
+    }
+
+    public List<HeavyHitters.Entry> topN(Window window, int k, long nowMillis) {
+        return sold[window.ordinal()].topN(k, nowMillis);
+    }
+
+    /**
+     * The {@code k} products with the most units added to orders within the window.
+     */
+    public List<HeavyHitters.Entry> topAddedToCart(Window window, int k) {
+        return added[window.ordinal()].topN(k);
+    }
+
+    public List<HeavyHitters.Entry> topAddedToCart(Window window, int k, long nowMillis) {
+        return added[window.ordinal()].topN(k, nowMillis);
+    }
+
+    private static void record(HeavyHitters[] sketches, OrderItem item, long nowMillis) {
+        if (item.getProductId() == null) {
+            return;
+        }
+        for (HeavyHitters sketch : sketches) {
+            sketch.add(item.getProductId(), item.getQuantity(), nowMillis);
+        }
+    }
+
+    private static HeavyHitters[] sketches() {
+        Window[] windows = Window.values();
+        HeavyHitters[] sketches = new HeavyHitters[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            sketches[i] = new HeavyHitters(windows[i].getLength(), BUCKETS, WIDTH, DEPTH, CANDIDATES);
+        }
+        return sketches;
+    }
+}
@@ -0,0 +1,476 @@
+package com.example.archive;
+
+import com.example.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only, compressed on-disk store for cold orders.
+ *
+ * Orders are written in blocks of up to {@code ordersPerBlock}, sorted by ID and
+ * deflated, to segment files that roll over at {@code segmentBytes}. Only a sparse index
+ * stays on the heap: per block its ID range, file position and a small Bloom filter of
+ * user IDs. Consecutive blocks with ascending, disjoint ID ranges form a run that is
+ * binary-searched; runs are searched newest first, so a re-archived order shadows its
+ * older copy.
+ *
+ * On open, existing segments are scanned to rebuild the index and a torn block at the end
+ * of the last segment is truncated away.
+ */
+public class OrderArchive implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchive.class);
+
+    private static final int BLOCK_MAGIC = 0x4F41524B; // "OARK"
+    private static final byte FORMAT_VERSION = 1;
+    // magic, version, count, minId, maxId, raw length, compressed length, CRC, filter words
+    private static final int FIXED_HEADER_BYTES = 4 + 1 + 4 + 8 + 8 + 4 + 4 + 8 + 4;
+    private static final int BLOOM_HASHES = 3;
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int ordersPerBlock;
+    private final long segmentBytes;
+    private final int filterWords;
+
+    private final List<FileChannel> segments = new CopyOnWriteArrayList<>();
+    private volatile Index index = Index.EMPTY;
+
+    public OrderArchive(Path directory) {
+        this(directory, 256, 64L * 1024 * 1024);
+    }
+
+    public OrderArchive(Path directory, int ordersPerBlock, long segmentBytes) {
+        if (ordersPerBlock <= 0 || segmentBytes <= 0) {
+            throw new IllegalArgumentException("ordersPerBlock and segmentBytes must be positive");
+        }
+        this.directory = directory;
+        this.ordersPerBlock = ordersPerBlock;
+        this.segmentBytes = segmentBytes;
+        // ~8 bits per order keeps the false-positive rate near 3% with 3 hashes
+        this.filterWords = Math.max(1, ordersPerBlock / 8);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order archive at " + directory, e);
+        }
+    }
+
+    /**
+     * Appends the orders and forces them to disk before they become visible to lookups.
+     */
+    public synchronized void append(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Order> sorted = new ArrayList<>(orders);
+        sorted.sort(Comparator.comparing(Order::getId));
+        List<BlockRef> written = new ArrayList<>();
+        try {
+            int firstSegment = Math.max(0, segments.size() - 1);
+            for (int from = 0; from < sorted.size(); from += ordersPerBlock) {
+                written.add(writeBlock(sorted.subList(from, Math.min(sorted.size(), from + ordersPerBlock))));
+            }
+            for (int segment = firstSegment; segment < segments.size(); segment++) {
+                segments.get(segment).force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to order archive " + directory, e);
+        }
+        index = index.plus(written);
+        logger.info("Archived {} orders in {} blocks", sorted.size(), written.size());
+    }
+
+    public Optional<Order> findById(long id) {
+        Index current = index;
+        for (int run = current.runStarts.length - 1; run >= 0; run--) {
+            BlockRef block = current.candidate(run, id);
+            if (block == null) {
+                continue;
+            }
+            for (Order order : readBlock(block)) {
+                if (order.getId() == id) {
+                    return Optional.of(order);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * All archived orders of the user, newest copy of each order only.
+     */
+    public List<Order> findByUserId(long userId) {
+        Index current = index;
+        List<Order> result = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        long hash = mix(userId);
+        for (int i = current.blocks.length - 1; i >= 0; i--) {
+            BlockRef block = current.blocks[i];
+            if (!mightContain(block.userFilter, hash)) {
+                continue;
+            }
+            for (Order order : readBlock(block)) {
+                if (order.getUserId() != null && order.getUserId() == userId && seen.add(order.getId())) {
+                    result.add(order);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of archived order records, counting superseded copies.
+     */
+    public long size() {
+        return index.records;
+    }
+
+    public int blockCount() {
+        return index.blocks.length;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : segments) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close archive segment: {}", e.getMessage());
+            }
+        }
+        segments.clear();
+    }
+
+    // Writing
+
+    private BlockRef writeBlock(List<Order> orders) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(orders.size() * 128);
+        DataOutputStream out = new DataOutputStream(raw);
+        long[] filter = new long[filterWords];
+        for (Order order : orders) {
+            OrderRecords.write(out, order);
+            if (order.getUserId() != null) {
+                addToFilter(filter, mix(order.getUserId()));
+            }
+        }
+        out.flush();
+        byte[] payload = deflate(raw.toByteArray());
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        long minId = orders.get(0).getId();
+        long maxId = orders.get(orders.size() - 1).getId();
+        int headerBytes = FIXED_HEADER_BYTES + filter.length * 8;
+        ByteBuffer buffer = ByteBuffer.allocate(headerBytes + payload.length);
+        buffer.putInt(BLOCK_MAGIC).put(FORMAT_VERSION)
+            .putInt(orders.size()).putLong(minId).putLong(maxId)
+            .putInt(raw.size()).putInt(payload.length).putLong(crc.getValue())
+            .putInt(filter.length);
+        for (long word : filter) {
+            buffer.putLong(word);
+        }
+        buffer.put(payload).flip();
+
+        FileChannel channel = currentSegment();
+        if (channel.size() > 0 && channel.size() + buffer.remaining() > segmentBytes) {
+            channel = openSegment(segments.size());
+        }
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        return new BlockRef(segments.size() - 1, position + headerBytes, payload.length, raw.size(),
+            orders.size(), minId, maxId, filter);
+    }
+
+    private FileChannel currentSegment() throws IOException {
+        return segments.isEmpty() ? openSegment(0) : segments.get(segments.size() - 1);
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.add(channel);
+        return channel;
+    }
+
+    // Reading
+
+    private List<Order> readBlock(BlockRef block) {
+        try {
+            ByteBuffer compressed = ByteBuffer.allocate(block.compressedLength);
+            FileChannel channel = segments.get(block.segment);
+            readFully(channel, compressed, block.position);
+            byte[] raw = inflate(compressed.array(), block.rawLength);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            List<Order> orders = new ArrayList<>(block.count);
+            for (int i = 0; i < block.count; i++) {
+                orders.add(OrderRecords.read(in));
+            }
+            return orders;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive block in segment " + block.segment, e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive segment ends inside a block");
+            }
+        }
+        buffer.flip();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.naturalOrder());
+
+        List<BlockRef> recovered = new ArrayList<>();
+        for (int number = 0; number < files.size(); number++) {
+            FileChannel channel = openSegment(number);
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                BlockRef block = readHeader(channel, number, position, size);
+                if (block == null) {
+                    logger.warn("Truncating torn archive block at {} in {}", position, files.get(number));
+                    channel.truncate(position);
+                    break;
+                }
+                recovered.add(block);
+                position = block.position + block.compressedLength;
+            }
+        }
+        index = Index.EMPTY.plus(recovered);
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered {} archived orders from {} segments", index.records, files.size());
+        }
+    }
+
+    /**
+     * Returns {@code null} if the block at {@code position} is incomplete or corrupt.
+     */
+    private BlockRef readHeader(FileChannel channel, int segment, long position, long size) throws IOException {
+        if (size - position < FIXED_HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES);
+        readFully(channel, header, position);
+        if (header.getInt() != BLOCK_MAGIC || header.get() != FORMAT_VERSION) {
+            return null;
+        }
+        int count = header.getInt();
+        long minId = header.getLong();
+        long maxId = header.getLong();
+        int rawLength = header.getInt();
+        int compressedLength = header.getInt();
+        long checksum = header.getLong();
+        int words = header.getInt();
+        if (words <= 0 || size - position - FIXED_HEADER_BYTES < (long) words * 8) {
+            return null;
+        }
+        ByteBuffer filterBytes = ByteBuffer.allocate(words * 8);
+        readFully(channel, filterBytes, position + FIXED_HEADER_BYTES);
+        long[] filter = new long[words];
+        filterBytes.asLongBuffer().get(filter);
+        long payloadPosition = position + FIXED_HEADER_BYTES + words * 8L;
+        if (compressedLength < 0 || size - payloadPosition < compressedLength) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(compressedLength);
+        readFully(channel, payload, payloadPosition);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if (crc.getValue() != checksum) {
+            return null;
+        }
+        return new BlockRef(segment, payloadPosition, compressedLength, rawLength, count, minId, maxId, filter);
+    }
+
+    // Compression and filters
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != rawLength) {
+                throw new IOException("Archive block inflated to " + offset + " bytes, expected " + rawLength);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static void addToFilter(long[] filter, long hash) {
+        int bits = filter.length * 64;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean mightContain(long[] filter, long hash) {
+        int bits = filter.length * 64;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Location and summary of one block on disk.
+     */
+    private static final class BlockRef {
+        final int segment;
+        final long position;
+        final int compressedLength;
+        final int rawLength;
+        final int count;
+        final long minId;
+        final long maxId;
+        final long[] userFilter;
+
+        BlockRef(int segment, long position, int compressedLength, int rawLength, int count,
+                 long minId, long maxId, long[] userFilter) {
+            this.segment = segment;
+            this.position = position;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+            this.count = count;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.userFilter = userFilter;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the sparse index; replaced wholesale on every append.
+     */
+    private static final class Index {
+        static final Index EMPTY = new Index(new BlockRef[0], new int[0], 0);
+
+        final BlockRef[] blocks;
+        final int[] runStarts;
+        final long records;
+
+        Index(BlockRef[] blocks, int[] runStarts, long records) {
+            this.blocks = blocks;
+            this.runStarts = runStarts;
+            this.records = records;
+        }
+
+        Index plus(List<BlockRef> added) {
+            BlockRef[] all = Arrays.copyOf(blocks, blocks.length + added.size());
+            int[] starts = Arrays.copyOf(runStarts, runStarts.length + added.size());
+            int runs = runStarts.length;
+            long total = records;
+            for (int i = 0; i < added.size(); i++) {
+                int slot = blocks.length + i;
+                BlockRef block = added.get(i);
+                all[slot] = block;
+                total += block.count;
+                if (slot == 0 || all[slot - 1].maxId >= block.minId) {
+                    starts[runs++] = slot;
+                }
+            }
+            return new Index(all, Arrays.copyOf(starts, runs), total);
+        }
+
+        /**
+         * The only block of the run whose ID range can contain {@code id}, or {@code null}.
+         */
+        BlockRef candidate(int run, long id) {
+            int low = runStarts[run];
+            int high = (run + 1 < runStarts.length ? runStarts[run + 1] : blocks.length) - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                BlockRef block = blocks[mid];
+                if (id < block.minId) {
+                    high = mid - 1;
+                } else if (id > block.maxId) {
+                    low = mid + 1;
+                } else {
+                    return block;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.archive;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Field-by-field encoding of an order inside an archive block. Nullable fields are
+ * prefixed with a presence flag; timestamps are stored as UTC epoch seconds plus nanos.
+ */
+final class OrderRecords {
+
+    private OrderRecords() {
+    }
+
+    static void write(DataOutput out, Order order) throws IOException {
+        out.writeLong(order.getId());
+        writeLong(out, order.getUserId());
+        out.writeUTF(order.getStatus().name());
+        writeDecimal(out, order.getTotalAmount());
+        writeString(out, order.getShippingAddress());
+        writeTime(out, order.getCreatedAt());
+        writeTime(out, order.getUpdatedAt());
+        List<OrderItem> items = order.getItems();
+        out.writeInt(items.size());
+        for (OrderItem item : items) {
+            writeLong(out, item.getId());
+            writeLong(out, item.getProductId());
+            writeString(out, item.getProductName());
+            out.writeInt(item.getQuantity());
+            writeDecimal(out, item.getPrice());
+        }
+    }
+
+    static Order read(DataInput in) throws IOException {
+        Order order = new Order(in.readLong(), readLong(in));
+        OrderStatus status = OrderStatus.valueOf(in.readUTF());
+        BigDecimal total = readDecimal(in);
+        order.setShippingAddress(readString(in));
+        order.setCreatedAt(readTime(in));
+        LocalDateTime updatedAt = readTime(in);
+        int itemCount = in.readInt();
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setId(readLong(in));
+            item.setProductId(readLong(in));
+            item.setProductName(readString(in));
+            item.setQuantity(in.readInt());
+            item.setPrice(readDecimal(in));
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalAmount(total);
+        order.setStatus(status);
+        order.setUpdatedAt(updatedAt);
+        return order;
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        writeString(out, value != null ? value.toPlainString() : null);
+    }
+
+    private static BigDecimal readDecimal(DataInput in) throws IOException {
+        String value = readString(in);
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static void writeTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+        return in.readBoolean()
+            ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC)
+            : null;
+    }
+}
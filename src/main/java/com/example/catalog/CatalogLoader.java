@@ -0,0 +1,511 @@
+package com.example.catalog;
+
+import com.example.codec.ProductCodec;
+import com.example.codec.Records;
+import com.example.exception.CorruptRecordException;
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.util.MoneyUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel bulk loader for large product catalogs.
+ *
+ * The file is memory-mapped in chunks that start and end on record boundaries, chunks
+ * are parsed on a fork-join pool, and the products are handed to
+ * {@link ProductRepository#saveAll} in one batch.
+ *
+ * CSV: one product per line, columns {@code id,name,category,price,stock,active,description};
+ * a header line is skipped. Fields may be quoted with {@code "} (doubled to escape) but
+ * must not contain line breaks. Empty category, price and description read as null.
+ * Numbers are parsed straight from the mapped bytes and category names are shared per
+ * chunk, so only names and descriptions allocate strings.
+ *
+ * Binary ({@link #writeBinary}): {@link ProductCodec} records back to back, followed by
+ * an index of every {@value #INDEX_INTERVAL}th record's offset so chunks can be cut
+ * without scanning the file.
+ */
+public class CatalogLoader {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogLoader.class);
+
+    static final int BINARY_MAGIC = 0x50434154;
+    static final byte BINARY_VERSION = 1;
+    static final int INDEX_INTERVAL = 4096;
+    private static final int BINARY_HEADER_BYTES = 5;
+    private static final int BINARY_FOOTER_BYTES = 4 + 8 + 4;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+    private final ProductRepository productRepository;
+    private final ForkJoinPool pool;
+
+    public CatalogLoader(ProductRepository productRepository) {
+        this(productRepository, ForkJoinPool.commonPool());
+    }
+
+    public CatalogLoader(ProductRepository productRepository, ForkJoinPool pool) {
+        this.productRepository = productRepository;
+        this.pool = pool;
+    }
+
+    /**
+     * @return the number of products loaded
+     * @throws CorruptRecordException if a line cannot be parsed
+     */
+    public int loadCsv(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = csvChunkBounds(channel, size);
+            List<Callable<List<Product>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                boolean first = i == 0;
+                tasks.add(() -> new CsvChunk(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from), from)
+                    .parse(first));
+            }
+            return load(tasks, file, start);
+        }
+    }
+
+    /**
+     * @return the number of products loaded
+     * @throws CorruptRecordException if the file is not a complete binary catalog
+     */
+    public int loadBinary(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] index = readIndex(channel);
+            long recordsEnd = channel.size() - BINARY_FOOTER_BYTES - 8L * (index.length - 1);
+            int groups = Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD);
+            int step = Math.max(1, (index.length - 1 + groups - 1) / groups);
+            List<Callable<List<Product>>> tasks = new ArrayList<>();
+            for (int i = 0; i < index.length - 1; i += step) {
+                long from = index[i];
+                long to = i + step < index.length - 1 ? index[i + step] : recordsEnd;
+                tasks.add(() -> parseBinary(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from)));
+            }
+            return load(tasks, file, start);
+        }
+    }
+
+    /**
+     * Writes products in the binary catalog format read by {@link #loadBinary}.
+     */
+    public static void writeBinary(Path file, Iterable<Product> products) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(BINARY_MAGIC).put(BINARY_VERSION);
+            long position = BINARY_HEADER_BYTES;
+            long count = 0;
+            long[] index = new long[64];
+            int indexSize = 0;
+            for (Product product : products) {
+                int size = ProductCodec.encodedSize(product);
+                if (buffer.remaining() < size) {
+                    drain(channel, buffer);
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+                    }
+                }
+                if (count % INDEX_INTERVAL == 0) {
+                    if (indexSize == index.length) {
+                        index = Arrays.copyOf(index, indexSize * 2);
+                    }
+                    index[indexSize++] = position;
+                }
+                ProductCodec.encode(product, buffer);
+                position += size;
+                count++;
+            }
+            for (int i = 0; i < indexSize; i++) {
+                if (buffer.remaining() < 8) {
+                    drain(channel, buffer);
+                }
+                buffer.putLong(index[i]);
+            }
+            if (buffer.remaining() < BINARY_FOOTER_BYTES) {
+                drain(channel, buffer);
+            }
+            buffer.putInt(indexSize).putLong(count).putInt(BINARY_MAGIC);
+            drain(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    private int load(List<Callable<List<Product>>> tasks, Path file, long startNanos) throws IOException {
+        List<Future<List<Product>>> results = pool.invokeAll(tasks);
+        List<List<Product>> chunks = new ArrayList<>(results.size());
+        int total = 0;
+        for (Future<List<Product>> result : results) {
+            List<Product> chunk = join(result);
+            chunks.add(chunk);
+            total += chunk.size();
+        }
+        long parsedNanos = System.nanoTime();
+        List<Product> all = new ArrayList<>(total);
+        chunks.forEach(all::addAll);
+        productRepository.saveAll(all);
+        logger.info("Loaded {} products from {} in {} chunks: parse {} ms, build {} ms", total, file, tasks.size(),
+            (parsedNanos - startNanos) / 1_000_000, (System.nanoTime() - parsedNanos) / 1_000_000);
+        return total;
+    }
+
+    private static List<Product> join(Future<List<Product>> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading catalog", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Catalog chunk failed", cause);
+        }
+    }
+
+    /**
+     * Chunk start offsets plus the file size; every start except 0 is just past a newline.
+     */
+    private long[] csvChunkBounds(FileChannel channel, long size) throws IOException {
+        long target = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES,
+            size / Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD)));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long next = target;
+        while (next < size) {
+            long boundary = nextLineStart(channel, next, window);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            next = boundary + target;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer window) throws IOException {
+        long position = from;
+        while (true) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static long[] readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < BINARY_HEADER_BYTES + BINARY_FOOTER_BYTES) {
+            throw new CorruptRecordException("Binary catalog of " + size + " bytes is truncated");
+        }
+        ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_BYTES);
+        ByteBuffer footer = ByteBuffer.allocate(BINARY_FOOTER_BYTES);
+        readFully(channel, header, 0);
+        readFully(channel, footer, size - BINARY_FOOTER_BYTES);
+        int indexSize = footer.getInt(0);
+        if (header.getInt(0) != BINARY_MAGIC || footer.getInt(12) != BINARY_MAGIC || header.get(4) != BINARY_VERSION) {
+            throw new CorruptRecordException("Not a binary catalog, or an incomplete one");
+        }
+        long indexStart = size - BINARY_FOOTER_BYTES - 8L * indexSize;
+        if (indexSize < 0 || indexStart < BINARY_HEADER_BYTES) {
+            throw new CorruptRecordException("Binary catalog index of " + indexSize + " entries does not fit");
+        }
+        ByteBuffer indexBytes = ByteBuffer.allocate(8 * indexSize);
+        readFully(channel, indexBytes, indexStart);
+        long[] index = new long[indexSize + 1];
+        for (int i = 0; i < indexSize; i++) {
+            index[i] = indexBytes.getLong(8 * i);
+        }
+        // Sentinel: records end where the index begins
+        index[indexSize] = indexStart;
+        return index;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new CorruptRecordException("Binary catalog ends unexpectedly");
+            }
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static List<Product> parseBinary(MappedByteBuffer chunk) {
+        List<Product> products = new ArrayList<>(chunk.limit() / 48);
+        while (chunk.hasRemaining()) {
+            if (Records.typeAt(chunk, chunk.position()) != Records.PRODUCT) {
+                throw new CorruptRecordException("Unexpected record type in binary catalog");
+            }
+            products.add(ProductCodec.decode(chunk));
+        }
+        return products;
+    }
+
+    /**
+     * Parser for one CSV chunk. Fields are copied into a reused scratch array only when a
+     * string has to be built.
+     */
+    private static final class CsvChunk {
+        private static final int CATEGORY_CACHE_SIZE = 256;
+
+        private final MappedByteBuffer buffer;
+        private final long fileOffset;
+        private final int limit;
+        private int position;
+        private byte[] scratch = new byte[256];
+        private int scratchLength;
+        private final byte[][] categoryKeys = new byte[CATEGORY_CACHE_SIZE][];
+        private final String[] categoryValues = new String[CATEGORY_CACHE_SIZE];
+
+        CsvChunk(MappedByteBuffer buffer, long fileOffset) {
+            this.buffer = buffer;
+            this.fileOffset = fileOffset;
+            this.limit = buffer.limit();
+        }
+
+        List<Product> parse(boolean mayHaveHeader) {
+            List<Product> products = new ArrayList<>(limit / 64);
+            if (mayHaveHeader && limit > 0 && !isDigit(buffer.get(0))) {
+                skipLine();
+            }
+            while (position < limit) {
+                if (buffer.get(position) == '\n' || buffer.get(position) == '\r') {
+                    position++;
+                    continue;
+                }
+                int lineStart = position;
+                try {
+                    products.add(parseLine());
+                } catch (RuntimeException e) {
+                    throw new CorruptRecordException("Malformed catalog line at byte " + (fileOffset + lineStart)
+                        + ": " + e.getMessage(), e);
+                }
+            }
+            return products;
+        }
+
+        private Product parseLine() {
+            Product product = new Product();
+            product.setId(parseLong());
+            expectComma();
+            product.setName(readString(false));
+            expectComma();
+            product.setCategory(nullIfEmpty(readString(true)));
+            expectComma();
+            product.setPrice(atFieldEnd() ? null : MoneyUtils.fromCents(parseCents()));
+            expectComma();
+            product.setStockQuantity(Math.toIntExact(parseLong()));
+            expectComma();
+            product.setActive(parseBoolean());
+            if (position < limit && buffer.get(position) == ',') {
+                position++;
+                product.setDescription(nullIfEmpty(readString(false)));
+            }
+            endLine();
+            return product;
+        }
+
+        private long parseLong() {
+            boolean negative = position < limit && buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            int digits = 0;
+            long value = 0;
+            while (position < limit && isDigit(buffer.get(position))) {
+                value = Math.addExact(Math.multiplyExact(value, 10), buffer.get(position++) - '0');
+                digits++;
+            }
+            if (digits == 0) {
+                throw new IllegalArgumentException("number expected");
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a decimal amount with at most two fraction digits straight into cents.
+         */
+        private long parseCents() {
+            boolean negative = buffer.get(position) == '-';
+            long cents = Math.multiplyExact(Math.abs(parseLong()), 100);
+            if (position < limit && buffer.get(position) == '.') {
+                position++;
+                int scale = 10;
+                while (position < limit && isDigit(buffer.get(position))) {
+                    if (scale == 0) {
+                        throw new IllegalArgumentException("price has more than two decimal places");
+                    }
+                    cents += (buffer.get(position++) - '0') * scale;
+                    scale /= 10;
+                }
+            }
+            return negative ? -cents : cents;
+        }
+
+        private boolean parseBoolean() {
+            byte b = position < limit ? buffer.get(position) : 0;
+            if (b == '1' || b == '0') {
+                position++;
+                return b == '1';
+            }
+            if (matches("true")) {
+                return true;
+            }
+            if (matches("false")) {
+                return false;
+            }
+            throw new IllegalArgumentException("boolean expected");
+        }
+
+        private boolean matches(String word) {
+            if (position + word.length() > limit) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if ((buffer.get(position + i) | 0x20) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            position += word.length();
+            return true;
+        }
+
+        /**
+         * Reads a plain or quoted field; {@code shared} returns one String instance per
+         * distinct value, for low-cardinality columns.
+         */
+        private String readString(boolean shared) {
+            scratchLength = 0;
+            if (position < limit && buffer.get(position) == '"') {
+                position++;
+                while (true) {
+                    if (position >= limit) {
+                        throw new IllegalArgumentException("unterminated quoted field");
+                    }
+                    byte b = buffer.get(position++);
+                    if (b == '"') {
+                        if (position < limit && buffer.get(position) == '"') {
+                            position++;
+                        } else {
+                            break;
+                        }
+                    } else if (b == '\n') {
+                        throw new IllegalArgumentException("line break inside quoted field");
+                    }
+                    append(b);
+                }
+            } else {
+                while (!atFieldEnd()) {
+                    append(buffer.get(position++));
+                }
+            }
+            return shared ? sharedString() : new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+        }
+
+        private String sharedString() {
+            int hash = 1;
+            for (int i = 0; i < scratchLength; i++) {
+                hash = 31 * hash + scratch[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (CATEGORY_CACHE_SIZE - 1);
+            byte[] key = categoryKeys[slot];
+            if (key != null && Arrays.equals(key, 0, key.length, scratch, 0, scratchLength)) {
+                return categoryValues[slot];
+            }
+            String value = new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+            categoryKeys[slot] = Arrays.copyOf(scratch, scratchLength);
+            categoryValues[slot] = value;
+            return value;
+        }
+
+        private void append(byte b) {
+            if (scratchLength == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[scratchLength++] = b;
+        }
+
+        private boolean atFieldEnd() {
+            if (position >= limit) {
+                return true;
+            }
+            byte b = buffer.get(position);
+            return b == ',' || b == '\n' || b == '\r';
+        }
+
+        private void expectComma() {
+            if (position >= limit || buffer.get(position) != ',') {
+                throw new IllegalArgumentException("',' expected");
+            }
+            position++;
+        }
+
+        private void endLine() {
+            if (position < limit && buffer.get(position) == '\r') {
+                position++;
+            }
+            if (position < limit && buffer.get(position++) != '\n') {
+                throw new IllegalArgumentException("unexpected trailing data");
+            }
+        }
+
+        private void skipLine() {
+            while (position < limit && buffer.get(position++) != '\n') {
+                // header
+            }
+        }
+
+        private static String nullIfEmpty(String value) {
+            return value.isEmpty() ? null : value;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.cdc;
+
+import com.example.logging.RequestContext;
+import com.example.model.OrderStatus;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+/**
+ * One change to a repository entity, as published by {@link ChangePublisher}.
+ *
+ * The entity is encoded when the event is published, while the writer still holds the
+ * lock that orders the change, so {@link #getRecord()} and {@link #getEntity()} show it
+ * exactly as the change left it; the event never exposes the live, mutable object.
+ * Sequence numbers increase by one per publisher, so a gap means events were lost. The
+ * correlation ID of the request that made the change is captured too, and subscribers
+ * are called under it.
+ */
+public final class ChangeEvent<T> {
+    public enum Type { SAVED, DELETED, STATUS_CHANGED, STOCK_CHANGED }
+
+    private final Type type;
+    private final long entityId;
+    // Live entity until the publisher encodes it; dropped then
+    private T entity;
+    private byte[] record;
+    private Function<ByteBuffer, ? extends T> decoder;
+    private final OrderStatus previousStatus;
+    private final OrderStatus status;
+    private final int previousStock;
+    private final int stock;
+    private final long occurredAtMillis;
+    private final String correlationId;
+    // Assigned by the publisher before the event becomes visible to subscribers
+    private long sequence;
+
+    private ChangeEvent(Type type, long entityId, T entity, OrderStatus previousStatus, OrderStatus status,
+                        int previousStock, int stock) {
+        this.type = type;
+        this.entityId = entityId;
+        this.entity = entity;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.previousStock = previousStock;
+        this.stock = stock;
+        this.occurredAtMillis = System.currentTimeMillis();
+        this.correlationId = RequestContext.currentId();
+    }
+
+    public static <T> ChangeEvent<T> saved(long entityId, T entity) {
+        return new ChangeEvent<>(Type.SAVED, entityId, entity, null, null, 0, 0);
+    }
+
+    /**
+     * @param entity the removed entity
+     */
+    public static <T> ChangeEvent<T> deleted(long entityId, T entity) {
+        return new ChangeEvent<>(Type.DELETED, entityId, entity, null, null, 0, 0);
+    }
+
+    public static <T> ChangeEvent<T> statusChanged(long entityId, T entity, OrderStatus previous, OrderStatus current) {
+        return new ChangeEvent<>(Type.STATUS_CHANGED, entityId, entity, previous, current, 0, 0);
+    }
+
+    public static <T> ChangeEvent<T> stockChanged(long entityId, T entity, int previous, int current) {
+        return new ChangeEvent<>(Type.STOCK_CHANGED, entityId, entity, null, null, previous, current);
+    }
+
+    void assignSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    T liveEntity() {
+        return entity;
+    }
+
+    void capture(byte[] record, Function<ByteBuffer, ? extends T> decoder) {
+        this.record = record;
+        this.decoder = decoder;
+        this.entity = null;
+    }
+
+    public long getSequence() { return sequence; }
+    public Type getType() { return type; }
+    public long getEntityId() { return entityId; }
+
+    /**
+     * Encoded image of the entity as of this change, or {@code null} if it could not be
+     * encoded. Shared by all subscribers; must not be modified.
+     */
+    public byte[] getRecord() { return record; }
+
+    /** A fresh copy decoded from {@link #getRecord()}; {@code null} if there is none. */
+    public T getEntity() { return record != null ? decoder.apply(ByteBuffer.wrap(record)) : null; }
+    public long getOccurredAtMillis() { return occurredAtMillis; }
+
+    /** Correlation ID of the request that made the change; {@code null} outside one. */
+    public String getCorrelationId() { return correlationId; }
+
+    /** Status before a {@link Type#STATUS_CHANGED} event; {@code null} otherwise. */
+    public OrderStatus getPreviousStatus() { return previousStatus; }
+
+    /** Status after a {@link Type#STATUS_CHANGED} event; {@code null} otherwise. */
+    public OrderStatus getStatus() { return status; }
+
+    /** Quantity before a {@link Type#STOCK_CHANGED} event; 0 otherwise. */
+    public int getPreviousStock() { return previousStock; }
+
+    /** Quantity after a {@link Type#STOCK_CHANGED} event; 0 otherwise. */
+    public int getStock() { return stock; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ChangeEvent{seq=").append(sequence)
+            .append(", type=").append(type).append(", id=").append(entityId);
+        if (type == Type.STATUS_CHANGED) {
+            sb.append(", ").append(previousStatus).append(" -> ").append(status);
+        } else if (type == Type.STOCK_CHANGED) {
+            sb.append(", ").append(previousStock).append(" -> ").append(stock);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.cdc;
+
+import com.example.exception.SubscriberOverflowException;
+import com.example.logging.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Change stream of one repository as a {@link Flow.Publisher}.
+ *
+ * Every subscriber gets its own bounded ring buffer. {@link #publish} stamps the next
+ * sequence number and appends the event to each ring under a short lock, so all
+ * subscribers see the same order; it never waits for a subscriber. Delivery runs on the
+ * executor and honours {@link Flow.Subscription#request}. A subscriber whose ring fills up
+ * is dropped and receives {@link SubscriberOverflowException} carrying the last sequence it
+ * got, so it can resynchronize from the repository instead of silently missing changes.
+ *
+ * Writers call {@link #publish} while holding whatever lock orders their mutation (the
+ * product monitor for stock changes, for example), which keeps per-entity order intact
+ * and lets the entity be encoded consistently before the event leaves the writer.
+ */
+public class ChangePublisher<T> implements Flow.Publisher<ChangeEvent<T>> {
+    private static final Logger logger = LoggerFactory.getLogger(ChangePublisher.class);
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+
+    private final String name;
+    private final Function<? super T, byte[]> encoder;
+    private final Function<ByteBuffer, ? extends T> decoder;
+    private final Executor executor;
+    private final int defaultCapacity;
+    private final CopyOnWriteArrayList<RingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Object publishLock = new Object();
+    // Guarded by publishLock
+    private long nextSequence = 1;
+
+    /**
+     * @param encoder turns an entity into its record when an event is published
+     * @param decoder reads such a record back, for {@link ChangeEvent#getEntity()}
+     */
+    public ChangePublisher(String name, Function<? super T, byte[]> encoder, Function<ByteBuffer, ? extends T> decoder) {
+        this(name, encoder, decoder, ForkJoinPool.commonPool(), DEFAULT_BUFFER_CAPACITY);
+    }
+
+    public ChangePublisher(String name, Function<? super T, byte[]> encoder, Function<ByteBuffer, ? extends T> decoder,
+                           Executor executor, int defaultCapacity) {
+        if (defaultCapacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        this.name = name;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.executor = executor;
+        this.defaultCapacity = defaultCapacity;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChangeEvent<T>> subscriber) {
+        subscribe(subscriber, defaultCapacity);
+    }
+
+    /**
+     * Subscribes with a buffer of at least {@code capacity} events. Only changes published
+     * after this call are delivered.
+     */
+    public void subscribe(Flow.Subscriber<? super ChangeEvent<T>> subscriber, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        RingSubscription subscription = new RingSubscription(subscriber, capacity);
+        for (RingSubscription existing : subscriptions) {
+            if (existing.subscriber == subscriber) {
+                subscriber.onSubscribe(subscription);
+                subscriber.onError(new IllegalStateException("Already subscribed to " + name));
+                return;
+            }
+        }
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Cheap guard for writers, so events are not even built while nobody listens.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Sequence number the next event will get.
+     */
+    public long getNextSequence() {
+        synchronized (publishLock) {
+            return nextSequence;
+        }
+    }
+
+    /**
+     * Encodes the event's entity, then stamps and buffers the event for every current
+     * subscriber; never blocks on them. An entity that cannot be encoded is published
+     * without a record rather than failing the write that changed it.
+     */
+    public void publish(ChangeEvent<T> event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        byte[] record = null;
+        try {
+            record = encoder.apply(event.liveEntity());
+        } catch (RuntimeException e) {
+            logger.error("Change stream {} could not encode {}", name, event, e);
+        }
+        event.capture(record, decoder);
+        synchronized (publishLock) {
+            event.assignSequence(nextSequence++);
+            for (RingSubscription subscription : subscriptions) {
+                subscription.offer(event);
+            }
+        }
+        // A subscriber added in between just gets a spurious, harmless wake-up
+        for (RingSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    private final class RingSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ChangeEvent<T>> subscriber;
+        private final ChangeEvent<?>[] ring;
+        private final int mask;
+        private final int capacity;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        // Written under publishLock only
+        private volatile long tail;
+        // Written by the draining thread only
+        private volatile long head;
+        private volatile boolean cancelled;
+        private volatile boolean overflowed;
+        private volatile Throwable badRequest;
+        private long lastDelivered;
+
+        RingSubscription(Flow.Subscriber<? super ChangeEvent<T>> subscriber, int capacity) {
+            int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            this.subscriber = subscriber;
+            this.ring = new ChangeEvent<?>[size];
+            this.mask = size - 1;
+            this.capacity = capacity;
+        }
+
+        void offer(ChangeEvent<T> event) {
+            if (cancelled || overflowed) {
+                return;
+            }
+            long t = tail;
+            if (t - head >= capacity) {
+                // Stays registered until the drain loop has delivered the error
+                overflowed = true;
+                return;
+            }
+            ring[(int) t & mask] = event;
+            tail = t + 1;
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                logger.error("Change stream {} could not schedule delivery; cancelling subscriber", name, e);
+                cancel();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                requested.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Drain loop; {@code wip} guarantees a single thread runs it at a time.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (terminated()) {
+                    return;
+                }
+                long demand = requested.get();
+                long delivered = 0;
+                long h = head;
+                while (delivered != demand && h != tail && !cancelled) {
+                    int slot = (int) h & mask;
+                    @SuppressWarnings("unchecked")
+                    ChangeEvent<T> event = (ChangeEvent<T>) ring[slot];
+                    ring[slot] = null;
+                    head = ++h;
+                    RequestContext.Scope scope = RequestContext.open(event.getCorrelationId());
+                    try {
+                        subscriber.onNext(event);
+                    } catch (Throwable t) {
+                        logger.error("Subscriber of change stream {} failed on {}; cancelling it", name, event, t);
+                        cancel();
+                        return;
+                    } finally {
+                        scope.close();
+                    }
+                    lastDelivered = event.getSequence();
+                    delivered++;
+                }
+                if (delivered != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-delivered);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private boolean terminated() {
+            if (cancelled) {
+                return true;
+            }
+            Throwable error = badRequest;
+            if (error == null && overflowed) {
+                error = new SubscriberOverflowException(capacity, lastDelivered);
+            }
+            if (error == null) {
+                return false;
+            }
+            cancel();
+            Arrays.fill(ring, null);
+            try {
+                subscriber.onError(error);
+            } catch (Throwable t) {
+                logger.error("Subscriber of change stream {} failed in onError", name, t);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.util.MoneyUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of {@link Order} and its items.
+ *
+ * Body, version 1: id, userId (nullable varints), status code, total in cents (nullable),
+ * createdAt and updatedAt as epoch millis (zigzag varint / nullable), shipping address,
+ * item count, then per item: id, productId (nullable varints), product name, quantity
+ * (zigzag varint) and price in cents (nullable). Status codes are the declaration order
+ * of {@link OrderStatus}; new statuses must be appended.
+ *
+ * Works on heap, direct and mapped buffers alike. Use {@link OrderView} to read fields
+ * without materializing the order.
+ */
+public final class OrderCodec {
+    public static final byte VERSION = 1;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private OrderCodec() {
+    }
+
+    public static int encodedSize(Order order) {
+        return Records.HEADER_BYTES + bodySize(order);
+    }
+
+    /**
+     * Writes the order at the buffer's position and advances it.
+     *
+     * @throws java.nio.BufferOverflowException if the record does not fit; nothing is written
+     * @throws IllegalArgumentException if the order has no ID
+     */
+    public static void encode(Order order, ByteBuffer buffer) {
+        if (order.getId() == null) {
+            throw new IllegalArgumentException("Cannot encode an order without an ID");
+        }
+        Records.writeHeader(buffer, Records.ORDER, VERSION, bodySize(order));
+        Wire.putNullableLong(buffer, order.getId());
+        Wire.putNullableLong(buffer, order.getUserId());
+        buffer.put((byte) order.getStatus().ordinal());
+        Wire.putNullableLong(buffer, order.hasTotalAmount(), order.getTotalCents());
+        Wire.putSignedLong(buffer, order.getCreatedAtMillis());
+        Wire.putNullableLong(buffer, order.hasUpdatedAt(), order.getLastModifiedMillis());
+        Wire.putString(buffer, order.getShippingAddress());
+        List<OrderItem> items = order.getItems();
+        Wire.putVarLong(buffer, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            Wire.putNullableLong(buffer, item.getId());
+            Wire.putNullableLong(buffer, item.getProductId());
+            Wire.putString(buffer, item.getProductName());
+            Wire.putSignedLong(buffer, item.getQuantity());
+            Wire.putNullableLong(buffer, item.hasPrice(), item.getPriceCents());
+        }
+    }
+
+    /**
+     * Encodes the order into a new array holding exactly its record.
+     */
+    public static byte[] toBytes(Order order) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(order));
+        encode(order, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Reads the order at the buffer's position and advances past the whole record.
+     *
+     * @throws CorruptRecordException if the bytes are not a readable order record
+     */
+    public static Order decode(ByteBuffer buffer) {
+        int offset = buffer.position();
+        int bodyStart = Records.bodyStart(buffer, offset, Records.ORDER, VERSION);
+        int end = offset + Records.lengthAt(buffer, offset);
+        buffer.position(bodyStart);
+        try {
+            Order order = new Order(Wire.getNullableLong(buffer), Wire.getNullableLong(buffer));
+            OrderStatus status = status(buffer.get());
+            Long totalCents = Wire.getNullableLong(buffer);
+            order.setCreatedAtMillis(Wire.getSignedLong(buffer));
+            Long updatedAtMillis = Wire.getNullableLong(buffer);
+            order.setShippingAddress(Wire.getString(buffer));
+            int itemCount = count(Wire.getVarLong(buffer), end - buffer.position());
+            List<OrderItem> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                OrderItem item = new OrderItem();
+                item.setId(Wire.getNullableLong(buffer));
+                item.setProductId(Wire.getNullableLong(buffer));
+                item.setProductName(Wire.getString(buffer));
+                item.setQuantity((int) Wire.getSignedLong(buffer));
+                Long priceCents = Wire.getNullableLong(buffer);
+                item.setPrice(priceCents == null ? null : MoneyUtils.fromCents(priceCents));
+                items.add(item);
+            }
+            order.setItems(items);
+            order.setTotalAmount(totalCents == null ? null : MoneyUtils.fromCents(totalCents));
+            order.setStatus(status);
+            if (updatedAtMillis != null) {
+                order.setUpdatedAtMillis(updatedAtMillis);
+            } else {
+                order.setUpdatedAt(null);
+            }
+            if (buffer.position() > end) {
+                throw new CorruptRecordException("Order record overruns its declared length");
+            }
+            buffer.position(end);
+            return order;
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptRecordException("Truncated order record at " + offset, e);
+        }
+    }
+
+    static int bodySize(Order order) {
+        int size = nullableSize(order.getId())
+            + nullableSize(order.getUserId())
+            + 1
+            + nullableSize(order.hasTotalAmount(), order.getTotalCents())
+            + Wire.varLongSize(Wire.zigzag(order.getCreatedAtMillis()))
+            + nullableSize(order.hasUpdatedAt(), order.getLastModifiedMillis())
+            + Wire.stringSize(order.getShippingAddress());
+        List<OrderItem> items = order.getItems();
+        size += Wire.varLongSize(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            size += nullableSize(item.getId())
+                + nullableSize(item.getProductId())
+                + Wire.stringSize(item.getProductName())
+                + Wire.varLongSize(Wire.zigzag(item.getQuantity()))
+                + nullableSize(item.hasPrice(), item.getPriceCents());
+        }
+        return size;
+    }
+
+    static OrderStatus status(byte code) {
+        if (code < 0 || code >= STATUSES.length) {
+            throw new CorruptRecordException("Unknown order status code " + code);
+        }
+        return STATUSES[code];
+    }
+
+    /**
+     * Guards allocations against corrupt counts: every element takes at least one byte.
+     */
+    static int count(long count, int remainingBytes) {
+        if (count < 0 || count > remainingBytes) {
+            throw new CorruptRecordException("Element count " + count + " exceeds the record");
+        }
+        return (int) count;
+    }
+
+    static int nullableSize(Long value) {
+        return value == null ? 1 : Wire.varLongSize(Wire.zigzag(value) + 1);
+    }
+
+    static int nullableSize(boolean present, long value) {
+        return present ? Wire.varLongSize(Wire.zigzag(value) + 1) : 1;
+    }
+}
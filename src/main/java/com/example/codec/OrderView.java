@@ -0,0 +1,203 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.Order;
+import com.example.model.OrderStatus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable flyweight over an encoded order: {@link #wrap} records where each field starts
+ * and the accessors read straight from the buffer, so scanning a mapped file of orders
+ * allocates nothing unless a string or the full {@link Order} is asked for.
+ *
+ * Not thread-safe; the view is only valid while the wrapped bytes are unchanged.
+ */
+public final class OrderView {
+    private ByteBuffer buffer;
+    private int offset;
+    private int end;
+    private int idAt;
+    private int userIdAt;
+    private int statusAt;
+    private int totalAt;
+    private int createdAtAt;
+    private int updatedAtAt;
+    private int addressAt;
+    private int itemCountAt;
+    private int itemCount;
+    private int itemsAt;
+
+    private final ItemCursor items = new ItemCursor();
+
+    /**
+     * Points the view at the order record starting at {@code offset}.
+     *
+     * @throws CorruptRecordException if the bytes are not a readable order record
+     */
+    public OrderView wrap(ByteBuffer buffer, int offset) {
+        int at = Records.bodyStart(buffer, offset, Records.ORDER, OrderCodec.VERSION);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.end = offset + Records.lengthAt(buffer, offset);
+        try {
+            idAt = at;
+            userIdAt = at += Wire.varLongSize(buffer, at);
+            statusAt = at += Wire.varLongSize(buffer, at);
+            totalAt = at += 1;
+            createdAtAt = at += Wire.varLongSize(buffer, at);
+            updatedAtAt = at += Wire.varLongSize(buffer, at);
+            addressAt = at += Wire.varLongSize(buffer, at);
+            itemCountAt = at += Wire.stringSizeAt(buffer, at);
+            itemsAt = at + Wire.varLongSize(buffer, at);
+            itemCount = OrderCodec.count(Wire.varLongAt(buffer, itemCountAt), end - itemsAt);
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptRecordException("Truncated order record at " + offset, e);
+        }
+        return this;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Encoded length of the record, header included.
+     */
+    public int length() {
+        return end - offset;
+    }
+
+    public boolean hasId() {
+        return !Wire.isNullAt(buffer, idAt);
+    }
+
+    public long id() {
+        return Wire.nullableLongAt(buffer, idAt);
+    }
+
+    public boolean hasUserId() {
+        return !Wire.isNullAt(buffer, userIdAt);
+    }
+
+    public long userId() {
+        return Wire.nullableLongAt(buffer, userIdAt);
+    }
+
+    public OrderStatus status() {
+        return OrderCodec.status(buffer.get(statusAt));
+    }
+
+    public boolean hasTotal() {
+        return !Wire.isNullAt(buffer, totalAt);
+    }
+
+    public long totalCents() {
+        return hasTotal() ? Wire.nullableLongAt(buffer, totalAt) : 0;
+    }
+
+    public long createdAtMillis() {
+        return Wire.signedLongAt(buffer, createdAtAt);
+    }
+
+    /**
+     * Last update in epoch millis, falling back to creation time like
+     * {@link Order#getLastModifiedMillis()}.
+     */
+    public long lastModifiedMillis() {
+        return Wire.isNullAt(buffer, updatedAtAt) ? createdAtMillis() : Wire.nullableLongAt(buffer, updatedAtAt);
+    }
+
+    public String shippingAddress() {
+        return Wire.stringAt(buffer, addressAt);
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Rewinds and returns the shared item cursor; call {@link ItemCursor#next()} before
+     * reading the first item.
+     */
+    public ItemCursor items() {
+        items.reset();
+        return items;
+    }
+
+    /**
+     * Decodes the full order, for callers that need the mutable model.
+     */
+    public Order toOrder() {
+        return OrderCodec.decode(buffer.duplicate().position(offset));
+    }
+
+    /**
+     * Forward-only cursor over the items of the wrapped order.
+     */
+    public final class ItemCursor {
+        private int remaining;
+        private int nextAt;
+        private int idAt;
+        private int productIdAt;
+        private int nameAt;
+        private int quantityAt;
+        private int priceAt;
+
+        void reset() {
+            remaining = itemCount;
+            nextAt = itemsAt;
+        }
+
+        /**
+         * Advances to the next item.
+         *
+         * @return {@code false} once every item has been visited
+         */
+        public boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            int at = nextAt;
+            idAt = at;
+            productIdAt = at += Wire.varLongSize(buffer, at);
+            nameAt = at += Wire.varLongSize(buffer, at);
+            quantityAt = at += Wire.stringSizeAt(buffer, at);
+            priceAt = at += Wire.varLongSize(buffer, at);
+            nextAt = at + Wire.varLongSize(buffer, at);
+            if (nextAt > end) {
+                throw new CorruptRecordException("Order item overruns the record at " + offset);
+            }
+            return true;
+        }
+
+        public boolean hasId() {
+            return !Wire.isNullAt(buffer, idAt);
+        }
+
+        public long id() {
+            return Wire.nullableLongAt(buffer, idAt);
+        }
+
+        public long productId() {
+            return Wire.nullableLongAt(buffer, productIdAt);
+        }
+
+        public String productName() {
+            return Wire.stringAt(buffer, nameAt);
+        }
+
+        public int quantity() {
+            return (int) Wire.signedLongAt(buffer, quantityAt);
+        }
+
+        public long priceCents() {
+            return Wire.isNullAt(buffer, priceAt) ? 0 : Wire.nullableLongAt(buffer, priceAt);
+        }
+
+        public long subtotalCents() {
+            return Math.multiplyExact(priceCents(), (long) quantity());
+        }
+    }
+}
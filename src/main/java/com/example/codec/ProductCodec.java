@@ -0,0 +1,100 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.Product;
+import com.example.util.MoneyUtils;
+
+import java.nio.ByteBuffer;
+
+import static com.example.codec.OrderCodec.nullableSize;
+
+/**
+ * Binary encoding of {@link Product}.
+ *
+ * Body, version 1: id (nullable varint), flags (bit 0: active), price in cents
+ * (nullable), stock quantity (zigzag varint), name, category, description. Prices must
+ * have at most two decimal places. See {@link ProductView} for flyweight access.
+ */
+public final class ProductCodec {
+    public static final byte VERSION = 1;
+
+    static final int FLAG_ACTIVE = 1;
+
+    private ProductCodec() {
+    }
+
+    public static int encodedSize(Product product) {
+        return Records.HEADER_BYTES + bodySize(product, priceCents(product));
+    }
+
+    /**
+     * Writes the product at the buffer's position and advances it.
+     *
+     * @throws java.nio.BufferOverflowException if the record does not fit; nothing is written
+     * @throws IllegalArgumentException if the price has more than two decimal places
+     */
+    public static void encode(Product product, ByteBuffer buffer) {
+        Long priceCents = priceCents(product);
+        Records.writeHeader(buffer, Records.PRODUCT, VERSION, bodySize(product, priceCents));
+        Wire.putNullableLong(buffer, product.getId());
+        buffer.put((byte) (product.isActive() ? FLAG_ACTIVE : 0));
+        Wire.putNullableLong(buffer, priceCents);
+        Wire.putSignedLong(buffer, product.getStockQuantity());
+        Wire.putString(buffer, product.getName());
+        Wire.putString(buffer, product.getCategory());
+        Wire.putString(buffer, product.getDescription());
+    }
+
+    /**
+     * Encodes the product into a new array holding exactly its record.
+     */
+    public static byte[] toBytes(Product product) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(product));
+        encode(product, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Reads the product at the buffer's position and advances past the whole record.
+     *
+     * @throws CorruptRecordException if the bytes are not a readable product record
+     */
+    public static Product decode(ByteBuffer buffer) {
+        int offset = buffer.position();
+        int bodyStart = Records.bodyStart(buffer, offset, Records.PRODUCT, VERSION);
+        int end = offset + Records.lengthAt(buffer, offset);
+        buffer.position(bodyStart);
+        try {
+            Product product = new Product();
+            product.setId(Wire.getNullableLong(buffer));
+            product.setActive((buffer.get() & FLAG_ACTIVE) != 0);
+            Long priceCents = Wire.getNullableLong(buffer);
+            product.setPrice(priceCents == null ? null : MoneyUtils.fromCents(priceCents));
+            product.setStockQuantity((int) Wire.getSignedLong(buffer));
+            product.setName(Wire.getString(buffer));
+            product.setCategory(Wire.getString(buffer));
+            product.setDescription(Wire.getString(buffer));
+            if (buffer.position() > end) {
+                throw new CorruptRecordException("Product record overruns its declared length");
+            }
+            buffer.position(end);
+            return product;
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptRecordException("Truncated product record at " + offset, e);
+        }
+    }
+
+    private static Long priceCents(Product product) {
+        return product.getPrice() == null ? null : MoneyUtils.toCents(product.getPrice());
+    }
+
+    private static int bodySize(Product product, Long priceCents) {
+        return nullableSize(product.getId())
+            + 1
+            + nullableSize(priceCents)
+            + Wire.varLongSize(Wire.zigzag(product.getStockQuantity()))
+            + Wire.stringSize(product.getName())
+            + Wire.stringSize(product.getCategory())
+            + Wire.stringSize(product.getDescription());
+    }
+}
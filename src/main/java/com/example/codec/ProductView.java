@@ -0,0 +1,94 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.Product;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable flyweight over an encoded product; see {@link OrderView}.
+ */
+public final class ProductView {
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+    private int idAt;
+    private int flagsAt;
+    private int priceAt;
+    private int stockAt;
+    private int nameAt;
+    private int categoryAt;
+    private int descriptionAt;
+
+    /**
+     * Points the view at the product record starting at {@code offset}.
+     *
+     * @throws CorruptRecordException if the bytes are not a readable product record
+     */
+    public ProductView wrap(ByteBuffer buffer, int offset) {
+        int at = Records.bodyStart(buffer, offset, Records.PRODUCT, ProductCodec.VERSION);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = Records.lengthAt(buffer, offset);
+        try {
+            idAt = at;
+            flagsAt = at += Wire.varLongSize(buffer, at);
+            priceAt = at += 1;
+            stockAt = at += Wire.varLongSize(buffer, at);
+            nameAt = at += Wire.varLongSize(buffer, at);
+            categoryAt = at += Wire.stringSizeAt(buffer, at);
+            descriptionAt = at + Wire.stringSizeAt(buffer, at);
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptRecordException("Truncated product record at " + offset, e);
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean hasId() {
+        return !Wire.isNullAt(buffer, idAt);
+    }
+
+    public long id() {
+        return Wire.nullableLongAt(buffer, idAt);
+    }
+
+    public boolean isActive() {
+        return (buffer.get(flagsAt) & ProductCodec.FLAG_ACTIVE) != 0;
+    }
+
+    public boolean hasPrice() {
+        return !Wire.isNullAt(buffer, priceAt);
+    }
+
+    public long priceCents() {
+        return hasPrice() ? Wire.nullableLongAt(buffer, priceAt) : 0;
+    }
+
+    public int stockQuantity() {
+        return (int) Wire.signedLongAt(buffer, stockAt);
+    }
+
+    public boolean isInStock() {
+        return stockQuantity() > 0;
+    }
+
+    public String name() {
+        return Wire.stringAt(buffer, nameAt);
+    }
+
+    public String category() {
+        return Wire.stringAt(buffer, categoryAt);
+    }
+
+    public String description() {
+        return Wire.stringAt(buffer, descriptionAt);
+    }
+
+    public Product toProduct() {
+        return ProductCodec.decode(buffer.duplicate().position(offset));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Framing shared by all encoded models: a type byte, a format version byte and the body
+ * length as a 4-byte int, followed by the body.
+ *
+ * Fields are only ever appended to a body, and readers skip whatever follows the fields
+ * they know, so records written by a newer minor revision stay readable. The version is
+ * bumped only for incompatible changes; readers reject versions newer than their own.
+ */
+public final class Records {
+    public static final byte ORDER = 1;
+    public static final byte PRODUCT = 2;
+    public static final byte USER = 3;
+
+    public static final int HEADER_BYTES = 1 + 1 + 4;
+
+    private Records() {
+    }
+
+    public static byte typeAt(ByteBuffer buffer, int offset) {
+        return buffer.get(offset);
+    }
+
+    /**
+     * Total encoded length of the record at {@code offset}, header included; use it to
+     * step through a buffer of consecutive records.
+     */
+    public static int lengthAt(ByteBuffer buffer, int offset) {
+        return HEADER_BYTES + buffer.getInt(offset + 2);
+    }
+
+    /**
+     * Writes the header after checking that the whole record fits, so a failed write never
+     * leaves a partial record behind.
+     */
+    static void writeHeader(ByteBuffer buffer, byte type, byte version, int bodyLength) {
+        if (buffer.remaining() < HEADER_BYTES + bodyLength) {
+            throw new BufferOverflowException();
+        }
+        buffer.put(type).put(version).putInt(bodyLength);
+    }
+
+    /**
+     * Validates the header at {@code offset} and returns where the body starts.
+     */
+    static int bodyStart(ByteBuffer buffer, int offset, byte expectedType, byte maxVersion) {
+        if (buffer.limit() - offset < HEADER_BYTES) {
+            throw new CorruptRecordException("Truncated record header at " + offset);
+        }
+        byte type = buffer.get(offset);
+        if (type != expectedType) {
+            throw new CorruptRecordException("Expected record type " + expectedType + " but found " + type);
+        }
+        byte version = buffer.get(offset + 1);
+        if (version < 1 || version > maxVersion) {
+            throw new CorruptRecordException("Unsupported version " + version + " of record type " + type);
+        }
+        int bodyLength = buffer.getInt(offset + 2);
+        if (bodyLength < 0 || bodyLength > buffer.limit() - offset - HEADER_BYTES) {
+            throw new CorruptRecordException("Record body of " + bodyLength + " bytes exceeds the buffer");
+        }
+        return offset + HEADER_BYTES;
+    }
+}
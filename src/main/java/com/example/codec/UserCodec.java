@@ -0,0 +1,119 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.User;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static com.example.codec.OrderCodec.nullableSize;
+
+/**
+ * Binary encoding of {@link User}.
+ *
+ * Body, version 1: id (nullable varint), flags (bit 0: active), createdAt and lastLogin,
+ * email, name, password hash. Timestamps are stored losslessly as nullable epoch seconds
+ * of the local date-time read as UTC, followed by nanos when present. See {@link UserView}.
+ */
+public final class UserCodec {
+    public static final byte VERSION = 1;
+
+    static final int FLAG_ACTIVE = 1;
+
+    private UserCodec() {
+    }
+
+    public static int encodedSize(User user) {
+        return Records.HEADER_BYTES + bodySize(user);
+    }
+
+    /**
+     * Writes the user at the buffer's position and advances it.
+     *
+     * @throws java.nio.BufferOverflowException if the record does not fit; nothing is written
+     */
+    public static void encode(User user, ByteBuffer buffer) {
+        Records.writeHeader(buffer, Records.USER, VERSION, bodySize(user));
+        Wire.putNullableLong(buffer, user.getId());
+        buffer.put((byte) (user.isActive() ? FLAG_ACTIVE : 0));
+        putTime(buffer, user.getCreatedAt());
+        putTime(buffer, user.getLastLogin());
+        Wire.putString(buffer, user.getEmail());
+        Wire.putString(buffer, user.getName());
+        Wire.putString(buffer, user.getPasswordHash());
+    }
+
+    /**
+     * Encodes the user into a new array holding exactly its record.
+     */
+    public static byte[] toBytes(User user) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(user));
+        encode(user, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Reads the user at the buffer's position and advances past the whole record.
+     *
+     * @throws CorruptRecordException if the bytes are not a readable user record
+     */
+    public static User decode(ByteBuffer buffer) {
+        int offset = buffer.position();
+        int bodyStart = Records.bodyStart(buffer, offset, Records.USER, VERSION);
+        int end = offset + Records.lengthAt(buffer, offset);
+        buffer.position(bodyStart);
+        try {
+            User user = new User();
+            user.setId(Wire.getNullableLong(buffer));
+            user.setActive((buffer.get() & FLAG_ACTIVE) != 0);
+            user.setCreatedAt(getTime(buffer));
+            user.setLastLogin(getTime(buffer));
+            user.setEmail(Wire.getString(buffer));
+            user.setName(Wire.getString(buffer));
+            user.setPasswordHash(Wire.getString(buffer));
+            if (buffer.position() > end) {
+                throw new CorruptRecordException("User record overruns its declared length");
+            }
+            buffer.position(end);
+            return user;
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptRecordException("Truncated user record at " + offset, e);
+        }
+    }
+
+    private static int bodySize(User user) {
+        return nullableSize(user.getId())
+            + 1
+            + timeSize(user.getCreatedAt())
+            + timeSize(user.getLastLogin())
+            + Wire.stringSize(user.getEmail())
+            + Wire.stringSize(user.getName())
+            + Wire.stringSize(user.getPasswordHash());
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        if (time == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        Wire.putNullableLong(buffer, true, time.toEpochSecond(ZoneOffset.UTC));
+        Wire.putVarLong(buffer, time.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        Long seconds = Wire.getNullableLong(buffer);
+        return seconds == null ? null
+            : LocalDateTime.ofEpochSecond(seconds, (int) Wire.getVarLong(buffer), ZoneOffset.UTC);
+    }
+
+    private static int timeSize(LocalDateTime time) {
+        return time == null ? 1
+            : nullableSize(true, time.toEpochSecond(ZoneOffset.UTC)) + Wire.varLongSize(time.getNano());
+    }
+
+    static int timeSizeAt(ByteBuffer buffer, int offset) {
+        int size = Wire.varLongSize(buffer, offset);
+        return Wire.isNullAt(buffer, offset) ? size : size + Wire.varLongSize(buffer, offset + size);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.User;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable flyweight over an encoded user; see {@link OrderView}. Timestamps are left to
+ * {@link #toUser()}.
+ */
+public final class UserView {
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+    private int idAt;
+    private int flagsAt;
+    private int emailAt;
+    private int nameAt;
+    private int passwordHashAt;
+
+    /**
+     * Points the view at the user record starting at {@code offset}.
+     *
+     * @throws CorruptRecordException if the bytes are not a readable user record
+     */
+    public UserView wrap(ByteBuffer buffer, int offset) {
+        int at = Records.bodyStart(buffer, offset, Records.USER, UserCodec.VERSION);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = Records.lengthAt(buffer, offset);
+        try {
+            idAt = at;
+            flagsAt = at += Wire.varLongSize(buffer, at);
+            at += 1;
+            at += UserCodec.timeSizeAt(buffer, at);
+            emailAt = at += UserCodec.timeSizeAt(buffer, at);
+            nameAt = at += Wire.stringSizeAt(buffer, at);
+            passwordHashAt = at + Wire.stringSizeAt(buffer, at);
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptRecordException("Truncated user record at " + offset, e);
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean hasId() {
+        return !Wire.isNullAt(buffer, idAt);
+    }
+
+    public long id() {
+        return Wire.nullableLongAt(buffer, idAt);
+    }
+
+    public boolean isActive() {
+        return (buffer.get(flagsAt) & UserCodec.FLAG_ACTIVE) != 0;
+    }
+
+    public String email() {
+        return Wire.stringAt(buffer, emailAt);
+    }
+
+    public String name() {
+        return Wire.stringAt(buffer, nameAt);
+    }
+
+    public String passwordHash() {
+        return Wire.stringAt(buffer, passwordHashAt);
+    }
+
+    public User toUser() {
+        return UserCodec.decode(buffer.duplicate().position(offset));
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Primitive encodings shared by the codecs.
+ *
+ * Relative methods ({@code put*}, {@code get*}) move the buffer position; absolute ones
+ * ({@code *At}) take an offset and leave it alone so flyweights can share a buffer.
+ * Nullable values are stored as {@code zigzag(value) + 1} with 0 meaning null, which
+ * makes {@code Long.MIN_VALUE} unrepresentable (the models use it as their own "unset").
+ * Strings are a varint of {@code utf8Length + 1} (0 for null) followed by UTF-8 bytes.
+ */
+final class Wire {
+
+    private Wire() {
+    }
+
+    // Varints (unsigned LEB128)
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptRecordException("Varint longer than 10 bytes");
+    }
+
+    static long varLongAt(ByteBuffer buffer, int offset) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get(offset++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptRecordException("Varint longer than 10 bytes");
+    }
+
+    static int varLongSize(ByteBuffer buffer, int offset) {
+        for (int size = 1; size <= 10; size++) {
+            if (buffer.get(offset + size - 1) >= 0) {
+                return size;
+            }
+        }
+        throw new CorruptRecordException("Varint longer than 10 bytes");
+    }
+
+    static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Signed and nullable longs
+
+    static void putSignedLong(ByteBuffer buffer, long value) {
+        putVarLong(buffer, zigzag(value));
+    }
+
+    static long getSignedLong(ByteBuffer buffer) {
+        return unzigzag(getVarLong(buffer));
+    }
+
+    static long signedLongAt(ByteBuffer buffer, int offset) {
+        return unzigzag(varLongAt(buffer, offset));
+    }
+
+    static void putNullableLong(ByteBuffer buffer, Long value) {
+        putVarLong(buffer, value == null ? 0 : zigzag(value) + 1);
+    }
+
+    /**
+     * @param present whether {@code value} is set; avoids boxing at call sites that hold
+     *                a primitive and a sentinel
+     */
+    static void putNullableLong(ByteBuffer buffer, boolean present, long value) {
+        putVarLong(buffer, present ? zigzag(value) + 1 : 0);
+    }
+
+    static Long getNullableLong(ByteBuffer buffer) {
+        long raw = getVarLong(buffer);
+        return raw == 0 ? null : unzigzag(raw - 1);
+    }
+
+    static boolean isNullAt(ByteBuffer buffer, int offset) {
+        return buffer.get(offset) == 0;
+    }
+
+    /**
+     * Value of a nullable long at {@code offset}; callers check {@link #isNullAt} first.
+     */
+    static long nullableLongAt(ByteBuffer buffer, int offset) {
+        return unzigzag(varLongAt(buffer, offset) - 1);
+    }
+
+    // Strings
+
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    static int stringSize(String value) {
+        if (value == null) {
+            return 1;
+        }
+        int length = utf8Length(value);
+        return varLongSize(length + 1L) + length;
+    }
+
+    /**
+     * Encodes straight into the buffer, so direct buffers need no intermediate array.
+     * Unpaired surrogates are written as U+FFFD.
+     */
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        putVarLong(buffer, utf8Length(value) + 1L);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else {
+                    buffer.put((byte) 0xEF).put((byte) 0xBF).put((byte) 0xBD);
+                }
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int offset = buffer.position();
+        String value = stringAt(buffer, offset);
+        buffer.position(offset + stringSizeAt(buffer, offset));
+        return value;
+    }
+
+    static String stringAt(ByteBuffer buffer, int offset) {
+        long raw = varLongAt(buffer, offset);
+        if (raw == 0) {
+            return null;
+        }
+        int length = checkedLength(raw - 1, buffer, offset);
+        int start = offset + varLongSize(buffer, offset);
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int stringSizeAt(ByteBuffer buffer, int offset) {
+        long raw = varLongAt(buffer, offset);
+        int header = varLongSize(buffer, offset);
+        return raw == 0 ? header : header + checkedLength(raw - 1, buffer, offset);
+    }
+
+    private static int checkedLength(long length, ByteBuffer buffer, int offset) {
+        if (length < 0 || length > buffer.limit() - offset) {
+            throw new CorruptRecordException("String length " + length + " exceeds the buffer");
+        }
+        return (int) length;
+    }
+}
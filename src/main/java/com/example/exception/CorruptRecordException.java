@@ -0,0 +1,15 @@
+package com.example.exception;
+
+/**
+ * Exception thrown when an encoded record cannot be decoded.
+ */
+public class CorruptRecordException extends RuntimeException {
+
+    public CorruptRecordException(String message) {
+        super(message);
+    }
+
+    public CorruptRecordException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
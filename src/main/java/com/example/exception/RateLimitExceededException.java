@@ -0,0 +1,22 @@
+package com.example.exception;
+
+/**
+ * Thrown when admission control turns a request away before any work is done: the
+ * caller's token bucket is empty or too many requests are already in flight.
+ *
+ * Built without a stack trace or a per-key message so that rejecting a flood of requests
+ * stays cheap; the key is available from {@link #getKey()}.
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private final long key;
+    private final boolean concurrencyLimited;
+
+    public RateLimitExceededException(long key, boolean concurrencyLimited) {
+        super(concurrencyLimited ? "Too many requests in flight" : "Rate limit exceeded", null, false, false);
+        this.key = key;
+        this.concurrencyLimited = concurrencyLimited;
+    }
+
+    public long getKey() { return key; }
+    public boolean isConcurrencyLimited() { return concurrencyLimited; }
+}
@@ -0,0 +1,16 @@
+package com.example.exception;
+
+/**
+ * Signalled to a change-stream subscriber that fell so far behind that its buffer filled
+ * up. Events after {@link #getLastDeliveredSequence()} were dropped for it.
+ */
+public class SubscriberOverflowException extends RuntimeException {
+    private final long lastDeliveredSequence;
+
+    public SubscriberOverflowException(int capacity, long lastDeliveredSequence) {
+        super("Subscriber buffer of " + capacity + " events overflowed after sequence " + lastDeliveredSequence);
+        this.lastDeliveredSequence = lastDeliveredSequence;
+    }
+
+    public long getLastDeliveredSequence() { return lastDeliveredSequence; }
+}
@@ -0,0 +1,209 @@
+package com.example.idempotency;
+
+import com.example.exception.ValidationException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per caller-supplied idempotency key and replays its
+ * outcome to retries.
+ *
+ * The first caller for a key claims it with {@code putIfAbsent} and runs the operation on
+ * its own thread; concurrent duplicates wait for that run and get the same result, and
+ * later retries get it straight from the store. Business failures (runtime exceptions)
+ * are replayed like results, so a retry never repeats a charge that was attempted; a new
+ * key is needed to try again. Errors, and failures the {@code retryable} predicate
+ * accepts (rejections that happened before any work was done, such as rate limiting),
+ * are not recorded: the key is released so a retry runs afresh, and callers that were
+ * waiting on it run the operation again themselves.
+ *
+ * Every key is bound to a fingerprint of the request it was first used with; reusing
+ * it for a different request is rejected. Entries expire {@code ttl} after they were
+ * created (never while still running) and the store holds at most {@code maxEntries}:
+ * beyond that the oldest finished entries are dropped first.
+ */
+public class IdempotencyStore<V> {
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Predicate<? super RuntimeException> retryable;
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final LongAdder replays = new LongAdder();
+
+    public IdempotencyStore(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, e -> false);
+    }
+
+    /**
+     * @param retryable failures of the operation that did nothing and must not be
+     *                  replayed; the key is released instead
+     */
+    public IdempotencyStore(Duration ttl, int maxEntries, Predicate<? super RuntimeException> retryable) {
+        if (ttl.isNegative() || ttl.isZero() || maxEntries < 1) {
+            throw new IllegalArgumentException("ttl and maxEntries must be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.retryable = Objects.requireNonNull(retryable, "retryable");
+    }
+
+    /**
+     * Runs {@code operation} unless {@code key} has already been used, in which case the
+     * recorded (or in-flight) outcome is returned or rethrown instead.
+     *
+     * @param fingerprint identifies the request, e.g. its arguments; compared with
+     *                    {@code equals} against the one the key was first used with
+     * @throws ValidationException if the key was used for a different request
+     */
+    public V execute(String key, Object fingerprint, Supplier<? extends V> operation) {
+        Objects.requireNonNull(key, "key");
+        long now = System.nanoTime();
+        expire(now);
+        Entry<V> created;
+        while (true) {
+            // Retries are the common case here; only allocate for a key not seen yet
+            Entry<V> existing = entries.get(key);
+            if (existing == null) {
+                created = new Entry<>(key, fingerprint, now + ttlNanos);
+                existing = entries.putIfAbsent(key, created);
+                if (existing == null) {
+                    break;
+                }
+            }
+            if (existing.isExpired(now)) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                throw new ValidationException("Idempotency key " + key + " was already used for a different request");
+            }
+            V value;
+            try {
+                value = existing.await();
+            } catch (RuntimeException e) {
+                if (retryable.test(e)) {
+                    // The first caller was turned away before doing anything; try again
+                    continue;
+                }
+                replays.increment();
+                throw e;
+            }
+            replays.increment();
+            return value;
+        }
+        insertionOrder.add(created);
+        trim();
+        try {
+            V value = operation.get();
+            created.outcome.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            if (retryable.test(e)) {
+                entries.remove(key, created);
+            }
+            created.outcome.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            entries.remove(key, created);
+            created.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Calls answered from the store instead of running the operation.
+     */
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    /**
+     * Drops expired entries from the front of the insertion order. Entries are created in
+     * expiry order, so the sweep stops at the first one still live or still running.
+     */
+    private void expire(long now) {
+        Entry<V> head;
+        while ((head = insertionOrder.peek()) != null) {
+            boolean removed = entries.get(head.key) != head;
+            if (!removed && !head.isExpired(now)) {
+                return;
+            }
+            if (insertionOrder.remove(head) && !removed) {
+                entries.remove(head.key, head);
+            }
+        }
+    }
+
+    /**
+     * Evicts the oldest finished entries while over capacity. Running entries are skipped,
+     * so a store full of in-flight requests may briefly exceed its bound.
+     */
+    private void trim() {
+        int skipped = 0;
+        while (entries.size() > maxEntries && skipped < maxEntries) {
+            Entry<V> head = insertionOrder.poll();
+            if (head == null) {
+                return;
+            }
+            if (head.outcome.isDone() || entries.get(head.key) != head) {
+                entries.remove(head.key, head);
+            } else {
+                insertionOrder.add(head);
+                skipped++;
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        final String key;
+        final Object fingerprint;
+        final long expiresAtNanos;
+        final CompletableFuture<V> outcome = new CompletableFuture<>();
+
+        Entry(String key, Object fingerprint, long expiresAtNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long now) {
+            return outcome.isDone() && now - expiresAtNanos >= 0;
+        }
+
+        /**
+         * Waits for the first caller's outcome; an interrupted wait gives up without
+         * affecting the running operation.
+         */
+        V await() {
+            try {
+                return outcome.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Idempotent request " + key + " failed", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for idempotent request " + key, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.inventory;
+
+import com.example.cdc.ChangeEvent;
+import com.example.cdc.ChangePublisher;
+import com.example.logging.RequestContext;
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.util.ConcurrentLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sharded inventory with one writer thread per shard.
+ *
+ * Products are partitioned by ID. Each shard's thread is the only one that mutates the
+ * stock of its products, draining a lock-free command queue, so reservations on hot SKUs
+ * are serialized without lock contention. Callers enqueue a command and await the future;
+ * the command runs under the caller's correlation ID.
+ *
+ * Products saved after the engine started are looked up on the caller's thread the first
+ * time they are used, so a shard thread never waits for the repository.
+ *
+ * While an engine is running, all stock changes for its products must go through it
+ * ({@link #reserve}, {@link #release}, {@link #setStock}); other writers would race with the shard thread.
+ */
+public class InventoryEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryEngine.class);
+
+    private final ProductRepository productRepository;
+    private final StockLevelMonitor stockMonitor;
+    private final ChangePublisher<Product> changes;
+    private final Shard[] shards;
+    // Written once per product, read by callers; stock is only mutated on the shard thread
+    private final ConcurrentLongHashMap<Product> products = new ConcurrentLongHashMap<>();
+
+    public InventoryEngine(ProductRepository productRepository, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        this.productRepository = productRepository;
+        this.stockMonitor = productRepository.getStockMonitor();
+        this.changes = productRepository.getChangePublisher();
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        for (Product product : productRepository.findAll()) {
+            products.put(product.getId(), product);
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        logger.info("Inventory engine started with {} shards", shardCount);
+    }
+
+    public CompletableFuture<Reservation> reserve(Long productId, int quantity) {
+        return submit(Command.RESERVE, productId, quantity);
+    }
+
+    public CompletableFuture<Reservation> release(Long productId, int quantity) {
+        return submit(Command.RELEASE, productId, quantity);
+    }
+
+    public CompletableFuture<Reservation> setStock(Long productId, int quantity) {
+        return submit(Command.SET_STOCK, productId, quantity);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.info("Inventory engine stopped");
+    }
+
+    private CompletableFuture<Reservation> submit(int type, Long productId, int quantity) {
+        Product product = products.get(productId);
+        if (product == null) {
+            // Saved after the engine started: adopt it, paying the lookup on this thread
+            product = productRepository.findById(productId).orElse(null);
+            if (product == null) {
+                return CompletableFuture.completedFuture(new Reservation(Reservation.Status.NOT_FOUND, 0));
+            }
+            Product adopted = products.putIfAbsent(productId, product);
+            if (adopted != null) {
+                product = adopted;
+            }
+        }
+        Command command = new Command(type, product, quantity);
+        shardFor(productId).submit(command);
+        return command.result;
+    }
+
+    private Shard shardFor(Long productId) {
+        // Fibonacci hashing spreads sequential IDs evenly across shards
+        long mixed = productId * 0x9E3779B97F4A7C15L;
+        return shards[(int) Math.floorMod(mixed >>> 32, (long) shards.length)];
+    }
+
+    /**
+     * Outcome of an inventory command.
+     */
+    public static final class Reservation {
+        public enum Status { RESERVED, INSUFFICIENT_STOCK, NOT_FOUND }
+
+        private final Status status;
+        private final int available;
+
+        Reservation(Status status, int available) {
+            this.status = status;
+            this.available = available;
+        }
+
+        public Status getStatus() { return status; }
+        public int getAvailable() { return available; }
+        public boolean isReserved() { return status == Status.RESERVED; }
+    }
+
+    private static final class Command {
+        static final int RESERVE = 0;
+        static final int SET_STOCK = 1;
+        static final int RELEASE = 2;
+
+        final int type;
+        final Product product;
+        final int quantity;
+        final String correlationId = RequestContext.currentId();
+        final CompletableFuture<Reservation> result = new CompletableFuture<>();
+
+        Command(int type, Product product, int quantity) {
+            this.type = type;
+            this.product = product;
+            this.quantity = quantity;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean parked;
+
+        Shard(int index) {
+            this.thread = new Thread(this, "inventory-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void submit(Command command) {
+            if (!running) {
+                rejectClosed(command);
+                return;
+            }
+            queue.offer(command);
+            // close() may have stopped the thread after the check above; unless the thread
+            // already took the command, nobody else will ever run it
+            if (!running && queue.remove(command)) {
+                rejectClosed(command);
+                return;
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void rejectClosed(Command command) {
+            command.result.completeExceptionally(new IllegalStateException("Inventory engine is closed"));
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Command command = queue.poll();
+                if (command == null) {
+                    parked = true;
+                    // Re-check after publishing the flag so a concurrent submit is never missed
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                RequestContext.Scope scope = RequestContext.open(command.correlationId);
+                try {
+                    command.result.complete(execute(command));
+                } catch (RuntimeException e) {
+                    command.result.completeExceptionally(e);
+                } finally {
+                    scope.close();
+                }
+            }
+        }
+
+        private Reservation execute(Command command) {
+            Product product = command.product;
+            Long productId = product.getId();
+            int available = product.getStockQuantity();
+            int current;
+            if (command.type == Command.SET_STOCK) {
+                product.setStockQuantity(command.quantity);
+                current = command.quantity;
+            } else if (command.type == Command.RELEASE) {
+                current = available + command.quantity;
+                product.setStockQuantity(current);
+            } else if (available < command.quantity) {
+                return new Reservation(Reservation.Status.INSUFFICIENT_STOCK, available);
+            } else {
+                product.decreaseStock(command.quantity);
+                current = available - command.quantity;
+            }
+
+            int previous = stockMonitor.recordStock(product, current);
+            if (changes.hasSubscribers()) {
+                // The shard thread is the product's only writer, so its events stay in order
+                changes.publish(ChangeEvent.stockChanged(productId, product, available, current));
+            }
+            stockMonitor.stockChanged(product, previous, current);
+            return new Reservation(Reservation.Status.RESERVED, current);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.inventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a product's stock crosses its low-stock threshold or runs out.
+ */
+public class StockLevelEvent {
+    public enum Type { LOW_STOCK, OUT_OF_STOCK }
+
+    private final Type type;
+    private final Long productId;
+    private final String productName;
+    private final int previousQuantity;
+    private final int currentQuantity;
+    private final int threshold;
+    private final LocalDateTime occurredAt;
+
+    public StockLevelEvent(Type type, Long productId, String productName,
+                           int previousQuantity, int currentQuantity, int threshold) {
+        this.type = type;
+        this.productId = productId;
+        this.productName = productName;
+        this.previousQuantity = previousQuantity;
+        this.currentQuantity = currentQuantity;
+        this.threshold = threshold;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Type getType() { return type; }
+    public Long getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public int getPreviousQuantity() { return previousQuantity; }
+    public int getCurrentQuantity() { return currentQuantity; }
+    public int getThreshold() { return threshold; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    @Override
+    public String toString() {
+        return "StockLevelEvent{type=" + type + ", productId=" + productId + ", name='" + productName
+            + "', " + previousQuantity + " -> " + currentQuantity + ", threshold=" + threshold + "}";
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.inventory;
+
+/**
+ * Receives stock threshold crossings from a {@link StockLevelMonitor}.
+ */
+@FunctionalInterface
+public interface StockLevelListener {
+    void onStockLevelEvent(StockLevelEvent event);
+}
@@ -0,0 +1,146 @@
+package com.example.inventory;
+
+import com.example.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Detects stock threshold crossings on the stock-mutation path.
+ *
+ * The repository reports every stock change as a (previous, current) pair taken
+ * atomically, so each downward crossing is published exactly once; the alert re-arms
+ * when stock climbs back above the threshold. The set of products currently at or
+ * below their threshold is maintained alongside, so nothing ever scans the catalog.
+ */
+public class StockLevelMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(StockLevelMonitor.class);
+
+    private final StockThresholds thresholds;
+    private final List<StockLevelListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, Product> lowStock = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> observedStock = new ConcurrentHashMap<>();
+
+    public StockLevelMonitor() {
+        this(new StockThresholds());
+    }
+
+    public StockLevelMonitor(StockThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Registers a listener. Products already below their threshold are replayed to it
+     * once, so late subscribers still learn about the current state.
+     *
+     * @return handle whose {@link Registration#close()} removes the listener again
+     */
+    public Registration addListener(StockLevelListener listener) {
+        listeners.add(listener);
+        for (Product product : lowStock.values()) {
+            int quantity = product.getStockQuantity();
+            int threshold = thresholds.thresholdFor(product);
+            for (StockLevelEvent event : crossings(product, Integer.MAX_VALUE, quantity, threshold)) {
+                deliver(listener, event);
+            }
+        }
+        return () -> removeListener(listener);
+    }
+
+    public void removeListener(StockLevelListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records the latest stock level, updates the low-stock set and returns the previously
+     * recorded level ({@link Integer#MAX_VALUE} for a product seen for the first time).
+     * Callers must hold the product's lock so the recorded sequence, and the set, match
+     * the mutation order.
+     */
+    public int recordStock(Product product, int current) {
+        Long productId = product.getId();
+        Integer recorded = observedStock.put(productId, current);
+        int previous = recorded != null ? recorded : Integer.MAX_VALUE;
+        int threshold = thresholds.thresholdFor(product);
+        if (current <= threshold) {
+            lowStock.put(productId, product);
+        } else if (previous <= threshold) {
+            lowStock.remove(productId);
+        }
+        return previous;
+    }
+
+    /**
+     * Whether a stock level has been recorded for the product. Bulk loads record only
+     * products that are low or already tracked; an unrecorded product reads as
+     * {@link Integer#MAX_VALUE}, i.e. above any threshold, which is accurate for the rest.
+     */
+    public boolean isTracked(Long productId) {
+        return observedStock.containsKey(productId);
+    }
+
+    /**
+     * Publishes any threshold crossing between two recorded levels. Called outside the
+     * product's lock so listeners never run while stock is locked.
+     */
+    public void stockChanged(Product product, int previous, int current) {
+        int threshold = thresholds.thresholdFor(product);
+        List<StockLevelEvent> events = crossings(product, previous, current, threshold);
+        for (StockLevelEvent event : events) {
+            for (StockLevelListener listener : listeners) {
+                deliver(listener, event);
+            }
+        }
+    }
+
+    /**
+     * Products currently at or below their threshold.
+     */
+    public Collection<Product> getLowStockProducts() {
+        return new ArrayList<>(lowStock.values());
+    }
+
+    public StockThresholds getThresholds() {
+        return thresholds;
+    }
+
+    private static List<StockLevelEvent> crossings(Product product, int previous, int current, int threshold) {
+        boolean crossedThreshold = previous > threshold && current <= threshold;
+        boolean ranOut = previous > 0 && current == 0;
+        if (!crossedThreshold && !ranOut) {
+            return List.of();
+        }
+        List<StockLevelEvent> events = new ArrayList<>(2);
+        if (crossedThreshold) {
+            events.add(new StockLevelEvent(StockLevelEvent.Type.LOW_STOCK,
+                product.getId(), product.getName(), previous, current, threshold));
+        }
+        if (ranOut) {
+            events.add(new StockLevelEvent(StockLevelEvent.Type.OUT_OF_STOCK,
+                product.getId(), product.getName(), previous, current, threshold));
+        }
+        return events;
+    }
+
+    private void deliver(StockLevelListener listener, StockLevelEvent event) {
+        try {
+            listener.onStockLevelEvent(event);
+        } catch (RuntimeException e) {
+            logger.error("Stock level listener failed for {}", event, e);
+        }
+    }
+
+    /**
+     * A listener added with {@link #addListener}; closing it removes the listener.
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
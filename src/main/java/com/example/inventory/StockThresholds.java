@@ -0,0 +1,45 @@
+package com.example.inventory;
+
+import com.example.model.Product;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Low-stock thresholds: a per-product override wins over a per-category one,
+ * which wins over the default.
+ */
+public class StockThresholds {
+    public static final int DEFAULT_THRESHOLD = 10;
+
+    private final Map<Long, Integer> byProduct = new ConcurrentHashMap<>();
+    private final Map<String, Integer> byCategory = new ConcurrentHashMap<>();
+    private volatile int defaultThreshold = DEFAULT_THRESHOLD;
+
+    public int thresholdFor(Product product) {
+        Integer threshold = byProduct.get(product.getId());
+        if (threshold == null && product.getCategory() != null) {
+            threshold = byCategory.get(product.getCategory());
+        }
+        return threshold != null ? threshold : defaultThreshold;
+    }
+
+    public int getDefaultThreshold() { return defaultThreshold; }
+    public void setDefaultThreshold(int threshold) { this.defaultThreshold = threshold; }
+
+    public void setProductThreshold(Long productId, int threshold) {
+        byProduct.put(productId, threshold);
+    }
+
+    public void setCategoryThreshold(String category, int threshold) {
+        byCategory.put(category, threshold);
+    }
+
+    public void clearProductThreshold(Long productId) {
+        byProduct.remove(productId);
+    }
+
+    public void clearCategoryThreshold(String category) {
+        byCategory.remove(category);
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.loadgen;
+
+import com.example.metrics.LatencyHistogram;
+import com.example.metrics.MetricsRegistry;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import com.example.service.OrderService;
+import com.example.service.PaymentService;
+import com.example.service.ProductService;
+import com.example.service.StubPaymentGateway;
+import com.example.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Multi-threaded workload driver for the in-process services.
+ *
+ * In open-loop mode requests are scheduled at a fixed global arrival rate and latency is
+ * measured from each request's intended start time, so a stalled system is charged for
+ * the requests it delayed (no coordinated omission). In closed-loop mode every worker
+ * issues requests back to back; pass {@code --expected-interval-us} to back-fill the
+ * samples a stall would have hidden, as HdrHistogram does.
+ *
+ * An operation that needs an order its worker does not have yet creates and fills one
+ * first; those calls are recorded under their own operations, not charged to it.
+ *
+ * Run with {@code -Dlogback.configurationFile=logback-loadgen.xml} to keep per-request
+ * logging out of the measurement.
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final String PASSWORD = "LoadTest123";
+    private static final int MAX_USERS = 1 << 16;
+    private static final int MAX_OPEN_ORDERS = 64;
+
+    private final WorkloadConfig config;
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final OrderService orderService;
+    private final long[] productIds;
+
+    private final Operation[] schedule;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    private final AtomicReferenceArray<User> users = new AtomicReferenceArray<>(MAX_USERS);
+    private final AtomicInteger userCount = new AtomicInteger();
+    private final AtomicLong emailSequence = new AtomicLong();
+    private volatile long measuredNanos;
+
+    public LoadGenerator(WorkloadConfig config) {
+        this.config = config;
+
+        UserRepository userRepository = new UserRepository(config.getDbLatencyMillis());
+        OrderRepository orderRepository = new OrderRepository(config.getDbLatencyMillis());
+        ProductRepository productRepository = new ProductRepository(config.getDbLatencyMillis());
+        ProductService productService = new ProductService(productRepository);
+        PaymentService paymentService = new PaymentService(
+            new StubPaymentGateway(config.getDeclinePercent(), config.getGatewayLatencyMicros()));
+        this.userService = new UserService(userRepository);
+        this.userRepository = userRepository;
+        this.orderService = new OrderService(orderRepository, productRepository, productService, paymentService);
+
+        // Restock the catalog so the run measures the services, not stock-outs
+        List<Product> products = productRepository.findAll();
+        this.productIds = new long[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            product.setStockQuantity(config.getStock());
+            productRepository.save(product);
+            productIds[i] = product.getId();
+        }
+
+        this.schedule = buildSchedule(config.getMix());
+        for (Operation op : Operation.values()) {
+            stats.put(op, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        WorkloadConfig config = WorkloadConfig.fromArgs(args);
+        logger.info("Starting load generator: {}", config);
+        LoadGenerator generator = new LoadGenerator(config);
+        generator.run();
+        logger.info("Load report:\n{}", generator.report());
+        logger.info("Operation metrics:\n{}", MetricsRegistry.getDefault().dump());
+    }
+
+    public void run() throws InterruptedException {
+        for (int i = 0; i < config.getInitialUsers(); i++) {
+            signup();
+        }
+
+        long runStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        long measureStart = runStart + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long runEnd = measureStart + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        AtomicLong ticket = new AtomicLong();
+
+        CountDownLatch done = new CountDownLatch(config.getThreads());
+        for (int i = 0; i < config.getThreads(); i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    if (config.getMode() == WorkloadConfig.Mode.OPEN) {
+                        runOpenLoop(ticket, runStart, measureStart, runEnd);
+                    } else {
+                        runClosedLoop(runStart, measureStart, runEnd);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadgen-worker-" + i);
+            worker.start();
+        }
+        done.await();
+        measuredNanos = runEnd - measureStart;
+    }
+
+    private void runOpenLoop(AtomicLong ticket, long runStart, long measureStart, long runEnd) {
+        Session session = new Session();
+        double periodNanos = 1_000_000_000.0 / config.getRate();
+        while (true) {
+            long intendedStart = runStart + (long) (ticket.getAndIncrement() * periodNanos);
+            if (intendedStart >= runEnd) {
+                return;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intendedStart) {
+                LockSupport.parkNanos(intendedStart - now);
+            }
+            execute(session, intendedStart >= measureStart, intendedStart, 0);
+        }
+    }
+
+    private void runClosedLoop(long runStart, long measureStart, long runEnd) {
+        Session session = new Session();
+        long expectedIntervalNanos = TimeUnit.MICROSECONDS.toNanos(config.getExpectedIntervalMicros());
+        long now;
+        while ((now = System.nanoTime()) < runStart) {
+            LockSupport.parkNanos(runStart - now);
+        }
+        while ((now = System.nanoTime()) < runEnd) {
+            execute(session, now >= measureStart, now, expectedIntervalNanos);
+        }
+    }
+
+    private void execute(Session session, boolean record, long intendedStart, long expectedIntervalNanos) {
+        Operation op = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+        long setupStart = System.nanoTime();
+        Long orderId;
+        try {
+            orderId = prepare(op, session, record);
+        } catch (RuntimeException e) {
+            // Recorded as a failure of the setup operation
+            return;
+        }
+        long start = System.nanoTime();
+        boolean ok = true;
+        try {
+            perform(op, session, orderId);
+        } catch (RuntimeException e) {
+            ok = false;
+        }
+        long end = System.nanoTime();
+        if (record) {
+            stats.get(op).record(end - intendedStart - (start - setupStart), end - start, ok, expectedIntervalNanos);
+        }
+    }
+
+    /**
+     * Picks the order {@code op} works on, creating (and for PROCESS filling) one when the
+     * session has none; those calls are recorded under their own operations.
+     */
+    private Long prepare(Operation op, Session session, boolean record) {
+        switch (op) {
+            case ADD_ITEMS:
+                Long target = session.open.pollFirst();
+                return target != null ? target : timed(Operation.CREATE_ORDER, record, this::createOrder);
+            case PROCESS:
+                Long toProcess = session.filled.pollFirst();
+                if (toProcess == null) {
+                    Long created = timed(Operation.CREATE_ORDER, record, this::createOrder);
+                    timed(Operation.ADD_ITEMS, record, () -> addItem(created));
+                    toProcess = created;
+                }
+                return toProcess;
+            case CANCEL:
+                Long toCancel = session.open.isEmpty() ? session.filled.pollFirst() : session.open.pollFirst();
+                return toCancel != null ? toCancel : timed(Operation.CREATE_ORDER, record, this::createOrder);
+            default:
+                return null;
+        }
+    }
+
+    private void perform(Operation op, Session session, Long orderId) {
+        switch (op) {
+            case SIGNUP:
+                signup();
+                break;
+            case LOGIN:
+                User user = randomUser();
+                userService.authenticate(user.getEmail(), PASSWORD);
+                break;
+            case CREATE_ORDER:
+                session.offerOpen(createOrder());
+                break;
+            case ADD_ITEMS:
+                addItem(orderId);
+                session.offerFilled(orderId);
+                break;
+            case PROCESS:
+                orderService.processOrder(orderId, "4111111111111111");
+                break;
+            case CANCEL:
+                orderService.cancelOrder(orderId);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled operation " + op);
+        }
+    }
+
+    /**
+     * Runs a setup call and records it under {@code op}, with no scheduling delay.
+     */
+    private <T> T timed(Operation op, boolean record, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            T result = call.get();
+            ok = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (record) {
+                stats.get(op).record(elapsed, elapsed, ok, 0);
+            }
+        }
+    }
+
+    /**
+     * Creates a user and activates it, as confirming the account would, so that logins
+     * take the full authentication path.
+     */
+    private void signup() {
+        String email = "load-" + emailSequence.incrementAndGet() + "@example.com";
+        User user = userService.createUser(email, "Load User", PASSWORD);
+        user.setActive(true);
+        userRepository.save(user);
+        int slot = userCount.getAndIncrement();
+        users.set(slot & (MAX_USERS - 1), user);
+    }
+
+    private User randomUser() {
+        int known = Math.min(userCount.get(), MAX_USERS);
+        User user = users.get(ThreadLocalRandom.current().nextInt(known));
+        return user != null ? user : users.get(0);
+    }
+
+    private Long createOrder() {
+        return orderService.createOrder(randomUser().getId(), "1 Load Test Way").getId();
+    }
+
+    private Long addItem(Long orderId) {
+        long productId = productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        orderService.addItemToOrder(orderId, productId, 1 + ThreadLocalRandom.current().nextInt(3));
+        return orderId;
+    }
+
+    private static Operation[] buildSchedule(Map<Operation, Integer> mix) {
+        List<Operation> table = new ArrayList<>();
+        mix.forEach((op, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                table.add(op);
+            }
+        });
+        return table.toArray(new Operation[0]);
+    }
+
+    public String report() {
+        double seconds = measuredNanos / 1_000_000_000.0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-10s %10s %8s %10s %10s %10s %10s %10s %10s %12s%n",
+            "operation", "count", "errors", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)",
+            "svc p99(ms)"));
+        long totalCount = 0;
+        long totalErrors = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            LatencyHistogram.Snapshot response = entry.getValue().response.snapshot();
+            LatencyHistogram.Snapshot service = entry.getValue().service.snapshot();
+            long count = entry.getValue().count.sum();
+            long errors = entry.getValue().errors.sum();
+            totalCount += count;
+            totalErrors += errors;
+            if (count == 0) {
+                continue;
+            }
+            sb.append(String.format("%-10s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f %12.3f%n",
+                entry.getKey().getKey(), count, errors, count / seconds,
+                response.getValueAtPercentile(50, TimeUnit.MILLISECONDS),
+                response.getValueAtPercentile(90, TimeUnit.MILLISECONDS),
+                response.getValueAtPercentile(99, TimeUnit.MILLISECONDS),
+                response.getValueAtPercentile(99.9, TimeUnit.MILLISECONDS),
+                response.getMaxNanos() / 1_000_000.0,
+                service.getValueAtPercentile(99, TimeUnit.MILLISECONDS)));
+        }
+        sb.append(String.format("%-10s %10d %8d %10.1f%n", "total", totalCount, totalErrors, totalCount / seconds));
+        return sb.toString();
+    }
+
+    /**
+     * Orders a worker has in flight; never shared between threads.
+     */
+    private static final class Session {
+        final ArrayDeque<Long> open = new ArrayDeque<>();
+        final ArrayDeque<Long> filled = new ArrayDeque<>();
+
+        void offerOpen(Long orderId) {
+            if (open.size() >= MAX_OPEN_ORDERS) {
+                open.pollFirst();
+            }
+            open.addLast(orderId);
+        }
+
+        void offerFilled(Long orderId) {
+            if (filled.size() >= MAX_OPEN_ORDERS) {
+                filled.pollFirst();
+            }
+            filled.addLast(orderId);
+        }
+    }
+
+    private static final class OperationStats {
+        final LatencyHistogram response = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void record(long responseNanos, long serviceNanos, boolean ok, long expectedIntervalNanos) {
+            count.increment();
+            if (!ok) {
+                errors.increment();
+            }
+            service.record(serviceNanos);
+            response.record(responseNanos);
+            if (expectedIntervalNanos > 0) {
+                // Back-fill the requests a closed-loop worker would have issued during a stall
+                for (long missed = responseNanos - expectedIntervalNanos; missed >= expectedIntervalNanos;
+                     missed -= expectedIntervalNanos) {
+                    response.record(missed);
+                }
+            }
+        }
+    }
+}
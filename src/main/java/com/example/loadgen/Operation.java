@@ -0,0 +1,32 @@
+package com.example.loadgen;
+
+/**
+ * User actions the load generator can issue.
+ */
+public enum Operation {
+    SIGNUP("signup"),
+    LOGIN("login"),
+    CREATE_ORDER("create"),
+    ADD_ITEMS("add"),
+    PROCESS("process"),
+    CANCEL("cancel");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static Operation fromKey(String key) {
+        for (Operation op : values()) {
+            if (op.key.equalsIgnoreCase(key) || op.name().equalsIgnoreCase(key)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+}
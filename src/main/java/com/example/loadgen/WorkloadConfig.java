@@ -0,0 +1,119 @@
+package com.example.loadgen;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load generator settings, parsed from {@code --key=value} arguments.
+ *
+ * <pre>
+ *   --mode=open|closed      open: fixed arrival rate, closed: back-to-back per worker
+ *   --rate=2000             open-loop arrivals per second (all workers combined)
+ *   --threads=8             worker threads
+ *   --duration=30           measured seconds
+ *   --warmup=5              seconds run but not recorded
+ *   --mix=signup:5,login:10,create:20,add:40,process:15,cancel:10
+ *   --db-latency=0          simulated repository latency (ms)
+ *   --decline=10            stub gateway decline percentage
+ *   --gateway-latency=0     stub gateway latency (micros)
+ *   --stock=10000000        stock given to every catalog product
+ *   --users=100             users registered before the run
+ *   --expected-interval-us=0  closed-loop coordinated omission correction (0 = off)
+ * </pre>
+ */
+public class WorkloadConfig {
+    public enum Mode { OPEN, CLOSED }
+
+    private Mode mode = Mode.CLOSED;
+    private int rate = 2000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private long dbLatencyMillis = 0;
+    private int declinePercent = 10;
+    private long gatewayLatencyMicros = 0;
+    private int stock = 10_000_000;
+    private int initialUsers = 100;
+    private long expectedIntervalMicros = 0;
+
+    public WorkloadConfig() {
+        mix.put(Operation.SIGNUP, 5);
+        mix.put(Operation.LOGIN, 10);
+        mix.put(Operation.CREATE_ORDER, 20);
+        mix.put(Operation.ADD_ITEMS, 40);
+        mix.put(Operation.PROCESS, 15);
+        mix.put(Operation.CANCEL, 10);
+    }
+
+    public static WorkloadConfig fromArgs(String[] args) {
+        WorkloadConfig config = new WorkloadConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "mode": config.mode = Mode.valueOf(value.toUpperCase()); break;
+                case "rate": config.rate = Integer.parseInt(value); break;
+                case "threads": config.threads = Integer.parseInt(value); break;
+                case "duration": config.durationSeconds = Integer.parseInt(value); break;
+                case "warmup": config.warmupSeconds = Integer.parseInt(value); break;
+                case "mix": config.parseMix(value); break;
+                case "db-latency": config.dbLatencyMillis = Long.parseLong(value); break;
+                case "decline": config.declinePercent = Integer.parseInt(value); break;
+                case "gateway-latency": config.gatewayLatencyMicros = Long.parseLong(value); break;
+                case "stock": config.stock = Integer.parseInt(value); break;
+                case "users": config.initialUsers = Integer.parseInt(value); break;
+                case "expected-interval-us": config.expectedIntervalMicros = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: --" + key);
+            }
+        }
+        config.validate();
+        return config;
+    }
+
+    private void parseMix(String value) {
+        mix.clear();
+        for (String part : value.split(",")) {
+            String[] kv = part.split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Mix entries must be op:weight, got: " + part);
+            }
+            mix.put(Operation.fromKey(kv[0].trim()), Integer.parseInt(kv[1].trim()));
+        }
+    }
+
+    private void validate() {
+        if (threads <= 0 || durationSeconds <= 0 || rate <= 0) {
+            throw new IllegalArgumentException("threads, duration and rate must be positive");
+        }
+        if (initialUsers <= 0) {
+            throw new IllegalArgumentException("At least one user must be registered before the run");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Operation mix must have a positive total weight");
+        }
+    }
+
+    public Mode getMode() { return mode; }
+    public int getRate() { return rate; }
+    public int getThreads() { return threads; }
+    public int getDurationSeconds() { return durationSeconds; }
+    public int getWarmupSeconds() { return warmupSeconds; }
+    public Map<Operation, Integer> getMix() { return mix; }
+    public long getDbLatencyMillis() { return dbLatencyMillis; }
+    public int getDeclinePercent() { return declinePercent; }
+    public long getGatewayLatencyMicros() { return gatewayLatencyMicros; }
+    public int getStock() { return stock; }
+    public int getInitialUsers() { return initialUsers; }
+    public long getExpectedIntervalMicros() { return expectedIntervalMicros; }
+
+    @Override
+    public String toString() {
+        return "WorkloadConfig{mode=" + mode + ", rate=" + rate + ", threads=" + threads
+            + ", duration=" + durationSeconds + "s, warmup=" + warmupSeconds + "s, mix=" + mix
+            + ", dbLatency=" + dbLatencyMillis + "ms, decline=" + declinePercent + "%}";
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appender that collapses repeated log events before they reach the remote LogAI sink.
+ *
+ * Events are fingerprinted by logger, message template and exception type. The first
+ * event of a fingerprint is forwarded immediately; repeats within the window are only
+ * counted, and a single summary event is forwarded when the window closes: the last
+ * repeat, formatted as usual with the count appended, with the count and a few sample
+ * arguments as {@code logai.*} MDC properties. At most {@code maxFingerprints}
+ * fingerprints are tracked at a time; a slot is reserved before a fingerprint is
+ * inserted, so concurrent first events cannot overshoot the cap. Events beyond it are
+ * forwarded unaggregated.
+ */
+public class AggregatingAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public static final String MDC_REPEAT_COUNT = "logai.repeatCount";
+    public static final String MDC_WINDOW_MILLIS = "logai.windowMillis";
+    public static final String MDC_SAMPLE_CORRELATION_IDS = "logai.sampleCorrelationIds";
+    public static final String MDC_SAMPLE_ARGS = "logai.sampleArgs";
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final Map<Fingerprint, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final AtomicInteger tracked = new AtomicInteger();
+
+    private long windowMillis = 60_000;
+    private int maxFingerprints = 1024;
+    private int maxSampleArgs = 3;
+
+    private ScheduledExecutorService flusher;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (windowMillis <= 0) {
+            addError("windowMillis must be positive for appender " + getName());
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "logai-aggregator-" + getName());
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = Math.max(1, windowMillis / 4);
+        flusher.scheduleAtFixedRate(() -> flushExpired(System.currentTimeMillis()),
+            tick, tick, TimeUnit.MILLISECONDS);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        flusher.shutdownNow();
+        flushAll();
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        Fingerprint key = Fingerprint.of(event);
+
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate == null) {
+            if (!reserveSlot()) {
+                // Dedup table is full - fail open rather than grow
+                appenders.appendLoopOnAppenders(event);
+                return;
+            }
+            aggregate = aggregates.putIfAbsent(key, new Aggregate(event.getTimeStamp()));
+            if (aggregate == null) {
+                appenders.appendLoopOnAppenders(event);
+                return;
+            }
+            // Another thread inserted the same fingerprint first
+            tracked.decrementAndGet();
+        }
+
+        if (!aggregate.suppress(event, maxSampleArgs)) {
+            // Window was closed concurrently by the flusher
+            appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = tracked.get();
+            if (current >= maxFingerprints) {
+                return false;
+            }
+        } while (!tracked.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Emits a summary for every aggregate whose window has elapsed.
+     */
+    void flushExpired(long now) {
+        for (Map.Entry<Fingerprint, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            // Only the flush that removes the aggregate releases its slot
+            if (now - aggregate.windowStart >= windowMillis && aggregates.remove(entry.getKey(), aggregate)) {
+                tracked.decrementAndGet();
+                emitSummary(aggregate.close());
+            }
+        }
+    }
+
+    /**
+     * Emits a summary for every open aggregate regardless of its window.
+     */
+    public void flushAll() {
+        flushExpired(Long.MAX_VALUE);
+    }
+
+    private void emitSummary(Summary summary) {
+        if (summary == null) {
+            return;
+        }
+        try {
+            Context context = getContext();
+            appenders.appendLoopOnAppenders(summary.toEvent(windowMillis,
+                context instanceof LoggerContext ? (LoggerContext) context : null));
+        } catch (RuntimeException e) {
+            addError("Failed to forward aggregated log event", e);
+        }
+    }
+
+    int trackedFingerprints() {
+        return aggregates.size();
+    }
+
+    // Configuration (set from logback.xml)
+    public long getWindowMillis() { return windowMillis; }
+    public void setWindowMillis(long windowMillis) { this.windowMillis = windowMillis; }
+
+    public int getMaxFingerprints() { return maxFingerprints; }
+    public void setMaxFingerprints(int maxFingerprints) { this.maxFingerprints = maxFingerprints; }
+
+    public int getMaxSampleArgs() { return maxSampleArgs; }
+    public void setMaxSampleArgs(int maxSampleArgs) { this.maxSampleArgs = maxSampleArgs; }
+
+    // AppenderAttachable
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getName());
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+
+    /**
+     * Identity of a "kind" of log event: same logger, same template, same exception type.
+     */
+    static final class Fingerprint {
+        private final String loggerName;
+        private final String template;
+        private final String exceptionType;
+        private final int hash;
+
+        Fingerprint(String loggerName, String template, String exceptionType) {
+            this.loggerName = loggerName;
+            this.template = template;
+            this.exceptionType = exceptionType;
+            this.hash = Objects.hash(loggerName, template, exceptionType);
+        }
+
+        static Fingerprint of(ILoggingEvent event) {
+            String exceptionType = event.getThrowableProxy() != null
+                ? event.getThrowableProxy().getClassName()
+                : null;
+            return new Fingerprint(event.getLoggerName(), event.getMessage(), exceptionType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            Fingerprint other = (Fingerprint) o;
+            return hash == other.hash
+                && Objects.equals(loggerName, other.loggerName)
+                && Objects.equals(template, other.template)
+                && Objects.equals(exceptionType, other.exceptionType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Repeats of one fingerprint seen during the current window.
+     */
+    static final class Aggregate {
+        private final long windowStart;
+        private final List<String> sampleArgs = new ArrayList<>();
+        private final List<String> sampleCorrelationIds = new ArrayList<>();
+        private ILoggingEvent last;
+        private long suppressed;
+        private boolean closed;
+
+        Aggregate(long windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        synchronized boolean suppress(ILoggingEvent event, int maxSamples) {
+            if (closed) {
+                return false;
+            }
+            suppressed++;
+            if (sampleArgs.size() < maxSamples && event.getArgumentArray() != null) {
+                sampleArgs.add(Arrays.toString(event.getArgumentArray()));
+            }
+            event.prepareForDeferredProcessing();
+            String correlationId = event.getMDCPropertyMap().get(RequestContext.CORRELATION_ID);
+            if (correlationId != null && sampleCorrelationIds.size() < maxSamples) {
+                sampleCorrelationIds.add(correlationId);
+            }
+            last = event;
+            return true;
+        }
+
+        synchronized Summary close() {
+            closed = true;
+            if (suppressed == 0) {
+                return null;
+            }
+            return new Summary(last, suppressed, new ArrayList<>(sampleArgs), new ArrayList<>(sampleCorrelationIds));
+        }
+    }
+
+    /**
+     * Immutable snapshot of a closed aggregate.
+     */
+    static final class Summary {
+        private final ILoggingEvent last;
+        private final long count;
+        private final List<String> sampleArgs;
+        private final List<String> sampleCorrelationIds;
+
+        Summary(ILoggingEvent last, long count, List<String> sampleArgs, List<String> sampleCorrelationIds) {
+            this.last = last;
+            this.count = count;
+            this.sampleArgs = sampleArgs;
+            this.sampleCorrelationIds = sampleCorrelationIds;
+        }
+
+        /**
+         * The last suppressed event with the repeat count appended to its template; its
+         * arguments are kept so the message is formatted as usual, and the sample
+         * arguments of earlier repeats go into the MDC.
+         */
+        ILoggingEvent toEvent(long windowMillis, LoggerContext context) {
+            String template = (last.getMessage() == null ? "" : last.getMessage())
+                + " [repeated " + count + " more times within " + windowMillis + "ms]";
+
+            Map<String, String> mdc = new HashMap<>(last.getMDCPropertyMap());
+            mdc.put(MDC_REPEAT_COUNT, Long.toString(count));
+            mdc.put(MDC_WINDOW_MILLIS, Long.toString(windowMillis));
+            if (!sampleCorrelationIds.isEmpty()) {
+                mdc.put(MDC_SAMPLE_CORRELATION_IDS, String.join(",", sampleCorrelationIds));
+            }
+            if (!sampleArgs.isEmpty()) {
+                mdc.put(MDC_SAMPLE_ARGS, String.join("; ", sampleArgs));
+            }
+
+            LoggingEvent summary = new LoggingEvent();
+            summary.setLoggerName(last.getLoggerName());
+            summary.setLevel(last.getLevel());
+            summary.setThreadName(last.getThreadName());
+            summary.setTimeStamp(last.getTimeStamp());
+            summary.setMessage(template);
+            summary.setArgumentArray(last.getArgumentArray());
+            if (context != null) {
+                summary.setLoggerContext(context);
+            }
+            summary.setMDCPropertyMap(mdc);
+            if (last.getThrowableProxy() instanceof ThrowableProxy) {
+                summary.setThrowableProxy((ThrowableProxy) last.getThrowableProxy());
+            }
+            return summary;
+        }
+    }
+}
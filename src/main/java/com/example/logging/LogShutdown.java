@@ -0,0 +1,108 @@
+package com.example.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flushes and stops logging at the end of a short-lived run, so the process neither
+ * exits before the remote appender has sent its events nor waits longer than needed.
+ *
+ * {@link AggregatingAppender}s are flushed first so their open summaries are forwarded;
+ * then the queues of asynchronous appenders are polled until empty, and finally the
+ * logback context is stopped, which makes every appender (the remote LogAI appender
+ * included) send what it still holds and end its threads. The whole sequence is bounded
+ * by a timeout; stopping runs on a daemon thread so a hung endpoint cannot hold up exit.
+ */
+public final class LogShutdown {
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private LogShutdown() {
+    }
+
+    /**
+     * Flushes pending events and stops the logback context, returning as soon as that is
+     * done or {@code timeout} has passed. Nothing can be logged afterwards. Does nothing
+     * if SLF4J is not bound to logback.
+     *
+     * @return {@code false} if the timeout expired first; events may have been lost
+     */
+    public static boolean flushAndStop(Duration timeout) {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext)) {
+            return true;
+        }
+        LoggerContext context = (LoggerContext) factory;
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        Set<Appender<ILoggingEvent>> appenders = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Logger logger : context.getLoggerList()) {
+            collect(logger.iteratorForAppenders(), appenders);
+        }
+        for (Appender<ILoggingEvent> appender : appenders) {
+            if (appender instanceof AggregatingAppender) {
+                ((AggregatingAppender) appender).flushAll();
+            }
+        }
+        for (Appender<ILoggingEvent> appender : appenders) {
+            if (appender instanceof AsyncAppenderBase && !drain((AsyncAppenderBase<?>) appender, deadline)) {
+                break;
+            }
+        }
+
+        Thread stopper = new Thread(context::stop, "logback-shutdown");
+        stopper.setDaemon(true);
+        stopper.start();
+        try {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(stopper, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !stopper.isAlive();
+    }
+
+    private static void collect(Iterator<Appender<ILoggingEvent>> it, Set<Appender<ILoggingEvent>> appenders) {
+        while (it.hasNext()) {
+            Appender<ILoggingEvent> appender = it.next();
+            if (appenders.add(appender) && appender instanceof AppenderAttachable) {
+                @SuppressWarnings("unchecked")
+                AppenderAttachable<ILoggingEvent> parent = (AppenderAttachable<ILoggingEvent>) appender;
+                collect(parent.iteratorForAppenders(), appenders);
+            }
+        }
+    }
+
+    /**
+     * Waits until the appender's queue is empty; {@code false} if the deadline passed or
+     * the wait was interrupted.
+     */
+    private static boolean drain(AsyncAppenderBase<?> appender, long deadline) {
+        while (appender.getNumberOfElementsInQueue() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(POLL_NANOS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
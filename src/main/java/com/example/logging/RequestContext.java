@@ -0,0 +1,120 @@
+package com.example.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlation ID for one logical request, carried in the SLF4J MDC.
+ *
+ * Service entry points call {@link #open()}: the outermost call on a thread assigns a new
+ * ID, nested calls (e.g. OrderService -> ProductService -> PaymentService) reuse it.
+ * Scopes are shared singletons, so opening one allocates only the ID string itself.
+ */
+public final class RequestContext {
+    public static final String CORRELATION_ID = "correlationId";
+
+    // Per-JVM prefix keeps IDs unique across restarts and processes
+    private static final String PREFIX = Long.toString(ThreadLocalRandom.current().nextLong() >>> 28, 36) + "-";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final Scope OWNER = () -> MDC.remove(CORRELATION_ID);
+    private static final Scope NESTED = () -> { };
+
+    private RequestContext() {
+        // Utility class - no instantiation
+    }
+
+    /**
+     * Joins the current request, or starts a new one if this thread has none.
+     */
+    public static Scope open() {
+        if (MDC.get(CORRELATION_ID) != null) {
+            return NESTED;
+        }
+        MDC.put(CORRELATION_ID, nextId());
+        return OWNER;
+    }
+
+    /**
+     * Runs under a caller-supplied ID (e.g. from an inbound header, or captured on the
+     * thread that handed over the work). If this thread already has a different ID, it is
+     * restored when the scope closes.
+     */
+    public static Scope open(String correlationId) {
+        if (correlationId == null || correlationId.isEmpty()) {
+            return open();
+        }
+        String previous = MDC.get(CORRELATION_ID);
+        if (correlationId.equals(previous)) {
+            return NESTED;
+        }
+        MDC.put(CORRELATION_ID, correlationId);
+        return previous == null ? OWNER : () -> MDC.put(CORRELATION_ID, previous);
+    }
+
+    public static String currentId() {
+        return MDC.get(CORRELATION_ID);
+    }
+
+    static String nextId() {
+        return PREFIX + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+
+    /**
+     * Captures the caller's MDC so the task logs under the same correlation ID.
+     */
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> captured = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(captured);
+            try {
+                task.run();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Map<String, String> captured = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(captured);
+            try {
+                return task.call();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    /**
+     * Executor decorator that propagates the submitting thread's correlation ID.
+     */
+    public static Executor propagating(Executor delegate) {
+        return task -> delegate.execute(wrap(task));
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    /**
+     * Closes a request scope; only the scope that assigned the ID clears it.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of per-operation metrics.
+ *
+ * Operations are registered once (typically into a static field, like loggers) and
+ * exposed as MXBeans under {@code com.example:type=Metrics,name=<operation>}.
+ */
+public class MetricsRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry(true);
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private final Map<String, Boolean> registeredBeans = new ConcurrentHashMap<>();
+    private final boolean exposeJmx;
+
+    public MetricsRegistry(boolean exposeJmx) {
+        this.exposeJmx = exposeJmx;
+    }
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.computeIfAbsent(name, OperationMetrics::new);
+        if (exposeJmx && registeredBeans.putIfAbsent(name, Boolean.TRUE) == null) {
+            registerMBean(metrics);
+        }
+        return metrics;
+    }
+
+    public OperationMetrics operation(Class<?> owner, String method) {
+        return operation(owner.getSimpleName() + "." + method);
+    }
+
+    public Map<String, OperationMetrics> getOperations() {
+        return operations;
+    }
+
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    /**
+     * Plain-text dump of all operations that have been called at least once.
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %10s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "mean(ms)", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        for (OperationMetrics metrics : operations.values()) {
+            LatencyHistogram.Snapshot latency = metrics.getLatency();
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-40s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                metrics.getName(),
+                latency.getCount(),
+                latency.getMeanNanos() / 1_000_000.0,
+                latency.getValueAtPercentile(50, TimeUnit.MILLISECONDS),
+                latency.getValueAtPercentile(99, TimeUnit.MILLISECONDS),
+                latency.getValueAtPercentile(99.9, TimeUnit.MILLISECONDS),
+                latency.getMaxNanos() / 1_000_000.0));
+            sb.append(String.format("%-40s %s%n", "", metrics.getOutcomes()));
+        }
+        return sb.toString();
+    }
+
+    private void registerMBean(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.example:type=Metrics,name=" + ObjectName.quote(metrics.getName()));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to register metrics MBean for {}: {}", metrics.getName(), e.getMessage());
+        }
+    }
+}
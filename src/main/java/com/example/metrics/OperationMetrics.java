@@ -0,0 +1,146 @@
+package com.example.metrics;
+
+import com.example.exception.PaymentFailedException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency histogram and outcome counters for a single named operation.
+ *
+ * Successful calls bump a dedicated counter; failures are counted per exception type,
+ * and payment failures additionally per {@link PaymentFailedException#getErrorCode()}
+ * (e.g. {@code OrderProcessingException:CARD_DECLINED}).
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+    public static final String OUTCOME_OK = "ok";
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder successes = new LongAdder();
+    private final Map<Class<?>, LongAdder> failuresByType = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<String, LongAdder>> paymentFailuresByType = new ConcurrentHashMap<>();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a call that started at {@code startNanos} (from {@link System#nanoTime()}).
+     * A {@code null} failure means the call succeeded.
+     */
+    public void record(long startNanos, Throwable failure) {
+        latency.record(System.nanoTime() - startNanos);
+        if (failure == null) {
+            successes.increment();
+        } else {
+            failureCounter(failure).increment();
+        }
+    }
+
+    /**
+     * Runs {@code call} and records its latency and outcome. Anything it throws, errors
+     * included, is recorded as a failure and rethrown.
+     */
+    public <T> T time(Supplier<T> call) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return call.get();
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            record(start, failure);
+        }
+    }
+
+    public void time(Runnable call) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            call.run();
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            record(start, failure);
+        }
+    }
+
+    private LongAdder failureCounter(Throwable failure) {
+        Class<?> type = failure.getClass();
+        String errorCode = paymentErrorCode(failure);
+        if (errorCode == null) {
+            return failuresByType.computeIfAbsent(type, k -> new LongAdder());
+        }
+        return paymentFailuresByType.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(errorCode, k -> new LongAdder());
+    }
+
+    private static String paymentErrorCode(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof PaymentFailedException) {
+                return ((PaymentFailedException) t).getErrorCode();
+            }
+        }
+        return null;
+    }
+
+    public String getName() { return name; }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    public Map<String, Long> getOutcomes() {
+        Map<String, Long> outcomes = new TreeMap<>();
+        outcomes.put(OUTCOME_OK, successes.sum());
+        failuresByType.forEach((type, counter) -> outcomes.put(type.getSimpleName(), counter.sum()));
+        paymentFailuresByType.forEach((type, byCode) -> byCode.forEach((code, counter) ->
+            outcomes.put(type.getSimpleName() + ":" + code, counter.sum())));
+        return outcomes;
+    }
+
+    public void reset() {
+        latency.reset();
+        successes.reset();
+        failuresByType.clear();
+        paymentFailuresByType.clear();
+    }
+
+    // OperationMetricsMXBean
+    @Override
+    public long getCount() { return latency.snapshot().getCount(); }
+
+    @Override
+    public long getSuccessCount() { return successes.sum(); }
+
+    @Override
+    public long getFailureCount() {
+        long total = failuresByType.values().stream().mapToLong(LongAdder::sum).sum();
+        for (Map<String, LongAdder> byCode : paymentFailuresByType.values()) {
+            total += byCode.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+        return total;
+    }
+
+    @Override
+    public double getMeanMillis() { return latency.snapshot().getMeanNanos() / 1_000_000.0; }
+
+    @Override
+    public double getP50Millis() { return latency.snapshot().getValueAtPercentile(50, TimeUnit.MILLISECONDS); }
+
+    @Override
+    public double getP99Millis() { return latency.snapshot().getValueAtPercentile(99, TimeUnit.MILLISECONDS); }
+
+    @Override
+    public double getP999Millis() { return latency.snapshot().getValueAtPercentile(99.9, TimeUnit.MILLISECONDS); }
+
+    @Override
+    public double getMaxMillis() { return latency.snapshot().getMaxNanos() / 1_000_000.0; }
+}
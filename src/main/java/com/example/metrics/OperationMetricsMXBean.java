@@ -0,0 +1,20 @@
+package com.example.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of an {@link OperationMetrics}.
+ */
+public interface OperationMetricsMXBean {
+    String getName();
+    long getCount();
+    long getSuccessCount();
+    long getFailureCount();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getP999Millis();
+    double getMaxMillis();
+    Map<String, Long> getOutcomes();
+    void reset();
+}
@@ -1,33 +1,51 @@
 package com.example.model;
 
+import com.example.util.MoneyUtils;
+
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Order model representing a customer order.
+ *
+ * Stored compactly: primitive IDs, the total in cents and timestamps as epoch millis
+ * (interpreted in the system time zone by the {@code LocalDateTime} accessors).
  */
 public class Order {
-    private Long id;
-    private Long userId;
+    private static final AtomicReferenceFieldUpdater<Order, OrderStatus> STATUS =
+        AtomicReferenceFieldUpdater.newUpdater(Order.class, OrderStatus.class, "status");
+    private static final AtomicIntegerFieldUpdater<Order> PROCESSING_CLAIM =
+        AtomicIntegerFieldUpdater.newUpdater(Order.class, "processingClaim");
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private long id = NONE;
+    private long userId = NONE;
     private List<OrderItem> items;
-    private BigDecimal totalAmount;
-    private OrderStatus status;
+    private long totalCents = NONE;
+    private volatile OrderStatus status;
+    private volatile int processingClaim;
+    private volatile String paymentTransactionId;
     private String shippingAddress;
-    private LocalDateTime createdAt;
-    private LocalDateTime updatedAt;
+    private long createdAtMillis;
+    private volatile long updatedAtMillis = NONE;
 
     public Order() {
         this.items = new ArrayList<>();
         this.status = OrderStatus.PENDING;
-        this.createdAt = LocalDateTime.now();
+        this.createdAtMillis = System.currentTimeMillis();
     }
 
     public Order(Long id, Long userId) {
         this();
-        this.id = id;
-        this.userId = userId;
+        setId(id);
+        setUserId(userId);
     }
 
     public void addItem(OrderItem item) {
@@ -36,39 +54,136 @@ public class Order {
     }
 
     public void recalculateTotal() {
-        this.totalAmount = items.stream()
-            .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (OrderItem item : items) {
+            total = Math.addExact(total, item.getSubtotalCents());
+        }
+        this.totalCents = total;
     }
 
     // Getters and Setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
+    public Long getId() { return id == NONE ? null : id; }
+    public void setId(Long id) { this.id = id == null ? NONE : id; }
     
-    public Long getUserId() { return userId; }
-    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getUserId() { return userId == NONE ? null : userId; }
+    public void setUserId(Long userId) { this.userId = userId == null ? NONE : userId; }
     
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) { this.items = items; }
     
-    public BigDecimal getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public BigDecimal getTotalAmount() { return totalCents == NONE ? null : MoneyUtils.fromCents(totalCents); }
+    /**
+     * @throws IllegalArgumentException if the amount has more than two decimal places
+     */
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalCents = totalAmount == null ? NONE : MoneyUtils.toCents(totalAmount);
+    }
+
+    /** Total in cents, or 0 while the order has no items. */
+    public long getTotalCents() { return totalCents == NONE ? 0 : totalCents; }
+    public boolean hasTotalAmount() { return totalCents != NONE; }
     
     public OrderStatus getStatus() { return status; }
+
+    /**
+     * Unconditional write that bypasses the transition rules; use {@link #transitionTo}
+     * or {@link #compareAndSetStatus} wherever the order may be shared between threads.
+     */
     public void setStatus(OrderStatus status) { 
         this.status = status; 
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAtMillis = System.currentTimeMillis();
     }
+
+    /**
+     * Atomically moves from {@code expected} to {@code next}. Returns {@code false} if the
+     * status is no longer {@code expected} (a lost race); never blocks.
+     *
+     * @throws IllegalStateException if {@code expected -> next} is not a legal transition
+     */
+    public boolean compareAndSetStatus(OrderStatus expected, OrderStatus next) {
+        if (!expected.canTransitionTo(next)) {
+            throw new IllegalStateException("Illegal order status transition " + expected + " -> " + next);
+        }
+        if (!STATUS.compareAndSet(this, expected, next)) {
+            return false;
+        }
+        this.updatedAtMillis = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Atomically moves from whatever the current status is to {@code next} and returns the
+     * status it replaced.
+     *
+     * @throws IllegalStateException if the current status cannot move to {@code next}
+     */
+    public OrderStatus transitionTo(OrderStatus next) {
+        while (true) {
+            OrderStatus current = status;
+            if (!current.canTransitionTo(next)) {
+                throw new IllegalStateException("Illegal order status transition " + current + " -> " + next);
+            }
+            if (STATUS.compareAndSet(this, current, next)) {
+                this.updatedAtMillis = System.currentTimeMillis();
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Claims the right to run payment processing for this order; only one caller wins
+     * until {@link #releaseProcessingClaim()} is called.
+     */
+    public boolean tryClaimProcessing() {
+        return PROCESSING_CLAIM.compareAndSet(this, 0, 1);
+    }
+
+    public void releaseProcessingClaim() {
+        processingClaim = 0;
+    }
+
+    /**
+     * Transaction that paid for the order, kept so it can be refunded. Held in memory only;
+     * neither the codec nor the archive stores it, since only unshipped orders are refunded
+     * this way and those are never archived.
+     */
+    public String getPaymentTransactionId() { return paymentTransactionId; }
+    public void setPaymentTransactionId(String paymentTransactionId) { this.paymentTransactionId = paymentTransactionId; }
     
     public String getShippingAddress() { return shippingAddress; }
     public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
     
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public LocalDateTime getCreatedAt() { return toLocalDateTime(createdAtMillis); }
+    /** For loading historical orders; must not change once the order has been saved. */
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAtMillis = toEpochMillis(createdAt); }
+    public LocalDateTime getUpdatedAt() { return toLocalDateTime(updatedAtMillis); }
+    /** For loading stored orders; status changes maintain it otherwise. */
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAtMillis = toEpochMillis(updatedAt); }
+
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    /** Same contract as {@link #setCreatedAt}. */
+    public void setCreatedAtMillis(long createdAtMillis) { this.createdAtMillis = createdAtMillis; }
+    public boolean hasUpdatedAt() { return updatedAtMillis != NONE; }
+    /** Same contract as {@link #setUpdatedAt}. */
+    public void setUpdatedAtMillis(long updatedAtMillis) { this.updatedAtMillis = updatedAtMillis; }
+    /** Epoch millis of the last status change, or {@link #getCreatedAtMillis()} if none. */
+    public long getLastModifiedMillis() {
+        long updated = updatedAtMillis;
+        return updated == NONE ? createdAtMillis : updated;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return epochMillis == NONE ? null
+            : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time == null ? NONE : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 
     @Override
     public String toString() {
-        return "Order{id=" + id + ", userId=" + userId + ", total=" + totalAmount + ", status=" + status + "}";
+        return "Order{id=" + getId() + ", userId=" + getUserId() + ", total=" + getTotalAmount() + ", status=" + status + "}";
     }
 }
 
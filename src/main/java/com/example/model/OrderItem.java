@@ -1,49 +1,69 @@
 package com.example.model;
 
+import com.example.util.MoneyUtils;
+
 import java.math.BigDecimal;
 
 /**
  * OrderItem model representing a single item in an order.
+ *
+ * Stored compactly: primitive IDs, a canonical product-name reference and the price in
+ * cents. The boxed and {@code BigDecimal} getters are views over those fields.
  */
 public class OrderItem {
-    private Long id;
-    private Long productId;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private long id = NONE;
+    private long productId = NONE;
     private String productName;
     private int quantity;
-    private BigDecimal price;
+    private long priceCents = NONE;
 
     public OrderItem() {}
 
     public OrderItem(Long productId, String productName, int quantity, BigDecimal price) {
-        this.productId = productId;
-        this.productName = productName;
+        setProductId(productId);
+        setProductName(productName);
         this.quantity = quantity;
-        this.price = price;
+        setPrice(price);
     }
 
     public BigDecimal getSubtotal() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+        return MoneyUtils.fromCents(getSubtotalCents());
+    }
+
+    public long getSubtotalCents() {
+        if (priceCents == NONE) {
+            throw new IllegalStateException("Order item has no price");
+        }
+        return Math.multiplyExact(priceCents, (long) quantity);
     }
 
     // Getters and Setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
+    public Long getId() { return id == NONE ? null : id; }
+    public void setId(Long id) { this.id = id == null ? NONE : id; }
     
-    public Long getProductId() { return productId; }
-    public void setProductId(Long productId) { this.productId = productId; }
+    public Long getProductId() { return productId == NONE ? null : productId; }
+    public void setProductId(Long productId) { this.productId = productId == null ? NONE : productId; }
     
     public String getProductName() { return productName; }
-    public void setProductName(String productName) { this.productName = productName; }
+    public void setProductName(String productName) { this.productName = ProductNames.canonical(productName); }
     
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
     
-    public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public BigDecimal getPrice() { return priceCents == NONE ? null : MoneyUtils.fromCents(priceCents); }
+    /**
+     * @throws IllegalArgumentException if the price has more than two decimal places
+     */
+    public void setPrice(BigDecimal price) { this.priceCents = price == null ? NONE : MoneyUtils.toCents(price); }
+
+    public boolean hasPrice() { return priceCents != NONE; }
+    /** Price in cents; only meaningful when {@link #hasPrice()}. */
+    public long getPriceCents() { return priceCents; }
 
     @Override
     public String toString() {
-        return "OrderItem{productId=" + productId + ", name='" + productName + "', qty=" + quantity + ", price=" + price + "}";
+        return "OrderItem{productId=" + getProductId() + ", name='" + productName + "', qty=" + quantity + ", price=" + getPrice() + "}";
     }
 }
-
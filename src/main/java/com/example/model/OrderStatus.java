@@ -2,6 +2,9 @@ package com.example.model;
 
 /**
  * Enum representing the status of an order.
+ *
+ * Legal transitions: PENDING -> CONFIRMED -> PROCESSING -> SHIPPED -> DELIVERED,
+ * CANCELLED from any state before SHIPPED, and REFUNDED from any paid or cancelled state.
  */
 public enum OrderStatus {
     PENDING,
@@ -10,6 +13,23 @@ public enum OrderStatus {
     SHIPPED,
     DELIVERED,
     CANCELLED,
-    REFUNDED
-}
+    REFUNDED;
 
+    public boolean canTransitionTo(OrderStatus next) {
+        switch (this) {
+            case PENDING:
+                return next == CONFIRMED || next == CANCELLED;
+            case CONFIRMED:
+                return next == PROCESSING || next == CANCELLED || next == REFUNDED;
+            case PROCESSING:
+                return next == SHIPPED || next == CANCELLED || next == REFUNDED;
+            case SHIPPED:
+                return next == DELIVERED || next == REFUNDED;
+            case DELIVERED:
+            case CANCELLED:
+                return next == REFUNDED;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.model;
+
+/**
+ * Canonical product-name strings, so order items loaded or decoded separately share
+ * one {@code String} per product name instead of each holding a copy.
+ *
+ * The pool is a fixed-size, direct-mapped cache: a name whose slot holds a different
+ * name replaces it, so memory stays bounded however many distinct names pass through
+ * and only the names in current use stay shared. Slots are read and written without
+ * locking; a lost write only costs a missed share, and strings are safe to publish
+ * through a race.
+ */
+public final class ProductNames {
+    private static final int SLOTS = 4096;
+
+    private static final String[] NAMES = new String[SLOTS];
+
+    private ProductNames() {
+    }
+
+    public static String canonical(String name) {
+        if (name == null) {
+            return null;
+        }
+        int hash = name.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+        String existing = NAMES[slot];
+        if (name.equals(existing)) {
+            return existing;
+        }
+        NAMES[slot] = name;
+        return name;
+    }
+
+    /** Number of names currently pooled; never more than the fixed slot count. */
+    static int pooled() {
+        int count = 0;
+        for (String name : NAMES) {
+            if (name != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int capacity() {
+        return SLOTS;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.replication;
+
+import com.example.codec.OrderCodec;
+import com.example.codec.ProductCodec;
+import com.example.codec.UserCodec;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+
+/**
+ * Wire protocol between leader and followers, over a plain TCP stream.
+ *
+ * The follower opens with {@code HELLO epoch nextLsn}. The leader answers with either the
+ * log entries from {@code nextLsn} on, when it still has them and the epoch matches, or a
+ * snapshot ({@code SNAPSHOT_BEGIN epoch resumeLsn}, {@code RECORD}*, {@code SNAPSHOT_END})
+ * followed by the log from {@code resumeLsn}. Records are encoded with the binary codecs;
+ * a heartbeat carrying the leader's next LSN follows every batch and every idle interval.
+ */
+final class Protocol {
+    static final int MAGIC = 0x52504C31;
+
+    static final byte SNAPSHOT_BEGIN = 1;
+    static final byte RECORD = 2;
+    static final byte SNAPSHOT_END = 3;
+    static final byte UPSERT = 4;
+    static final byte DELETE = 5;
+    static final byte HEARTBEAT = 6;
+
+    private static final int ENCODE_ATTEMPTS = 3;
+
+    private Protocol() {
+    }
+
+    /**
+     * Encodes a live entity. Entities can be modified while they are read, which may make
+     * the size and the written bytes disagree; the encode is retried in that case, and
+     * the change that raced with it is replicated by its own event anyway.
+     */
+    static byte[] encode(Object entity) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return encodeOnce(entity);
+            } catch (RuntimeException e) {
+                if (attempt == ENCODE_ATTEMPTS || e instanceof IllegalArgumentException) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static byte[] encodeOnce(Object entity) {
+        if (entity instanceof Order order) {
+            return OrderCodec.toBytes(order);
+        } else if (entity instanceof Product product) {
+            // Stock changes happen under the product lock; take a consistent image
+            synchronized (product) {
+                return ProductCodec.toBytes(product);
+            }
+        } else if (entity instanceof User user) {
+            return UserCodec.toBytes(user);
+        }
+        throw new IllegalArgumentException("Cannot replicate " + entity);
+    }
+}
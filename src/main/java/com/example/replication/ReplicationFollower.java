@@ -0,0 +1,322 @@
+package com.example.replication;
+
+import com.example.codec.OrderCodec;
+import com.example.codec.ProductCodec;
+import com.example.codec.Records;
+import com.example.codec.UserCodec;
+import com.example.exception.CorruptRecordException;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read replica fed by a {@link ReplicationLeader}.
+ *
+ * Applies the leader's log to its own repositories on a background thread and serves
+ * reads from them. A snapshot is loaded into fresh repositories that replace the current
+ * ones only once it is complete, so reads never see a half-loaded state. Reconnects with
+ * backoff and resumes from the last applied LSN when the leader still has it.
+ *
+ * Replication is asynchronous: reads may trail the leader by {@link #getLagEntries()}
+ * changes, roughly {@link #getLagMillis()} behind.
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationFollower.class);
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+    private static final int READ_TIMEOUT_MILLIS = 5_000;
+    private static final long MAX_BACKOFF_MILLIS = 2_000;
+
+    private final String host;
+    private final int port;
+    private final long dbLatencyMillis;
+    private final Thread thread;
+    private volatile Replica replica;
+    private volatile boolean running = true;
+    private volatile Socket socket;
+
+    // Written by the replication thread only
+    private volatile long epoch;
+    private volatile long appliedLsn;
+    private volatile long lastAppliedMillis;
+    private volatile long leaderNextLsn = 1;
+    private volatile long lastHeartbeatMillis;
+    private volatile long snapshotsLoaded;
+
+    public ReplicationFollower(String host, int port) {
+        this(host, port, 0);
+    }
+
+    /**
+     * @param dbLatencyMillis simulated query latency of the replica repositories
+     */
+    public ReplicationFollower(String host, int port, long dbLatencyMillis) {
+        this.host = host;
+        this.port = port;
+        this.dbLatencyMillis = dbLatencyMillis;
+        this.replica = new Replica(dbLatencyMillis);
+        this.thread = new Thread(this::replicate, "replication-follower-" + port);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Reads
+
+    public Optional<Order> findOrderById(Long id) {
+        return replica.orders.findById(id);
+    }
+
+    public List<Order> findOrdersByUserId(Long userId) {
+        return replica.orders.findByUserId(userId);
+    }
+
+    public Optional<Product> findProductById(Long id) {
+        return replica.products.findById(id);
+    }
+
+    public List<Product> getAvailableProducts() {
+        return replica.products.findInStock();
+    }
+
+    public Optional<User> findUserById(Long id) {
+        return replica.users.findById(id);
+    }
+
+    public OrderRepository getOrderRepository() {
+        return replica.orders;
+    }
+
+    public ProductRepository getProductRepository() {
+        return replica.products;
+    }
+
+    public UserRepository getUserRepository() {
+        return replica.users;
+    }
+
+    // Replication state
+
+    public boolean isConnected() {
+        Socket current = socket;
+        return current != null && !current.isClosed();
+    }
+
+    public long getAppliedLsn() {
+        return appliedLsn;
+    }
+
+    /**
+     * Changes the leader had logged at its last heartbeat that are not applied here yet.
+     */
+    public long getLagEntries() {
+        return Math.max(0, leaderNextLsn - 1 - appliedLsn);
+    }
+
+    /**
+     * Age of the last applied change while behind, 0 when caught up. Stale if the leader
+     * has gone quiet; check {@link #getMillisSinceHeartbeat()} too.
+     */
+    public long getLagMillis() {
+        if (getLagEntries() == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - lastAppliedMillis);
+    }
+
+    public long getMillisSinceHeartbeat() {
+        long last = lastHeartbeatMillis;
+        return last == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - last;
+    }
+
+    public long getSnapshotsLoaded() {
+        return snapshotsLoaded;
+    }
+
+    /**
+     * Drops the current connection; the follower reconnects and resumes from its last
+     * applied LSN, or reloads a snapshot if the leader no longer has it.
+     */
+    public void reconnect() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Error closing replication socket", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Error closing replication socket", e);
+            }
+        }
+        thread.interrupt();
+        try {
+            thread.join(CONNECT_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replicate() {
+        long backoff = 50;
+        while (running) {
+            try (Socket connection = new Socket()) {
+                connection.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                connection.setSoTimeout(READ_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                socket = connection;
+                backoff = 50;
+                follow(connection);
+            } catch (IOException | CorruptRecordException e) {
+                if (running) {
+                    logger.warn("Replication from {}:{} interrupted: {}; retrying in {} ms", host, port, e.getMessage(), backoff);
+                }
+            } finally {
+                socket = null;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+    }
+
+    private void follow(Socket connection) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        out.writeInt(Protocol.MAGIC);
+        out.writeLong(epoch);
+        out.writeLong(appliedLsn + 1);
+        out.flush();
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 64 * 1024));
+        Replica loading = null;
+        long loadingEpoch = 0;
+        long resumeLsn = 0;
+        while (running) {
+            byte kind = in.readByte();
+            switch (kind) {
+                case Protocol.SNAPSHOT_BEGIN -> {
+                    loadingEpoch = in.readLong();
+                    resumeLsn = in.readLong();
+                    loading = new Replica(dbLatencyMillis);
+                }
+                case Protocol.RECORD -> {
+                    if (loading == null) {
+                        throw new CorruptRecordException("Snapshot record outside a snapshot");
+                    }
+                    loading.apply(readRecord(in));
+                }
+                case Protocol.SNAPSHOT_END -> {
+                    if (loading == null) {
+                        throw new CorruptRecordException("Snapshot end without a beginning");
+                    }
+                    replica = loading;
+                    loading = null;
+                    epoch = loadingEpoch;
+                    appliedLsn = resumeLsn - 1;
+                    snapshotsLoaded++;
+                    logger.info("Loaded snapshot from leader, resuming at LSN {}", resumeLsn);
+                }
+                case Protocol.UPSERT -> {
+                    long lsn = in.readLong();
+                    long timestamp = in.readLong();
+                    replica.apply(readRecord(in));
+                    applied(lsn, timestamp);
+                }
+                case Protocol.DELETE -> {
+                    long lsn = in.readLong();
+                    long timestamp = in.readLong();
+                    replica.delete(in.readByte(), in.readLong());
+                    applied(lsn, timestamp);
+                }
+                case Protocol.HEARTBEAT -> {
+                    leaderNextLsn = in.readLong();
+                    lastHeartbeatMillis = System.currentTimeMillis();
+                }
+                default -> throw new CorruptRecordException("Unknown replication message " + kind);
+            }
+        }
+    }
+
+    private void applied(long lsn, long timestampMillis) {
+        if (lsn != appliedLsn + 1) {
+            throw new CorruptRecordException("Expected LSN " + (appliedLsn + 1) + " but got " + lsn);
+        }
+        appliedLsn = lsn;
+        lastAppliedMillis = timestampMillis;
+        if (lsn >= leaderNextLsn) {
+            leaderNextLsn = lsn + 1;
+        }
+    }
+
+    private static ByteBuffer readRecord(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < Records.HEADER_BYTES) {
+            throw new CorruptRecordException("Replicated record of " + length + " bytes");
+        }
+        byte[] record = new byte[length];
+        in.readFully(record);
+        return ByteBuffer.wrap(record);
+    }
+
+    /**
+     * One complete set of replica repositories.
+     */
+    private static final class Replica {
+        final OrderRepository orders;
+        final ProductRepository products;
+        final UserRepository users;
+
+        Replica(long dbLatencyMillis) {
+            this.orders = new OrderRepository(dbLatencyMillis);
+            this.products = new ProductRepository(dbLatencyMillis, false);
+            this.users = new UserRepository(dbLatencyMillis);
+        }
+
+        void apply(ByteBuffer record) {
+            switch (Records.typeAt(record, 0)) {
+                case Records.ORDER -> orders.save(OrderCodec.decode(record));
+                case Records.PRODUCT -> products.save(ProductCodec.decode(record));
+                case Records.USER -> users.save(UserCodec.decode(record));
+                default -> throw new CorruptRecordException("Unknown record type " + Records.typeAt(record, 0));
+            }
+        }
+
+        void delete(byte recordType, long id) {
+            switch (recordType) {
+                case Records.ORDER -> orders.delete(id);
+                case Records.USER -> users.delete(id);
+                default -> throw new CorruptRecordException("Cannot delete record type " + recordType);
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.replication;
+
+import com.example.cdc.ChangeEvent;
+import com.example.cdc.ChangePublisher;
+import com.example.codec.Records;
+import com.example.exception.SubscriberOverflowException;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ships the changes of the three repositories to followers over localhost TCP.
+ *
+ * The leader subscribes to each repository's {@link ChangePublisher} and appends every
+ * change, as the full record image taken when it was published (or a deletion), to a
+ * bounded {@link ReplicationLog}. Each connected follower has a sender thread that streams the
+ * log from the follower's position, sending a snapshot first when the follower is new,
+ * comes from an earlier leader, or has fallen off the retained log. Because every entry
+ * is an idempotent upsert or delete, replaying entries already reflected in a snapshot is
+ * harmless and followers converge on the leader's state.
+ *
+ * If the leader's own subscription overflows it resubscribes and logs a gap; followers
+ * reaching the gap are re-bootstrapped, so lost events never cause silent divergence.
+ */
+public class ReplicationLeader implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationLeader.class);
+    public static final int DEFAULT_LOG_CAPACITY = 1 << 18;
+    private static final int SUBSCRIPTION_CAPACITY = 1 << 16;
+    private static final int BATCH = 512;
+    private static final long HEARTBEAT_MILLIS = 100;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ReplicationLog log;
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final List<LogAppender<?>> appenders;
+    private volatile boolean running = true;
+
+    /**
+     * @param port TCP port on the loopback interface; 0 picks a free one (see {@link #getPort()})
+     */
+    public ReplicationLeader(OrderRepository orderRepository, ProductRepository productRepository,
+                             UserRepository userRepository, int port) throws IOException {
+        this(orderRepository, productRepository, userRepository, port, DEFAULT_LOG_CAPACITY);
+    }
+
+    public ReplicationLeader(OrderRepository orderRepository, ProductRepository productRepository,
+                             UserRepository userRepository, int port, int logCapacity) throws IOException {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.log = new ReplicationLog(logCapacity);
+        this.appenders = List.of(
+            new LogAppender<>(orderRepository.getChangePublisher(), Records.ORDER),
+            new LogAppender<>(productRepository.getChangePublisher(), Records.PRODUCT),
+            new LogAppender<>(userRepository.getChangePublisher(), Records.USER));
+        appenders.forEach(LogAppender::start);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::acceptFollowers, "replication-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+        logger.info("Replication leader listening on port {}", serverSocket.getLocalPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * LSN the next replicated change will get; followers are caught up once they have
+     * applied everything before it.
+     */
+    public long getNextLsn() {
+        return log.nextLsn();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        appenders.forEach(LogAppender::stop);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close replication server socket", e);
+        }
+        for (Socket socket : followers) {
+            closeQuietly(socket);
+        }
+        logger.info("Replication leader stopped");
+    }
+
+    private void acceptFollowers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread sender = new Thread(() -> serve(socket), "replication-sender-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Failed to accept follower connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024))) {
+            if (in.readInt() != Protocol.MAGIC) {
+                logger.warn("Rejecting connection from {}: not a follower", socket.getRemoteSocketAddress());
+                return;
+            }
+            long followerEpoch = in.readLong();
+            long position = in.readLong();
+            logger.info("Follower {} connected at LSN {}", socket.getRemoteSocketAddress(), position);
+            if (followerEpoch != epoch || position < log.firstLsn() || position > log.nextLsn()) {
+                position = sendSnapshot(out);
+            }
+            while (running) {
+                ReplicationLog.Entry[] entries = log.read(position, BATCH, HEARTBEAT_MILLIS);
+                if (entries == null) {
+                    logger.warn("Follower {} fell behind the retained log; re-sending snapshot",
+                        socket.getRemoteSocketAddress());
+                    position = sendSnapshot(out);
+                    continue;
+                }
+                for (ReplicationLog.Entry entry : entries) {
+                    if (entry.kind == ReplicationLog.Entry.GAP) {
+                        position = sendSnapshot(out);
+                        break;
+                    }
+                    writeEntry(out, entry);
+                    position = entry.lsn + 1;
+                }
+                out.writeByte(Protocol.HEARTBEAT);
+                out.writeLong(log.nextLsn());
+                out.flush();
+            }
+        } catch (SocketException e) {
+            logger.info("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Replication to {} failed", socket.getRemoteSocketAddress(), e);
+        } catch (RuntimeException e) {
+            // The follower drops the partial snapshot and retries after reconnecting
+            logger.error("Replication to {} aborted", socket.getRemoteSocketAddress(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Streams every entity and returns the LSN to continue from. The LSN is taken before
+     * reading the repositories, so every change missed by the snapshot is in the log after it.
+     *
+     * @throws IllegalStateException if an entity cannot be encoded; a snapshot missing an
+     *         entity would leave the follower silently diverged, so none is completed
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        long resumeLsn = log.nextLsn();
+        out.writeByte(Protocol.SNAPSHOT_BEGIN);
+        out.writeLong(epoch);
+        out.writeLong(resumeLsn);
+        int records = 0;
+        records += writeRecords(out, productRepository.findAll());
+        records += writeRecords(out, userRepository.findAll());
+        records += writeRecords(out, orderRepository.findAll());
+        out.writeByte(Protocol.SNAPSHOT_END);
+        out.flush();
+        logger.info("Sent snapshot of {} records, resuming at LSN {}", records, resumeLsn);
+        return resumeLsn;
+    }
+
+    private int writeRecords(DataOutputStream out, List<?> entities) throws IOException {
+        int written = 0;
+        for (Object entity : entities) {
+            byte[] record;
+            try {
+                record = Protocol.encode(entity);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Cannot replicate " + entity + "; aborting snapshot", e);
+            }
+            out.writeByte(Protocol.RECORD);
+            out.writeInt(record.length);
+            out.write(record);
+            written++;
+        }
+        return written;
+    }
+
+    private static void writeEntry(DataOutputStream out, ReplicationLog.Entry entry) throws IOException {
+        if (entry.kind == ReplicationLog.Entry.UPSERT) {
+            out.writeByte(Protocol.UPSERT);
+            out.writeLong(entry.lsn);
+            out.writeLong(entry.timestampMillis);
+            out.writeInt(entry.record.length);
+            out.write(entry.record);
+        } else {
+            out.writeByte(Protocol.DELETE);
+            out.writeLong(entry.lsn);
+            out.writeLong(entry.timestampMillis);
+            out.writeByte(entry.recordType);
+            out.writeLong(entry.entityId);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing follower socket", e);
+        }
+    }
+
+    /**
+     * Turns one repository's change events into log entries. Delivery per subscription
+     * is serial, so entries for one repository are appended in change order.
+     */
+    private final class LogAppender<T> implements Flow.Subscriber<ChangeEvent<T>> {
+        private final ChangePublisher<T> publisher;
+        private final byte recordType;
+        private volatile Flow.Subscription subscription;
+
+        LogAppender(ChangePublisher<T> publisher, byte recordType) {
+            this.publisher = publisher;
+            this.recordType = recordType;
+        }
+
+        void start() {
+            publisher.subscribe(this, SUBSCRIPTION_CAPACITY);
+        }
+
+        void stop() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ChangeEvent<T> event) {
+            if (event.getType() == ChangeEvent.Type.DELETED) {
+                log.append(ReplicationLog.Entry.delete(recordType, event.getEntityId(), event.getOccurredAtMillis()));
+                return;
+            }
+            byte[] record = event.getRecord();
+            if (record == null) {
+                // Followers cannot apply this change; re-bootstrap them rather than diverge
+                logger.error("Cannot replicate {}: no record; followers will be re-bootstrapped", event);
+                log.append(ReplicationLog.Entry.gap());
+                return;
+            }
+            log.append(ReplicationLog.Entry.upsert(record, event.getOccurredAtMillis()));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!running) {
+                return;
+            }
+            if (throwable instanceof SubscriberOverflowException) {
+                logger.warn("Replication fell behind repository writes; followers will be re-bootstrapped", throwable);
+                start();
+                log.append(ReplicationLog.Entry.gap());
+            } else {
+                logger.error("Replication stream of record type {} failed", recordType, throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.replication;
+
+/**
+ * Bounded in-memory log of replicated changes, numbered by log sequence number (LSN).
+ *
+ * The leader's change-stream subscribers append; one sender per follower reads forward
+ * from its own position. Only the newest {@code capacity} entries are retained, and a
+ * follower that falls further behind than that is re-bootstrapped from a snapshot.
+ */
+final class ReplicationLog {
+
+    /**
+     * One log entry: an encoded record to upsert, a deletion, or a gap marker left when the
+     * leader itself missed changes.
+     */
+    static final class Entry {
+        static final byte UPSERT = 1;
+        static final byte DELETE = 2;
+        static final byte GAP = 3;
+
+        final byte kind;
+        final byte recordType;
+        final long entityId;
+        final byte[] record;
+        final long timestampMillis;
+        long lsn;
+
+        private Entry(byte kind, byte recordType, long entityId, byte[] record, long timestampMillis) {
+            this.kind = kind;
+            this.recordType = recordType;
+            this.entityId = entityId;
+            this.record = record;
+            this.timestampMillis = timestampMillis;
+        }
+
+        static Entry upsert(byte[] record, long timestampMillis) {
+            return new Entry(UPSERT, record[0], 0, record, timestampMillis);
+        }
+
+        static Entry delete(byte recordType, long entityId, long timestampMillis) {
+            return new Entry(DELETE, recordType, entityId, null, timestampMillis);
+        }
+
+        static Entry gap() {
+            return new Entry(GAP, (byte) 0, 0, null, System.currentTimeMillis());
+        }
+    }
+
+    private final Entry[] ring;
+    private final int mask;
+    // LSN the next append gets; guarded by this
+    private long nextLsn = 1;
+
+    ReplicationLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    synchronized long append(Entry entry) {
+        entry.lsn = nextLsn;
+        ring[(int) nextLsn & mask] = entry;
+        nextLsn++;
+        notifyAll();
+        return entry.lsn;
+    }
+
+    synchronized long nextLsn() {
+        return nextLsn;
+    }
+
+    /**
+     * Oldest LSN still retained.
+     */
+    synchronized long firstLsn() {
+        return Math.max(1, nextLsn - ring.length);
+    }
+
+    /**
+     * Copies up to {@code max} entries starting at {@code fromLsn}, waiting up to
+     * {@code timeoutMillis} if there are none yet.
+     *
+     * @return the entries, empty on timeout, or {@code null} if {@code fromLsn} has
+     *         already been overwritten
+     */
+    synchronized Entry[] read(long fromLsn, int max, long timeoutMillis) throws InterruptedException {
+        if (fromLsn >= nextLsn && timeoutMillis > 0) {
+            wait(timeoutMillis);
+        }
+        if (fromLsn < firstLsn()) {
+            return null;
+        }
+        int count = (int) Math.min(max, Math.max(0, nextLsn - fromLsn));
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = ring[(int) (fromLsn + i) & mask];
+        }
+        return entries;
+    }
+}
@@ -1,12 +1,26 @@
 package com.example.repository;
 
+import com.example.analytics.SalesAggregates;
+import com.example.archive.OrderArchive;
+import com.example.cdc.ChangeEvent;
+import com.example.cdc.ChangePublisher;
+import com.example.codec.OrderCodec;
 import com.example.model.Order;
 import com.example.model.OrderStatus;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
+import com.example.util.ConcurrentLongHashMap;
+import com.example.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repository for Order data access.
@@ -14,74 +28,362 @@ import java.util.stream.Collectors;
  */
 public class OrderRepository {
     private static final Logger logger = LoggerFactory.getLogger(OrderRepository.class);
+    private static final OperationMetrics SAVE_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "save");
+    private static final OperationMetrics FIND_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "findById");
+    private static final OperationMetrics FIND_ALL_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "findAll");
+    private static final OperationMetrics FIND_BY_USER_ID_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "findByUserId");
+    private static final OperationMetrics FIND_BY_STATUS_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "findByStatus");
+    private static final OperationMetrics FIND_BY_CREATED_AT_BETWEEN_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "findByCreatedAtBetween");
+    private static final OperationMetrics FIND_PENDING_ORDERS_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "findPendingOrders");
+    private static final OperationMetrics UPDATE_STATUS_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "updateStatus");
+    private static final OperationMetrics DELETE_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "delete");
+    private static final OperationMetrics COUNT_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "count");
+    private static final OperationMetrics ARCHIVE_ORDERS_METRICS =
+        MetricsRegistry.getDefault().operation(OrderRepository.class, "archiveOrders");
+
+    private static final EnumSet<OrderStatus> ARCHIVABLE =
+        EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.REFUNDED);
     
-    private final Map<Long, Order> orders = new HashMap<>();
-    private long nextId = 1;
+    private final ConcurrentLongHashMap<Order> orders = new ConcurrentLongHashMap<>();
+    private final SingleFlight<Optional<Order>> findByIdLoads = new SingleFlight<>();
+    // Secondary index ordered by creation time; createdAt is fixed once an order is saved
+    private final ConcurrentSkipListMap<TimeKey, Order> ordersByCreatedAt = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final SalesAggregates salesAggregates = new SalesAggregates();
+    private final ChangePublisher<Order> changes = new ChangePublisher<>("orders", OrderCodec::toBytes, OrderCodec::decode);
+    private final OrderArchive archive;
+    private final long dbLatencyMillis;
+
+    public OrderRepository() {
+        this(15); // Simulate DB query time
+    }
+
+    /**
+     * @param dbLatencyMillis simulated query latency; 0 disables it (benchmarks, load tests)
+     */
+    public OrderRepository(long dbLatencyMillis) {
+        this(dbLatencyMillis, null);
+    }
+
+    /**
+     * @param archive cold tier for {@link #archiveOrders}; lookups by ID and user fall
+     *                through to it. May be {@code null}.
+     */
+    public OrderRepository(long dbLatencyMillis, OrderArchive archive) {
+        this.dbLatencyMillis = dbLatencyMillis;
+        this.archive = archive;
+    }
 
     public Order save(Order order) {
-        if (order.getId() == null) {
-            order.setId(nextId++);
-        }
-        
-        logger.debug("Saving order: {}", order);
-        orders.put(order.getId(), order);
-        
-        return order;
+        return SAVE_METRICS.time(() -> {
+            if (order.getId() == null) {
+                order.setId(nextId.getAndIncrement());
+            } else if (archive != null && !orders.containsKey(order.getId())) {
+                // An archived order being written back: its totals are still counted
+                archive.findById(order.getId()).ifPresent(salesAggregates::onOrderRestored);
+            }
+
+            logger.debug("Saving order: {}", order);
+            // Same lock as updateStatus and delete, so the change stream sees them in the order they happened
+            synchronized (order) {
+                orders.put(order.getId(), order);
+                findByIdLoads.forget(order.getId());
+                ordersByCreatedAt.put(TimeKey.of(order), order);
+                salesAggregates.onOrderSaved(order);
+                if (changes.hasSubscribers()) {
+                    changes.publish(ChangeEvent.saved(order.getId(), order));
+                }
+            }
+
+            return order;
+        });
     }
 
     public Optional<Order> findById(Long id) {
-        logger.debug("Finding order by ID: {}", id);
-        simulateDbLatency();
-        return Optional.ofNullable(orders.get(id));
+        return FIND_BY_ID_METRICS.time(() -> {
+            logger.debug("Finding order by ID: {}", id);
+            long key = id;
+            return dbLatencyMillis > 0 ? findByIdLoads.load(key, () -> lookup(key)) : lookup(key);
+        });
+    }
+
+    /**
+     * Owner of an order on the heap, read straight from memory without the simulated query
+     * latency, so callers can route or rate-limit by user before paying for {@link #findById}.
+     * Empty for unknown and archived orders.
+     */
+    public Optional<Long> findUserId(Long id) {
+        Order order = orders.get(id);
+        return order != null ? Optional.ofNullable(order.getUserId()) : Optional.empty();
+    }
+
+    /**
+     * Every order on the heap; archived orders are not included.
+     */
+    public List<Order> findAll() {
+        return FIND_ALL_METRICS.time(() -> {
+            simulateDbLatency();
+            return orders.values();
+        });
     }
 
     public List<Order> findByUserId(Long userId) {
-        logger.debug("Finding orders for user: {}", userId);
-        simulateDbLatency();
-        
-        return orders.values().stream()
-            .filter(o -> o.getUserId().equals(userId))
-            .collect(Collectors.toList());
+        return FIND_BY_USER_ID_METRICS.time(() -> {
+            logger.debug("Finding orders for user: {}", userId);
+            simulateDbLatency();
+
+            List<Order> result = new ArrayList<>();
+            orders.forEachValue(o -> {
+                if (userId.equals(o.getUserId())) {
+                    result.add(o);
+                }
+            });
+            if (archive != null) {
+                for (Order archived : archive.findByUserId(userId)) {
+                    if (!orders.containsKey(archived.getId())) {
+                        result.add(archived);
+                    }
+                }
+            }
+            return result;
+        });
     }
 
     public List<Order> findByStatus(OrderStatus status) {
-        logger.debug("Finding orders with status: {}", status);
-        simulateDbLatency();
-        
-        return orders.values().stream()
-            .filter(o -> o.getStatus() == status)
-            .collect(Collectors.toList());
+        return FIND_BY_STATUS_METRICS.time(() -> {
+            logger.debug("Finding orders with status: {}", status);
+            simulateDbLatency();
+
+            List<Order> result = new ArrayList<>();
+            orders.forEachValue(o -> {
+                if (o.getStatus() == status) {
+                    result.add(o);
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Orders created in {@code [from, to)}, oldest first.
+     */
+    public List<Order> findByCreatedAtBetween(LocalDateTime from, LocalDateTime to) {
+        return FIND_BY_CREATED_AT_BETWEEN_METRICS.time(() -> {
+            logger.debug("Finding orders created between {} and {}", from, to);
+            simulateDbLatency();
+            return new ArrayList<>(createdBetween(from, to));
+        });
+    }
+
+    /**
+     * Live, unmodifiable view of the orders created in {@code [from, to)}, oldest first.
+     * Nothing is copied, so analytics can scan large ranges without materializing them.
+     */
+    public Collection<Order> createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Range start " + from + " is after end " + to);
+        }
+        return Collections.unmodifiableCollection(
+            ordersByCreatedAt.subMap(TimeKey.lowerBound(from), TimeKey.lowerBound(to)).values());
     }
 
     public List<Order> findPendingOrders() {
-        return findByStatus(OrderStatus.PENDING);
+        return FIND_PENDING_ORDERS_METRICS.time(() -> findByStatus(OrderStatus.PENDING));
     }
 
     public void updateStatus(Long orderId, OrderStatus newStatus) {
-        Order order = orders.get(orderId);
-        if (order != null) {
-            logger.info("Updating order {} status from {} to {}", orderId, order.getStatus(), newStatus);
-            order.setStatus(newStatus);
-        } else {
-            logger.warn("Cannot update status - order not found: {}", orderId);
-        }
+        UPDATE_STATUS_METRICS.time(() -> {
+            Order order = orders.get(orderId);
+            if (order != null) {
+                try {
+                    OrderStatus previous;
+                    // Publishing inside the lock keeps status events for one order in transition order
+                    synchronized (order) {
+                        if (orders.get(orderId) != order) {
+                            // Deleted or archived since the lookup; its last event is already out
+                            logger.warn("Cannot update status - order not found: {}", orderId);
+                            return;
+                        }
+                        previous = order.transitionTo(newStatus);
+                        salesAggregates.onOrderSaved(order);
+                        if (changes.hasSubscribers()) {
+                            changes.publish(ChangeEvent.statusChanged(orderId, order, previous, newStatus));
+                        }
+                    }
+                    logger.info("Updated order {} status from {} to {}", orderId, previous, newStatus);
+                } catch (IllegalStateException e) {
+                    logger.warn("Cannot update status of order {}: {}", orderId, e.getMessage());
+                }
+            } else {
+                logger.warn("Cannot update status - order not found: {}", orderId);
+            }
+        });
     }
 
     public void delete(Long id) {
-        logger.info("Deleting order: {}", id);
-        orders.remove(id);
+        DELETE_METRICS.time(() -> {
+            logger.info("Deleting order: {}", id);
+            Order removed;
+            while ((removed = orders.get(id)) != null) {
+                // Under the order's lock, so no save or status event can follow the deletion
+                synchronized (removed) {
+                    if (orders.remove(id, removed)) {
+                        ordersByCreatedAt.remove(TimeKey.of(removed));
+                        salesAggregates.onOrderRemoved(id);
+                        if (changes.hasSubscribers()) {
+                            changes.publish(ChangeEvent.deleted(id, removed));
+                        }
+                        break;
+                    }
+                }
+            }
+            findByIdLoads.forget(id);
+        });
     }
 
     public long count() {
-        return orders.size();
+        return COUNT_METRICS.time(() -> orders.size());
+    }
+
+    /**
+     * Moves DELIVERED, CANCELLED and REFUNDED orders last updated more than {@code minAge}
+     * ago to the archive. Afterwards they are reachable only through {@link #findById} and
+     * {@link #findByUserId}; status, time-range and count queries cover the heap only.
+     *
+     * @return the number of orders moved off the heap
+     */
+    public int archiveOrders(Duration minAge) {
+        return ARCHIVE_ORDERS_METRICS.time(() -> {
+            if (archive == null) {
+                throw new IllegalStateException("No archive configured");
+            }
+            long cutoffMillis = System.currentTimeMillis() - minAge.toMillis();
+            List<Order> candidates = new ArrayList<>();
+            List<OrderStatus> archivedStatuses = new ArrayList<>();
+            orders.forEachValue(order -> {
+                OrderStatus status = order.getStatus();
+                if (ARCHIVABLE.contains(status) && order.getLastModifiedMillis() < cutoffMillis) {
+                    candidates.add(order);
+                    archivedStatuses.add(status);
+                }
+            });
+            archive.append(candidates);
+
+            int moved = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                Order order = candidates.get(i);
+                synchronized (order) {
+                    // Refunded while being archived: keep the live copy, which shadows the archived one
+                    if (order.getStatus() != archivedStatuses.get(i) || !orders.remove(order.getId(), order)) {
+                        continue;
+                    }
+                    ordersByCreatedAt.remove(TimeKey.of(order));
+                    salesAggregates.onOrderArchived(order.getId());
+                }
+                moved++;
+            }
+            logger.info("Archived {} orders not updated for {}", moved, minAge);
+            return moved;
+        });
+    }
+
+    /**
+     * Sales totals kept up to date by {@link #save} and {@link #updateStatus}.
+     */
+    public SalesAggregates getSalesAggregates() {
+        return salesAggregates;
+    }
+
+    /**
+     * Change stream of {@link #save}, {@link #updateStatus} and {@link #delete}.
+     */
+    public ChangePublisher<Order> getChangePublisher() {
+        return changes;
+    }
+
+    /**
+     * Coalescing of concurrent {@link #findById} calls, archive fallbacks included.
+     */
+    public SingleFlight<Optional<Order>> getFindByIdLoads() {
+        return findByIdLoads;
+    }
+
+    private Optional<Order> lookup(long id) {
+        simulateDbLatency();
+        Order order = orders.get(id);
+        if (order == null && archive != null) {
+            return archive.findById(id);
+        }
+        return Optional.ofNullable(order);
     }
 
     private void simulateDbLatency() {
+        if (dbLatencyMillis <= 0) {
+            return;
+        }
         try {
-            Thread.sleep(15); // Simulate DB query time
+            Thread.sleep(dbLatencyMillis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
-}
 
+    /**
+     * Index key: creation time, then ID to keep orders created in the same millisecond apart.
+     */
+    private static final class TimeKey implements Comparable<TimeKey> {
+        private final long createdAtMillis;
+        private final long id;
+
+        private TimeKey(long createdAtMillis, long id) {
+            this.createdAtMillis = createdAtMillis;
+            this.id = id;
+        }
+
+        static TimeKey of(Order order) {
+            return new TimeKey(order.getCreatedAtMillis(), order.getId());
+        }
+
+        /**
+         * First key at or after {@code time}; orders carry millisecond precision, so a
+         * bound inside a millisecond rounds up to the next one.
+         */
+        static TimeKey lowerBound(LocalDateTime time) {
+            Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+            long millis = instant.toEpochMilli();
+            if (instant.getNano() % 1_000_000 != 0) {
+                millis++;
+            }
+            return new TimeKey(millis, Long.MIN_VALUE);
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+            int c = Long.compare(createdAtMillis, other.createdAtMillis);
+            return c != 0 ? c : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TimeKey)) return false;
+            TimeKey other = (TimeKey) o;
+            return id == other.id && createdAtMillis == other.createdAtMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(createdAtMillis) + Long.hashCode(id);
+        }
+    }
+}
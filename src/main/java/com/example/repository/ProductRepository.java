@@ -1,12 +1,20 @@
 package com.example.repository;
 
+import com.example.cdc.ChangeEvent;
+import com.example.cdc.ChangePublisher;
+import com.example.codec.ProductCodec;
+import com.example.inventory.StockLevelMonitor;
 import com.example.model.Product;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
+import com.example.search.ProductSearchIndex;
+import com.example.util.ConcurrentLongHashMap;
+import com.example.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Repository for Product data access.
@@ -14,12 +22,55 @@ import java.util.stream.Collectors;
  */
 public class ProductRepository {
     private static final Logger logger = LoggerFactory.getLogger(ProductRepository.class);
+    private static final OperationMetrics SAVE_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "save");
+    private static final OperationMetrics SAVE_ALL_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "saveAll");
+    private static final OperationMetrics FIND_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "findById");
+    private static final OperationMetrics FIND_ALL_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "findAll");
+    private static final OperationMetrics FIND_IN_STOCK_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "findInStock");
+    private static final OperationMetrics FIND_BY_CATEGORY_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "findByCategory");
+    private static final OperationMetrics SEARCH_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "search");
+    private static final OperationMetrics COMPLETE_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "complete");
+    private static final OperationMetrics DECREASE_STOCK_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "decreaseStock");
+    private static final OperationMetrics INCREASE_STOCK_METRICS =
+        MetricsRegistry.getDefault().operation(ProductRepository.class, "increaseStock");
     
-    private final Map<Long, Product> products = new HashMap<>();
+    private final ConcurrentLongHashMap<Product> products = new ConcurrentLongHashMap<>();
+    private final SingleFlight<Optional<Product>> findByIdLoads = new SingleFlight<>();
+    private final StockLevelMonitor stockMonitor = new StockLevelMonitor();
+    private final ChangePublisher<Product> changes =
+        new ChangePublisher<>("products", ProductCodec::toBytes, ProductCodec::decode);
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final long dbLatencyMillis;
 
     public ProductRepository() {
-        // Initialize with sample products
-        initializeSampleProducts();
+        this(10); // Simulate DB query time
+    }
+
+    /**
+     * @param dbLatencyMillis simulated query latency; 0 disables it (benchmarks, load tests)
+     */
+    public ProductRepository(long dbLatencyMillis) {
+        this(dbLatencyMillis, true);
+    }
+
+    /**
+     * @param withSampleProducts {@code false} to start empty, e.g. before a
+     *                           {@link com.example.catalog.CatalogLoader} run
+     */
+    public ProductRepository(long dbLatencyMillis, boolean withSampleProducts) {
+        this.dbLatencyMillis = dbLatencyMillis;
+        if (withSampleProducts) {
+            initializeSampleProducts();
+        }
     }
 
     private void initializeSampleProducts() {
@@ -34,56 +85,216 @@ public class ProductRepository {
     }
 
     public Product save(Product product) {
-        logger.debug("Saving product: {}", product);
-        products.put(product.getId(), product);
-        return product;
+        return SAVE_METRICS.time(() -> {
+            logger.debug("Saving product: {}", product);
+            int previous;
+            int current;
+            synchronized (product) {
+                products.put(product.getId(), product);
+                findByIdLoads.forget(product.getId());
+                current = product.getStockQuantity();
+                previous = stockMonitor.recordStock(product, current);
+                searchIndex.index(product);
+                if (changes.hasSubscribers()) {
+                    changes.publish(ChangeEvent.saved(product.getId(), product));
+                }
+            }
+            stockMonitor.stockChanged(product, previous, current);
+            return product;
+        });
+    }
+
+    /**
+     * Bulk insert for catalog loads. The map is filled section by section in parallel
+     * instead of one {@link #save} per product, and the search index is appended to per
+     * term rather than per product. Only products at or below their low-stock
+     * threshold, or already tracked, go through the stock monitor (see
+     * {@link StockLevelMonitor#isTracked}); change events are published only if someone
+     * is subscribed. Must not race with stock changes to the same products.
+     */
+    public void saveAll(List<Product> batch) {
+        SAVE_ALL_METRICS.time(() -> {
+            products.putAll(batch, Product::getId);
+            searchIndex.indexAll(batch);
+            for (Product product : batch) {
+                findByIdLoads.forget(product.getId());
+                int current = product.getStockQuantity();
+                if (current <= stockMonitor.getThresholds().thresholdFor(product)
+                        || stockMonitor.isTracked(product.getId())) {
+                    int previous;
+                    synchronized (product) {
+                        previous = stockMonitor.recordStock(product, current);
+                    }
+                    stockMonitor.stockChanged(product, previous, current);
+                }
+            }
+            if (changes.hasSubscribers()) {
+                for (Product product : batch) {
+                    synchronized (product) {
+                        changes.publish(ChangeEvent.saved(product.getId(), product));
+                    }
+                }
+            }
+            logger.info("Bulk-saved {} products", batch.size());
+        });
     }
 
     public Optional<Product> findById(Long id) {
-        logger.debug("Finding product by ID: {}", id);
-        simulateDbLatency();
-        return Optional.ofNullable(products.get(id));
+        return FIND_BY_ID_METRICS.time(() -> {
+            logger.debug("Finding product by ID: {}", id);
+            long key = id;
+            return dbLatencyMillis > 0 ? findByIdLoads.load(key, () -> lookup(key)) : lookup(key);
+        });
     }
 
     public List<Product> findAll() {
-        simulateDbLatency();
-        return new ArrayList<>(products.values());
+        return FIND_ALL_METRICS.time(() -> {
+            simulateDbLatency();
+            return products.values();
+        });
     }
 
     public List<Product> findInStock() {
-        return products.values().stream()
-            .filter(Product::isInStock)
-            .collect(Collectors.toList());
+        return FIND_IN_STOCK_METRICS.time(() -> {
+            List<Product> result = new ArrayList<>();
+            products.forEachValue(p -> {
+                if (p.isInStock()) {
+                    result.add(p);
+                }
+            });
+            return result;
+        });
     }
 
     public List<Product> findByCategory(String category) {
-        return products.values().stream()
-            .filter(p -> category.equals(p.getCategory()))
-            .collect(Collectors.toList());
+        return FIND_BY_CATEGORY_METRICS.time(() -> {
+            List<Product> result = new ArrayList<>();
+            products.forEachValue(p -> {
+                if (category.equals(p.getCategory())) {
+                    result.add(p);
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Active, in-stock products matching every word of the query, best match first.
+     * See {@link ProductSearchIndex}.
+     */
+    public List<Product> search(String query, int limit) {
+        return SEARCH_METRICS.time(() -> searchIndex.search(query, limit));
+    }
+
+    /**
+     * Type-ahead variant of {@link #search}: the last, possibly unfinished word matches
+     * as a prefix.
+     */
+    public List<Product> complete(String query, int limit) {
+        return COMPLETE_METRICS.time(() -> searchIndex.complete(query, limit));
     }
 
     public boolean decreaseStock(Long productId, int quantity) {
-        Product product = products.get(productId);
-        if (product == null) {
-            logger.error("Cannot decrease stock - product not found: {}", productId);
-            return false;
-        }
-        
-        if (product.getStockQuantity() < quantity) {
-            logger.warn("Insufficient stock for product {}: requested {}, available {}", 
-                productId, quantity, product.getStockQuantity());
-            return false;
-        }
-        
-        product.decreaseStock(quantity);
-        logger.info("Decreased stock for product {} by {}. New stock: {}", 
-            productId, quantity, product.getStockQuantity());
-        return true;
+        return DECREASE_STOCK_METRICS.time(() -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                logger.error("Cannot decrease stock - product not found: {}", productId);
+                return false;
+            }
+
+            int available;
+            int previous = Integer.MAX_VALUE;
+            int newStock = -1;
+            // Check-and-decrement must be atomic per product under concurrent reservations
+            synchronized (product) {
+                available = product.getStockQuantity();
+                if (available >= quantity) {
+                    product.decreaseStock(quantity);
+                    newStock = product.getStockQuantity();
+                    previous = stockMonitor.recordStock(product, newStock);
+                    if (changes.hasSubscribers()) {
+                        changes.publish(ChangeEvent.stockChanged(productId, product, available, newStock));
+                    }
+                }
+            }
+
+            if (newStock < 0) {
+                logger.warn("Insufficient stock for product {}: requested {}, available {}", 
+                    productId, quantity, available);
+                return false;
+            }
+
+            logger.info("Decreased stock for product {} by {}. New stock: {}", 
+                productId, quantity, newStock);
+            stockMonitor.stockChanged(product, previous, newStock);
+            return true;
+        });
+    }
+
+    public boolean increaseStock(Long productId, int quantity) {
+        return INCREASE_STOCK_METRICS.time(() -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                logger.error("Cannot increase stock - product not found: {}", productId);
+                return false;
+            }
+
+            int previous;
+            int newStock;
+            synchronized (product) {
+                int available = product.getStockQuantity();
+                newStock = available + quantity;
+                product.setStockQuantity(newStock);
+                previous = stockMonitor.recordStock(product, newStock);
+                if (changes.hasSubscribers()) {
+                    changes.publish(ChangeEvent.stockChanged(productId, product, available, newStock));
+                }
+            }
+
+            logger.info("Increased stock for product {} by {}. New stock: {}", 
+                productId, quantity, newStock);
+            stockMonitor.stockChanged(product, previous, newStock);
+            return true;
+        });
+    }
+
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public StockLevelMonitor getStockMonitor() {
+        return stockMonitor;
+    }
+
+    /**
+     * Change stream of {@link #save} and every stock change, including those made by an
+     * {@link com.example.inventory.InventoryEngine}. Events for one product are published
+     * under its lock, so they arrive in mutation order.
+     */
+    public ChangePublisher<Product> getChangePublisher() {
+        return changes;
+    }
+
+    /**
+     * Coalescing of concurrent {@link #findById} calls, e.g. for a hot product during a
+     * sale; its counters show how many lookups shared another caller's round trip.
+     * Bypassed without simulated latency, where a lookup costs less than sharing it.
+     */
+    public SingleFlight<Optional<Product>> getFindByIdLoads() {
+        return findByIdLoads;
+    }
+
+    private Optional<Product> lookup(long id) {
+        simulateDbLatency();
+        return Optional.ofNullable(products.get(id));
     }
 
     private void simulateDbLatency() {
+        if (dbLatencyMillis <= 0) {
+            return;
+        }
         try {
-            Thread.sleep(10);
+            Thread.sleep(dbLatencyMillis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
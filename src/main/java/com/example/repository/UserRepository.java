@@ -1,13 +1,22 @@
 package com.example.repository;
 
+import com.example.cdc.ChangeEvent;
+import com.example.cdc.ChangePublisher;
+import com.example.codec.UserCodec;
 import com.example.model.User;
 import com.example.exception.UserNotFoundException;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
+import com.example.util.ConcurrentLongHashMap;
+import com.example.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repository for User data access.
@@ -15,64 +24,145 @@ import java.util.Optional;
  */
 public class UserRepository {
     private static final Logger logger = LoggerFactory.getLogger(UserRepository.class);
+    private static final OperationMetrics SAVE_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "save");
+    private static final OperationMetrics FIND_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "findById");
+    private static final OperationMetrics FIND_BY_ID_OR_THROW_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "findByIdOrThrow");
+    private static final OperationMetrics FIND_ALL_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "findAll");
+    private static final OperationMetrics FIND_BY_EMAIL_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "findByEmail");
+    private static final OperationMetrics DELETE_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "delete");
+    private static final OperationMetrics EXISTS_BY_EMAIL_METRICS =
+        MetricsRegistry.getDefault().operation(UserRepository.class, "existsByEmail");
     
-    private final Map<Long, User> users = new HashMap<>();
-    private final Map<String, User> usersByEmail = new HashMap<>();
-    private long nextId = 1;
+    private final ConcurrentLongHashMap<User> users = new ConcurrentLongHashMap<>();
+    private final SingleFlight<Optional<User>> findByIdLoads = new SingleFlight<>();
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ChangePublisher<User> changes = new ChangePublisher<>("users", UserCodec::toBytes, UserCodec::decode);
+    private final long dbLatencyMillis;
+
+    public UserRepository() {
+        this(10); // Simulate DB query time
+    }
+
+    /**
+     * @param dbLatencyMillis simulated query latency; 0 disables it (benchmarks, load tests)
+     */
+    public UserRepository(long dbLatencyMillis) {
+        this.dbLatencyMillis = dbLatencyMillis;
+    }
 
     public User save(User user) {
-        if (user.getId() == null) {
-            user.setId(nextId++);
-        }
-        
-        logger.debug("Saving user: {}", user);
-        users.put(user.getId(), user);
-        usersByEmail.put(user.getEmail(), user);
-        
-        return user;
+        return SAVE_METRICS.time(() -> {
+            if (user.getId() == null) {
+                user.setId(nextId.getAndIncrement());
+            }
+
+            logger.debug("Saving user: {}", user);
+            // Same lock as delete, so the change stream sees them in the order they happened
+            synchronized (user) {
+                users.put(user.getId(), user);
+                findByIdLoads.forget(user.getId());
+                usersByEmail.put(user.getEmail(), user);
+                if (changes.hasSubscribers()) {
+                    changes.publish(ChangeEvent.saved(user.getId(), user));
+                }
+            }
+
+            return user;
+        });
     }
 
     public Optional<User> findById(Long id) {
-        logger.debug("Finding user by ID: {}", id);
-        
-        // Simulate database latency
-        simulateDbLatency();
-        
-        return Optional.ofNullable(users.get(id));
+        return FIND_BY_ID_METRICS.time(() -> {
+            logger.debug("Finding user by ID: {}", id);
+
+            long key = id;
+            return dbLatencyMillis > 0 ? findByIdLoads.load(key, () -> lookup(key)) : lookup(key);
+        });
     }
 
     public User findByIdOrThrow(Long id) {
-        return findById(id)
-            .orElseThrow(() -> {
-                logger.error("User not found with ID: {}", id);
-                return new UserNotFoundException(id);
-            });
+        return FIND_BY_ID_OR_THROW_METRICS.time(() -> {
+            return findById(id)
+                .orElseThrow(() -> {
+                    logger.error("User not found with ID: {}", id);
+                    return new UserNotFoundException(id);
+                });
+        });
+    }
+
+    public List<User> findAll() {
+        return FIND_ALL_METRICS.time(() -> {
+            simulateDbLatency();
+            return users.values();
+        });
     }
 
     public Optional<User> findByEmail(String email) {
-        logger.debug("Finding user by email: {}", email);
-        
-        // Simulate database query
-        simulateDbLatency();
-        
-        return Optional.ofNullable(usersByEmail.get(email));
+        return FIND_BY_EMAIL_METRICS.time(() -> {
+            logger.debug("Finding user by email: {}", email);
+
+            // Simulate database query
+            simulateDbLatency();
+
+            return Optional.ofNullable(usersByEmail.get(email));
+        });
     }
 
     public void delete(Long id) {
-        logger.info("Deleting user: {}", id);
-        User user = users.remove(id);
-        if (user != null) {
-            usersByEmail.remove(user.getEmail());
-        }
+        DELETE_METRICS.time(() -> {
+            logger.info("Deleting user: {}", id);
+            User user;
+            while ((user = users.get(id)) != null) {
+                synchronized (user) {
+                    if (users.remove(id, user)) {
+                        usersByEmail.remove(user.getEmail(), user);
+                        if (changes.hasSubscribers()) {
+                            changes.publish(ChangeEvent.deleted(id, user));
+                        }
+                        break;
+                    }
+                }
+            }
+            findByIdLoads.forget(id);
+        });
     }
 
     public boolean existsByEmail(String email) {
-        return usersByEmail.containsKey(email);
+        return EXISTS_BY_EMAIL_METRICS.time(() -> usersByEmail.containsKey(email));
+    }
+
+    /**
+     * Change stream of {@link #save} and {@link #delete}.
+     */
+    public ChangePublisher<User> getChangePublisher() {
+        return changes;
+    }
+
+    /**
+     * Coalescing of concurrent {@link #findById} calls.
+     */
+    public SingleFlight<Optional<User>> getFindByIdLoads() {
+        return findByIdLoads;
+    }
+
+    private Optional<User> lookup(long id) {
+        simulateDbLatency();
+        return Optional.ofNullable(users.get(id));
     }
 
     private void simulateDbLatency() {
+        if (dbLatencyMillis <= 0) {
+            return;
+        }
         try {
-            Thread.sleep(10); // Simulate DB query time
+            Thread.sleep(dbLatencyMillis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -0,0 +1,36 @@
+package com.example.search;
+
+import com.example.model.Product;
+
+import java.util.Arrays;
+
+/**
+ * One indexed version of a product: its sorted distinct terms, each with the best field
+ * tier it occurs in. Posting lists point at these directly, so a candidate is checked
+ * without a map lookup; re-indexing the product supersedes the old version and its
+ * postings go stale. All versions of a product share one dense document number, the
+ * bit position in posting bitsets.
+ */
+final class IndexedProduct {
+    final Product product;
+    final int docNo;
+    final String[] terms;
+    final byte[] tiers;
+    volatile boolean superseded;
+
+    IndexedProduct(Product product, int docNo, String[] terms, byte[] tiers) {
+        this.product = product;
+        this.docNo = docNo;
+        this.terms = terms;
+        this.tiers = tiers;
+    }
+
+    int tierOf(String term) {
+        int i = Arrays.binarySearch(terms, term);
+        return i >= 0 ? tiers[i] : -1;
+    }
+
+    boolean isAvailable() {
+        return product.isActive() && product.isInStock();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.search;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The indexed products containing one term, kept in one list per field tier (the best
+ * field the term occurs in, see {@link ProductSearchIndex}). Lists are append-only;
+ * readers take an immutable {@link Slice} and never lock. Entries of superseded products
+ * are skipped by readers and dropped once they make up half of the list.
+ *
+ * A tier that holds at least 1/{@value #BITSET_DENSITY} of all documents also keeps a
+ * bitset of document numbers, exact for the current versions, so common terms can be
+ * intersected word by word instead of scanned. Bitsets are written under the list's
+ * lock and read without it; readers re-check every hit against the product's terms.
+ */
+final class PostingList {
+    static final int TIERS = 3;
+    static final int BITSET_DENSITY = 64;
+    private static final int MIN_COMPACT_SIZE = 64;
+    private static final int MIN_BITSET_SIZE = 1024;
+
+    final String term;
+    private final AtomicReferenceArray<Slice> tiers = new AtomicReferenceArray<>(TIERS);
+    private final AtomicReferenceArray<long[]> bitsets = new AtomicReferenceArray<>(TIERS);
+    private int size;
+    private int stale;
+
+    PostingList(String term) {
+        this.term = term;
+    }
+
+    Slice tier(int tier) {
+        Slice slice = tiers.get(tier);
+        return slice != null ? slice : Slice.EMPTY;
+    }
+
+    /**
+     * @return the tier's bitset, or {@code null} while the tier is sparse
+     */
+    long[] bits(int tier) {
+        return bitsets.get(tier);
+    }
+
+    synchronized int documentFrequency() {
+        return size - stale;
+    }
+
+    /**
+     * @param documentCount number of document numbers handed out, for the density check
+     */
+    synchronized void append(int tier, IndexedProduct entry, int documentCount) {
+        Slice slice = tier(tier);
+        IndexedProduct[] entries = slice.entries;
+        int[] docNos = slice.docNos;
+        if (slice.size == entries.length) {
+            int capacity = Math.max(4, entries.length + (entries.length >> 1));
+            entries = Arrays.copyOf(entries, capacity);
+            docNos = Arrays.copyOf(docNos, capacity);
+        }
+        // Writes beyond a published slice's size are invisible to its readers
+        entries[slice.size] = entry;
+        docNos[slice.size] = entry.docNo;
+        tiers.set(tier, new Slice(entries, docNos, slice.size + 1));
+        size++;
+        if (bitsets.get(tier) != null) {
+            setBit(tier, entry.docNo);
+        } else {
+            buildBitsetIfDense(tier, documentCount);
+        }
+    }
+
+    synchronized void appendAll(int tier, IndexedProduct[] added, int count, int documentCount) {
+        Slice slice = tier(tier);
+        IndexedProduct[] entries = Arrays.copyOf(slice.entries, slice.size + count);
+        int[] docNos = Arrays.copyOf(slice.docNos, slice.size + count);
+        for (int i = 0; i < count; i++) {
+            entries[slice.size + i] = added[i];
+            docNos[slice.size + i] = added[i].docNo;
+        }
+        tiers.set(tier, new Slice(entries, docNos, entries.length));
+        size += count;
+        if (bitsets.get(tier) != null) {
+            for (int i = 0; i < count; i++) {
+                setBit(tier, added[i].docNo);
+            }
+        } else {
+            buildBitsetIfDense(tier, documentCount);
+        }
+    }
+
+    /**
+     * Records that a superseded version had this term in {@code tier}. Must be called
+     * before the new version of the same product is appended, since both share a bit.
+     */
+    synchronized void markStale(IndexedProduct entry, int tier) {
+        long[] bits = bitsets.get(tier);
+        if (bits != null && entry.docNo >> 6 < bits.length) {
+            bits[entry.docNo >> 6] &= ~(1L << entry.docNo);
+        }
+        stale++;
+        if (size >= MIN_COMPACT_SIZE && stale * 2 > size) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int remaining = 0;
+        for (int tier = 0; tier < TIERS; tier++) {
+            Slice slice = tier(tier);
+            IndexedProduct[] live = new IndexedProduct[slice.size];
+            int[] docNos = new int[slice.size];
+            int count = 0;
+            for (int i = 0; i < slice.size; i++) {
+                if (!slice.entries[i].superseded) {
+                    docNos[count] = slice.docNos[i];
+                    live[count++] = slice.entries[i];
+                }
+            }
+            tiers.set(tier, count == 0 ? null
+                : new Slice(Arrays.copyOf(live, count), Arrays.copyOf(docNos, count), count));
+            remaining += count;
+        }
+        // Entries superseded but not yet reported are dropped too; their reports follow
+        stale -= size - remaining;
+        size = remaining;
+    }
+
+    private void buildBitsetIfDense(int tier, int documentCount) {
+        Slice slice = tier(tier);
+        if (slice.size < MIN_BITSET_SIZE || (long) slice.size * BITSET_DENSITY < documentCount) {
+            return;
+        }
+        long[] bits = new long[(documentCount >> 6) + 1];
+        for (int i = 0; i < slice.size; i++) {
+            IndexedProduct entry = slice.entries[i];
+            if (!entry.superseded) {
+                bits[entry.docNo >> 6] |= 1L << entry.docNo;
+            }
+        }
+        bitsets.set(tier, bits);
+    }
+
+    private void setBit(int tier, int docNo) {
+        long[] bits = bitsets.get(tier);
+        if (docNo >> 6 >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max((docNo >> 6) + 1, bits.length + (bits.length >> 1)));
+            bitsets.set(tier, bits);
+        }
+        bits[docNo >> 6] |= 1L << docNo;
+    }
+
+    /**
+     * Entries with their document numbers alongside, so bitset filters can reject an
+     * entry without loading it.
+     */
+    static final class Slice {
+        static final Slice EMPTY = new Slice(new IndexedProduct[0], new int[0], 0);
+
+        final IndexedProduct[] entries;
+        final int[] docNos;
+        final int size;
+
+        Slice(IndexedProduct[] entries, int[] docNos, int size) {
+            this.entries = entries;
+            this.docNos = docNos;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package com.example.search;
+
+import com.example.model.Product;
+import com.example.util.ConcurrentLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory keyword and prefix search over product name, category and description.
+ *
+ * Each term maps to a {@link PostingList} of the products containing it, split by the
+ * best field the term occurs in (name, then category, then description). The term
+ * dictionary is a skip list, so a prefix is a range scan over it. Every indexed product
+ * also keeps its own sorted term array, which is used to check the other query terms of
+ * a candidate without a lookup.
+ *
+ * A hit scores {@code idf(term) * fieldWeight} per query term, and every term must
+ * match. The query is evaluated one combination of field tiers at a time, best possible
+ * score first: candidates come from the smallest posting list of the combination,
+ * filtered through the bitsets of the others, or from a word-by-word AND of bitsets
+ * when every list is dense. Evaluation stops as soon as the remaining combinations
+ * cannot beat the current top hits, so a popular word does not walk its whole list.
+ * Only active, in-stock products are returned; both are read live from the product, so
+ * stock changes need no re-indexing.
+ *
+ * Safe for concurrent searches and updates. Searches may briefly miss or still see a
+ * product that is being re-indexed.
+ */
+public class ProductSearchIndex {
+    static final int NAME = 0;
+    static final int CATEGORY = 1;
+    static final int DESCRIPTION = 2;
+    private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+    static final int MAX_LIMIT = 1000;
+    /** Query terms beyond this many, rarest first, are checked but not enumerated by tier. */
+    private static final int MAX_ENUMERATED_TERMS = 4;
+    /** A prefix uses bitsets only when it has at most this many dense completions. */
+    private static final int MAX_BITSET_UNION = 4;
+    private static final int LOCK_STRIPES = 64;
+    /** Relative costs, in bitset words ANDed, of filtering a posting entry and of checking a candidate. */
+    private static final int ENTRY_COST = 4;
+    private static final int CANDIDATE_COST = 128;
+
+    private final NavigableMap<String, PostingList> dictionary = new ConcurrentSkipListMap<>();
+    private final ConcurrentLongHashMap<IndexedProduct> documents = new ConcurrentLongHashMap<>();
+    private final AtomicInteger nextDocNo = new AtomicInteger();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Object tableLock = new Object();
+    private volatile AtomicReferenceArray<IndexedProduct> table = new AtomicReferenceArray<>(1024);
+
+    public ProductSearchIndex() {
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    /**
+     * Adds or re-indexes a product.
+     */
+    public void index(Product product) {
+        long id = product.getId();
+        synchronized (locks[(int) (id & (LOCK_STRIPES - 1))]) {
+            IndexedProduct previous = documents.get(id);
+            int docNo = previous != null ? previous.docNo : nextDocNo.getAndIncrement();
+            IndexedProduct next = document(product, docNo);
+            documents.put(id, next);
+            publish(next);
+            if (previous != null) {
+                previous.superseded = true;
+                for (int i = 0; i < previous.terms.length; i++) {
+                    dictionary.get(previous.terms[i]).markStale(previous, previous.tiers[i]);
+                }
+            }
+            int documentCount = nextDocNo.get();
+            for (int i = 0; i < next.terms.length; i++) {
+                dictionary.get(next.terms[i]).append(next.tiers[i], next, documentCount);
+            }
+        }
+    }
+
+    /**
+     * Indexes a batch, e.g. a catalog load. Products not yet indexed are tokenized in
+     * parallel and appended to each posting list in one step. Must not race with
+     * {@link #index} calls for the same products.
+     */
+    public void indexAll(List<Product> products) {
+        List<Product> fresh = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (documents.containsKey(product.getId())) {
+                index(product);
+            } else {
+                fresh.add(product);
+            }
+        }
+        int base = nextDocNo.getAndAdd(fresh.size());
+        List<IndexedProduct> added = IntStream.range(0, fresh.size()).parallel()
+            .mapToObj(i -> document(fresh.get(i), base + i))
+            .toList();
+        documents.putAll(added, d -> d.product.getId());
+        synchronized (tableLock) {
+            ensureTableCapacity(base + added.size());
+            for (IndexedProduct document : added) {
+                table.set(document.docNo, document);
+            }
+        }
+
+        Map<PostingList, IndexedProduct[][]> pending = new HashMap<>();
+        Map<PostingList, int[]> counts = new HashMap<>();
+        for (IndexedProduct document : added) {
+            for (int i = 0; i < document.terms.length; i++) {
+                PostingList list = dictionary.get(document.terms[i]);
+                IndexedProduct[][] entries = pending.computeIfAbsent(list, l -> new IndexedProduct[PostingList.TIERS][]);
+                int[] count = counts.computeIfAbsent(list, l -> new int[PostingList.TIERS]);
+                int tier = document.tiers[i];
+                if (entries[tier] == null) {
+                    entries[tier] = new IndexedProduct[4];
+                } else if (count[tier] == entries[tier].length) {
+                    entries[tier] = Arrays.copyOf(entries[tier], count[tier] * 2);
+                }
+                entries[tier][count[tier]++] = document;
+            }
+        }
+        int documentCount = nextDocNo.get();
+        pending.forEach((list, entries) -> {
+            int[] count = counts.get(list);
+            for (int tier = 0; tier < PostingList.TIERS; tier++) {
+                if (count[tier] > 0) {
+                    list.appendAll(tier, entries[tier], count[tier], documentCount);
+                }
+            }
+        });
+    }
+
+    /**
+     * Products containing every term of the query, best first.
+     *
+     * @param limit maximum number of results, at most {@value #MAX_LIMIT}
+     */
+    public List<Product> search(String query, int limit) {
+        return search(query, limit, false);
+    }
+
+    /**
+     * Type-ahead: like {@link #search}, but the last term also matches longer terms that
+     * start with it, unless the query ends in a separator. At most
+     * {@value #MAX_PREFIX_EXPANSIONS} completions are considered.
+     */
+    public List<Product> complete(String query, int limit) {
+        return search(query, limit, Tokenizer.endsInTerm(query));
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        return dictionary.size();
+    }
+
+    private List<Product> search(String query, int limit, boolean prefixLast) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_LIMIT + ": " + limit);
+        }
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        double totalDocuments = Math.max(1, documents.size());
+        List<Clause> clauses = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean prefix = prefixLast && i == tokens.size() - 1;
+            if (!prefix && tokens.subList(i + 1, tokens.size()).contains(token)) {
+                continue;
+            }
+            Clause clause = prefix ? prefixClause(token, totalDocuments) : termClause(token, totalDocuments);
+            if (clause == null) {
+                return Collections.emptyList();
+            }
+            clauses.add(clause);
+        }
+        clauses.sort(Comparator.comparingLong(c -> c.frequency));
+        List<Clause> enumerated = clauses.subList(0, Math.min(clauses.size(), MAX_ENUMERATED_TERMS));
+        double restMax = 0;
+        for (Clause clause : clauses.subList(enumerated.size(), clauses.size())) {
+            restMax += clause.maxScore;
+        }
+
+        TopHits hits = new TopHits(limit);
+        AtomicReferenceArray<IndexedProduct> docs = table;
+        int documentCount = nextDocNo.get();
+        for (Combination combination : combinations(enumerated, restMax)) {
+            if (hits.isFull() && hits.minScore() >= combination.bound) {
+                break;
+            }
+            evaluate(combination, enumerated, clauses, docs, documentCount, hits);
+        }
+        return hits.toList();
+    }
+
+    /**
+     * Every assignment of a non-empty tier to each enumerated clause, best bound first.
+     */
+    private static List<Combination> combinations(List<Clause> enumerated, double restMax) {
+        List<Combination> result = new ArrayList<>();
+        addCombinations(enumerated, 0, new int[enumerated.size()], restMax, result);
+        result.sort(Comparator.comparingDouble((Combination c) -> c.bound).reversed());
+        return result;
+    }
+
+    private static void addCombinations(List<Clause> enumerated, int index, int[] tiers, double bound,
+                                        List<Combination> result) {
+        if (index == enumerated.size()) {
+            result.add(new Combination(tiers.clone(), bound));
+            return;
+        }
+        Clause clause = enumerated.get(index);
+        for (int tier = 0; tier < PostingList.TIERS; tier++) {
+            if (clause.tierScore[tier] > 0) {
+                tiers[index] = tier;
+                addCombinations(enumerated, index + 1, tiers, bound + clause.tierScore[tier], result);
+            }
+        }
+    }
+
+    /**
+     * Feeds the products matching one combination to the hits. Candidates come from
+     * scanning one clause's list, skipping entries missing from the other clauses'
+     * bitsets, or, when every list is dense, from ANDing the bitsets. The cheapest plan
+     * is picked from list sizes, assuming terms occur independently.
+     */
+    private static void evaluate(Combination combination, List<Clause> enumerated, List<Clause> clauses,
+                                 AtomicReferenceArray<IndexedProduct> docs, int documentCount, TopHits hits) {
+        int count = enumerated.size();
+        long[][][] bits = new long[count][][];
+        double[] density = new double[count];
+        int bitsetArrays = 0;
+        double denseDensity = 1;
+        for (int c = 0; c < count; c++) {
+            int tier = combination.tiers[c];
+            bits[c] = enumerated.get(c).bits(tier);
+            density[c] = Math.min(1, enumerated.get(c).tierSize[tier] / (double) Math.max(1, documentCount));
+            if (bits[c] != null) {
+                bitsetArrays += bits[c].length;
+                denseDensity *= density[c];
+            }
+        }
+        int source = 0;
+        double sourceCost = Double.MAX_VALUE;
+        for (int c = 0; c < count; c++) {
+            double size = enumerated.get(c).tierSize[combination.tiers[c]];
+            double survivors = size * (bits[c] != null ? denseDensity / density[c] : denseDensity);
+            double cost = size * ENTRY_COST + survivors * CANDIDATE_COST;
+            if (cost < sourceCost) {
+                source = c;
+                sourceCost = cost;
+            }
+        }
+        if (bitsetArrays > 0 && Arrays.stream(bits).allMatch(b -> b != null)) {
+            double andCost = ((documentCount >> 6) + 1.0) * bitsetArrays + documentCount * denseDensity * CANDIDATE_COST;
+            if (andCost < sourceCost) {
+                intersect(combination, bits, clauses, docs, hits);
+                return;
+            }
+        }
+        scan(combination, enumerated.get(source), combination.tiers[source], bits, source, clauses, hits);
+    }
+
+    private static void scan(Combination combination, Clause source, int tier, long[][][] bits, int sourceIndex,
+                             List<Clause> clauses, TopHits hits) {
+        // Completions are ordered by idf, so each bounds the ones after it
+        double others = combination.bound - source.tierScore[tier];
+        for (int j = 0; j < source.lists.length; j++) {
+            PostingList.Slice slice = source.lists[j].tier(tier);
+            double bound = others + source.idf[j] * FIELD_WEIGHTS[tier];
+            entries:
+            for (int i = 0; i < slice.size; i++) {
+                if (hits.isFull() && hits.minScore() >= bound) {
+                    return;
+                }
+                int docNo = slice.docNos[i];
+                for (int c = 0; c < bits.length; c++) {
+                    if (c != sourceIndex && bits[c] != null && !anyBit(bits[c], docNo)) {
+                        continue entries;
+                    }
+                }
+                consider(slice.entries[i], clauses, hits);
+            }
+        }
+    }
+
+    private static void intersect(Combination combination, long[][][] bits, List<Clause> clauses,
+                                  AtomicReferenceArray<IndexedProduct> docs, TopHits hits) {
+        int words = (docs.length() >> 6) + 1;
+        for (long[][] clauseBits : bits) {
+            if (clauseBits != null) {
+                for (long[] b : clauseBits) {
+                    words = Math.min(words, b.length);
+                }
+            }
+        }
+        for (int w = 0; w < words; w++) {
+            long word = -1L;
+            for (int c = 0; c < bits.length && word != 0; c++) {
+                if (bits[c] != null) {
+                    long union = 0;
+                    for (long[] b : bits[c]) {
+                        union |= b[w];
+                    }
+                    word &= union;
+                }
+            }
+            while (word != 0) {
+                int docNo = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (hits.isFull() && hits.minScore() >= combination.bound) {
+                    return;
+                }
+                IndexedProduct document = docNo < docs.length() ? docs.get(docNo) : null;
+                if (document != null) {
+                    consider(document, clauses, hits);
+                }
+            }
+        }
+    }
+
+    private static boolean anyBit(long[][] bits, int docNo) {
+        int word = docNo >> 6;
+        for (long[] b : bits) {
+            if (word < b.length && (b[word] & (1L << docNo)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void consider(IndexedProduct document, List<Clause> clauses, TopHits hits) {
+        if (document.superseded || !document.isAvailable()) {
+            return;
+        }
+        double score = 0;
+        for (Clause clause : clauses) {
+            double clauseScore = clause.score(document);
+            if (clauseScore == 0) {
+                return;
+            }
+            score += clauseScore;
+        }
+        hits.offer(document.product, score);
+    }
+
+    private Clause termClause(String token, double totalDocuments) {
+        PostingList list = dictionary.get(token);
+        if (list == null) {
+            return null;
+        }
+        int frequency = list.documentFrequency();
+        return frequency <= 0 ? null
+            : new Clause(token, false, new PostingList[] {list}, new double[] {idf(frequency, totalDocuments)});
+    }
+
+    private Clause prefixClause(String token, double totalDocuments) {
+        List<PostingList> lists = new ArrayList<>();
+        List<Double> idfs = new ArrayList<>();
+        for (PostingList list : dictionary.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+            int frequency = list.documentFrequency();
+            if (frequency > 0) {
+                lists.add(list);
+                idfs.add(idf(frequency, totalDocuments));
+                if (lists.size() == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        Integer[] order = new Integer[lists.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> idfs.get(i)).reversed());
+        PostingList[] sorted = new PostingList[order.length];
+        double[] idf = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = lists.get(order[i]);
+            idf[i] = idfs.get(order[i]);
+        }
+        return new Clause(token, true, sorted, idf);
+    }
+
+    private static double idf(int frequency, double totalDocuments) {
+        return Math.log(1 + totalDocuments / frequency);
+    }
+
+    /**
+     * Tokenizes a product into its sorted distinct terms, each with the best field it
+     * occurs in. Term strings are the dictionary's own instances.
+     */
+    private IndexedProduct document(Product product, int docNo) {
+        Map<String, Integer> best = new HashMap<>();
+        addField(best, product.getName(), NAME);
+        addField(best, product.getCategory(), CATEGORY);
+        addField(best, product.getDescription(), DESCRIPTION);
+        String[] terms = best.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        byte[] tiers = new byte[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            tiers[i] = (byte) (int) best.get(terms[i]);
+            terms[i] = dictionary.computeIfAbsent(terms[i], PostingList::new).term;
+        }
+        return new IndexedProduct(product, docNo, terms, tiers);
+    }
+
+    private static void addField(Map<String, Integer> best, String text, int tier) {
+        for (String term : Tokenizer.tokenize(text)) {
+            best.merge(term, tier, Math::min);
+        }
+    }
+
+    private void publish(IndexedProduct document) {
+        synchronized (tableLock) {
+            ensureTableCapacity(document.docNo + 1);
+            table.set(document.docNo, document);
+        }
+    }
+
+    private void ensureTableCapacity(int capacity) {
+        AtomicReferenceArray<IndexedProduct> current = table;
+        if (capacity <= current.length()) {
+            return;
+        }
+        AtomicReferenceArray<IndexedProduct> grown =
+            new AtomicReferenceArray<>(Math.max(capacity, current.length() + (current.length() >> 1)));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        table = grown;
+    }
+
+    /**
+     * One query term, or for a prefix every completion of it, rarest first.
+     */
+    private static final class Clause {
+        final String token;
+        final boolean prefix;
+        final PostingList[] lists;
+        final double[] idf;
+        final double minIdf;
+        final double maxScore;
+        final double[] tierScore = new double[PostingList.TIERS];
+        final long[] tierSize = new long[PostingList.TIERS];
+        final long frequency;
+
+        Clause(String token, boolean prefix, PostingList[] lists, double[] idf) {
+            this.token = token;
+            this.prefix = prefix;
+            this.lists = lists;
+            this.idf = idf;
+            double min = Double.MAX_VALUE;
+            long total = 0;
+            for (int i = 0; i < lists.length; i++) {
+                min = Math.min(min, idf[i]);
+                total += lists[i].documentFrequency();
+                for (int tier = 0; tier < PostingList.TIERS; tier++) {
+                    int size = lists[i].tier(tier).size;
+                    if (size > 0) {
+                        tierScore[tier] = Math.max(tierScore[tier], idf[i] * FIELD_WEIGHTS[tier]);
+                        tierSize[tier] += size;
+                    }
+                }
+            }
+            this.minIdf = min;
+            this.maxScore = Math.max(tierScore[0], Math.max(tierScore[1], tierScore[2]));
+            this.frequency = total;
+        }
+
+        /**
+         * Bitsets of every completion with entries in {@code tier}, or {@code null} if
+         * any of them is sparse or there are too many to union.
+         */
+        long[][] bits(int tier) {
+            List<long[]> result = new ArrayList<>(lists.length);
+            for (PostingList list : lists) {
+                if (list.tier(tier).size > 0) {
+                    long[] bits = list.bits(tier);
+                    if (bits == null || result.size() == MAX_BITSET_UNION) {
+                        return null;
+                    }
+                    result.add(bits);
+                }
+            }
+            return result.toArray(new long[0][]);
+        }
+
+        /**
+         * Best contribution of this clause to a document, 0 if the document lacks it.
+         * Completions beyond the expansion limit count with the lowest known idf.
+         */
+        double score(IndexedProduct document) {
+            if (!prefix) {
+                int tier = document.tierOf(token);
+                return tier < 0 ? 0 : idf[0] * FIELD_WEIGHTS[tier];
+            }
+            String[] terms = document.terms;
+            int i = Arrays.binarySearch(terms, token);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            double best = 0;
+            for (; i < terms.length && terms[i].startsWith(token); i++) {
+                best = Math.max(best, idfOf(terms[i]) * FIELD_WEIGHTS[document.tiers[i]]);
+            }
+            return best;
+        }
+
+        private double idfOf(String term) {
+            for (int i = 0; i < lists.length; i++) {
+                if (lists[i].term == term) {
+                    return idf[i];
+                }
+            }
+            return minIdf;
+        }
+    }
+
+    /**
+     * A tier per enumerated clause and the best score a product matching it can reach.
+     */
+    private static final class Combination {
+        final int[] tiers;
+        final double bound;
+
+        Combination(int[] tiers, double bound) {
+            this.tiers = tiers;
+            this.bound = bound;
+        }
+    }
+
+    /**
+     * Bounded best-first hit list; ties keep the earlier hit.
+     */
+    private static final class TopHits {
+        private final Product[] products;
+        private final double[] scores;
+        private int size;
+
+        TopHits(int limit) {
+            this.products = new Product[limit];
+            this.scores = new double[limit];
+        }
+
+        boolean isFull() {
+            return size == products.length;
+        }
+
+        double minScore() {
+            return scores[size - 1];
+        }
+
+        void offer(Product product, double score) {
+            if (isFull() && score <= minScore()) {
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (products[i] == product) {
+                    return;
+                }
+            }
+            int i = isFull() ? size - 1 : size++;
+            while (i > 0 && scores[i - 1] < score) {
+                products[i] = products[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            products[i] = product;
+            scores[i] = score;
+        }
+
+        List<Product> toList() {
+            return new ArrayList<>(Arrays.asList(products).subList(0, size));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into lower-case terms at every character that is not a letter or digit.
+ * Terms longer than {@value #MAX_TERM_LENGTH} characters are cut, so part numbers and
+ * pasted junk cannot bloat the dictionary.
+ */
+final class Tokenizer {
+    static final int MAX_TERM_LENGTH = 32;
+
+    private Tokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms);
+        return terms;
+    }
+
+    static void tokenize(String text, List<String> out) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                out.add(lowerCase(text, start, Math.min(i, start + MAX_TERM_LENGTH)));
+            }
+        }
+    }
+
+    /**
+     * Whether the text ends inside a term, i.e. its last term may still be incomplete.
+     */
+    static boolean endsInTerm(String text) {
+        return !text.isEmpty() && Character.isLetterOrDigit(text.charAt(text.length() - 1));
+    }
+
+    private static String lowerCase(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != Character.toLowerCase(c)) {
+                char[] chars = new char[end - start];
+                for (int j = start; j < end; j++) {
+                    chars[j - start] = Character.toLowerCase(text.charAt(j));
+                }
+                return new String(chars);
+            }
+        }
+        return text.substring(start, end);
+    }
+}
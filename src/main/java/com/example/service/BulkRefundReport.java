@@ -0,0 +1,89 @@
+package com.example.service;
+
+import com.example.model.OrderStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-order outcome of {@link OrderService#cancelAndRefund}, in the order the orders were
+ * selected (oldest first).
+ */
+public class BulkRefundReport {
+
+    public enum Outcome {
+        /** Cancelled; there was no payment to refund. */
+        CANCELLED,
+        /** Cancelled and refunded. */
+        REFUNDED,
+        /** Cancelled, but the refund still failed after all attempts; needs follow-up. */
+        REFUND_FAILED,
+        /** Left alone: its status moved out of the selection before it could be cancelled. */
+        SKIPPED
+    }
+
+    public static final class Entry {
+        private final long orderId;
+        private final OrderStatus previousStatus;
+        private final Outcome outcome;
+        private final int refundAttempts;
+        private final String errorCode;
+
+        Entry(long orderId, OrderStatus previousStatus, Outcome outcome, int refundAttempts, String errorCode) {
+            this.orderId = orderId;
+            this.previousStatus = previousStatus;
+            this.outcome = outcome;
+            this.refundAttempts = refundAttempts;
+            this.errorCode = errorCode;
+        }
+
+        public long getOrderId() { return orderId; }
+        /** Status the order was cancelled from, or its status when skipped. */
+        public OrderStatus getPreviousStatus() { return previousStatus; }
+        public Outcome getOutcome() { return outcome; }
+        public int getRefundAttempts() { return refundAttempts; }
+        /** Error code of the last failed refund attempt, or {@code null}. */
+        public String getErrorCode() { return errorCode; }
+
+        @Override
+        public String toString() {
+            return "Entry{orderId=" + orderId + ", from=" + previousStatus + ", outcome=" + outcome
+                + ", attempts=" + refundAttempts + (errorCode != null ? ", error=" + errorCode : "") + "}";
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long elapsedNanos;
+    private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+
+    BulkRefundReport(Entry[] entries, long elapsedNanos) {
+        this.entries = Collections.unmodifiableList(Arrays.asList(entries));
+        this.elapsedNanos = elapsedNanos;
+        for (Outcome outcome : Outcome.values()) {
+            counts.put(outcome, 0);
+        }
+        for (Entry entry : entries) {
+            counts.merge(entry.outcome, 1, Integer::sum);
+        }
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int count(Outcome outcome) {
+        return counts.get(outcome);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkRefundReport{orders=" + entries.size() + ", " + counts + ", elapsedMs=" + elapsedNanos / 1_000_000 + "}";
+    }
+}
@@ -1,166 +1,534 @@
 package com.example.service;
 
+import com.example.admission.AdmissionControl;
+import com.example.analytics.TrendingProducts;
+import com.example.idempotency.IdempotencyStore;
 import com.example.model.*;
 import com.example.repository.OrderRepository;
 import com.example.repository.ProductRepository;
 import com.example.exception.*;
+import com.example.logging.RequestContext;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for order management operations.
  */
 public class OrderService {
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+    private static final OperationMetrics CREATE_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "createOrder");
+    private static final OperationMetrics ADD_ITEM_TO_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "addItemToOrder");
+    private static final OperationMetrics PROCESS_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "processOrder");
+    private static final OperationMetrics CANCEL_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "cancelOrder");
+    private static final OperationMetrics GET_USER_ORDERS_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "getUserOrders");
+    private static final OperationMetrics GET_ORDER_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "getOrderById");
+    private static final OperationMetrics CANCEL_AND_REFUND_METRICS =
+        MetricsRegistry.getDefault().operation(OrderService.class, "cancelAndRefund");
+    private static final Duration IDEMPOTENCY_TTL = Duration.ofHours(24);
+    private static final int IDEMPOTENCY_CAPACITY = 100_000;
+    private static final Set<OrderStatus> CANCELLABLE =
+        EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING);
+    private static final int BULK_PARALLELISM = 32;
+    private static final int REFUND_ATTEMPTS = 5;
+    private static final Duration REFUND_BACKOFF = Duration.ofMillis(200);
+    private static final long MAX_REFUND_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final AtomicInteger BULK_THREADS = new AtomicInteger();
     
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final ProductService productService;
     private final PaymentService paymentService;
+    private final AdmissionControl admission;
+    private final TrendingProducts trendingProducts = new TrendingProducts();
+    private static final String ALREADY_BEING_PROCESSED = "Order is already being processed";
+
+    // Rejections that reserved and charged nothing are not replayed: a retry may succeed
+    private final IdempotencyStore<Order> processedOrders =
+        new IdempotencyStore<>(IDEMPOTENCY_TTL, IDEMPOTENCY_CAPACITY, OrderService::isNotAttempted);
 
     public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
                         ProductService productService, PaymentService paymentService) {
+        this(orderRepository, productRepository, productService, paymentService, AdmissionControl.unlimited());
+    }
+
+    /**
+     * @param admission checked before every entry point; user-scoped calls are keyed by
+     *                  user ID, order-scoped ones by order ID
+     */
+    public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
+                        ProductService productService, PaymentService paymentService,
+                        AdmissionControl admission) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.productService = productService;
         this.paymentService = paymentService;
+        this.admission = admission;
     }
 
     public Order createOrder(Long userId, String shippingAddress) {
-        logger.info("Creating new order for user {}", userId);
-        
-        if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
-            logger.error("Invalid shipping address for user {}", userId);
-            throw new ValidationException("Shipping address is required");
+        AdmissionControl.Permit permit = admission.admit(userKey(userId));
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return CREATE_ORDER_METRICS.time(() -> {
+                logger.info("Creating new order for user {}", userId);
+
+                if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
+                    logger.error("Invalid shipping address for user {}", userId);
+                    throw new ValidationException("Shipping address is required");
+                }
+
+                Order order = new Order();
+                order.setUserId(userId);
+                order.setShippingAddress(shippingAddress);
+
+                Order savedOrder = orderRepository.save(order);
+                logger.info("Order created: {} for user {}", savedOrder.getId(), userId);
+
+                return savedOrder;
+            });
+        } finally {
+            scope.close();
+            permit.close();
         }
-        
-        Order order = new Order();
-        order.setUserId(userId);
-        order.setShippingAddress(shippingAddress);
-        
-        Order savedOrder = orderRepository.save(order);
-        logger.info("Order created: {} for user {}", savedOrder.getId(), userId);
-        
-        return savedOrder;
     }
 
     public Order addItemToOrder(Long orderId, Long productId, int quantity) {
-        logger.info("Adding {} x product {} to order {}", quantity, productId, orderId);
-        
-        if (quantity <= 0) {
-            logger.error("Invalid quantity {} for order {}", quantity, orderId);
-            throw new ValidationException("Quantity must be positive");
+        AdmissionControl.Permit permit = admission.admit(ownerKey(orderId));
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return ADD_ITEM_TO_ORDER_METRICS.time(() -> {
+                logger.info("Adding {} x product {} to order {}", quantity, productId, orderId);
+
+                if (quantity <= 0) {
+                    logger.error("Invalid quantity {} for order {}", quantity, orderId);
+                    throw new ValidationException("Quantity must be positive");
+                }
+
+                Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> {
+                        logger.error("Order not found: {}", orderId);
+                        return new OrderProcessingException(orderId, "Order not found");
+                    });
+
+                if (order.getStatus() != OrderStatus.PENDING) {
+                    logger.error("Cannot modify order {} - status is {}", orderId, order.getStatus());
+                    throw new OrderProcessingException(orderId, "Cannot modify non-pending order");
+                }
+
+                Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> {
+                        logger.error("Product not found: {}", productId);
+                        return new IllegalArgumentException("Product not found: " + productId);
+                    });
+
+                // Check stock
+                if (product.getStockQuantity() < quantity) {
+                    logger.warn("Insufficient stock for product {} in order {}", productId, orderId);
+                    throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+                }
+
+                OrderItem item = new OrderItem(productId, product.getName(), quantity, product.getPrice());
+                order.addItem(item);
+
+                orderRepository.save(order);
+                trendingProducts.onItemAdded(item);
+                logger.info("Item added to order {}: {} x {} = ${}", 
+                    orderId, quantity, product.getName(), item.getSubtotal());
+
+                return order;
+            });
+        } finally {
+            scope.close();
+            permit.close();
+        }
+    }
+
+    /**
+     * {@link #processOrder(Long, String)} that is safe to retry. The first call with a
+     * given key does the work; retries and concurrent duplicates get its order or its
+     * exception without reserving stock or charging again. A call rejected before it
+     * started (rate limited, invalid, or while another caller holds the order) is not
+     * recorded and can be retried with the same key. A {@code null} key disables
+     * deduplication.
+     *
+     * @throws ValidationException if the key was already used for another order
+     */
+    public Order processOrder(Long orderId, String cardNumber, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return processOrder(orderId, cardNumber);
         }
-        
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> {
-                logger.error("Order not found: {}", orderId);
-                return new OrderProcessingException(orderId, "Order not found");
+        return processedOrders.execute(idempotencyKey, orderId, () -> processOrder(orderId, cardNumber));
+    }
+
+    private static boolean isNotAttempted(RuntimeException e) {
+        return e instanceof RateLimitExceededException || e instanceof ValidationException
+            || e instanceof OrderProcessingException
+                && ALREADY_BEING_PROCESSED.equals(((OrderProcessingException) e).getReason());
+    }
+
+    public Order processOrder(Long orderId, String cardNumber) {
+        AdmissionControl.Permit permit = admission.admit(ownerKey(orderId));
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return PROCESS_ORDER_METRICS.time(() -> {
+                logger.info("Processing order {}", orderId);
+
+                Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new OrderProcessingException(orderId, "Order not found"));
+
+                if (order.getItems().isEmpty()) {
+                    logger.error("Cannot process empty order {}", orderId);
+                    throw new OrderProcessingException(orderId, "Order has no items");
+                }
+
+                if (order.getStatus() != OrderStatus.PENDING) {
+                    logger.error("Order {} already processed (status: {})", orderId, order.getStatus());
+                    throw new OrderProcessingException(orderId, "Order already processed");
+                }
+
+                // Only one caller may run stock reservation and payment for an order
+                if (!order.tryClaimProcessing()) {
+                    logger.error("Order {} is already being processed", orderId);
+                    throw new OrderProcessingException(orderId, ALREADY_BEING_PROCESSED);
+                }
+                // A previous claimant may have confirmed or cancelled it since the check above
+                if (order.getStatus() != OrderStatus.PENDING) {
+                    order.releaseProcessingClaim();
+                    logger.error("Order {} already processed (status: {})", orderId, order.getStatus());
+                    throw new OrderProcessingException(orderId, "Order already processed");
+                }
+
+                List<OrderItem> reserved = new ArrayList<>();
+                try {
+                    // Reserve stock for all items
+                    logger.info("Reserving stock for order {}", orderId);
+                    for (OrderItem item : order.getItems()) {
+                        productService.reserveStock(item.getProductId(), item.getQuantity());
+                        reserved.add(item);
+                    }
+
+                    // Process payment
+                    logger.info("Processing payment for order {}: ${}", orderId, order.getTotalAmount());
+                    String transactionId = paymentService.processPayment(orderId, order.getTotalAmount(), cardNumber);
+                    order.setPaymentTransactionId(transactionId);
+
+                    // Update order status - fails if the order was cancelled while we worked
+                    if (!order.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.CONFIRMED)) {
+                        logger.error("Order {} changed to {} while processing - rolling back", orderId, order.getStatus());
+                        rollBack(order, reserved, transactionId);
+                        throw new OrderProcessingException(orderId, "Order was cancelled while processing");
+                    }
+                    orderRepository.save(order);
+                    trendingProducts.onOrderConfirmed(order);
+
+                    logger.info("Order {} processed successfully. Transaction: {}", orderId, transactionId);
+                    return order;
+
+                } catch (InsufficientStockException e) {
+                    logger.error("Stock reservation failed for order {}: {}", orderId, e.getMessage());
+                    rollBack(order, reserved, null);
+                    cancelAfterFailure(order);
+                    throw new OrderProcessingException(orderId, "Stock reservation failed", e);
+
+                } catch (PaymentFailedException e) {
+                    logger.error("Payment failed for order {}: {}", orderId, e.getMessage());
+                    rollBack(order, reserved, null);
+                    cancelAfterFailure(order);
+                    throw new OrderProcessingException(orderId, "Payment failed: " + e.getErrorCode(), e);
+                } finally {
+                    order.releaseProcessingClaim();
+                }
             });
-        
-        if (order.getStatus() != OrderStatus.PENDING) {
-            logger.error("Cannot modify order {} - status is {}", orderId, order.getStatus());
-            throw new OrderProcessingException(orderId, "Cannot modify non-pending order");
+        } finally {
+            scope.close();
+            permit.close();
         }
-        
-        Product product = productRepository.findById(productId)
-            .orElseThrow(() -> {
-                logger.error("Product not found: {}", productId);
-                return new IllegalArgumentException("Product not found: " + productId);
+    }
+
+    public void cancelOrder(Long orderId) {
+        AdmissionControl.Permit permit = admission.admit(ownerKey(orderId));
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            CANCEL_ORDER_METRICS.time(() -> {
+                logger.info("Cancelling order {}", orderId);
+
+                Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new OrderProcessingException(orderId, "Order not found"));
+
+                if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
+                    logger.error("Cannot cancel order {} - already shipped/delivered", orderId);
+                    throw new OrderProcessingException(orderId, "Cannot cancel shipped order");
+                }
+
+                // Atomic: a concurrent ship/cancel/refund makes this fail instead of double-handling
+                try {
+                    order.transitionTo(OrderStatus.CANCELLED);
+                } catch (IllegalStateException e) {
+                    logger.error("Cannot cancel order {} - status is {}", orderId, order.getStatus());
+                    throw new OrderProcessingException(orderId, "Cannot cancel order in status " + order.getStatus());
+                }
+                orderRepository.save(order);
+
+                logger.info("Order {} cancelled successfully", orderId);
             });
-        
-        // Check stock
-        if (product.getStockQuantity() < quantity) {
-            logger.warn("Insufficient stock for product {} in order {}", productId, orderId);
-            throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+        } finally {
+            scope.close();
+            permit.close();
         }
-        
-        OrderItem item = new OrderItem(productId, product.getName(), quantity, product.getPrice());
-        order.addItem(item);
-        
-        orderRepository.save(order);
-        logger.info("Item added to order {}: {} x {} = ${}", 
-            orderId, quantity, product.getName(), item.getSubtotal());
-        
-        return order;
     }
 
-    public Order processOrder(Long orderId, String cardNumber) {
-        logger.info("Processing order {}", orderId);
-        
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new OrderProcessingException(orderId, "Order not found"));
-        
-        if (order.getItems().isEmpty()) {
-            logger.error("Cannot process empty order {}", orderId);
-            throw new OrderProcessingException(orderId, "Order has no items");
+    /**
+     * Cancels every order created in {@code [from, to)} whose status is one of
+     * {@code statuses} and refunds the paid ones, e.g. after a warehouse incident.
+     * Uses {@value #BULK_PARALLELISM} workers and up to {@value #REFUND_ATTEMPTS} refund
+     * attempts per order.
+     *
+     * @see #cancelAndRefund(Set, LocalDateTime, LocalDateTime, int, int, Duration)
+     */
+    public BulkRefundReport cancelAndRefund(Set<OrderStatus> statuses, LocalDateTime from, LocalDateTime to) {
+        return cancelAndRefund(statuses, from, to, BULK_PARALLELISM, REFUND_ATTEMPTS, REFUND_BACKOFF);
+    }
+
+    /**
+     * Bulk form of {@link #cancelOrder} that also refunds. The orders are selected with a
+     * single range query and then handled by {@code parallelism} workers, each cancelling
+     * an order with the same atomic transition as {@code cancelOrder} and, if it was paid,
+     * refunding it. Refunds the gateway rejects ({@code REFUND_FAILED}) are retried with
+     * jittered exponential backoff starting at {@code initialBackoff}; an order whose
+     * refund never succeeds stays CANCELLED and is reported as such. Orders whose status
+     * changes concurrently are re-checked and skipped once outside {@code statuses}.
+     *
+     * Like {@code cancelOrder}, reserved stock is not released. Not subject to the
+     * admission limits: this is an operator action, not customer traffic.
+     *
+     * @throws ValidationException if {@code statuses} is empty or holds a status that
+     *         cannot be cancelled, or the limits are not positive
+     */
+    public BulkRefundReport cancelAndRefund(Set<OrderStatus> statuses, LocalDateTime from, LocalDateTime to,
+                                            int parallelism, int refundAttempts, Duration initialBackoff) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return CANCEL_AND_REFUND_METRICS.time(() -> {
+                long start = System.nanoTime();
+                if (statuses.isEmpty() || !CANCELLABLE.containsAll(statuses)) {
+                    throw new ValidationException("Only " + CANCELLABLE + " orders can be cancelled, got " + statuses);
+                }
+                if (parallelism < 1 || refundAttempts < 1 || initialBackoff.isNegative()) {
+                    throw new ValidationException("Parallelism and refund attempts must be positive");
+                }
+                Set<OrderStatus> selected = EnumSet.copyOf(statuses);
+                List<Order> orders = new ArrayList<>();
+                for (Order order : orderRepository.findByCreatedAtBetween(from, to)) {
+                    if (selected.contains(order.getStatus())) {
+                        orders.add(order);
+                    }
+                }
+                logger.info("Cancelling and refunding {} {} orders created between {} and {}",
+                    orders.size(), selected, from, to);
+
+                BulkRefundReport.Entry[] entries = new BulkRefundReport.Entry[orders.size()];
+                long backoffNanos = initialBackoff.toNanos();
+                if (!orders.isEmpty()) {
+                    ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, orders.size()), r -> {
+                        Thread t = new Thread(r, "bulk-refund-" + BULK_THREADS.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    try {
+                        List<Future<?>> pending = new ArrayList<>(orders.size());
+                        for (int i = 0; i < orders.size(); i++) {
+                            int index = i;
+                            // Workers log under the caller's correlation ID
+                            pending.add(workers.submit(RequestContext.wrap(() -> {
+                                entries[index] = cancelAndRefund(orders.get(index), selected, refundAttempts, backoffNanos);
+                            })));
+                        }
+                        for (Future<?> task : pending) {
+                            task.get();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while cancelling orders", e);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        throw new IllegalStateException(cause);
+                    } finally {
+                        workers.shutdownNow();
+                    }
+                }
+
+                BulkRefundReport report = new BulkRefundReport(entries, System.nanoTime() - start);
+                logger.info("Bulk cancellation finished: {}", report);
+                return report;
+            });
+        } finally {
+            scope.close();
         }
-        
-        if (order.getStatus() != OrderStatus.PENDING) {
-            logger.error("Order {} already processed (status: {})", orderId, order.getStatus());
-            throw new OrderProcessingException(orderId, "Order already processed");
+    }
+
+    public List<Order> getUserOrders(Long userId) {
+        AdmissionControl.Permit permit = admission.admit(userKey(userId));
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_USER_ORDERS_METRICS.time(() -> {
+                logger.debug("Getting orders for user {}", userId);
+                return orderRepository.findByUserId(userId);
+            });
+        } finally {
+            scope.close();
+            permit.close();
         }
-        
+    }
+
+    public Order getOrderById(Long orderId) {
+        AdmissionControl.Permit permit = admission.admit(ownerKey(orderId));
+        RequestContext.Scope scope = RequestContext.open();
         try {
-            // Reserve stock for all items
-            logger.info("Reserving stock for order {}", orderId);
-            for (OrderItem item : order.getItems()) {
-                productService.reserveStock(item.getProductId(), item.getQuantity());
-            }
-            
-            // Process payment
-            logger.info("Processing payment for order {}: ${}", orderId, order.getTotalAmount());
-            String transactionId = paymentService.processPayment(orderId, order.getTotalAmount(), cardNumber);
-            
-            // Update order status
-            order.setStatus(OrderStatus.CONFIRMED);
-            orderRepository.save(order);
-            
-            logger.info("Order {} processed successfully. Transaction: {}", orderId, transactionId);
-            return order;
-            
-        } catch (InsufficientStockException e) {
-            logger.error("Stock reservation failed for order {}: {}", orderId, e.getMessage());
-            order.setStatus(OrderStatus.CANCELLED);
-            orderRepository.save(order);
-            throw new OrderProcessingException(orderId, "Stock reservation failed", e);
-            
-        } catch (PaymentFailedException e) {
-            logger.error("Payment failed for order {}: {}", orderId, e.getMessage());
-            order.setStatus(OrderStatus.CANCELLED);
-            orderRepository.save(order);
-            throw new OrderProcessingException(orderId, "Payment failed: " + e.getErrorCode(), e);
+            return GET_ORDER_BY_ID_METRICS.time(() -> {
+                return orderRepository.findById(orderId)
+                    .orElseThrow(() -> new OrderProcessingException(orderId, "Order not found"));
+            });
+        } finally {
+            scope.close();
+            permit.close();
         }
     }
 
-    public void cancelOrder(Long orderId) {
-        logger.info("Cancelling order {}", orderId);
-        
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new OrderProcessingException(orderId, "Order not found"));
-        
-        if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
-            logger.error("Cannot cancel order {} - already shipped/delivered", orderId);
-            throw new OrderProcessingException(orderId, "Cannot cancel shipped order");
+    /**
+     * Live best-seller and add-to-cart rankings fed by this service.
+     */
+    public TrendingProducts getTrendingProducts() {
+        return trendingProducts;
+    }
+
+    private static long userKey(Long userId) {
+        return userId != null ? userId : 0;
+    }
+
+    /**
+     * Order-scoped calls share the owning user's bucket, so spreading requests over many
+     * orders does not multiply a user's allowance. The owner comes from the repository's
+     * in-memory index; orders it does not know (missing or archived, which none of these
+     * calls can change) are limited per order, complemented so they never share a bucket
+     * with the user of the same ID.
+     */
+    private long ownerKey(Long orderId) {
+        if (orderId == null) {
+            return 0;
         }
-        
-        order.setStatus(OrderStatus.CANCELLED);
+        Optional<Long> userId = orderRepository.findUserId(orderId);
+        return userId.isPresent() ? userKey(userId.get()) : ~orderId;
+    }
+
+    private BulkRefundReport.Entry cancelAndRefund(Order order, Set<OrderStatus> selected,
+                                                   int refundAttempts, long backoffNanos) {
+        long orderId = order.getId();
+        OrderStatus previous;
+        do {
+            previous = order.getStatus();
+            if (!selected.contains(previous)) {
+                logger.info("Skipping order {} - status changed to {}", orderId, previous);
+                return new BulkRefundReport.Entry(orderId, previous, BulkRefundReport.Outcome.SKIPPED, 0, null);
+            }
+        } while (!order.compareAndSetStatus(previous, OrderStatus.CANCELLED));
         orderRepository.save(order);
-        
-        logger.info("Order {} cancelled successfully", orderId);
+
+        // A PENDING order being processed right now is refunded by processOrder's rollback
+        String transactionId = order.getPaymentTransactionId();
+        if (previous == OrderStatus.PENDING || transactionId == null) {
+            return new BulkRefundReport.Entry(orderId, previous, BulkRefundReport.Outcome.CANCELLED, 0, null);
+        }
+        for (int attempt = 1; ; attempt++) {
+            String errorCode;
+            try {
+                paymentService.refundPayment(transactionId, order.getTotalAmount());
+                if (order.compareAndSetStatus(OrderStatus.CANCELLED, OrderStatus.REFUNDED)) {
+                    orderRepository.save(order);
+                }
+                return new BulkRefundReport.Entry(orderId, previous, BulkRefundReport.Outcome.REFUNDED, attempt, null);
+            } catch (PaymentFailedException e) {
+                errorCode = e.getErrorCode();
+            } catch (RuntimeException e) {
+                // One broken refund must not abort the other orders; report it instead
+                logger.error("Refund of order {} failed unexpectedly", orderId, e);
+                errorCode = e.getClass().getSimpleName();
+            }
+            if (!"REFUND_FAILED".equals(errorCode) || attempt == refundAttempts || !backOff(attempt, backoffNanos)) {
+                logger.error("Giving up refunding order {} after {} attempts: {}", orderId, attempt, errorCode);
+                return new BulkRefundReport.Entry(orderId, previous, BulkRefundReport.Outcome.REFUND_FAILED,
+                    attempt, errorCode);
+            }
+        }
     }
 
-    public List<Order> getUserOrders(Long userId) {
-        logger.debug("Getting orders for user {}", userId);
-        return orderRepository.findByUserId(userId);
+    /**
+     * Sleeps before retry {@code attempt + 1}: a random time between half and all of
+     * {@code backoffNanos * 2^(attempt-1)}, capped, so a gateway that failed many refunds
+     * at once is not hit by all their retries together. Returns {@code false} if interrupted.
+     */
+    private static boolean backOff(int attempt, long backoffNanos) {
+        long delay = Math.min(backoffNanos << Math.min(attempt - 1, 20), MAX_REFUND_BACKOFF_NANOS);
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
-    public Order getOrderById(Long orderId) {
-        return orderRepository.findById(orderId)
-            .orElseThrow(() -> new OrderProcessingException(orderId, "Order not found"));
+    private void cancelAfterFailure(Order order) {
+        // Lost races are fine here: someone else already moved the order on
+        if (order.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.CANCELLED)) {
+            orderRepository.save(order);
+        }
     }
-}
 
+    private void rollBack(Order order, List<OrderItem> reserved, String transactionId) {
+        for (OrderItem item : reserved) {
+            try {
+                productService.releaseStock(item.getProductId(), item.getQuantity());
+            } catch (RuntimeException e) {
+                logger.error("Failed to release {} x product {} for order {}",
+                    item.getQuantity(), item.getProductId(), order.getId(), e);
+            }
+        }
+        if (transactionId != null) {
+            try {
+                paymentService.refundPayment(transactionId, order.getTotalAmount());
+            } catch (RuntimeException e) {
+                logger.error("Failed to refund transaction {} for order {}", transactionId, order.getId(), e);
+            }
+        }
+    }
+}
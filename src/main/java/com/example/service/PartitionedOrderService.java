@@ -0,0 +1,483 @@
+package com.example.service;
+
+import com.example.exception.InsufficientStockException;
+import com.example.exception.OrderProcessingException;
+import com.example.exception.PaymentFailedException;
+import com.example.exception.ValidationException;
+import com.example.logging.RequestContext;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.util.LongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Order processing with one owner thread per partition instead of shared maps.
+ *
+ * Users are hashed to a fixed set of partitions. Each partition's thread is the only one
+ * that touches its slice of the orders, kept in plain maps and fed by a lock-free command
+ * queue, so creating, modifying, cancelling and reading orders need no locks or CAS
+ * retries on shared structures. Order IDs are allocated per partition as
+ * {@code sequence * partitions + index}, so the owner of an order is known from its ID
+ * alone and a user's orders all live in one partition.
+ *
+ * Only stock reservation crosses partitions: {@link #processOrder} claims the order on
+ * its partition, reserves stock through the shared {@link ProductService} and charges the
+ * card on the caller's thread, so a slow gateway never stalls a partition, and then
+ * confirms the order back on the partition. Product lookups in {@link #addItemToOrder}
+ * also run on the caller's thread.
+ *
+ * Every change is also written through to an {@link OrderRepository} by the partition
+ * that made it, so its change stream (and replication fed by it), sales aggregates and
+ * archiving see these orders as they would orders handled by {@link OrderService}. Reads
+ * are served from the partitions. The repository must start empty and get its orders only
+ * from this service, since order IDs are allocated by the partitions. Callers block until
+ * their command has run; failures are thrown as by {@link OrderService}.
+ */
+public class PartitionedOrderService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedOrderService.class);
+    private static final OperationMetrics CREATE_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(PartitionedOrderService.class, "createOrder");
+    private static final OperationMetrics ADD_ITEM_TO_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(PartitionedOrderService.class, "addItemToOrder");
+    private static final OperationMetrics PROCESS_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(PartitionedOrderService.class, "processOrder");
+    private static final OperationMetrics CANCEL_ORDER_METRICS =
+        MetricsRegistry.getDefault().operation(PartitionedOrderService.class, "cancelOrder");
+    private static final OperationMetrics GET_USER_ORDERS_METRICS =
+        MetricsRegistry.getDefault().operation(PartitionedOrderService.class, "getUserOrders");
+    private static final OperationMetrics GET_ORDER_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(PartitionedOrderService.class, "getOrderById");
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final PaymentService paymentService;
+    private final Partition[] partitions;
+
+    /**
+     * @throws IllegalArgumentException if {@code orderRepository} already holds orders
+     */
+    public PartitionedOrderService(OrderRepository orderRepository, ProductRepository productRepository,
+                                   ProductService productService, PaymentService paymentService, int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive");
+        }
+        if (orderRepository.count() > 0) {
+            throw new IllegalArgumentException("Order repository must start empty; partitions allocate order IDs");
+        }
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.paymentService = paymentService;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, partitionCount, orderRepository);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+        logger.info("Partitioned order service started with {} partitions", partitionCount);
+    }
+
+    public Order createOrder(Long userId, String shippingAddress) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return CREATE_ORDER_METRICS.time(() -> {
+                logger.info("Creating new order for user {}", userId);
+                if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
+                    logger.error("Invalid shipping address for user {}", userId);
+                    throw new ValidationException("Shipping address is required");
+                }
+                Order order = call(partitionForUser(userId), partition -> partition.create(userId, shippingAddress));
+                logger.info("Order created: {} for user {}", order.getId(), userId);
+                return order;
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    public Order addItemToOrder(Long orderId, Long productId, int quantity) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return ADD_ITEM_TO_ORDER_METRICS.time(() -> {
+                logger.info("Adding {} x product {} to order {}", quantity, productId, orderId);
+                if (quantity <= 0) {
+                    logger.error("Invalid quantity {} for order {}", quantity, orderId);
+                    throw new ValidationException("Quantity must be positive");
+                }
+                // The catalog is shared; read it here rather than on the partition thread
+                Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> {
+                        logger.error("Product not found: {}", productId);
+                        return new IllegalArgumentException("Product not found: " + productId);
+                    });
+                if (product.getStockQuantity() < quantity) {
+                    logger.warn("Insufficient stock for product {} in order {}", productId, orderId);
+                    throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+                }
+                OrderItem item = new OrderItem(productId, product.getName(), quantity, product.getPrice());
+                return call(partitionForOrder(orderId), partition -> partition.addItem(orderId, item));
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    public Order processOrder(Long orderId, String cardNumber) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return PROCESS_ORDER_METRICS.time(() -> {
+                logger.info("Processing order {}", orderId);
+                Partition owner = partitionForOrder(orderId);
+                Order order = call(owner, partition -> partition.claim(orderId));
+
+                List<OrderItem> reserved = new ArrayList<>();
+                String transactionId = null;
+                try {
+                    for (OrderItem item : order.getItems()) {
+                        productService.reserveStock(item.getProductId(), item.getQuantity());
+                        reserved.add(item);
+                    }
+                    transactionId = paymentService.processPayment(orderId, order.getTotalAmount(), cardNumber);
+                } catch (InsufficientStockException | PaymentFailedException e) {
+                    logger.error("Processing failed for order {}: {}", orderId, e.getMessage());
+                    rollBack(order, reserved, null);
+                    call(owner, partition -> partition.fail(order));
+                    throw e instanceof PaymentFailedException
+                        ? new OrderProcessingException(orderId, "Payment failed: " + ((PaymentFailedException) e).getErrorCode(), e)
+                        : new OrderProcessingException(orderId, "Stock reservation failed", e);
+                } catch (RuntimeException | Error e) {
+                    rollBack(order, reserved, null);
+                    call(owner, partition -> partition.fail(order));
+                    throw e;
+                }
+
+                String paid = transactionId;
+                if (!call(owner, partition -> partition.confirm(order, paid))) {
+                    logger.error("Order {} changed to {} while processing - rolling back", orderId, order.getStatus());
+                    rollBack(order, reserved, paid);
+                    throw new OrderProcessingException(orderId, "Order was cancelled while processing");
+                }
+                logger.info("Order {} processed successfully. Transaction: {}", orderId, paid);
+                return order;
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    public void cancelOrder(Long orderId) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            CANCEL_ORDER_METRICS.time(() -> {
+                logger.info("Cancelling order {}", orderId);
+                call(partitionForOrder(orderId), partition -> partition.cancel(orderId));
+                logger.info("Order {} cancelled successfully", orderId);
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    public List<Order> getUserOrders(Long userId) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_USER_ORDERS_METRICS.time(() -> {
+                logger.debug("Getting orders for user {}", userId);
+                return call(partitionForUser(userId), partition -> partition.userOrders(userId));
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    public Order getOrderById(Long orderId) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_ORDER_BY_ID_METRICS.time(() -> call(partitionForOrder(orderId), partition -> partition.find(orderId)));
+        } finally {
+            scope.close();
+        }
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Stops the partition threads once their queues are drained. Later calls fail with
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.running = false;
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.info("Partitioned order service stopped");
+    }
+
+    private Partition partitionForUser(Long userId) {
+        // Fibonacci hashing spreads sequential IDs evenly across partitions
+        long mixed = (userId != null ? userId : 0) * 0x9E3779B97F4A7C15L;
+        return partitions[(int) Math.floorMod(mixed >>> 32, (long) partitions.length)];
+    }
+
+    private Partition partitionForOrder(Long orderId) {
+        if (orderId == null) {
+            throw new OrderProcessingException(null, "Order not found");
+        }
+        return partitions[(int) Math.floorMod(orderId, (long) partitions.length)];
+    }
+
+    /**
+     * Runs {@code action} on the partition's thread, under the caller's correlation ID,
+     * and waits for its result.
+     */
+    private static <T> T call(Partition partition, Function<Partition, T> action) {
+        Command<T> command = new Command<>(action);
+        partition.submit(command);
+        try {
+            return command.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void rollBack(Order order, List<OrderItem> reserved, String transactionId) {
+        for (OrderItem item : reserved) {
+            try {
+                productService.releaseStock(item.getProductId(), item.getQuantity());
+            } catch (RuntimeException e) {
+                logger.error("Failed to release {} x product {} for order {}",
+                    item.getQuantity(), item.getProductId(), order.getId(), e);
+            }
+        }
+        if (transactionId != null) {
+            try {
+                paymentService.refundPayment(transactionId, order.getTotalAmount());
+            } catch (RuntimeException e) {
+                logger.error("Failed to refund transaction {} for order {}", transactionId, order.getId(), e);
+            }
+        }
+    }
+
+    private static final class Command<T> {
+        final Function<Partition, T> action;
+        final String correlationId = RequestContext.currentId();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Command(Function<Partition, T> action) {
+            this.action = action;
+        }
+
+        void run(Partition partition) {
+            RequestContext.Scope scope = RequestContext.open(correlationId);
+            try {
+                result.complete(action.apply(partition));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            } finally {
+                scope.close();
+            }
+        }
+    }
+
+    private static final class Partition implements Runnable {
+        private final int index;
+        private final int stride;
+        private final OrderRepository repository;
+        private final Queue<Command<?>> queue = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean parked;
+
+        // Owned by the partition thread only
+        private final LongHashMap<Order> orders = new LongHashMap<>();
+        private final LongHashMap<List<Order>> ordersByUser = new LongHashMap<>();
+        // Orders whose stock and payment are being handled off the partition
+        private final LongHashMap<Order> processing = new LongHashMap<>();
+        private long nextSequence = 1;
+
+        Partition(int index, int stride, OrderRepository repository) {
+            this.index = index;
+            this.stride = stride;
+            this.repository = repository;
+            this.thread = new Thread(this, "order-partition-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void submit(Command<?> command) {
+            if (!running) {
+                rejectClosed(command);
+                return;
+            }
+            queue.offer(command);
+            // close() may have stopped the thread after the check above; unless the thread
+            // already took the command, nobody else will ever run it
+            if (!running && queue.remove(command)) {
+                rejectClosed(command);
+                return;
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void rejectClosed(Command<?> command) {
+            command.result.completeExceptionally(new IllegalStateException("Partitioned order service is closed"));
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Command<?> command = queue.poll();
+                if (command == null) {
+                    parked = true;
+                    // Re-check after publishing the flag so a concurrent submit is never missed
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                command.run(this);
+            }
+        }
+
+        Order create(Long userId, String shippingAddress) {
+            Order order = new Order();
+            order.setId(nextSequence++ * stride + index);
+            order.setUserId(userId);
+            order.setShippingAddress(shippingAddress);
+            orders.put(order.getId(), order);
+            long userKey = userId != null ? userId : 0;
+            List<Order> userOrders = ordersByUser.get(userKey);
+            if (userOrders == null) {
+                userOrders = new ArrayList<>();
+                ordersByUser.put(userKey, userOrders);
+            }
+            userOrders.add(order);
+            repository.save(order);
+            return order;
+        }
+
+        Order addItem(Long orderId, OrderItem item) {
+            Order order = find(orderId);
+            if (order.getStatus() != OrderStatus.PENDING) {
+                logger.error("Cannot modify order {} - status is {}", orderId, order.getStatus());
+                throw new OrderProcessingException(orderId, "Cannot modify non-pending order");
+            }
+            if (processing.containsKey(orderId)) {
+                // Its items and total are being charged right now
+                logger.error("Cannot modify order {} - it is being processed", orderId);
+                throw new OrderProcessingException(orderId, "Cannot modify order while it is being processed");
+            }
+            order.addItem(item);
+            repository.save(order);
+            return order;
+        }
+
+        /**
+         * Checks the order can be processed and claims it; stock and payment are then
+         * handled off the partition.
+         */
+        Order claim(Long orderId) {
+            Order order = find(orderId);
+            if (order.getItems().isEmpty()) {
+                logger.error("Cannot process empty order {}", orderId);
+                throw new OrderProcessingException(orderId, "Order has no items");
+            }
+            if (order.getStatus() != OrderStatus.PENDING) {
+                logger.error("Order {} already processed (status: {})", orderId, order.getStatus());
+                throw new OrderProcessingException(orderId, "Order already processed");
+            }
+            if (processing.putIfAbsent(orderId, order) != null) {
+                logger.error("Order {} is already being processed", orderId);
+                throw new OrderProcessingException(orderId, "Order is already being processed");
+            }
+            return order;
+        }
+
+        boolean confirm(Order order, String transactionId) {
+            processing.remove(order.getId());
+            // Only fails if the order was cancelled meanwhile
+            if (!order.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.CONFIRMED)) {
+                return false;
+            }
+            order.setPaymentTransactionId(transactionId);
+            repository.save(order);
+            return true;
+        }
+
+        Void fail(Order order) {
+            processing.remove(order.getId());
+            if (order.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.CANCELLED)) {
+                repository.save(order);
+            }
+            return null;
+        }
+
+        Void cancel(Long orderId) {
+            Order order = find(orderId);
+            if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
+                logger.error("Cannot cancel order {} - already shipped/delivered", orderId);
+                throw new OrderProcessingException(orderId, "Cannot cancel shipped order");
+            }
+            try {
+                order.transitionTo(OrderStatus.CANCELLED);
+            } catch (IllegalStateException e) {
+                logger.error("Cannot cancel order {} - status is {}", orderId, order.getStatus());
+                throw new OrderProcessingException(orderId, "Cannot cancel order in status " + order.getStatus());
+            }
+            repository.save(order);
+            return null;
+        }
+
+        List<Order> userOrders(Long userId) {
+            List<Order> userOrders = ordersByUser.get(userId != null ? userId : 0);
+            return userOrders == null ? new ArrayList<>() : new ArrayList<>(userOrders);
+        }
+
+        Order find(Long orderId) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                logger.error("Order not found: {}", orderId);
+                throw new OrderProcessingException(orderId, "Order not found");
+            }
+            return order;
+        }
+    }
+}
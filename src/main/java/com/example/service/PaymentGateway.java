@@ -0,0 +1,24 @@
+package com.example.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Remote payment gateway used by {@link PaymentService}.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Opens a connection to the gateway; throws if it cannot be reached.
+     */
+    void connect() throws Exception;
+
+    /**
+     * Authorizes a charge. Returns a decline error code, or {@code null} if approved.
+     */
+    String authorize(String transactionId, BigDecimal amount);
+
+    /**
+     * Refunds a previous charge. Returns {@code false} if the gateway rejected the refund.
+     */
+    boolean refund(String transactionId, BigDecimal amount);
+}
@@ -1,89 +1,112 @@
 package com.example.service;
 
 import com.example.exception.PaymentFailedException;
+import com.example.idempotency.IdempotencyStore;
+import com.example.logging.RequestContext;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
-import java.net.Socket;
-import java.util.Random;
+import java.time.Duration;
 import java.util.UUID;
 
 /**
  * Service for payment processing.
- * Simulates integration with external payment gateway.
+ * Delegates to a {@link PaymentGateway}; the default one simulates an external gateway.
  */
 public class PaymentService {
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
-    private static final String PAYMENT_GATEWAY_HOST = "payment-gateway.example.com";
-    private static final int PAYMENT_GATEWAY_PORT = 443;
+    private static final OperationMetrics PROCESS_PAYMENT_METRICS =
+        MetricsRegistry.getDefault().operation(PaymentService.class, "processPayment");
+    private static final OperationMetrics REFUND_PAYMENT_METRICS =
+        MetricsRegistry.getDefault().operation(PaymentService.class, "refundPayment");
+    private static final Duration IDEMPOTENCY_TTL = Duration.ofHours(24);
+    private static final int IDEMPOTENCY_CAPACITY = 100_000;
     
-    private final Random random = new Random();
+    private final PaymentGateway gateway;
+    // A gateway that could not be reached charged nothing, so that failure is not replayed
+    private final IdempotencyStore<String> payments = new IdempotencyStore<>(IDEMPOTENCY_TTL, IDEMPOTENCY_CAPACITY,
+        e -> e instanceof PaymentFailedException
+            && "GATEWAY_UNAVAILABLE".equals(((PaymentFailedException) e).getErrorCode()));
 
-    public String processPayment(Long orderId, BigDecimal amount, String cardNumber) {
-        String transactionId = UUID.randomUUID().toString().substring(0, 8);
-        
-        logger.info("Processing payment for order {}: ${} (txn: {})", orderId, amount, transactionId);
-        
-        // Validate card number
-        if (!isValidCardNumber(cardNumber)) {
-            logger.error("Invalid card number format for order {}", orderId);
-            throw new PaymentFailedException(transactionId, amount, "INVALID_CARD_FORMAT");
-        }
-        
-        // Simulate connecting to payment gateway
-        try {
-            connectToPaymentGateway();
-        } catch (Exception e) {
-            logger.error("Failed to connect to payment gateway: {}", e.getMessage());
-            throw new PaymentFailedException(transactionId, amount, "GATEWAY_UNAVAILABLE", e);
-        }
-        
-        // Simulate payment processing with random failures
-        if (random.nextInt(100) < 15) { // 15% failure rate
-            String errorCode = getRandomErrorCode();
-            logger.error("Payment declined for order {}: {}", orderId, errorCode);
-            throw new PaymentFailedException(transactionId, amount, errorCode);
+    public PaymentService() {
+        this(new SimulatedPaymentGateway());
+    }
+
+    public PaymentService(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    /**
+     * {@link #processPayment(Long, BigDecimal, String)} that is safe to retry: a repeated
+     * key returns the first call's transaction ID, or rethrows its failure, without
+     * contacting the gateway again; only a failure to reach the gateway is not recorded,
+     * so it can be retried with the same key. A {@code null} key disables deduplication.
+     *
+     * @throws com.example.exception.ValidationException if the key was already used for a
+     *         different order or amount
+     */
+    public String processPayment(Long orderId, BigDecimal amount, String cardNumber, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return processPayment(orderId, amount, cardNumber);
         }
-        
-        // Simulate processing time
+        String fingerprint = orderId + ":" + (amount == null ? null : amount.stripTrailingZeros().toPlainString());
+        return payments.execute(idempotencyKey, fingerprint, () -> processPayment(orderId, amount, cardNumber));
+    }
+
+    public String processPayment(Long orderId, BigDecimal amount, String cardNumber) {
+        RequestContext.Scope scope = RequestContext.open();
         try {
-            Thread.sleep(500 + random.nextInt(1000));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            return PROCESS_PAYMENT_METRICS.time(() -> {
+                String transactionId = UUID.randomUUID().toString().substring(0, 8);
+
+                logger.info("Processing payment for order {}: ${} (txn: {})", orderId, amount, transactionId);
+
+                // Validate card number
+                if (!isValidCardNumber(cardNumber)) {
+                    logger.error("Invalid card number format for order {}", orderId);
+                    throw new PaymentFailedException(transactionId, amount, "INVALID_CARD_FORMAT");
+                }
+
+                // Connect to payment gateway
+                try {
+                    gateway.connect();
+                } catch (Exception e) {
+                    logger.error("Failed to connect to payment gateway: {}", e.getMessage());
+                    throw new PaymentFailedException(transactionId, amount, "GATEWAY_UNAVAILABLE", e);
+                }
+
+                String errorCode = gateway.authorize(transactionId, amount);
+                if (errorCode != null) {
+                    logger.error("Payment declined for order {}: {}", orderId, errorCode);
+                    throw new PaymentFailedException(transactionId, amount, errorCode);
+                }
+
+                logger.info("Payment successful for order {}: txn={}", orderId, transactionId);
+                return transactionId;
+            });
+        } finally {
+            scope.close();
         }
-        
-        logger.info("Payment successful for order {}: txn={}", orderId, transactionId);
-        return transactionId;
     }
 
     public void refundPayment(String transactionId, BigDecimal amount) {
-        logger.info("Processing refund for transaction {}: ${}", transactionId, amount);
-        
-        // Simulate refund processing
+        RequestContext.Scope scope = RequestContext.open();
         try {
-            Thread.sleep(200);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        if (random.nextInt(100) < 5) { // 5% failure rate
-            logger.error("Refund failed for transaction {}", transactionId);
-            throw new PaymentFailedException(transactionId, amount, "REFUND_FAILED");
-        }
-        
-        logger.info("Refund processed successfully for transaction {}", transactionId);
-    }
+            REFUND_PAYMENT_METRICS.time(() -> {
+                logger.info("Processing refund for transaction {}: ${}", transactionId, amount);
+
+                if (!gateway.refund(transactionId, amount)) {
+                    logger.error("Refund failed for transaction {}", transactionId);
+                    throw new PaymentFailedException(transactionId, amount, "REFUND_FAILED");
+                }
 
-    private void connectToPaymentGateway() throws Exception {
-        logger.debug("Connecting to payment gateway: {}:{}", PAYMENT_GATEWAY_HOST, PAYMENT_GATEWAY_PORT);
-        
-        // This will fail - simulating network error
-        try (Socket socket = new Socket(PAYMENT_GATEWAY_HOST, PAYMENT_GATEWAY_PORT)) {
-            // Would send payment request here
-        } catch (Exception e) {
-            // Rethrow to simulate gateway connection failure
-            throw new RuntimeException("Connection timed out: " + PAYMENT_GATEWAY_HOST + ":" + PAYMENT_GATEWAY_PORT, e);
+                logger.info("Refund processed successfully for transaction {}", transactionId);
+            });
+        } finally {
+            scope.close();
         }
     }
 
@@ -92,16 +115,4 @@ public class PaymentService {
         String cleaned = cardNumber.replaceAll("\\s+", "").replaceAll("-", "");
         return cleaned.matches("\\d{16}");
     }
-
-    private String getRandomErrorCode() {
-        String[] errorCodes = {
-            "INSUFFICIENT_FUNDS",
-            "CARD_EXPIRED", 
-            "CARD_DECLINED",
-            "CVV_MISMATCH",
-            "FRAUD_SUSPECTED"
-        };
-        return errorCodes[random.nextInt(errorCodes.length)];
-    }
 }
-
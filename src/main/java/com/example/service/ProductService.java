@@ -3,82 +3,270 @@ package com.example.service;
 import com.example.model.Product;
 import com.example.repository.ProductRepository;
 import com.example.exception.InsufficientStockException;
+import com.example.inventory.InventoryEngine;
+import com.example.inventory.StockLevelEvent;
+import com.example.inventory.StockLevelMonitor;
+import com.example.logging.RequestContext;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for product catalog operations.
+ *
+ * {@link #start()} logs low-stock and out-of-stock alerts raised by the repository's
+ * stock monitor until {@link #close()}; a service that is never started registers
+ * nothing with the shared monitor.
  */
-public class ProductService {
+public class ProductService implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+    private static final OperationMetrics GET_ALL_PRODUCTS_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "getAllProducts");
+    private static final OperationMetrics GET_AVAILABLE_PRODUCTS_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "getAvailableProducts");
+    private static final OperationMetrics GET_PRODUCT_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "getProductById");
+    private static final OperationMetrics SEARCH_PRODUCTS_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "searchProducts");
+    private static final OperationMetrics SUGGEST_PRODUCTS_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "suggestProducts");
+    private static final OperationMetrics RESERVE_STOCK_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "reserveStock");
+    private static final OperationMetrics RELEASE_STOCK_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "releaseStock");
+    private static final OperationMetrics CHECK_LOW_STOCK_METRICS =
+        MetricsRegistry.getDefault().operation(ProductService.class, "checkLowStock");
     
     private final ProductRepository productRepository;
+    private final InventoryEngine inventoryEngine;
+    private StockLevelMonitor.Registration alerts;
 
     public ProductService(ProductRepository productRepository) {
+        this(productRepository, null);
+    }
+
+    /**
+     * @param inventoryEngine when non-null, stock reservations are routed through its
+     *                        single-writer shards instead of locking in the repository
+     */
+    public ProductService(ProductRepository productRepository, InventoryEngine inventoryEngine) {
         this.productRepository = productRepository;
+        this.inventoryEngine = inventoryEngine;
+    }
+
+    /**
+     * Starts logging stock alerts; does nothing if already started.
+     */
+    public synchronized void start() {
+        if (alerts == null) {
+            // Alerts are raised by the stock-mutation path, not by scanning the catalog
+            alerts = productRepository.getStockMonitor().addListener(this::onStockLevelEvent);
+        }
+    }
+
+    /**
+     * Stops logging stock alerts.
+     */
+    @Override
+    public synchronized void close() {
+        if (alerts != null) {
+            alerts.close();
+            alerts = null;
+        }
     }
 
     public List<Product> getAllProducts() {
-        logger.debug("Getting all products");
-        return productRepository.findAll();
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_ALL_PRODUCTS_METRICS.time(() -> {
+                logger.debug("Getting all products");
+                return productRepository.findAll();
+            });
+        } finally {
+            scope.close();
+        }
     }
 
     public List<Product> getAvailableProducts() {
-        logger.debug("Getting available products");
-        return productRepository.findInStock();
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_AVAILABLE_PRODUCTS_METRICS.time(() -> {
+                logger.debug("Getting available products");
+                return productRepository.findInStock();
+            });
+        } finally {
+            scope.close();
+        }
     }
 
     public Optional<Product> getProductById(Long id) {
-        logger.debug("Getting product by ID: {}", id);
-        return productRepository.findById(id);
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_PRODUCT_BY_ID_METRICS.time(() -> {
+                logger.debug("Getting product by ID: {}", id);
+                return productRepository.findById(id);
+            });
+        } finally {
+            scope.close();
+        }
     }
 
-    public void reserveStock(Long productId, int quantity) {
-        logger.info("Reserving {} units of product {}", quantity, productId);
-        
-        Product product = productRepository.findById(productId)
-            .orElseThrow(() -> {
-                logger.error("Product not found: {}", productId);
-                return new IllegalArgumentException("Product not found: " + productId);
+    /**
+     * Keyword search over name, category and description; only active, in-stock products.
+     */
+    public List<Product> searchProducts(String query, int limit) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return SEARCH_PRODUCTS_METRICS.time(() -> {
+                logger.debug("Searching products for '{}'", query);
+                return productRepository.search(query, limit);
             });
-        
-        if (!product.isInStock()) {
-            logger.error("Product {} is out of stock", productId);
-            throw new InsufficientStockException(productId, quantity, 0);
+        } finally {
+            scope.close();
         }
-        
-        if (product.getStockQuantity() < quantity) {
-            logger.error("Insufficient stock for product {}: requested {}, available {}", 
-                productId, quantity, product.getStockQuantity());
-            throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+    }
+
+    /**
+     * Type-ahead suggestions for a partially typed query.
+     */
+    public List<Product> suggestProducts(String partialQuery, int limit) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return SUGGEST_PRODUCTS_METRICS.time(() -> {
+                logger.debug("Suggesting products for '{}'", partialQuery);
+                return productRepository.complete(partialQuery, limit);
+            });
+        } finally {
+            scope.close();
         }
-        
-        boolean success = productRepository.decreaseStock(productId, quantity);
-        if (!success) {
-            throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+    }
+
+    public void reserveStock(Long productId, int quantity) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            RESERVE_STOCK_METRICS.time(() -> {
+                logger.info("Reserving {} units of product {}", quantity, productId);
+
+                if (inventoryEngine != null) {
+                    reserveThroughEngine(productId, quantity);
+                    logger.info("Stock reserved successfully for product {}", productId);
+                    return;
+                }
+
+                Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> {
+                        logger.error("Product not found: {}", productId);
+                        return new IllegalArgumentException("Product not found: " + productId);
+                    });
+
+                if (!product.isInStock()) {
+                    logger.error("Product {} is out of stock", productId);
+                    throw new InsufficientStockException(productId, quantity, 0);
+                }
+
+                if (product.getStockQuantity() < quantity) {
+                    logger.error("Insufficient stock for product {}: requested {}, available {}", 
+                        productId, quantity, product.getStockQuantity());
+                    throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+                }
+
+                boolean success = productRepository.decreaseStock(productId, quantity);
+                if (!success) {
+                    throw new InsufficientStockException(productId, quantity, product.getStockQuantity());
+                }
+
+                logger.info("Stock reserved successfully for product {}", productId);
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Returns previously reserved units to stock (e.g. when an order is rolled back).
+     */
+    public void releaseStock(Long productId, int quantity) {
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            RELEASE_STOCK_METRICS.time(() -> {
+                logger.info("Releasing {} units of product {}", quantity, productId);
+
+                boolean released;
+                if (inventoryEngine != null) {
+                    released = inventoryEngine.release(productId, quantity).join().isReserved();
+                } else {
+                    released = productRepository.increaseStock(productId, quantity);
+                }
+
+                if (!released) {
+                    logger.error("Product not found: {}", productId);
+                    throw new IllegalArgumentException("Product not found: " + productId);
+                }
+            });
+        } finally {
+            scope.close();
         }
-        
-        logger.info("Stock reserved successfully for product {}", productId);
     }
 
     public void checkLowStock() {
-        logger.info("Checking for low stock products...");
-        
-        List<Product> allProducts = productRepository.findAll();
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            CHECK_LOW_STOCK_METRICS.time(() -> {
+                logger.info("Checking for low stock products...");
+
+                Collection<Product> lowStock = productRepository.getStockMonitor().getLowStockProducts();
+                logger.info("{} products at or below their low-stock threshold: {}", lowStock.size(), lowStock);
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    private void reserveThroughEngine(Long productId, int quantity) {
+        InventoryEngine.Reservation reservation;
+        try {
+            reservation = inventoryEngine.reserve(productId, quantity).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
         
-        for (Product product : allProducts) {
-            if (product.getStockQuantity() <= 10) {
+        switch (reservation.getStatus()) {
+            case RESERVED:
+                return;
+            case NOT_FOUND:
+                logger.error("Product not found: {}", productId);
+                throw new IllegalArgumentException("Product not found: " + productId);
+            default:
+                if (reservation.getAvailable() == 0) {
+                    logger.error("Product {} is out of stock", productId);
+                } else {
+                    logger.error("Insufficient stock for product {}: requested {}, available {}", 
+                        productId, quantity, reservation.getAvailable());
+                }
+                throw new InsufficientStockException(productId, quantity, reservation.getAvailable());
+        }
+    }
+
+    private void onStockLevelEvent(StockLevelEvent event) {
+        switch (event.getType()) {
+            case LOW_STOCK:
                 logger.warn("Low stock alert: {} has only {} units left", 
-                    product.getName(), product.getStockQuantity());
-            }
-            
-            if (product.getStockQuantity() == 0) {
-                logger.error("OUT OF STOCK: {} (ID: {})", product.getName(), product.getId());
-            }
+                    event.getProductName(), event.getCurrentQuantity());
+                break;
+            case OUT_OF_STOCK:
+                logger.error("OUT OF STOCK: {} (ID: {})", event.getProductName(), event.getProductId());
+                break;
+            default:
+                break;
         }
     }
 }
-
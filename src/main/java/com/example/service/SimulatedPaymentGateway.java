@@ -0,0 +1,71 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * Default gateway: connects to an unreachable host and simulates random declines and
+ * slow authorizations, so the sample app produces realistic payment errors.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedPaymentGateway.class);
+    private static final String PAYMENT_GATEWAY_HOST = "payment-gateway.example.com";
+    private static final int PAYMENT_GATEWAY_PORT = 443;
+
+    private final Random random = new Random();
+
+    @Override
+    public void connect() throws Exception {
+        logger.debug("Connecting to payment gateway: {}:{}", PAYMENT_GATEWAY_HOST, PAYMENT_GATEWAY_PORT);
+        
+        // This will fail - simulating network error
+        try (Socket socket = new Socket(PAYMENT_GATEWAY_HOST, PAYMENT_GATEWAY_PORT)) {
+            // Would send payment request here
+        } catch (Exception e) {
+            // Rethrow to simulate gateway connection failure
+            throw new RuntimeException("Connection timed out: " + PAYMENT_GATEWAY_HOST + ":" + PAYMENT_GATEWAY_PORT, e);
+        }
+    }
+
+    @Override
+    public String authorize(String transactionId, BigDecimal amount) {
+        // Simulate payment processing with random failures
+        if (random.nextInt(100) < 15) { // 15% failure rate
+            return getRandomErrorCode();
+        }
+        
+        // Simulate processing time
+        sleep(500 + random.nextInt(1000));
+        return null;
+    }
+
+    @Override
+    public boolean refund(String transactionId, BigDecimal amount) {
+        // Simulate refund processing
+        sleep(200);
+        return random.nextInt(100) >= 5; // 5% failure rate
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String getRandomErrorCode() {
+        String[] errorCodes = {
+            "INSUFFICIENT_FUNDS",
+            "CARD_EXPIRED", 
+            "CARD_DECLINED",
+            "CVV_MISMATCH",
+            "FRAUD_SUSPECTED"
+        };
+        return errorCodes[random.nextInt(errorCodes.length)];
+    }
+}
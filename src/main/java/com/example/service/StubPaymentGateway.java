@@ -0,0 +1,54 @@
+package com.example.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process gateway for benchmarks and load tests: always reachable, with a
+ * configurable decline rate and authorization latency (both zero by default).
+ */
+public class StubPaymentGateway implements PaymentGateway {
+    private final int declinePercent;
+    private final long latencyMicros;
+
+    public StubPaymentGateway() {
+        this(0, 0);
+    }
+
+    public StubPaymentGateway(int declinePercent, long latencyMicros) {
+        this.declinePercent = declinePercent;
+        this.latencyMicros = latencyMicros;
+    }
+
+    @Override
+    public void connect() {
+        // Always reachable
+    }
+
+    @Override
+    public String authorize(String transactionId, BigDecimal amount) {
+        pause();
+        if (declinePercent > 0 && ThreadLocalRandom.current().nextInt(100) < declinePercent) {
+            return "CARD_DECLINED";
+        }
+        return null;
+    }
+
+    @Override
+    public boolean refund(String transactionId, BigDecimal amount) {
+        pause();
+        return declinePercent <= 0 || ThreadLocalRandom.current().nextInt(100) >= declinePercent;
+    }
+
+    private void pause() {
+        if (latencyMicros <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MICROSECONDS.sleep(latencyMicros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.service;
 
+import com.example.admission.AdmissionControl;
 import com.example.model.User;
 import com.example.repository.UserRepository;
 import com.example.exception.UserNotFoundException;
 import com.example.exception.ValidationException;
+import com.example.logging.RequestContext;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.OperationMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,81 +19,128 @@ import java.util.regex.Pattern;
  */
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    private static final OperationMetrics CREATE_USER_METRICS =
+        MetricsRegistry.getDefault().operation(UserService.class, "createUser");
+    private static final OperationMetrics GET_USER_BY_ID_METRICS =
+        MetricsRegistry.getDefault().operation(UserService.class, "getUserById");
+    private static final OperationMetrics AUTHENTICATE_METRICS =
+        MetricsRegistry.getDefault().operation(UserService.class, "authenticate");
+    private static final OperationMetrics DEACTIVATE_USER_METRICS =
+        MetricsRegistry.getDefault().operation(UserService.class, "deactivateUser");
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     
     private final UserRepository userRepository;
+    private final AdmissionControl admission;
 
     public UserService(UserRepository userRepository) {
+        this(userRepository, AdmissionControl.unlimited());
+    }
+
+    /**
+     * @param admission checked before {@link #authenticate}, keyed by a hash of the email
+     */
+    public UserService(UserRepository userRepository, AdmissionControl admission) {
         this.userRepository = userRepository;
+        this.admission = admission;
     }
 
     public User createUser(String email, String name, String password) {
-        logger.info("Creating user with email: {}", email);
-        
-        // Validate email
-        validateEmail(email);
-        
-        // Check if email already exists
-        if (userRepository.existsByEmail(email)) {
-            logger.error("Email already registered: {}", email);
-            throw new ValidationException("Email already registered: " + email);
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return CREATE_USER_METRICS.time(() -> {
+                logger.info("Creating user with email: {}", email);
+
+                // Validate email
+                validateEmail(email);
+
+                // Check if email already exists
+                if (userRepository.existsByEmail(email)) {
+                    logger.error("Email already registered: {}", email);
+                    throw new ValidationException("Email already registered: " + email);
+                }
+
+                // Validate password strength
+                validatePassword(password);
+
+                User user = new User();
+                user.setEmail(email);
+                user.setName(name);
+                user.setPasswordHash(hashPassword(password));
+
+                User savedUser = userRepository.save(user);
+                logger.info("User created successfully: {}", savedUser.getId());
+
+                return savedUser;
+            });
+        } finally {
+            scope.close();
         }
-        
-        // Validate password strength
-        validatePassword(password);
-        
-        User user = new User();
-        user.setEmail(email);
-        user.setName(name);
-        user.setPasswordHash(hashPassword(password));
-        
-        User savedUser = userRepository.save(user);
-        logger.info("User created successfully: {}", savedUser.getId());
-        
-        return savedUser;
     }
 
     public User getUserById(Long id) {
-        logger.debug("Getting user by ID: {}", id);
-        return userRepository.findByIdOrThrow(id);
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return GET_USER_BY_ID_METRICS.time(() -> {
+                logger.debug("Getting user by ID: {}", id);
+                return userRepository.findByIdOrThrow(id);
+            });
+        } finally {
+            scope.close();
+        }
     }
 
     public User authenticate(String email, String password) {
-        logger.info("Authenticating user: {}", email);
-        
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> {
-                logger.warn("Authentication failed - user not found: {}", email);
-                return new UserNotFoundException(email);
+        AdmissionControl.Permit permit = admission.admit(loginKey(email));
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            return AUTHENTICATE_METRICS.time(() -> {
+                logger.info("Authenticating user: {}", email);
+
+                User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> {
+                        logger.warn("Authentication failed - user not found: {}", email);
+                        return new UserNotFoundException(email);
+                    });
+
+                if (!user.isActive()) {
+                    logger.warn("Authentication failed - user account is disabled: {}", email);
+                    throw new ValidationException("User account is disabled");
+                }
+
+                // BUG: This comparison is intentionally flawed for testing
+                String hashedInput = hashPassword(password);
+                if (!user.getPasswordHash().equals(hashedInput)) {
+                    logger.warn("Authentication failed - invalid password for user: {}", email);
+                    throw new ValidationException("Invalid credentials");
+                }
+
+                user.setLastLogin(LocalDateTime.now());
+                userRepository.save(user);
+
+                logger.info("User authenticated successfully: {}", email);
+                return user;
             });
-        
-        if (!user.isActive()) {
-            logger.warn("Authentication failed - user account is disabled: {}", email);
-            throw new ValidationException("User account is disabled");
+        } finally {
+            scope.close();
+            permit.close();
         }
-        
-        // BUG: This comparison is intentionally flawed for testing
-        String hashedInput = hashPassword(password);
-        if (!user.getPasswordHash().equals(hashedInput)) {
-            logger.warn("Authentication failed - invalid password for user: {}", email);
-            throw new ValidationException("Invalid credentials");
-        }
-        
-        user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
-        
-        logger.info("User authenticated successfully: {}", email);
-        return user;
     }
 
     public void deactivateUser(Long userId) {
-        logger.info("Deactivating user: {}", userId);
-        
-        User user = userRepository.findByIdOrThrow(userId);
-        user.setActive(false);
-        userRepository.save(user);
-        
-        logger.info("User deactivated: {}", userId);
+        RequestContext.Scope scope = RequestContext.open();
+        try {
+            DEACTIVATE_USER_METRICS.time(() -> {
+                logger.info("Deactivating user: {}", userId);
+
+                User user = userRepository.findByIdOrThrow(userId);
+                user.setActive(false);
+                userRepository.save(user);
+
+                logger.info("User deactivated: {}", userId);
+            });
+        } finally {
+            scope.close();
+        }
     }
 
     private void validateEmail(String email) {
@@ -114,6 +165,20 @@ public class UserService {
         }
     }
 
+    /**
+     * 64-bit FNV-1a of the lower-cased email, computed without allocating; logins are
+     * throttled per account before the user is looked up.
+     */
+    private static long loginKey(String email) {
+        long hash = 0xcbf29ce484222325L;
+        if (email != null) {
+            for (int i = 0; i < email.length(); i++) {
+                hash = (hash ^ Character.toLowerCase(email.charAt(i))) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
     private String hashPassword(String password) {
         // Simple hash for demo - in real app use BCrypt
         return Integer.toHexString(password.hashCode());
@@ -0,0 +1,208 @@
+package com.example.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Thread-safe {@link LongHashMap}: keys are spread over independently locked sections.
+ *
+ * Reads first try an optimistic {@link StampedLock} read and only take the read lock if a
+ * writer interfered, so uncontended lookups neither block nor write shared memory.
+ * Iteration visits one section at a time under its read lock and is weakly consistent
+ * across sections.
+ */
+public class ConcurrentLongHashMap<V> {
+    private static final int DEFAULT_SECTIONS = 16;
+
+    private final Section<V>[] sections;
+    private final int sectionShift;
+
+    public ConcurrentLongHashMap() {
+        this(16, DEFAULT_SECTIONS);
+    }
+
+    public ConcurrentLongHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_SECTIONS);
+    }
+
+    /**
+     * @param sectionCount rounded up to a power of two
+     */
+    public ConcurrentLongHashMap(int expectedSize, int sectionCount) {
+        int count = sectionCount <= 1 ? 1 : Integer.highestOneBit(sectionCount - 1) << 1;
+        @SuppressWarnings("unchecked")
+        Section<V>[] s = (Section<V>[]) new Section<?>[count];
+        for (int i = 0; i < count; i++) {
+            s[i] = new Section<>(Math.max(1, expectedSize / count));
+        }
+        sections = s;
+        sectionShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    public V get(long key) {
+        Section<V> section = sectionFor(key);
+        long stamp = section.tryOptimisticRead();
+        V value = section.map.get(key);
+        if (section.validate(stamp)) {
+            return value;
+        }
+        stamp = section.readLock();
+        try {
+            return section.map.get(key);
+        } finally {
+            section.unlockRead(stamp);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        Section<V> section = sectionFor(key);
+        long stamp = section.writeLock();
+        try {
+            return section.map.put(key, value);
+        } finally {
+            section.unlockWrite(stamp);
+        }
+    }
+
+    public V putIfAbsent(long key, V value) {
+        Section<V> section = sectionFor(key);
+        long stamp = section.writeLock();
+        try {
+            return section.map.putIfAbsent(key, value);
+        } finally {
+            section.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Bulk insert: values are grouped by section first, then each section is locked once,
+     * presized and filled, with sections filled in parallel.
+     */
+    public void putAll(List<? extends V> values, ToLongFunction<? super V> keyFunction) {
+        int n = values.size();
+        long[] keys = new long[n];
+        int[] sectionOf = new int[n];
+        int[] starts = new int[sections.length + 1];
+        for (int i = 0; i < n; i++) {
+            keys[i] = keyFunction.applyAsLong(values.get(i));
+            sectionOf[i] = sectionIndex(keys[i]);
+            starts[sectionOf[i] + 1]++;
+        }
+        for (int s = 0; s < sections.length; s++) {
+            starts[s + 1] += starts[s];
+        }
+        int[] order = new int[n];
+        int[] fill = Arrays.copyOf(starts, sections.length);
+        for (int i = 0; i < n; i++) {
+            order[fill[sectionOf[i]]++] = i;
+        }
+        IntStream.range(0, sections.length).parallel().forEach(s -> {
+            Section<V> section = sections[s];
+            long stamp = section.writeLock();
+            try {
+                section.map.ensureCapacity(section.map.size() + starts[s + 1] - starts[s]);
+                for (int j = starts[s]; j < starts[s + 1]; j++) {
+                    section.map.put(keys[order[j]], values.get(order[j]));
+                }
+            } finally {
+                section.unlockWrite(stamp);
+            }
+        });
+    }
+
+    public V remove(long key) {
+        Section<V> section = sectionFor(key);
+        long stamp = section.writeLock();
+        try {
+            return section.map.remove(key);
+        } finally {
+            section.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long key, Object value) {
+        Section<V> section = sectionFor(key);
+        long stamp = section.writeLock();
+        try {
+            return section.map.remove(key, value);
+        } finally {
+            section.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Section<V> section : sections) {
+            size += section.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Visits every value. The action runs under a section's read lock and must not
+     * modify this map.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (Section<V> section : sections) {
+            long stamp = section.readLock();
+            try {
+                section.map.forEachValue(action);
+            } finally {
+                section.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the values, in no particular order.
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size());
+        forEachValue(result::add);
+        return result;
+    }
+
+    private Section<V> sectionFor(long key) {
+        return sections[sectionIndex(key)];
+    }
+
+    private int sectionIndex(long key) {
+        // High hash bits pick the section; the section's table uses the low bits
+        return sections.length == 1 ? 0 : LongHashMap.hash(key) >>> sectionShift;
+    }
+
+    private static final class Section<V> extends StampedLock {
+        final LongHashMap<V> map;
+
+        Section(int expectedSize) {
+            this.map = new LongHashMap<>(expectedSize);
+        }
+
+        int size() {
+            long stamp = tryOptimisticRead();
+            int size = map.size();
+            if (validate(stamp)) {
+                return size;
+            }
+            stamp = readLock();
+            try {
+                return map.size();
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point money: amounts are held as a {@code long} count of cents.
+ */
+public class MoneyUtils {
+
+    public static final int SCALE = 2;
+
+    private MoneyUtils() {
+        // Utility class - no instantiation
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount has more than two decimal places
+     *                                  or does not fit in a {@code long} of cents
+     */
+    public static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not representable as a whole number of cents: " + amount, e);
+        }
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same {@code long} key into one.
+ *
+ * The first caller for a key registers a call and runs the loader on its own thread;
+ * callers arriving while it runs wait for it and share its result or its exception.
+ * The call is unregistered before it completes, so nothing is cached: the next caller
+ * after completion loads again. A waiter that is interrupted stops waiting and runs the
+ * loader itself with its interrupt status set, exactly as it would without coalescing,
+ * and the shared call is not disturbed.
+ *
+ * Writers call {@link #forget} after changing a key so that callers arriving later do
+ * not join a load that started before the change.
+ */
+public class SingleFlight<V> {
+    private final ConcurrentLongHashMap<CompletableFuture<V>> calls = new ConcurrentLongHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public V load(long key, Supplier<? extends V> loader) {
+        CompletableFuture<V> call = calls.get(key);
+        if (call == null) {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            call = calls.putIfAbsent(key, created);
+            if (call == null) {
+                return lead(key, created, loader);
+            }
+        }
+        shared.increment();
+        return await(call, loader);
+    }
+
+    /**
+     * Detaches any load in flight for {@code key}; its current waiters still get its
+     * result. Cheap when nothing is in flight.
+     */
+    public void forget(long key) {
+        if (running.get() > 0) {
+            calls.remove(key);
+        }
+    }
+
+    /**
+     * Loader invocations, including those by interrupted waiters.
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * Calls that were answered by another caller's load.
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    private V lead(long key, CompletableFuture<V> call, Supplier<? extends V> loader) {
+        running.incrementAndGet();
+        V value;
+        try {
+            loads.increment();
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            finish(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        finish(key, call);
+        call.complete(value);
+        return value;
+    }
+
+    private void finish(long key, CompletableFuture<V> call) {
+        calls.remove(key, call);
+        running.decrementAndGet();
+    }
+
+    private V await(CompletableFuture<V> call, Supplier<? extends V> loader) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            loads.increment();
+            return loader.get();
+        }
+    }
+}
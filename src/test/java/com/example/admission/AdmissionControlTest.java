@@ -0,0 +1,202 @@
+package com.example.admission;
+
+import com.example.exception.RateLimitExceededException;
+import com.example.exception.UserNotFoundException;
+import com.example.model.Order;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import com.example.service.OrderService;
+import com.example.service.PaymentService;
+import com.example.service.ProductService;
+import com.example.service.UserService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the admission control used by the services.
+ *
+ * Hammers one key from several threads and compares the tokens granted with
+ * {@code burst + rate * elapsed}; checks that keys do not share buckets, that idle
+ * buckets are evicted and come back full, and that the concurrency cap is never
+ * exceeded. Finally checks that calls rejected by {@link OrderService} and
+ * {@link UserService#authenticate} never reach a repository, and that order calls
+ * are limited by the order's owner rather than per order.
+ */
+class AdmissionControlTest {
+    private static final int THREADS = 4;
+    private static final int RATE = 2000;
+    private static final int BURST = 100;
+
+    @Test
+    void grantsBurstPlusRateAcrossThreads() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(RATE, BURST, Duration.ofMinutes(1));
+        LongAdder granted = new LongAdder();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(1);
+        runConcurrently(() -> {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                if (limiter.tryAcquire(42, now)) {
+                    granted.increment();
+                }
+            }
+        });
+        double expected = BURST + RATE * (System.nanoTime() - start) / 1e9;
+        assertTrue(granted.sum() <= expected + 1 && granted.sum() >= expected * 0.95,
+            () -> "Granted " + granted.sum() + " tokens, expected about " + (long) expected);
+
+        long now = System.nanoTime();
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(limiter.tryAcquire(43, now), "key 43 must not share key 42's bucket");
+        }
+        assertFalse(limiter.tryAcquire(43, now), "key 43 granted more than its burst");
+    }
+
+    @Test
+    void evictsIdleBuckets() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(1);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5, Duration.ofNanos(idleNanos), 64);
+        long t0 = System.nanoTime();
+        for (long key = 0; key < 10_000; key++) {
+            for (int i = 0; i < 5; i++) {
+                limiter.tryAcquire(key, t0);
+            }
+        }
+        assertFalse(limiter.tryAcquire(7, t0));
+        assertEquals(10_000, limiter.trackedKeys());
+
+        // Every stripe is due for a sweep; touching it with a new key evicts the idle buckets
+        long later = t0 + 3 * idleNanos;
+        int probes = 1024;
+        for (long key = 0; key < probes; key++) {
+            limiter.tryAcquire(1_000_000 + key, later);
+        }
+        assertTrue(limiter.trackedKeys() <= probes, () -> limiter.trackedKeys() + " keys tracked after eviction");
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(7, later), "evicted key 7 must come back with a full bucket");
+        }
+    }
+
+    @Test
+    void neverExceedsTheConcurrencyCap() throws InterruptedException {
+        int cap = THREADS / 2;
+        AdmissionControl admission = new AdmissionControl(null, new ConcurrencyLimit(cap));
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        runConcurrently(() -> {
+            while (System.nanoTime() < end) {
+                try {
+                    AdmissionControl.Permit permit = admission.admit(1);
+                    try {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        Thread.onSpinWait();
+                        inside.decrementAndGet();
+                    } finally {
+                        permit.close();
+                    }
+                } catch (RateLimitExceededException e) {
+                    // Refused while the cap was reached
+                }
+            }
+        });
+        assertTrue(maxInside.get() <= cap, () -> maxInside.get() + " inside with a cap of " + cap);
+        assertEquals(0, admission.getConcurrencyLimit().getInFlight());
+    }
+
+    @Test
+    void rejectedCallsNeverReachARepository() {
+        AdmissionControl admission = new AdmissionControl(
+            new TokenBucketLimiter(1, 1, Duration.ofMinutes(1)), new ConcurrencyLimit(64));
+        OrderRepository orderRepository = new OrderRepository(0);
+        ProductRepository productRepository = new ProductRepository();
+        OrderService orderService = new OrderService(orderRepository, productRepository,
+            new ProductService(productRepository), new PaymentService(), admission);
+        UserService userService = new UserService(new UserRepository(), admission);
+
+        orderService.createOrder(1L, "1 Main St");
+        // The first login attempt is admitted and reaches the repository
+        assertThrows(UserNotFoundException.class, () -> userService.authenticate("nobody@example.com", "secret123"));
+
+        int calls = 100_000;
+        int rejected = 0;
+        for (int i = 0; i < calls; i++) {
+            try {
+                orderService.createOrder(1L, "1 Main St");
+            } catch (RateLimitExceededException e) {
+                rejected++;
+            }
+            try {
+                userService.authenticate("Nobody@Example.com", "secret123");
+            } catch (RateLimitExceededException e) {
+                rejected++;
+            }
+        }
+        // At one token per second a slow run may legitimately admit a handful more
+        long admitted = orderRepository.count() - 1;
+        int rejectedCalls = rejected;
+        assertTrue(rejected >= 2 * calls - 10 && admitted <= 5,
+            () -> rejectedCalls + " of " + 2 * calls + " calls rejected, " + admitted + " extra orders created");
+        assertEquals(0, admission.getConcurrencyLimit().getInFlight());
+    }
+
+    @Test
+    void limitsOrderCallsPerOwningUser() {
+        AdmissionControl admission = new AdmissionControl(
+            new TokenBucketLimiter(1, 1, Duration.ofMinutes(1)), new ConcurrencyLimit(64));
+        OrderRepository orderRepository = new OrderRepository(0);
+        ProductRepository productRepository = new ProductRepository(0, false);
+        OrderService orderService = new OrderService(orderRepository, productRepository,
+            new ProductService(productRepository), new PaymentService(), admission);
+        int orders = 50;
+        for (int i = 0; i < orders; i++) {
+            orderRepository.save(new Order(null, 1L));
+        }
+        Order otherUsers = orderRepository.save(new Order(null, 2L));
+
+        // Spreading calls over many orders does not multiply user 1's allowance
+        int rejected = 0;
+        for (long orderId = 1; orderId <= orders; orderId++) {
+            long id = orderId;
+            try {
+                orderService.getOrderById(id);
+            } catch (RateLimitExceededException e) {
+                rejected++;
+            }
+            try {
+                orderService.cancelOrder(id);
+            } catch (RateLimitExceededException e) {
+                rejected++;
+            }
+        }
+        int rejectedCalls = rejected;
+        assertTrue(rejected >= 2 * orders - 5, () -> rejectedCalls + " of " + 2 * orders + " calls rejected");
+        // Another user's order has its own bucket
+        assertEquals(otherUsers, orderService.getOrderById(otherUsers.getId()));
+    }
+
+    private static void runConcurrently(Runnable body) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            new Thread(() -> {
+                try {
+                    body.run();
+                } finally {
+                    done.countDown();
+                }
+            }, "admission-test-" + i).start();
+        }
+        done.await();
+    }
+}
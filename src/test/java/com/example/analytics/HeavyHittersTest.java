@@ -0,0 +1,161 @@
+package com.example.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link HeavyHitters} against exact counting.
+ *
+ * Feeds a Zipf-distributed stream of product IDs over two simulated hours into a
+ * five-minute sketch, with quiet spells so whole buckets expire. At checkpoints the
+ * window total must be exact, every returned estimate must lie between the exact count
+ * and the count-min error bound, and every product whose exact count clearly beats the
+ * k-th must be returned. A concurrent run checks that lock-free adds from several threads
+ * still sum exactly and surface the heavy keys.
+ */
+class HeavyHittersTest {
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+    private static final int BUCKETS = 12;
+    private static final int WIDTH = 1024;
+    private static final int K = 10;
+    private static final int PRODUCTS = 1_000_000;
+    private static final int EVENTS = 200_000;
+    private static final long SPAN_MILLIS = Duration.ofHours(2).toMillis();
+    private static final long SEED = 0x4EAF1L;
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final double[] zipfCdf = new double[PRODUCTS];
+
+    HeavyHittersTest() {
+        double sum = 0;
+        for (int i = 0; i < PRODUCTS; i++) {
+            sum += 1.0 / Math.pow(i + 1, 1.1);
+            zipfCdf[i] = sum;
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            zipfCdf[i] /= sum;
+        }
+    }
+
+    @Test
+    void tracksExactCountsWithinTheErrorBound() {
+        HeavyHitters sketch = new HeavyHitters(WINDOW, BUCKETS, WIDTH, 4, 64);
+        long bucketMillis = WINDOW.toMillis() / BUCKETS;
+        long[] keys = new long[EVENTS];
+        long[] counts = new long[EVENTS];
+        long[] times = new long[EVENTS];
+        long now = 1_700_000_000_000L;
+        long step = SPAN_MILLIS / EVENTS;
+        int checkpoint = EVENTS / 25;
+        for (int i = 0; i < EVENTS; i++) {
+            // Occasional quiet spells longer than a bucket, once longer than the window
+            now += i == EVENTS / 2 ? WINDOW.toMillis() * 2 : random.nextInt(2000) == 0 ? bucketMillis * 3 : step;
+            keys[i] = productId();
+            counts[i] = 1 + random.nextInt(3);
+            times[i] = now;
+            sketch.add(keys[i], counts[i], now);
+            if (i % checkpoint == checkpoint - 1 || i == EVENTS / 2) {
+                verify(sketch, keys, counts, times, i, now, bucketMillis);
+            }
+        }
+
+        long later = now + WINDOW.toMillis() + bucketMillis;
+        assertEquals(0, sketch.total(later), "total after the window passed");
+        assertTrue(sketch.topN(K, later).isEmpty(), "top entries after the window passed");
+    }
+
+    @Test
+    void countsConcurrentAddsExactly() throws Throwable {
+        int threads = 8;
+        int perThread = 100_000;
+        HeavyHitters sketch = new HeavyHitters(WINDOW, BUCKETS, WIDTH, 4, 64);
+        long now = 1_700_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = SEED + t;
+            new Thread(() -> {
+                try {
+                    SplittableRandom local = new SplittableRandom(seed);
+                    for (int i = 0; i < perThread; i++) {
+                        // Keys 1-5 take half the stream, the rest is spread over many keys
+                        long key = i % 2 == 0 ? 1 + i / 2 % 5 : 1_000 + local.nextInt(50_000);
+                        sketch.add(key, 1, now + local.nextInt(1_000));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        long total = (long) threads * perThread;
+        assertEquals(total, sketch.total(now + 1_000));
+        long heavy = total / 2 / 5;
+        long bound = (long) Math.ceil(Math.E / WIDTH * total);
+        List<HeavyHitters.Entry> top = sketch.topN(5, now + 1_000);
+        assertEquals(5, top.size(), top::toString);
+        for (HeavyHitters.Entry entry : top) {
+            assertTrue(entry.getKey() >= 1 && entry.getKey() <= 5, () -> "unexpected heavy key in " + top);
+            assertTrue(entry.getCount() >= heavy && entry.getCount() <= heavy + bound, top::toString);
+        }
+    }
+
+    private void verify(HeavyHitters sketch, long[] keys, long[] counts, long[] times, int last, long now,
+                        long bucketMillis) {
+        long oldestEpoch = Math.floorDiv(now, bucketMillis) - BUCKETS + 1;
+        Map<Long, Long> exact = new HashMap<>();
+        long total = 0;
+        for (int i = last; i >= 0 && Math.floorDiv(times[i], bucketMillis) >= oldestEpoch; i--) {
+            exact.merge(keys[i], counts[i], Long::sum);
+            total += counts[i];
+        }
+        assertEquals(total, sketch.total(now), "window total");
+
+        long bound = (long) Math.ceil(Math.E / WIDTH * total);
+        List<HeavyHitters.Entry> top = sketch.topN(K, now);
+        for (HeavyHitters.Entry entry : top) {
+            long want = exact.getOrDefault(entry.getKey(), 0L);
+            assertTrue(entry.getCount() >= want && entry.getCount() <= want + bound,
+                () -> "Product " + entry.getKey() + " estimated " + entry.getCount() + ", exact " + want
+                    + ", bound " + bound);
+        }
+        long[] sorted = exact.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        if (sorted.length == 0) {
+            return;
+        }
+        long kth = sorted[Math.max(0, sorted.length - K)];
+        List<Long> returned = new ArrayList<>();
+        top.forEach(entry -> returned.add(entry.getKey()));
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            assertTrue(entry.getValue() <= kth + bound || returned.contains(entry.getKey()),
+                () -> "Product " + entry.getKey() + " with " + entry.getValue() + " missing from top " + K
+                    + ": " + top);
+        }
+        assertEquals(Math.min(K, sorted.length), top.size(), () -> "top " + K + ": " + top);
+    }
+
+    private long productId() {
+        int rank = Arrays.binarySearch(zipfCdf, random.nextDouble());
+        rank = rank >= 0 ? rank : -rank - 1;
+        // Spread popular products over the ID space instead of making them the smallest IDs
+        return 1 + (rank * 2_654_435_761L) % 100_000_000L;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.archive;
+
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link OrderArchive} lookups across reopens, and that recovery drops a torn or
+ * corrupt last block and truncates the segment back to the last good block.
+ */
+class OrderArchiveTest {
+    private static final int ORDERS_PER_BLOCK = 16;
+    private static final int USERS = 7;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsOrdersAfterReopening() throws IOException {
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 4096)) {
+            archive.append(orders(1, 200));
+            archive.append(orders(201, 300));
+        }
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 4096)) {
+            assertEquals(300, archive.size());
+            assertTrue(segments().size() > 1, "expected the archive to roll over to several segments");
+            for (long id = 1; id <= 300; id++) {
+                assertArchived(id, archive);
+            }
+            assertTrue(archive.findById(301).isEmpty());
+            for (long userId = 0; userId < USERS; userId++) {
+                long user = userId;
+                List<Long> ids = archive.findByUserId(userId).stream().map(Order::getId).sorted()
+                    .collect(Collectors.toList());
+                List<Long> expected = new ArrayList<>();
+                for (long id = 1; id <= 300; id++) {
+                    if (id % USERS == user) {
+                        expected.add(id);
+                    }
+                }
+                assertEquals(expected, ids);
+            }
+        }
+    }
+
+    @Test
+    void newerCopyShadowsAnOlderOne() {
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 4096)) {
+            archive.append(orders(1, 40));
+            Order updated = order(17);
+            updated.setStatus(OrderStatus.REFUNDED);
+            archive.append(List.of(updated));
+        }
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 4096)) {
+            assertEquals(OrderStatus.REFUNDED, archive.findById(17).orElseThrow().getStatus());
+            assertEquals(1, archive.findByUserId(17 % USERS).stream().filter(o -> o.getId() == 17).count());
+        }
+    }
+
+    @Test
+    void truncatesATornLastBlock() throws IOException {
+        long goodSize = archiveTwoBatches();
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Cut the last block short, as a crash in the middle of the write would
+            channel.truncate(Files.size(segment) - 10);
+        }
+        assertRecoveredFirstBatch(segment, goodSize);
+    }
+
+    @Test
+    void dropsACorruptLastBlock() throws IOException {
+        long goodSize = archiveTwoBatches();
+        Path segment = lastSegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // Flip a byte inside the last block's compressed payload
+            long position = file.length() - 5;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+        assertRecoveredFirstBatch(segment, goodSize);
+    }
+
+    @Test
+    void dropsAHeaderOnlyFragment() throws IOException {
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 1 << 20)) {
+            archive.append(orders(1, 40));
+        }
+        Path segment = lastSegment();
+        long goodSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x4F, 0x41, 0x52}));
+        }
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 1 << 20)) {
+            assertEquals(40, archive.size());
+            assertEquals(goodSize, Files.size(segment));
+        }
+    }
+
+    /**
+     * Archives two batches into a single segment; returns the segment size after the first.
+     */
+    private long archiveTwoBatches() throws IOException {
+        long goodSize;
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 1 << 20)) {
+            archive.append(orders(1, 40));
+            goodSize = Files.size(lastSegment());
+            archive.append(orders(41, 50));
+        }
+        return goodSize;
+    }
+
+    private void assertRecoveredFirstBatch(Path segment, long goodSize) throws IOException {
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 1 << 20)) {
+            assertEquals(goodSize, Files.size(segment), "segment not truncated to the last good block");
+            assertEquals(40, archive.size());
+            for (long id = 1; id <= 40; id++) {
+                assertArchived(id, archive);
+            }
+            for (long id = 41; id <= 50; id++) {
+                assertTrue(archive.findById(id).isEmpty(), "order " + id + " from the torn block was found");
+            }
+            // The archive stays writable after recovery
+            archive.append(orders(41, 50));
+        }
+        try (OrderArchive archive = new OrderArchive(directory, ORDERS_PER_BLOCK, 1 << 20)) {
+            assertEquals(50, archive.size());
+            assertArchived(45, archive);
+        }
+    }
+
+    private static void assertArchived(long id, OrderArchive archive) {
+        Order expected = order(id);
+        Order found = archive.findById(id).orElseThrow(() -> new AssertionError("order " + id + " not found"));
+        assertEquals(expected.getUserId(), found.getUserId());
+        assertEquals(expected.getStatus(), found.getStatus());
+        assertEquals(expected.getItems().size(), found.getItems().size());
+        assertEquals(0, expected.getTotalAmount().compareTo(found.getTotalAmount()), () -> "total of order " + id);
+    }
+
+    private static List<Order> orders(long fromId, long toId) {
+        List<Order> orders = new ArrayList<>();
+        for (long id = toId; id >= fromId; id--) {
+            orders.add(order(id));
+        }
+        return orders;
+    }
+
+    private static Order order(long id) {
+        Order order = new Order(id, id % USERS);
+        for (int i = 0; i <= id % 3; i++) {
+            order.addItem(new OrderItem(1L + i, "Widget " + i, 1 + (int) (id % 4), new BigDecimal("2.50")));
+        }
+        order.setStatus(id % 2 == 0 ? OrderStatus.DELIVERED : OrderStatus.CANCELLED);
+        return order;
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 1);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
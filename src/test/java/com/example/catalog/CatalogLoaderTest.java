@@ -0,0 +1,153 @@
+package com.example.catalog;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.util.MoneyUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Loads a generated catalog through {@link CatalogLoader} from CSV and from the binary
+ * format and compares every product with what was written. The CSV mixes quoted and
+ * plain fields, CRLF line ends, empty optional columns and all price spellings; a few
+ * malformed files must be rejected.
+ */
+class CatalogLoaderTest {
+    private static final int PRODUCTS = 20_000;
+    private static final long SEED = 0xCA7A10L;
+    private static final String[] CATEGORIES = {
+        "Electronics", "Books", "Home", "Garden", "Toys", "Sports", "Grocery", "Office", "Caf\u00e9"
+    };
+
+    @TempDir
+    Path dir;
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private List<Product> expected;
+    private Path csv;
+
+    @BeforeEach
+    void writeCatalog() throws IOException {
+        csv = dir.resolve("catalog.csv");
+        expected = writeCsv(csv, PRODUCTS);
+    }
+
+    @Test
+    void loadsCsv() throws IOException {
+        ProductRepository repository = new ProductRepository(0, false);
+        int loaded = new CatalogLoader(repository).loadCsv(csv);
+        verify("CSV", loaded, repository);
+    }
+
+    @Test
+    void loadsBinary() throws IOException {
+        Path binary = dir.resolve("catalog.bin");
+        CatalogLoader.writeBinary(binary, expected);
+        ProductRepository repository = new ProductRepository(0, false);
+        int loaded = new CatalogLoader(repository).loadBinary(binary);
+        verify("Binary", loaded, repository);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "1,Widget,Home,9.999,5,true,\n",
+        "1,Widget,Home,9.99,five,true,\n",
+        "1,\"Widget,Home,9.99,5,true,\n",
+        "1,Widget,Home,9.99,5,maybe,\n"
+    })
+    void rejectsMalformedLines(String content) throws IOException {
+        Path file = dir.resolve("malformed.csv");
+        Files.writeString(file, "1,Fine,Home,1.00,1,true,ok\n" + content);
+        CatalogLoader loader = new CatalogLoader(new ProductRepository(0, false));
+        assertThrows(CorruptRecordException.class, () -> loader.loadCsv(file));
+    }
+
+    private List<Product> writeCsv(Path file, int count) throws IOException {
+        List<Product> products = new ArrayList<>(count);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("id,name,category,price,stock,active,description\n");
+            for (int i = 0; i < count; i++) {
+                Product product = new Product();
+                product.setId(i + 1L);
+                product.setName(random.nextInt(20) == 0 ? "Gadget \"" + i + "\", deluxe" : "Product " + i);
+                product.setCategory(random.nextInt(50) == 0 ? null : CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                long cents = random.nextInt(200) == 0 ? -1 : random.nextLong(1_000_000);
+                product.setPrice(cents < 0 ? null : MoneyUtils.fromCents(cents));
+                product.setStockQuantity(random.nextInt(1000) - 10);
+                product.setActive(random.nextInt(10) != 0);
+                product.setDescription(random.nextInt(4) == 0 ? null : "Description of item " + i);
+                products.add(product);
+
+                out.write(Long.toString(product.getId()));
+                out.write(',');
+                out.write(field(product.getName()));
+                out.write(',');
+                out.write(field(product.getCategory()));
+                out.write(',');
+                out.write(cents < 0 ? "" : price(cents));
+                out.write(',');
+                out.write(Integer.toString(product.getStockQuantity()));
+                out.write(',');
+                out.write(product.isActive() ? (i % 2 == 0 ? "true" : "1") : (i % 2 == 0 ? "FALSE" : "0"));
+                if (product.getDescription() != null || random.nextBoolean()) {
+                    out.write(',');
+                    out.write(field(product.getDescription()));
+                }
+                out.write(i % 7 == 0 ? "\r\n" : "\n");
+            }
+        }
+        return products;
+    }
+
+    private String price(long cents) {
+        long fraction = cents % 100;
+        if (fraction == 0 && random.nextBoolean()) {
+            return Long.toString(cents / 100);
+        }
+        if (fraction % 10 == 0 && random.nextBoolean()) {
+            return cents / 100 + "." + fraction / 10;
+        }
+        return cents / 100 + "." + (fraction < 10 ? "0" : "") + fraction;
+    }
+
+    private String field(String value) {
+        if (value == null) {
+            return random.nextBoolean() ? "" : "\"\"";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || random.nextInt(10) == 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private void verify(String kind, int loaded, ProductRepository repository) {
+        assertEquals(expected.size(), loaded, kind + ": products loaded");
+        for (Product product : expected) {
+            Product actual = repository.findById(product.getId())
+                .orElseThrow(() -> new AssertionError(kind + ": product " + product.getId() + " missing"));
+            String where = kind + ": product " + product.getId();
+            assertEquals(product.getName(), actual.getName(), where);
+            assertEquals(product.getDescription(), actual.getDescription(), where);
+            assertEquals(product.getPrice(), actual.getPrice(), where);
+            assertEquals(product.getStockQuantity(), actual.getStockQuantity(), where);
+            assertEquals(product.getCategory(), actual.getCategory(), where);
+            assertEquals(product.isActive(), actual.isActive(), where);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.codec;
+
+import com.example.exception.CorruptRecordException;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.util.MoneyUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Randomized round trips through the binary codecs.
+ *
+ * Encodes random orders, products and users (nulls, extreme numbers and non-ASCII text
+ * included) back to back into heap, direct and memory-mapped buffers, then decodes them,
+ * reads them through the flyweight views and compares every field with the originals.
+ * Also checks that every truncation of a record is rejected.
+ */
+class CodecRoundTripTest {
+    private static final int RECORDS = 20_000;
+    private static final long SEED = 0x5eedL;
+    private static final String[] SAMPLES = {
+        "", "Widget", "\u00dcn\u00efc\u00f8d\u00e9", "\u65e5\u672c\u8a9e", "emoji \ud83d\udce6 box", "tab\tand\nnewline"
+    };
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final List<Object> originals = new ArrayList<>(RECORDS);
+    private int bytes;
+
+    @BeforeEach
+    void generateRecords() {
+        for (int i = 0; i < RECORDS; i++) {
+            Object record = switch (i % 3) {
+                case 0 -> randomOrder();
+                case 1 -> randomProduct();
+                default -> randomUser();
+            };
+            originals.add(record);
+            bytes += encodedSize(record);
+        }
+    }
+
+    @Test
+    void heapBufferRoundTrip() {
+        verify("heap", fill(ByteBuffer.allocate(bytes), originals), originals);
+    }
+
+    @Test
+    void directBufferRoundTrip() {
+        verify("direct", fill(ByteBuffer.allocateDirect(bytes), originals), originals);
+    }
+
+    @Test
+    void mappedBufferRoundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("codec.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            verify("mapped", fill(mapped, originals), originals);
+        }
+    }
+
+    @Test
+    void truncatedRecordsAreRejected() {
+        for (Object record : originals.subList(0, 300)) {
+            ByteBuffer full = fill(ByteBuffer.allocate(encodedSize(record)), List.of(record));
+            for (int cut = 0; cut < full.limit(); cut++) {
+                ByteBuffer truncated = full.duplicate().limit(cut);
+                assertThrows(CorruptRecordException.class, () -> decode(record, truncated),
+                    "record truncated to " + cut + " of " + full.limit() + " bytes: " + record);
+            }
+        }
+    }
+
+    private static void decode(Object kindOf, ByteBuffer buffer) {
+        if (kindOf instanceof Order) {
+            OrderCodec.decode(buffer);
+        } else if (kindOf instanceof Product) {
+            ProductCodec.decode(buffer);
+        } else {
+            UserCodec.decode(buffer);
+        }
+    }
+
+    private static ByteBuffer fill(ByteBuffer buffer, List<Object> records) {
+        for (Object record : records) {
+            if (record instanceof Order order) {
+                OrderCodec.encode(order, buffer);
+            } else if (record instanceof Product product) {
+                ProductCodec.encode(product, buffer);
+            } else {
+                UserCodec.encode((User) record, buffer);
+            }
+        }
+        assertFalse(buffer.hasRemaining(), () -> "encodedSize over-reported by " + buffer.remaining() + " bytes");
+        return buffer.flip();
+    }
+
+    private static void verify(String kind, ByteBuffer buffer, List<Object> originals) {
+        OrderView orderView = new OrderView();
+        ProductView productView = new ProductView();
+        UserView userView = new UserView();
+        int offset = 0;
+        for (Object original : originals) {
+            buffer.position(offset);
+            int length = Records.lengthAt(buffer, offset);
+            if (original instanceof Order order) {
+                compare(kind, order, OrderCodec.decode(buffer));
+                compare(kind + " view", order, orderView.wrap(buffer, offset));
+                compare(kind + " view", order, orderView.toOrder());
+            } else if (original instanceof Product product) {
+                compare(kind, product, ProductCodec.decode(buffer));
+                compare(kind + " view", product, productView.wrap(buffer, offset));
+            } else {
+                User user = (User) original;
+                compare(kind, user, UserCodec.decode(buffer));
+                compare(kind + " view", user, userView.wrap(buffer, offset));
+            }
+            assertEquals(offset + length, buffer.position(), kind + ": decode end of record at " + offset);
+            offset += length;
+        }
+    }
+
+    private static void compare(String kind, Order expected, Order actual) {
+        check(kind, expected, "id", expected.getId(), actual.getId());
+        check(kind, expected, "userId", expected.getUserId(), actual.getUserId());
+        check(kind, expected, "status", expected.getStatus(), actual.getStatus());
+        check(kind, expected, "totalAmount", expected.getTotalAmount(), actual.getTotalAmount());
+        check(kind, expected, "createdAt", expected.getCreatedAt(), actual.getCreatedAt());
+        check(kind, expected, "updatedAt", expected.getUpdatedAt(), actual.getUpdatedAt());
+        check(kind, expected, "shippingAddress", expected.getShippingAddress(), actual.getShippingAddress());
+        check(kind, expected, "itemCount", expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < Math.min(expected.getItems().size(), actual.getItems().size()); i++) {
+            OrderItem e = expected.getItems().get(i);
+            OrderItem a = actual.getItems().get(i);
+            check(kind, expected, "item id", e.getId(), a.getId());
+            check(kind, expected, "item productId", e.getProductId(), a.getProductId());
+            check(kind, expected, "item productName", e.getProductName(), a.getProductName());
+            check(kind, expected, "item quantity", e.getQuantity(), a.getQuantity());
+            check(kind, expected, "item price", e.getPrice(), a.getPrice());
+        }
+    }
+
+    private static void compare(String kind, Order expected, OrderView view) {
+        check(kind, expected, "id", expected.getId(), view.hasId() ? view.id() : null);
+        check(kind, expected, "userId", expected.getUserId(), view.hasUserId() ? view.userId() : null);
+        check(kind, expected, "status", expected.getStatus(), view.status());
+        check(kind, expected, "totalCents", expected.getTotalCents(), view.totalCents());
+        check(kind, expected, "createdAtMillis", expected.getCreatedAtMillis(), view.createdAtMillis());
+        check(kind, expected, "lastModifiedMillis", expected.getLastModifiedMillis(), view.lastModifiedMillis());
+        check(kind, expected, "shippingAddress", expected.getShippingAddress(), view.shippingAddress());
+        check(kind, expected, "itemCount", expected.getItems().size(), view.itemCount());
+        OrderView.ItemCursor cursor = view.items();
+        for (OrderItem item : expected.getItems()) {
+            assertTrue(cursor.next(), () -> kind + ": item cursor ended early for " + expected);
+            check(kind, expected, "item productId", item.getProductId(), cursor.productId());
+            check(kind, expected, "item productName", item.getProductName(), cursor.productName());
+            check(kind, expected, "item quantity", item.getQuantity(), cursor.quantity());
+            check(kind, expected, "item priceCents", item.getPriceCents(), cursor.priceCents());
+        }
+        assertFalse(cursor.next(), () -> kind + ": item cursor ran past the last item of " + expected);
+    }
+
+    private static void compare(String kind, Product expected, Product actual) {
+        check(kind, expected, "id", expected.getId(), actual.getId());
+        check(kind, expected, "name", expected.getName(), actual.getName());
+        check(kind, expected, "description", expected.getDescription(), actual.getDescription());
+        check(kind, expected, "price", expected.getPrice(), actual.getPrice());
+        check(kind, expected, "stock", expected.getStockQuantity(), actual.getStockQuantity());
+        check(kind, expected, "category", expected.getCategory(), actual.getCategory());
+        check(kind, expected, "active", expected.isActive(), actual.isActive());
+    }
+
+    private static void compare(String kind, Product expected, ProductView view) {
+        check(kind, expected, "id", expected.getId(), view.hasId() ? view.id() : null);
+        check(kind, expected, "name", expected.getName(), view.name());
+        check(kind, expected, "description", expected.getDescription(), view.description());
+        check(kind, expected, "price", expected.getPrice(), view.hasPrice() ? MoneyUtils.fromCents(view.priceCents()) : null);
+        check(kind, expected, "stock", expected.getStockQuantity(), view.stockQuantity());
+        check(kind, expected, "category", expected.getCategory(), view.category());
+        check(kind, expected, "active", expected.isActive(), view.isActive());
+    }
+
+    private static void compare(String kind, User expected, User actual) {
+        check(kind, expected, "id", expected.getId(), actual.getId());
+        check(kind, expected, "email", expected.getEmail(), actual.getEmail());
+        check(kind, expected, "name", expected.getName(), actual.getName());
+        check(kind, expected, "passwordHash", expected.getPasswordHash(), actual.getPasswordHash());
+        check(kind, expected, "active", expected.isActive(), actual.isActive());
+        check(kind, expected, "createdAt", expected.getCreatedAt(), actual.getCreatedAt());
+        check(kind, expected, "lastLogin", expected.getLastLogin(), actual.getLastLogin());
+    }
+
+    private static void compare(String kind, User expected, UserView view) {
+        check(kind, expected, "id", expected.getId(), view.hasId() ? view.id() : null);
+        check(kind, expected, "email", expected.getEmail(), view.email());
+        check(kind, expected, "name", expected.getName(), view.name());
+        check(kind, expected, "passwordHash", expected.getPasswordHash(), view.passwordHash());
+        check(kind, expected, "active", expected.isActive(), view.isActive());
+    }
+
+    private static void check(String kind, Object record, String field, Object expected, Object actual) {
+        assertEquals(expected, actual, () -> kind + ": " + field + " of " + record);
+    }
+
+    private Order randomOrder() {
+        Order order = new Order(randomId(), random.nextInt(8) == 0 ? null : randomId());
+        order.setShippingAddress(randomString());
+        int items = random.nextInt(6);
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem(randomId(), randomString(), random.nextInt(-5, 1_000), randomPrice());
+            if (random.nextBoolean()) {
+                item.setId(randomId());
+            }
+            order.addItem(item);
+        }
+        if (random.nextInt(4) == 0) {
+            order.setTotalAmount(null);
+        }
+        order.setStatus(OrderStatus.values()[random.nextInt(OrderStatus.values().length)]);
+        order.setCreatedAtMillis(random.nextLong(-4_000_000_000_000L, 8_000_000_000_000L));
+        if (random.nextInt(3) == 0) {
+            order.setUpdatedAt(null);
+        } else {
+            order.setUpdatedAtMillis(order.getCreatedAtMillis() + random.nextInt(1_000_000));
+        }
+        return order;
+    }
+
+    private Product randomProduct() {
+        Product product = new Product(random.nextInt(10) == 0 ? null : randomId(), randomString(),
+            random.nextInt(10) == 0 ? null : randomPrice(), random.nextInt(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        product.setDescription(randomString());
+        product.setCategory(randomString());
+        product.setActive(random.nextBoolean());
+        return product;
+    }
+
+    private User randomUser() {
+        User user = new User(random.nextInt(10) == 0 ? null : randomId(), randomString(), randomString());
+        user.setPasswordHash(randomString());
+        user.setActive(random.nextBoolean());
+        user.setCreatedAt(random.nextInt(10) == 0 ? null : randomTime());
+        user.setLastLogin(random.nextBoolean() ? null : randomTime());
+        return user;
+    }
+
+    private long randomId() {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextLong(1, 128);
+            case 1 -> random.nextLong(Long.MIN_VALUE + 1, Long.MAX_VALUE);
+            default -> random.nextLong(1, 1L << 40);
+        };
+    }
+
+    private BigDecimal randomPrice() {
+        return MoneyUtils.fromCents(random.nextInt(4) == 0
+            ? random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L)
+            : random.nextLong(0, 100_000));
+    }
+
+    private LocalDateTime randomTime() {
+        return LocalDateTime.ofEpochSecond(random.nextLong(-10_000_000_000L, 10_000_000_000L),
+            random.nextInt(1_000_000_000), ZoneOffset.UTC);
+    }
+
+    private String randomString() {
+        if (random.nextInt(8) == 0) {
+            return null;
+        }
+        String sample = SAMPLES[random.nextInt(SAMPLES.length)];
+        return random.nextBoolean() ? sample : sample + random.nextInt();
+    }
+
+    private static int encodedSize(Object record) {
+        if (record instanceof Order order) {
+            return OrderCodec.encodedSize(order);
+        }
+        if (record instanceof Product product) {
+            return ProductCodec.encodedSize(product);
+        }
+        return UserCodec.encodedSize((User) record);
+    }
+}
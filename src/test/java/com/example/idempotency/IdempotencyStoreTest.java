@@ -0,0 +1,128 @@
+package com.example.idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the bookkeeping of {@link IdempotencyStore}: the size bound, expiry, interrupted
+ * waiters, and that errors and retryable failures release the key while other failures
+ * are replayed.
+ */
+class IdempotencyStoreTest {
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void staysWithinItsBound() {
+        IdempotencyStore<Integer> store = new IdempotencyStore<>(Duration.ofHours(1), 1000);
+        for (int i = 0; i < 10_000; i++) {
+            int value = i;
+            store.execute("key-" + i, null, () -> value);
+        }
+        assertTrue(store.size() <= 1000, () -> store.size() + " entries, bound is 1000");
+    }
+
+    @Test
+    void runsAgainAfterExpiry() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        IdempotencyStore<Integer> store = new IdempotencyStore<>(Duration.ofMillis(50), 100);
+        store.execute("a", null, runs::incrementAndGet);
+        store.execute("a", null, runs::incrementAndGet);
+        Thread.sleep(100);
+        store.execute("a", null, runs::incrementAndGet);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void replaysFailures() {
+        IdempotencyStore<Integer> store = new IdempotencyStore<>(Duration.ofHours(1), 100);
+        IllegalArgumentException first = assertThrows(IllegalArgumentException.class,
+            () -> store.execute("a", null, () -> {
+                throw new IllegalArgumentException("declined");
+            }));
+        assertSame(first, assertThrows(IllegalArgumentException.class, () -> store.execute("a", null, () -> 1)));
+        assertEquals(1, store.getReplayCount());
+    }
+
+    @Test
+    void releasesTheKeyAfterAnError() {
+        IdempotencyStore<Integer> store = new IdempotencyStore<>(Duration.ofHours(1), 100);
+        assertThrows(AssertionError.class, () -> store.execute("a", null, () -> {
+            throw new AssertionError("boom");
+        }));
+        assertEquals(7, store.execute("a", null, () -> 7));
+    }
+
+    @Test
+    void releasesTheKeyAfterARetryableFailure() throws Exception {
+        IdempotencyStore<Integer> store = new IdempotencyStore<>(Duration.ofHours(1), 100,
+            e -> e instanceof IllegalStateException);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Future<Integer> owner = callers.submit(() -> store.execute("a", null, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("turned away");
+        }));
+        started.await();
+        List<Future<Integer>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(callers.submit(() -> store.execute("a", null, runs::incrementAndGet)));
+        }
+        release.countDown();
+
+        assertTrue(assertThrows(Exception.class, owner::get).getCause() instanceof IllegalStateException);
+        // Waiters do not inherit the rejection; one of them runs the operation for all
+        for (Future<Integer> waiter : waiters) {
+            assertEquals(1, waiter.get());
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void interruptedWaiterLeavesTheOperationRunning() throws Exception {
+        IdempotencyStore<Integer> store = new IdempotencyStore<>(Duration.ofHours(1), 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> owner = callers.submit(() -> store.execute("slow", null, () -> {
+            started.countDown();
+            await(release);
+            return 42;
+        }));
+        started.await();
+        Thread.currentThread().interrupt();
+        assertThrows(IllegalStateException.class, () -> store.execute("slow", null, () -> -1));
+        assertTrue(Thread.interrupted());
+
+        release.countDown();
+        assertEquals(42, owner.get());
+        assertEquals(42, store.execute("slow", null, () -> -1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.inventory;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link InventoryEngine} settles every command: reservations add up, and a
+ * command submitted while the engine closes is either run or failed, never left pending.
+ */
+class InventoryEngineTest {
+    private static final int THREADS = 4;
+
+    @Test
+    void reservesExactlyTheStockAvailable() {
+        ProductRepository products = repository(100);
+        try (InventoryEngine engine = new InventoryEngine(products, 2)) {
+            List<CompletableFuture<InventoryEngine.Reservation>> results = new ArrayList<>();
+            for (int i = 0; i < 150; i++) {
+                results.add(engine.reserve(1L, 1));
+            }
+            long reserved = results.stream().map(CompletableFuture::join)
+                .filter(InventoryEngine.Reservation::isReserved).count();
+            assertEquals(100, reserved);
+            assertEquals(InventoryEngine.Reservation.Status.NOT_FOUND, engine.reserve(99L, 1).join().getStatus());
+        }
+        assertEquals(0, products.findById(1L).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void settlesCommandsSubmittedWhileClosing() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            InventoryEngine engine = new InventoryEngine(repository(1_000_000), 2);
+            List<List<CompletableFuture<InventoryEngine.Reservation>>> submitted = new ArrayList<>();
+            CountDownLatch started = new CountDownLatch(THREADS);
+            CountDownLatch done = new CountDownLatch(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                List<CompletableFuture<InventoryEngine.Reservation>> results = new ArrayList<>();
+                submitted.add(results);
+                new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 2000; i++) {
+                        results.add(engine.reserve(1L, 1));
+                    }
+                    done.countDown();
+                }).start();
+            }
+            started.await();
+            engine.close();
+            done.await();
+            for (List<CompletableFuture<InventoryEngine.Reservation>> results : submitted) {
+                for (CompletableFuture<InventoryEngine.Reservation> result : results) {
+                    assertTrue(waitFor(result), "a command submitted during close was never settled");
+                }
+            }
+        }
+    }
+
+    private static boolean waitFor(CompletableFuture<?> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof IllegalStateException;
+        } catch (InterruptedException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private static ProductRepository repository(int stock) {
+        ProductRepository products = new ProductRepository(0, false);
+        products.save(new Product(1L, "Widget", new BigDecimal("5.00"), stock));
+        return products;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks fingerprinting, suppression, summary flushing and the fingerprint cap of
+ * {@link AggregatingAppender}.
+ */
+class AggregatingAppenderTest {
+    private static final long WINDOW_MILLIS = 60_000;
+
+    // The bound context carries the MDC adapter that events read their properties from
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger logger = context.getLogger(AggregatingAppenderTest.class);
+    private final ListAppender<ILoggingEvent> sink = new ListAppender<>();
+    private final AggregatingAppender appender = new AggregatingAppender();
+
+    @BeforeEach
+    void startAppenders() {
+        sink.setContext(context);
+        sink.start();
+        appender.setContext(context);
+        appender.setName("aggregating");
+        appender.setWindowMillis(WINDOW_MILLIS);
+        appender.setMaxFingerprints(4);
+        appender.setMaxSampleArgs(2);
+        appender.addAppender(sink);
+        appender.start();
+    }
+
+    @AfterEach
+    void stopAppenders() {
+        appender.stop();
+    }
+
+    @Test
+    void forwardsTheFirstEventAndSummarizesRepeats() {
+        for (int i = 1; i <= 4; i++) {
+            appender.doAppend(event("Order {} failed", null, 1000 + i, i));
+        }
+        assertEquals(1, sink.list.size());
+        assertEquals("Order 1 failed", sink.list.get(0).getFormattedMessage());
+
+        appender.flushAll();
+        assertEquals(2, sink.list.size());
+        ILoggingEvent summary = sink.list.get(1);
+        assertEquals("Order 4 failed [repeated 3 more times within 60000ms]", summary.getFormattedMessage());
+        assertEquals(Level.WARN, summary.getLevel());
+        assertEquals("3", summary.getMDCPropertyMap().get(AggregatingAppender.MDC_REPEAT_COUNT));
+        assertEquals("[2]; [3]", summary.getMDCPropertyMap().get(AggregatingAppender.MDC_SAMPLE_ARGS));
+        assertEquals(0, appender.trackedFingerprints());
+    }
+
+    @Test
+    void fingerprintsByTemplateAndExceptionType() {
+        appender.doAppend(event("Order {} failed", null, 1000, 1));
+        appender.doAppend(event("Order {} failed", new IllegalStateException("a"), 1000, 2));
+        appender.doAppend(event("Order {} failed", new IllegalArgumentException("b"), 1000, 3));
+        appender.doAppend(event("Order {} shipped", null, 1000, 4));
+        appender.doAppend(event("Order {} failed", new IllegalStateException("c"), 1000, 5));
+
+        assertEquals(4, sink.list.size());
+        assertEquals(4, appender.trackedFingerprints());
+    }
+
+    @Test
+    void flushesOnlyExpiredWindows() {
+        appender.doAppend(event("early {}", null, 1000, 1));
+        appender.doAppend(event("early {}", null, 2000, 2));
+        appender.doAppend(event("late {}", null, 30_000, 1));
+        appender.doAppend(event("late {}", null, 31_000, 2));
+
+        appender.flushExpired(1000 + WINDOW_MILLIS);
+        assertEquals(3, sink.list.size());
+        assertEquals("early 2 [repeated 1 more times within 60000ms]", sink.list.get(2).getFormattedMessage());
+        assertEquals(1, appender.trackedFingerprints());
+
+        // A new window starts with a forwarded event again
+        appender.doAppend(event("early {}", null, 70_000, 3));
+        assertEquals(4, sink.list.size());
+    }
+
+    @Test
+    void forwardsEventsUnaggregatedWhenFull() {
+        for (int i = 0; i < 6; i++) {
+            appender.doAppend(event("template " + i, null, 1000, i));
+            appender.doAppend(event("template " + i, null, 1000, i));
+        }
+        // Four fingerprints with one forwarded event each, then two untracked pairs
+        assertEquals(8, sink.list.size());
+        assertEquals(4, appender.trackedFingerprints());
+    }
+
+    @Test
+    void neverTracksMoreThanTheCapUnderConcurrency() throws Exception {
+        int threads = 8;
+        appender.setMaxFingerprints(16);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                CountDownLatch go = new CountDownLatch(1);
+                Future<?>[] futures = new Future<?>[threads];
+                int base = round * 1000;
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures[t] = pool.submit(() -> {
+                        go.await();
+                        for (int i = 0; i < 32; i++) {
+                            appender.doAppend(event("template " + (base + (i + thread) % 32), null, 1000, i));
+                        }
+                        return null;
+                    });
+                }
+                go.countDown();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                int tracked = appender.trackedFingerprints();
+                assertTrue(tracked <= 16, () -> tracked + " fingerprints tracked with a cap of 16");
+                appender.flushAll();
+                assertEquals(0, appender.trackedFingerprints());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // Slots were released by every flush, so new fingerprints are still aggregated
+        int before = sink.list.size();
+        appender.doAppend(event("fresh {}", null, 1000, 1));
+        appender.doAppend(event("fresh {}", null, 1000, 2));
+        assertEquals(before + 1, sink.list.size());
+    }
+
+    @Test
+    void singleEventProducesNoSummary() {
+        appender.doAppend(event("once {}", null, 1000, 1));
+        appender.flushAll();
+        List<ILoggingEvent> forwarded = sink.list;
+        assertEquals(1, forwarded.size());
+        assertNull(forwarded.get(0).getMDCPropertyMap().get(AggregatingAppender.MDC_REPEAT_COUNT));
+    }
+
+    private LoggingEvent event(String template, Throwable error, long timestamp, Object arg) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.WARN, template, error,
+            new Object[] {arg});
+        event.setTimeStamp(timestamp);
+        return event;
+    }
+}
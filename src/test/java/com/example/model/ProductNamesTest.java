@@ -0,0 +1,38 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link ProductNames} shares repeated names and stays bounded.
+ */
+class ProductNamesTest {
+
+    @Test
+    void sharesRepeatedNames() {
+        OrderItem first = new OrderItem(1L, new String("Blue Widget"), 1, new BigDecimal("5.00"));
+        OrderItem second = new OrderItem(1L, new String("Blue Widget"), 2, new BigDecimal("5.00"));
+        assertSame(first.getProductName(), second.getProductName());
+        assertNull(ProductNames.canonical(null));
+    }
+
+    @Test
+    void staysBoundedUnderManyDistinctNames() {
+        for (int i = 0; i < 200_000; i++) {
+            String name = "Product " + i;
+            assertEquals(name, ProductNames.canonical(name));
+        }
+        int pooled = ProductNames.pooled();
+        assertTrue(pooled <= ProductNames.capacity(), () -> pooled + " names pooled");
+
+        // A name still in use is shared again once it is back in its slot
+        String name = ProductNames.canonical(new String("Red Widget"));
+        assertSame(name, ProductNames.canonical(new String("Red Widget")));
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.replication;
+
+import com.example.codec.OrderCodec;
+import com.example.codec.ProductCodec;
+import com.example.codec.UserCodec;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Convergence of leader-to-follower replication on localhost.
+ *
+ * Runs a mixed write load (users, orders with items, status changes, stock changes and
+ * deletions) against a leader's repositories while two followers replicate it. Midway one
+ * follower drops its connection and resumes, and the leader's log is kept small enough
+ * that catching up may need a fresh snapshot. Once writes stop, every follower must reach
+ * zero lag and hold byte-for-byte the same encoded orders, products and users as the
+ * leader, including the leader's seeded sample products and nothing else.
+ */
+class ReplicationTest {
+    private static final int PRODUCTS = 50;
+    private static final int LOG_CAPACITY = 16_384;
+    private static final long WRITE_MILLIS = 3_000;
+    private static final int WRITERS = 2;
+    private static final long CONVERGENCE_TIMEOUT_MILLIS = 30_000;
+
+    private final OrderRepository orderRepository = new OrderRepository(0);
+    private final ProductRepository productRepository = new ProductRepository(0);
+    private final UserRepository userRepository = new UserRepository(0);
+
+    @Test
+    void followersConvergeOnLeaderStateAcrossReconnects() throws Exception {
+        for (long id = 1000; id < 1000 + PRODUCTS; id++) {
+            productRepository.save(new Product(id, "Replicated " + id, new BigDecimal("9.99"), 1_000_000));
+        }
+        try (ReplicationLeader leader = new ReplicationLeader(orderRepository, productRepository,
+                userRepository, 0, LOG_CAPACITY);
+             ReplicationFollower steady = new ReplicationFollower("localhost", leader.getPort());
+             ReplicationFollower flaky = new ReplicationFollower("localhost", leader.getPort())) {
+
+            ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WRITE_MILLIS);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int i = 0; i < WRITERS; i++) {
+                    writers.add(pool.submit(() -> write(deadline)));
+                }
+                Thread.sleep(WRITE_MILLIS / 2);
+                flaky.reconnect();
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            for (ReplicationFollower follower : List.of(steady, flaky)) {
+                awaitCaughtUp(leader, follower);
+                assertReplicated("orders", orderRepository.findAll(), follower.getOrderRepository().findAll(),
+                    Order::getId, OrderCodec::toBytes);
+                assertReplicated("products", productRepository.findAll(), follower.getProductRepository().findAll(),
+                    Product::getId, ProductCodec::toBytes);
+                assertReplicated("users", userRepository.findAll(), follower.getUserRepository().findAll(),
+                    User::getId, UserCodec::toBytes);
+            }
+        }
+    }
+
+    private void write(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            int op = random.nextInt(100);
+            if (op < 10) {
+                User user = new User(null, "user" + random.nextLong() + "@example.com", "Replica User");
+                userRepository.save(user);
+                if (random.nextInt(10) == 0) {
+                    userRepository.delete(user.getId());
+                }
+            } else if (op < 45) {
+                Order order = new Order(null, random.nextLong(1, 1000));
+                for (int i = random.nextInt(1, 4); i > 0; i--) {
+                    long productId = 1000 + random.nextInt(PRODUCTS);
+                    order.addItem(new OrderItem(productId, "Replicated " + productId, random.nextInt(1, 5),
+                        new BigDecimal("9.99")));
+                }
+                orderRepository.save(order);
+            } else if (op < 70) {
+                long id = random.nextLong(1, Math.max(2, orderRepository.count()));
+                OrderStatus[] statuses = OrderStatus.values();
+                orderRepository.updateStatus(id, statuses[random.nextInt(statuses.length)]);
+            } else if (op < 95) {
+                long productId = 1000 + random.nextInt(PRODUCTS);
+                if (random.nextBoolean()) {
+                    productRepository.decreaseStock(productId, random.nextInt(1, 4));
+                } else {
+                    productRepository.increaseStock(productId, random.nextInt(1, 4));
+                }
+            } else {
+                orderRepository.delete(random.nextLong(1, Math.max(2, orderRepository.count())));
+            }
+        }
+    }
+
+    private static void awaitCaughtUp(ReplicationLeader leader, ReplicationFollower follower) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + CONVERGENCE_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < giveUp) {
+            // Change events reach the log asynchronously, so require a stable log head too
+            long head = leader.getNextLsn() - 1;
+            if (follower.getAppliedLsn() == head && follower.getLagEntries() == 0) {
+                Thread.sleep(200);
+                if (leader.getNextLsn() - 1 == head && follower.getAppliedLsn() == head) {
+                    return;
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Follower stuck at LSN " + follower.getAppliedLsn() + " of " + (leader.getNextLsn() - 1));
+    }
+
+    private static <T> void assertReplicated(String what, List<T> expected, List<T> actual,
+                                       Function<T, Long> id, Function<T, byte[]> encode) {
+        Map<Long, ByteBuffer> leaderRecords = new HashMap<>();
+        for (T entity : expected) {
+            leaderRecords.put(id.apply(entity), ByteBuffer.wrap(encode.apply(entity)));
+        }
+        TreeSet<Long> mismatched = new TreeSet<>();
+        for (T entity : actual) {
+            ByteBuffer leaderRecord = leaderRecords.remove(id.apply(entity));
+            if (!ByteBuffer.wrap(encode.apply(entity)).equals(leaderRecord)) {
+                mismatched.add(id.apply(entity));
+            }
+        }
+        mismatched.addAll(leaderRecords.keySet());
+        assertTrue(mismatched.isEmpty(), () -> mismatched.size() + " of " + expected.size() + " " + what
+            + " differ or are missing on the follower, e.g. " + mismatched.first());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.repository;
+
+import com.example.cdc.ChangeEvent;
+import com.example.codec.OrderCodec;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link OrderRepository} change stream replays to the repository's own
+ * state while saves, status changes and deletions of the same orders race each other.
+ *
+ * A consumer that applies each event in sequence order (as a replication follower does)
+ * must end up with exactly the orders left in the repository, byte for byte: no order
+ * resurrected by a save or status event published after its deletion, and none lost.
+ */
+class OrderRepositoryChangesTest {
+    private static final int THREADS = 4;
+    private static final int OPERATIONS = 50_000;
+
+    @Test
+    void changeStreamReplaysToTheRepositoryState() throws Throwable {
+        OrderRepository repository = new OrderRepository(0);
+        Replica replica = new Replica();
+        repository.getChangePublisher().subscribe(replica, THREADS * OPERATIONS * 2);
+
+        AtomicLong newest = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int worker = t;
+            new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        // Aim at the orders being saved right now, so the operations collide
+                        long id = Math.max(1, newest.get() + random.nextInt(-2, 3));
+                        if (worker == 0 || random.nextInt(4) == 0) {
+                            Order order = new Order(null, random.nextLong(1, 100));
+                            order.addItem(new OrderItem(1L, "Widget", 1, new BigDecimal("5.00")));
+                            repository.save(order);
+                            newest.accumulateAndGet(order.getId(), Math::max);
+                        } else if (random.nextBoolean()) {
+                            repository.delete(id);
+                        } else {
+                            repository.updateStatus(id, random.nextBoolean() ? OrderStatus.CONFIRMED : OrderStatus.CANCELLED);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "changes-test-" + t).start();
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS), "writers did not finish");
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        replica.awaitSequence(repository.getChangePublisher().getNextSequence() - 1);
+
+        Map<Long, ByteBuffer> expected = new HashMap<>();
+        for (Order order : repository.findAll()) {
+            expected.put(order.getId(), ByteBuffer.wrap(OrderCodec.toBytes(order)));
+        }
+        TreeSet<Long> mismatched = new TreeSet<>();
+        for (Map.Entry<Long, ByteBuffer> entry : replica.records.entrySet()) {
+            if (!entry.getValue().equals(expected.remove(entry.getKey()))) {
+                mismatched.add(entry.getKey());
+            }
+        }
+        mismatched.addAll(expected.keySet());
+        assertTrue(mismatched.isEmpty(), () -> mismatched.size() + " orders differ between the change stream and "
+            + "the repository, e.g. " + mismatched.first());
+    }
+
+    /**
+     * Applies events in delivery order: upserts the captured record, or removes it on deletion.
+     */
+    private static final class Replica implements Flow.Subscriber<ChangeEvent<Order>> {
+        private final Map<Long, ByteBuffer> records = new HashMap<>();
+        private volatile long lastSequence;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ChangeEvent<Order> event) {
+            if (event.getType() == ChangeEvent.Type.DELETED) {
+                records.remove(event.getEntityId());
+            } else {
+                records.put(event.getEntityId(), ByteBuffer.wrap(event.getRecord()));
+            }
+            lastSequence = event.getSequence();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void awaitSequence(long sequence) throws InterruptedException {
+            long giveUp = System.currentTimeMillis() + 30_000;
+            while (lastSequence < sequence) {
+                if (error != null) {
+                    throw new AssertionError("change stream failed", error);
+                }
+                assertTrue(System.currentTimeMillis() < giveUp,
+                    () -> "change stream stuck at " + lastSequence + " of " + sequence);
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.search;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.util.MoneyUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link ProductSearchIndex} against a brute-force scan.
+ *
+ * Bulk-loads a generated catalog, re-saves a slice of it with changed text and changes
+ * stock and active flags, then runs random keyword and type-ahead queries. For each
+ * query the index's ranking must match the scores of a full scan using the same
+ * formula, and every hit must be active and in stock.
+ */
+class ProductSearchIndexTest {
+    private static final int PRODUCTS = 20_000;
+    private static final int QUERIES = 300;
+    private static final long SEED = 0x5EA4C4L;
+    private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+    private static final int LIMIT = 20;
+    private static final String[] ADJECTIVES = {
+        "wireless", "portable", "compact", "premium", "classic", "ergonomic", "smart", "rugged",
+        "silent", "vintage", "modular", "foldable", "heated", "waterproof", "digital", "organic"
+    };
+    private static final String[] NOUNS = {
+        "laptop", "lamp", "ladder", "mouse", "keyboard", "monitor", "speaker", "headphones", "camera",
+        "kettle", "blender", "backpack", "tent", "jacket", "boots", "drill", "router", "charger",
+        "tablet", "watch", "chair", "desk", "mug", "bottle", "scarf", "helmet", "bicycle", "printer"
+    };
+    private static final String[] CATEGORIES = {
+        "Electronics", "Home", "Outdoor", "Office", "Kitchen", "Sports", "Clothing", "Tools"
+    };
+    private static final String[] FILLER = {
+        "with", "long", "battery", "life", "and", "fast", "delivery", "made", "from", "recycled",
+        "steel", "aluminium", "cotton", "bamboo", "includes", "warranty", "for", "two", "years"
+    };
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final ProductRepository repository = new ProductRepository(0, false);
+    private final List<Product> catalog = new ArrayList<>();
+    private final List<Map<String, Integer>> catalogTerms = new ArrayList<>();
+    private final Map<String, Integer> frequencies = new HashMap<>();
+
+    @BeforeEach
+    void loadAndChangeCatalog() {
+        for (int i = 0; i < PRODUCTS; i++) {
+            catalog.add(randomProduct(i + 1L));
+        }
+        repository.saveAll(catalog);
+
+        for (int i = 0; i < PRODUCTS / 100; i++) {
+            Product changed = catalog.get(random.nextInt(PRODUCTS));
+            Product replacement = randomProduct(changed.getId());
+            catalog.set((int) (changed.getId() - 1), replacement);
+            repository.save(replacement);
+            Product other = catalog.get(random.nextInt(PRODUCTS));
+            if (random.nextBoolean()) {
+                other.setActive(!other.isActive());
+            } else {
+                repository.decreaseStock(other.getId(), other.getStockQuantity());
+            }
+        }
+
+        for (Product product : catalog) {
+            Map<String, Integer> terms = terms(product);
+            catalogTerms.add(terms);
+            terms.keySet().forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        }
+    }
+
+    @Test
+    void keywordSearchRanksLikeAFullScan() {
+        for (int i = 0; i < QUERIES; i++) {
+            String query = randomQuery(false);
+            verify(query, false, repository.search(query, LIMIT));
+        }
+    }
+
+    @Test
+    void typeAheadRanksLikeAFullScan() {
+        for (int i = 0; i < QUERIES; i++) {
+            String query = randomQuery(true);
+            verify(query, true, repository.complete(query, LIMIT));
+        }
+    }
+
+    private Product randomProduct(long id) {
+        String noun = pick(NOUNS);
+        Product product = new Product(id, capitalize(pick(ADJECTIVES)) + " " + noun + " " + random.nextInt(2000),
+            MoneyUtils.fromCents(100 + random.nextInt(100_000)), random.nextInt(10) == 0 ? 0 : random.nextInt(500));
+        product.setCategory(pick(CATEGORIES));
+        product.setActive(random.nextInt(20) != 0);
+        StringBuilder description = new StringBuilder("A ").append(pick(ADJECTIVES)).append(' ').append(noun);
+        for (int i = random.nextInt(8); i > 0; i--) {
+            description.append(' ').append(random.nextInt(4) == 0 ? pick(NOUNS) : pick(FILLER));
+        }
+        product.setDescription(description.toString());
+        return product;
+    }
+
+    private String randomQuery(boolean prefix) {
+        List<String> words = new ArrayList<>();
+        int length = 1 + random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            String[] source = switch (random.nextInt(4)) {
+                case 0 -> ADJECTIVES;
+                case 1 -> CATEGORIES;
+                case 2 -> FILLER;
+                default -> NOUNS;
+            };
+            words.add(pick(source));
+        }
+        if (prefix) {
+            String last = words.remove(words.size() - 1);
+            words.add(last.substring(0, 1 + random.nextInt(last.length())));
+        }
+        String query = String.join(" ", words);
+        return random.nextBoolean() ? query.toUpperCase(Locale.ROOT) : query;
+    }
+
+    /**
+     * Recomputes every product's score by brute force and compares the ranking.
+     */
+    private void verify(String query, boolean prefix, List<Product> hits) {
+        List<String> tokens = tokens(query);
+        double[] expected = new double[catalog.size()];
+        int matching = 0;
+        for (int p = 0; p < catalog.size(); p++) {
+            Product product = catalog.get(p);
+            double score = score(tokens, prefix, catalogTerms.get(p));
+            if (score > 0 && product.isActive() && product.isInStock()) {
+                expected[matching++] = score;
+            }
+        }
+        double[] best = Arrays.copyOf(expected, matching);
+        Arrays.sort(best);
+        assertEquals(Math.min(LIMIT, matching), hits.size(), () -> "hits for '" + query + "'");
+        for (int i = 0; i < hits.size(); i++) {
+            Product hit = hits.get(i);
+            int rank = i;
+            assertTrue(hit.isActive() && hit.isInStock(), () -> "'" + query + "': unavailable product returned: " + hit);
+            assertEquals(best[matching - 1 - i], score(tokens, prefix, terms(hit)), 1e-9,
+                () -> "'" + query + "': score of hit " + rank + ", " + hit);
+        }
+    }
+
+    private double score(List<String> tokens, boolean prefix, Map<String, Integer> terms) {
+        double total = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean asPrefix = prefix && i == tokens.size() - 1;
+            if (!asPrefix && tokens.subList(i + 1, tokens.size()).contains(token)) {
+                continue;
+            }
+            double best = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                if (asPrefix ? term.getKey().startsWith(token) : term.getKey().equals(token)) {
+                    double idf = Math.log(1 + catalog.size() / (double) frequencies.get(term.getKey()));
+                    best = Math.max(best, idf * FIELD_WEIGHTS[term.getValue()]);
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static Map<String, Integer> terms(Product product) {
+        Map<String, Integer> terms = new HashMap<>();
+        String[] fields = {product.getName(), product.getCategory(), product.getDescription()};
+        for (int tier = 0; tier < fields.length; tier++) {
+            for (String token : tokens(fields[tier])) {
+                terms.merge(token, tier, Math::min);
+            }
+        }
+        return terms;
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text != null) {
+            for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
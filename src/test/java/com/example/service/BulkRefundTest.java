@@ -0,0 +1,194 @@
+package com.example.service;
+
+import com.example.exception.ValidationException;
+import com.example.logging.RequestContext;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link OrderService#cancelAndRefund} against a stub gateway with real latency.
+ *
+ * Fills a repository with pending, confirmed and shipped orders, some outside the time
+ * window, and a gateway that rejects some refunds a few times and others always. Checks
+ * every selected order's outcome and final status, that flaky refunds were retried until
+ * they succeeded and broken ones exactly up to the attempt limit, that nothing outside
+ * the selection was touched, that the worker bound was respected and that the workers
+ * ran under the caller's correlation ID.
+ */
+class BulkRefundTest {
+    private static final int ORDERS = 500;
+    private static final int WORKERS = 16;
+    private static final int ATTEMPTS = 4;
+    private static final int FLAKY_FAILURES = 2;
+    private static final Set<OrderStatus> SELECTION = EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED);
+
+    private final Gateway gateway = new Gateway();
+
+    @Test
+    void cancelsAndRefundsTheSelectedOrders() {
+        checkRun(WORKERS);
+        assertTrue(gateway.maxInFlight.get() > 1, "refunds never ran in parallel");
+    }
+
+    @Test
+    void runsWithASingleWorker() {
+        checkRun(1);
+    }
+
+    @Test
+    void refundsAProcessedOrderWithItsOwnTransaction() {
+        ProductRepository products = new ProductRepository(0, false);
+        products.save(new Product(1L, "Widget", new BigDecimal("5.00"), 10));
+        OrderService service = new OrderService(new OrderRepository(0), products, new ProductService(products),
+            new PaymentService(gateway));
+        Order order = service.createOrder(1L, "1 Main St");
+        service.addItemToOrder(order.getId(), 1L, 2);
+        service.processOrder(order.getId(), "4111111111111111");
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkRefundReport report = service.cancelAndRefund(EnumSet.of(OrderStatus.CONFIRMED),
+            now.minusMinutes(1), now.plusMinutes(1));
+        assertEquals(1, report.count(BulkRefundReport.Outcome.REFUNDED), report::toString);
+        assertEquals(OrderStatus.REFUNDED, order.getStatus());
+        assertEquals(1, gateway.refunds(order.getPaymentTransactionId()));
+    }
+
+    @Test
+    void rejectsStatusesThatCannotBeCancelled() {
+        OrderService service = service(new OrderRepository(0));
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(ValidationException.class, () -> service.cancelAndRefund(
+            EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.SHIPPED), now.minusDays(1), now));
+    }
+
+    /**
+     * Runs one bulk cancellation over fresh orders under a known correlation ID and
+     * checks its report.
+     */
+    private void checkRun(int workers) {
+        OrderRepository repository = new OrderRepository(0);
+        OrderService service = service(repository);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order(null, (long) i);
+            order.addItem(new OrderItem(1L, "Widget", 1, new BigDecimal("5.00")));
+            if (i % 10 == 9) {
+                order.setStatus(OrderStatus.SHIPPED);
+                order.setPaymentTransactionId("shipped-" + i);
+            } else if (i % 4 != 0) {
+                order.setStatus(OrderStatus.CONFIRMED);
+                order.setPaymentTransactionId(i % 50 == 1 ? "flaky-" + i : i % 97 == 2 ? "broken-" + i : "txn-" + i);
+            }
+            if (i % 100 == 3) {
+                order.setCreatedAt(now.minusDays(2));
+            }
+            repository.save(order);
+        }
+
+        BulkRefundReport report;
+        RequestContext.Scope scope = RequestContext.open("bulk-refund-test");
+        try {
+            report = service.cancelAndRefund(SELECTION, now.minusDays(1), now.plusMinutes(1),
+                workers, ATTEMPTS, Duration.ofMillis(1));
+        } finally {
+            scope.close();
+        }
+
+        int selected = 0;
+        for (Order order : repository.findAll()) {
+            long i = order.getUserId();
+            boolean untouched = i % 100 == 3 || i % 10 == 9;
+            String txn = order.getPaymentTransactionId();
+            OrderStatus expected;
+            if (untouched) {
+                expected = i % 10 == 9 ? OrderStatus.SHIPPED : i % 4 == 0 ? OrderStatus.PENDING : OrderStatus.CONFIRMED;
+            } else {
+                selected++;
+                expected = txn == null || txn.startsWith("broken") ? OrderStatus.CANCELLED : OrderStatus.REFUNDED;
+            }
+            assertEquals(expected, order.getStatus(), () -> "status of order " + order.getId() + " (" + txn + ")");
+            int expectedRefunds = untouched || txn == null ? 0
+                : txn.startsWith("flaky") ? FLAKY_FAILURES + 1 : txn.startsWith("broken") ? ATTEMPTS : 1;
+            assertEquals(expectedRefunds, gateway.refunds(txn), () -> "refund calls for " + txn);
+        }
+
+        assertEquals(selected, report.getEntries().size());
+        for (BulkRefundReport.Entry entry : report.getEntries()) {
+            Order order = repository.findById(entry.getOrderId()).orElseThrow();
+            BulkRefundReport.Outcome expected = order.getPaymentTransactionId() == null ? BulkRefundReport.Outcome.CANCELLED
+                : order.getStatus() == OrderStatus.REFUNDED ? BulkRefundReport.Outcome.REFUNDED
+                : BulkRefundReport.Outcome.REFUND_FAILED;
+            assertEquals(expected, entry.getOutcome(), () -> entry + " for " + order);
+            if (expected == BulkRefundReport.Outcome.REFUND_FAILED) {
+                assertEquals("REFUND_FAILED", entry.getErrorCode());
+            }
+        }
+        assertTrue(gateway.maxInFlight.get() <= workers,
+            () -> gateway.maxInFlight.get() + " refunds in flight with " + workers + " workers");
+        assertEquals(Set.of("bulk-refund-test"), gateway.correlationIds.keySet());
+    }
+
+    private OrderService service(OrderRepository repository) {
+        ProductRepository products = new ProductRepository(0, false);
+        return new OrderService(repository, products, new ProductService(products), new PaymentService(gateway));
+    }
+
+    /**
+     * Stub gateway that counts refunds per transaction and records the correlation IDs
+     * they ran under; "flaky-" transactions are rejected {@value #FLAKY_FAILURES} times
+     * before succeeding and "broken-" ones always.
+     */
+    private static final class Gateway implements PaymentGateway {
+        private final PaymentGateway stub = new StubPaymentGateway(0, 2000);
+        private final Map<String, AtomicInteger> refunds = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> correlationIds = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public void connect() throws Exception {
+            stub.connect();
+        }
+
+        @Override
+        public String authorize(String transactionId, BigDecimal amount) {
+            return stub.authorize(transactionId, amount);
+        }
+
+        @Override
+        public boolean refund(String transactionId, BigDecimal amount) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                correlationIds.put(String.valueOf(RequestContext.currentId()), Boolean.TRUE);
+                stub.refund(transactionId, amount);
+                int attempt = refunds.computeIfAbsent(transactionId, k -> new AtomicInteger()).incrementAndGet();
+                return transactionId.startsWith("flaky") ? attempt > FLAKY_FAILURES : !transactionId.startsWith("broken");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        int refunds(String transactionId) {
+            AtomicInteger count = transactionId == null ? null : refunds.get(transactionId);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
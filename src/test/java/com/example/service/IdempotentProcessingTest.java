@@ -0,0 +1,208 @@
+package com.example.service;
+
+import com.example.admission.AdmissionControl;
+import com.example.admission.ConcurrencyLimit;
+import com.example.admission.TokenBucketLimiter;
+import com.example.exception.OrderProcessingException;
+import com.example.exception.PaymentFailedException;
+import com.example.exception.RateLimitExceededException;
+import com.example.exception.ValidationException;
+import com.example.model.Order;
+import com.example.model.OrderItem;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the idempotency keys of {@link OrderService#processOrder(Long, String, String)}
+ * and {@link PaymentService#processPayment(Long, BigDecimal, String, String)}.
+ *
+ * Fires concurrent duplicates and later retries at a gateway with real latency and
+ * counts authorizations: one key must mean one charge and one stock reservation, with
+ * every caller seeing the same outcome. Calls turned away before any work was done must
+ * not be recorded, so a retry with the same key goes through.
+ */
+class IdempotentProcessingTest {
+    private static final String CARD = "4111111111111111";
+    private static final long PRODUCT_ID = 1L;
+    private static final int DUPLICATES = 16;
+
+    private final AtomicInteger authorizations = new AtomicInteger();
+    private final AtomicBoolean gatewayDown = new AtomicBoolean();
+    private final PaymentService paymentService = new PaymentService(new CountingGateway());
+    private final ProductRepository productRepository = new ProductRepository(0, false);
+    private final OrderRepository orderRepository = new OrderRepository(0);
+    private final ExecutorService callers = Executors.newFixedThreadPool(DUPLICATES);
+
+    IdempotentProcessingTest() {
+        productRepository.save(new Product(PRODUCT_ID, "Widget", new BigDecimal("5.00"), 100));
+    }
+
+    @AfterEach
+    void shutDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void chargesOncePerPaymentKey() throws Exception {
+        BigDecimal amount = new BigDecimal("12.50");
+        Set<String> transactions = new HashSet<>(concurrently(
+            () -> paymentService.processPayment(7L, amount, CARD, "pay-7")));
+        transactions.add(paymentService.processPayment(7L, new BigDecimal("12.5"), CARD, "pay-7"));
+        assertEquals(1, transactions.size(), transactions::toString);
+        assertEquals(1, authorizations.get());
+
+        assertThrows(ValidationException.class,
+            () -> paymentService.processPayment(7L, new BigDecimal("99.00"), CARD, "pay-7"));
+        assertThrows(ValidationException.class, () -> paymentService.processPayment(8L, amount, CARD, "pay-7"));
+
+        PaymentFailedException first = assertThrows(PaymentFailedException.class,
+            () -> paymentService.processPayment(9L, amount, "not a card", "pay-9"));
+        assertSame(first, assertThrows(PaymentFailedException.class,
+            () -> paymentService.processPayment(9L, amount, "not a card", "pay-9")));
+
+        String unkeyed = paymentService.processPayment(10L, amount, CARD, null);
+        assertNotEquals(unkeyed, paymentService.processPayment(10L, amount, CARD, null));
+        assertEquals(3, authorizations.get());
+    }
+
+    @Test
+    void retriesAPaymentWhenTheGatewayWasUnreachable() {
+        BigDecimal amount = new BigDecimal("12.50");
+        gatewayDown.set(true);
+        assertEquals("GATEWAY_UNAVAILABLE", assertThrows(PaymentFailedException.class,
+            () -> paymentService.processPayment(7L, amount, CARD, "pay-7")).getErrorCode());
+        gatewayDown.set(false);
+        paymentService.processPayment(7L, amount, CARD, "pay-7");
+        assertEquals(1, authorizations.get());
+    }
+
+    @Test
+    void processesAnOrderOncePerKey() throws Exception {
+        OrderService orderService = orderService(AdmissionControl.unlimited());
+        Order order = orderService.createOrder(1L, "1 Main St");
+        orderService.addItemToOrder(order.getId(), PRODUCT_ID, 3);
+        String key = "order-" + order.getId();
+
+        List<Order> results = concurrently(() -> orderService.processOrder(order.getId(), CARD, key));
+        results.add(orderService.processOrder(order.getId(), CARD, key));
+        for (Order result : results) {
+            assertSame(order, result);
+        }
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(97, stock());
+        assertEquals(1, authorizations.get());
+
+        Order other = orderService.createOrder(1L, "1 Main St");
+        other.addItem(new OrderItem(PRODUCT_ID, "Widget", 1, new BigDecimal("5.00")));
+        assertThrows(ValidationException.class, () -> orderService.processOrder(other.getId(), CARD, key));
+    }
+
+    @Test
+    void retriesARateLimitedOrderWithTheSameKey() throws InterruptedException {
+        AdmissionControl admission = new AdmissionControl(
+            new TokenBucketLimiter(10, 1, Duration.ofMinutes(1)), new ConcurrencyLimit(64));
+        OrderService orderService = orderService(admission);
+        Order order = pendingOrder();
+        // Spend the order's only token
+        orderService.getOrderById(order.getId());
+
+        assertThrows(RateLimitExceededException.class, () -> orderService.processOrder(order.getId(), CARD, "k"));
+        Thread.sleep(200);
+        assertSame(order, orderService.processOrder(order.getId(), CARD, "k"));
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(1, authorizations.get());
+    }
+
+    @Test
+    void retriesAnOrderThatWasHeldByAnotherCaller() {
+        OrderService orderService = orderService(AdmissionControl.unlimited());
+        Order order = pendingOrder();
+        order.tryClaimProcessing();
+
+        assertThrows(OrderProcessingException.class, () -> orderService.processOrder(order.getId(), CARD, "k"));
+        order.releaseProcessingClaim();
+        assertSame(order, orderService.processOrder(order.getId(), CARD, "k"));
+        assertEquals(98, stock());
+    }
+
+    private OrderService orderService(AdmissionControl admission) {
+        return new OrderService(orderRepository, productRepository, new ProductService(productRepository),
+            paymentService, admission);
+    }
+
+    private Order pendingOrder() {
+        Order order = new Order(null, 1L);
+        order.addItem(new OrderItem(PRODUCT_ID, "Widget", 2, new BigDecimal("5.00")));
+        return orderRepository.save(order);
+    }
+
+    private int stock() {
+        return productRepository.findById(PRODUCT_ID).orElseThrow().getStockQuantity();
+    }
+
+    private <T> List<T> concurrently(Callable<T> call) throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < DUPLICATES; i++) {
+            futures.add(callers.submit(() -> {
+                go.await();
+                return call.call();
+            }));
+        }
+        go.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Stub gateway with real latency that counts authorizations and can be taken down.
+     */
+    private final class CountingGateway implements PaymentGateway {
+        private final PaymentGateway stub = new StubPaymentGateway(0, 20_000);
+
+        @Override
+        public void connect() throws Exception {
+            if (gatewayDown.get()) {
+                throw new IllegalStateException("Gateway down");
+            }
+            stub.connect();
+        }
+
+        @Override
+        public String authorize(String transactionId, BigDecimal amount) {
+            authorizations.incrementAndGet();
+            return stub.authorize(transactionId, amount);
+        }
+
+        @Override
+        public boolean refund(String transactionId, BigDecimal amount) {
+            return stub.refund(transactionId, amount);
+        }
+    }
+}
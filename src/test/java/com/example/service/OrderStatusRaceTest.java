@@ -0,0 +1,137 @@
+package com.example.service;
+
+import com.example.model.Order;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Races {@code processOrder} against {@code cancelOrder}, and against a second
+ * {@code processOrder}, on fresh orders, and checks that each final status agrees with
+ * which calls reported success and that stock is only consumed by confirmed orders.
+ */
+class OrderStatusRaceTest {
+    private static final long PRODUCT_ID = 1000L;
+    private static final int INITIAL_STOCK = 100_000_000;
+    private static final String CARD = "4111111111111111";
+    private static final int ROUNDS = 2000;
+    private static final int PARALLELISM = 4;
+
+    private final ProductRepository productRepository = new ProductRepository(0, false);
+    private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+    private final AtomicLong confirmedUnits = new AtomicLong();
+    private OrderService orderService;
+    private ExecutorService racers;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.save(new Product(PRODUCT_ID, "Stress Widget", new BigDecimal("1.00"), INITIAL_STOCK));
+        PaymentService paymentService = new PaymentService(new StubPaymentGateway(5, 0));
+        orderService = new OrderService(new OrderRepository(0), productRepository,
+            new ProductService(productRepository), paymentService);
+        racers = Executors.newFixedThreadPool(PARALLELISM * 2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        racers.shutdownNow();
+        racers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void processAndCancelRacesLeaveConsistentStatusAndStock() throws Exception {
+        ExecutorService rounds = Executors.newFixedThreadPool(PARALLELISM);
+        try {
+            List<Future<?>> pending = new ArrayList<>(ROUNDS);
+            for (int i = 0; i < ROUNDS; i++) {
+                boolean processVsProcess = i % 4 == 0;
+                pending.add(rounds.submit(() -> {
+                    runRound(processVsProcess);
+                    return null;
+                }));
+            }
+            for (Future<?> round : pending) {
+                round.get();
+            }
+        } finally {
+            rounds.shutdownNow();
+        }
+
+        assertTrue(violations.isEmpty(), () -> violations.size() + " violations, e.g. " + violations.peek());
+        long consumed = INITIAL_STOCK - productRepository.findById(PRODUCT_ID).orElseThrow().getStockQuantity();
+        assertEquals(confirmedUnits.get(), consumed, "stock consumed vs units of confirmed orders");
+    }
+
+    private void runRound(boolean processVsProcess) throws Exception {
+        Order order = orderService.createOrder(1L, "1 Stress Street");
+        orderService.addItemToOrder(order.getId(), PRODUCT_ID, 1);
+
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Boolean> process = racers.submit(() -> {
+            start.await();
+            return succeeded(() -> orderService.processOrder(order.getId(), CARD));
+        });
+        Future<Boolean> other = racers.submit(() -> {
+            start.await();
+            return processVsProcess
+                ? succeeded(() -> orderService.processOrder(order.getId(), CARD))
+                : succeeded(() -> orderService.cancelOrder(order.getId()));
+        });
+        start.countDown();
+        boolean processOk = process.get();
+        boolean otherOk = other.get();
+        OrderStatus finalStatus = order.getStatus();
+
+        if (processVsProcess) {
+            if (processOk && otherOk) {
+                violations.add("order " + order.getId() + " processed twice");
+            }
+            if ((processOk || otherOk) != (finalStatus == OrderStatus.CONFIRMED)) {
+                violations.add("order " + order.getId() + " process outcome disagrees with status " + finalStatus);
+            }
+            if (processOk || otherOk) {
+                confirmedUnits.incrementAndGet();
+            }
+            return;
+        }
+
+        if (otherOk && finalStatus != OrderStatus.CANCELLED) {
+            violations.add("order " + order.getId() + " cancel succeeded but status is " + finalStatus);
+        }
+        if (processOk && !otherOk && finalStatus != OrderStatus.CONFIRMED) {
+            violations.add("order " + order.getId() + " processed but status is " + finalStatus);
+        }
+        if (processOk) {
+            // Cancelling a confirmed order keeps its stock, so count it either way
+            confirmedUnits.incrementAndGet();
+        }
+    }
+
+    private static boolean succeeded(Runnable call) {
+        try {
+            call.run();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
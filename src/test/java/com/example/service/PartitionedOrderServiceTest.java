@@ -0,0 +1,179 @@
+package com.example.service;
+
+import com.example.exception.OrderProcessingException;
+import com.example.model.Order;
+import com.example.model.OrderStatus;
+import com.example.model.Product;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link PartitionedOrderService} under concurrent checkouts.
+ *
+ * Several threads run checkouts for random users and cancel each other's orders along
+ * the way, racing processOrder against cancelOrder. Afterwards every user's orders must
+ * be found under unique IDs, each order must be CONFIRMED or CANCELLED, and the product's
+ * stock must equal the initial stock minus exactly the quantities of the orders that
+ * were paid for. Every order must also have been written through to the order repository.
+ * Calls made while the service closes must return or fail, never hang.
+ */
+class PartitionedOrderServiceTest {
+    private static final String CARD = "4111111111111111";
+    private static final long PRODUCT_ID = 1L;
+    private static final int STOCK = 1_000_000;
+    private static final int USERS = 500;
+    private static final int THREADS = 8;
+    private static final int CHECKOUTS = 500;
+    private static final int PARTITIONS = 4;
+    private static final int CLOSING_CALLERS = 32;
+
+    @Test
+    void keepsOrdersAndStockConsistentUnderRaces() throws Throwable {
+        ProductRepository products = new ProductRepository(0, false);
+        products.save(new Product(PRODUCT_ID, "Widget", new BigDecimal("5.00"), STOCK));
+        OrderRepository orders = new OrderRepository(0);
+        try (PartitionedOrderService service = new PartitionedOrderService(orders, products,
+                new ProductService(products), new PaymentService(new StubPaymentGateway()), PARTITIONS)) {
+            Map<Long, Long> owners = new ConcurrentHashMap<>();
+            runConcurrently(worker -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < CHECKOUTS; i++) {
+                    long userId = random.nextInt(USERS);
+                    Order order = service.createOrder(userId, "1 Main St");
+                    assertNull(owners.put(order.getId(), userId), () -> "order ID " + order.getId() + " handed out twice");
+                    try {
+                        service.addItemToOrder(order.getId(), PRODUCT_ID, 1 + random.nextInt(3));
+                    } catch (OrderProcessingException expected) {
+                        // A neighbour cancelled it first
+                    }
+                    // Each worker cancels a neighbour in the same partition, possibly mid-checkout
+                    long neighbour = order.getId() + ((worker & 1) == 0 ? PARTITIONS : -PARTITIONS);
+                    if ((worker & 1) == 0) {
+                        process(service, order.getId());
+                    }
+                    try {
+                        service.cancelOrder(neighbour);
+                    } catch (OrderProcessingException expected) {
+                        // Not created yet, already cancelled or mid-checkout
+                    }
+                    if ((worker & 1) != 0) {
+                        process(service, order.getId());
+                    }
+                }
+            });
+
+            long confirmed = 0;
+            long ordersSeen = 0;
+            Set<Long> ids = new HashSet<>();
+            for (long userId = 0; userId < USERS; userId++) {
+                for (Order order : service.getUserOrders(userId)) {
+                    ordersSeen++;
+                    assertTrue(ids.add(order.getId()), () -> "order " + order.getId() + " listed twice");
+                    assertEquals(userId, order.getUserId());
+                    assertSame(order, service.getOrderById(order.getId()));
+                    assertSame(order, orders.findById(order.getId()).orElseThrow(),
+                        () -> "order " + order.getId() + " not written through to the repository");
+                    // Cancelling a confirmed order keeps its stock, as in OrderService
+                    if (order.getPaymentTransactionId() != null) {
+                        confirmed += order.getItems().get(0).getQuantity();
+                    }
+                    assertTrue(order.getStatus() == OrderStatus.CONFIRMED || order.getStatus() == OrderStatus.CANCELLED,
+                        () -> "order " + order.getId() + " left in status " + order.getStatus());
+                }
+            }
+            assertEquals(owners.size(), ordersSeen);
+            assertEquals(ordersSeen, orders.count());
+            assertEquals(STOCK - confirmed, products.findById(PRODUCT_ID).orElseThrow().getStockQuantity());
+        }
+    }
+
+    @Test
+    void settlesCallsMadeWhileClosing() throws InterruptedException {
+        ProductRepository products = new ProductRepository(0, false);
+        for (int round = 0; round < 300; round++) {
+            PartitionedOrderService service = new PartitionedOrderService(new OrderRepository(0), products,
+                new ProductService(products), new PaymentService(new StubPaymentGateway()), 2);
+            // Many more callers than cores, so some are preempted between checking and queueing
+            CountDownLatch started = new CountDownLatch(CLOSING_CALLERS);
+            CountDownLatch done = new CountDownLatch(CLOSING_CALLERS);
+            for (int t = 0; t < CLOSING_CALLERS; t++) {
+                Thread caller = new Thread(() -> {
+                    started.countDown();
+                    try {
+                        for (long userId = 0; userId < 2000; userId++) {
+                            service.createOrder(userId, "1 Main St");
+                        }
+                    } catch (IllegalStateException expected) {
+                        // Closed
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                caller.setDaemon(true);
+                caller.start();
+            }
+            started.await();
+            service.close();
+            assertTrue(done.await(10, TimeUnit.SECONDS), "a call made during close never returned");
+        }
+    }
+
+    @Test
+    void rejectsARepositoryThatAlreadyHoldsOrders() {
+        OrderRepository orders = new OrderRepository(0);
+        orders.save(new Order(null, 1L));
+        ProductRepository products = new ProductRepository(0, false);
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedOrderService(orders, products,
+            new ProductService(products), new PaymentService(new StubPaymentGateway()), PARTITIONS));
+    }
+
+    private static void process(PartitionedOrderService service, long orderId) {
+        try {
+            service.processOrder(orderId, CARD);
+        } catch (OrderProcessingException expected) {
+            // Lost the race against a cancellation, or has no items
+        }
+    }
+
+    private interface Worker {
+        void run(int index);
+    }
+
+    private static void runConcurrently(Worker body) throws Throwable {
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < THREADS; i++) {
+            int index = i;
+            new Thread(() -> {
+                try {
+                    body.run(index);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "partition-test-" + i).start();
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
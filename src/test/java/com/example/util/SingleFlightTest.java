@@ -0,0 +1,182 @@
+package com.example.util;
+
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.OrderRepository;
+import com.example.repository.ProductRepository;
+import com.example.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link SingleFlight} and the coalescing of concurrent {@code findById} calls in
+ * the repositories.
+ *
+ * Releases bursts of callers at one hot key of each repository and compares the
+ * simulated round trips with the calls made; every caller must see the same entity.
+ * Also checks that a failed load is shared but not remembered, that an interrupted
+ * waiter falls back to its own load without disturbing the others, and that a lookup
+ * starting after a save never joins a load that started before it.
+ */
+class SingleFlightTest {
+    private static final long LATENCY_MILLIS = 20;
+    private static final int CALLERS = 32;
+    private static final int BURSTS = 5;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void coalescesHotKeyLookups() throws Exception {
+        ProductRepository products = new ProductRepository(LATENCY_MILLIS);
+        OrderRepository orders = new OrderRepository(LATENCY_MILLIS);
+        UserRepository users = new UserRepository(LATENCY_MILLIS);
+        Order order = orders.save(new Order(null, 1L));
+        User user = users.save(new User(null, "hot@example.com", "Hot Key"));
+
+        checkHotKey(products.getFindByIdLoads(), () -> products.findById(1L));
+        checkHotKey(orders.getFindByIdLoads(), () -> orders.findById(order.getId()));
+        checkHotKey(users.getFindByIdLoads(), () -> users.findById(user.getId()));
+    }
+
+    @Test
+    void sharesButForgetsFailures() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        IllegalStateException boom = new IllegalStateException("backend down");
+        List<Future<Object>> futures = new ArrayList<>();
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(pool.submit(() -> {
+                go.await();
+                try {
+                    return flight.load(1, () -> {
+                        sleep(LATENCY_MILLIS);
+                        throw boom;
+                    });
+                } catch (IllegalStateException e) {
+                    return e;
+                }
+            }));
+        }
+        go.countDown();
+        for (Future<Object> future : futures) {
+            assertSame(boom, future.get());
+        }
+        assertTrue(flight.getLoadCount() <= 2, () -> flight.getLoadCount() + " loads for one failing burst");
+        assertEquals("ok", flight.load(1, () -> "ok"));
+    }
+
+    @Test
+    void interruptedWaiterLoadsOnItsOwn() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> flight.load(1, () -> {
+            leading.countDown();
+            await(release);
+            return "leader";
+        }));
+        leading.await();
+        String[] seen = new String[1];
+        boolean[] interrupted = new boolean[1];
+        Thread waiter = new Thread(() -> {
+            seen[0] = flight.load(1, () -> "own load");
+            interrupted[0] = Thread.currentThread().isInterrupted();
+        });
+        waiter.start();
+        while (flight.getSharedCount() == 0) {
+            Thread.onSpinWait();
+        }
+        waiter.interrupt();
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+        release.countDown();
+
+        assertEquals("own load", seen[0]);
+        assertTrue(interrupted[0], "the waiter's interrupt must be kept");
+        assertEquals("leader", leader.get());
+    }
+
+    @Test
+    void lookupAfterASaveDoesNotJoinAnOlderLoad() throws Exception {
+        ProductRepository products = new ProductRepository(LATENCY_MILLIS);
+        Product replacement = new Product(1L, "Laptop Pro 15 (2nd gen)", new BigDecimal("1399.99"), 10);
+        long loadsBefore = products.getFindByIdLoads().getLoadCount();
+        Future<Optional<Product>> early = pool.submit(() -> products.findById(1L));
+        while (products.getFindByIdLoads().getLoadCount() == loadsBefore) {
+            Thread.onSpinWait();
+        }
+        products.save(replacement);
+        assertSame(replacement, products.findById(1L).orElse(null));
+        early.get();
+    }
+
+    private <T> void checkHotKey(SingleFlight<Optional<T>> loads, Callable<Optional<T>> lookup) throws Exception {
+        long loadsBefore = loads.getLoadCount();
+        long calls = 0;
+        for (int burst = 0; burst < BURSTS; burst++) {
+            List<Optional<T>> results = burst(lookup);
+            calls += results.size();
+            T first = results.get(0).orElseThrow();
+            for (Optional<T> result : results) {
+                assertSame(first, result.orElse(null));
+            }
+        }
+        long backend = loads.getLoadCount() - loadsBefore;
+        long totalCalls = calls;
+        // Stragglers released after the first load finished start a second one
+        assertTrue(backend <= 2L * BURSTS, () -> backend + " round trips for " + totalCalls + " calls");
+    }
+
+    private <T> List<T> burst(Callable<T> call) throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(pool.submit(() -> {
+                go.await();
+                return call.call();
+            }));
+        }
+        go.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}